@@ -4,6 +4,8 @@ import com.asamblea.model.Sucursal;
 import com.asamblea.model.Usuario;
 import com.asamblea.model.Asamblea;
 import com.asamblea.repository.AsambleaRepository;
+import com.asamblea.repository.ConversacionRepository;
+import com.asamblea.repository.SocioRepository;
 import com.asamblea.repository.SucursalRepository;
 import com.asamblea.repository.UsuarioRepository;
 import lombok.RequiredArgsConstructor;
@@ -20,6 +22,8 @@ public class DataInitializer {
     private final UsuarioRepository usuarioRepository;
     private final AsambleaRepository asambleaRepository;
     private final SucursalRepository sucursalRepository;
+    private final SocioRepository socioRepository;
+    private final ConversacionRepository conversacionRepository;
     private final PasswordEncoder passwordEncoder;
 
     @Bean
@@ -75,6 +79,30 @@ public class DataInitializer {
                 System.err.println("⚠️ Advertencia al inicializar sucursales: " + e.getMessage());
             }
 
+            // ==========================================
+            // 3b. SINCRONIZAR COLUMNA voz_voto DE SOCIOS
+            // ==========================================
+            try {
+                int corregidos = socioRepository.recalcularVozVoto();
+                if (corregidos > 0) {
+                    System.out.println("✅ voz_voto recalculado para " + corregidos + " socios");
+                }
+            } catch (Exception e) {
+                System.err.println("⚠️ Advertencia al recalcular voz_voto: " + e.getMessage());
+            }
+
+            // ==========================================
+            // 3c. PREVIEW DEL ÚLTIMO MENSAJE DE CHAT
+            // ==========================================
+            try {
+                int completadas = conversacionRepository.completarUltimoMensaje();
+                if (completadas > 0) {
+                    System.out.println("✅ Preview de último mensaje completado en " + completadas + " conversaciones");
+                }
+            } catch (Exception e) {
+                System.err.println("⚠️ Advertencia al completar previews de chat: " + e.getMessage());
+            }
+
             // ==========================================
             // 4. CREAR ASAMBLEA INICIAL (CRÍTICO PARA ASISTENCIA)
             // ==========================================
@@ -0,0 +1,123 @@
+package com.asamblea.config;
+
+import com.asamblea.security.JwtService;
+import com.asamblea.security.SesionCacheService;
+import io.jsonwebtoken.Claims;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.lang.NonNull;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessagingException;
+import org.springframework.messaging.simp.config.ChannelRegistration;
+import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
+import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
+import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+
+/**
+ * Broker STOMP en memoria para el push en vivo (dashboard, check-ins,
+ * asignaciones, ranking y contadores de no leídos). Ver TiempoRealService.
+ * - /topic/** es público (la pantalla de proyección no inicia sesión).
+ * - /user/queue/** exige el JWT en la cabecera Authorization del CONNECT.
+ * - Los clientes no publican: no hay destinos /app.
+ */
+@Configuration
+@EnableWebSocketMessageBroker
+@RequiredArgsConstructor
+public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
+
+    private final JwtService jwtService;
+    private final SesionCacheService sesionCacheService;
+
+    /**
+     * Scheduler compartido por @Scheduled y los latidos del broker. Al haber
+     * broker STOMP, Spring Boot ya no crea el suyo; se declara aquí con varios
+     * hilos para que un backup o una reconciliación larga no frene el push.
+     */
+    @Bean
+    public ThreadPoolTaskScheduler taskScheduler() {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(4);
+        scheduler.setThreadNamePrefix("programadas-");
+        return scheduler;
+    }
+
+    @Override
+    public void registerStompEndpoints(@NonNull StompEndpointRegistry registry) {
+        // Bajo /api para pasar por los mismos proxies (nginx, rewrites de Next)
+        registry.addEndpoint("/api/ws").setAllowedOriginPatterns("*");
+        // Fallback SockJS para redes/proxies que no dejan pasar el upgrade
+        registry.addEndpoint("/api/ws-sockjs").setAllowedOriginPatterns("*").withSockJS();
+    }
+
+    @Override
+    public void configureMessageBroker(@NonNull MessageBrokerRegistry registry) {
+        registry.enableSimpleBroker("/topic", "/queue")
+                .setHeartbeatValue(new long[] { 10000, 10000 })
+                .setTaskScheduler(taskScheduler());
+        registry.setUserDestinationPrefix("/user");
+    }
+
+    @Override
+    public void configureClientInboundChannel(@NonNull ChannelRegistration registration) {
+        registration.interceptors(new ChannelInterceptor() {
+            @Override
+            public Message<?> preSend(@NonNull Message<?> message, @NonNull MessageChannel channel) {
+                StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+                if (accessor == null || accessor.getCommand() == null) {
+                    return message;
+                }
+                switch (accessor.getCommand()) {
+                    case CONNECT -> autenticar(accessor);
+                    case SUBSCRIBE -> {
+                        String destino = accessor.getDestination();
+                        if (destino == null) {
+                            throw new MessagingException("Destino requerido");
+                        }
+                        if (destino.startsWith("/user/") && accessor.getUser() == null) {
+                            throw new MessagingException("Suscripción privada sin autenticación: " + destino);
+                        }
+                        if (!destino.startsWith("/user/") && !destino.startsWith("/topic/")) {
+                            throw new MessagingException("Destino no permitido: " + destino);
+                        }
+                    }
+                    case SEND -> throw new MessagingException("El canal en vivo es solo de lectura");
+                    default -> {
+                    }
+                }
+                return message;
+            }
+        });
+    }
+
+    // Mismo criterio que JwtAuthenticationFilter; sin token queda como anónimo
+    private void autenticar(StompHeaderAccessor accessor) {
+        String authHeader = accessor.getFirstNativeHeader("Authorization");
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return;
+        }
+        String jwt = authHeader.substring(7).trim();
+        try {
+            Claims claims = jwtService.parseClaims(jwt);
+            String username = claims.getSubject();
+            if (username == null) {
+                return;
+            }
+            UserDetails userDetails = sesionCacheService.obtener(username, jwtService.extractTokenVersion(claims));
+            if (userDetails != null && jwtService.isTokenValid(claims, userDetails)) {
+                accessor.setUser(new UsernamePasswordAuthenticationToken(
+                        userDetails, null, userDetails.getAuthorities()));
+            }
+        } catch (Exception e) {
+            throw new MessagingException("Token inválido: " + e.getMessage());
+        }
+    }
+}
@@ -9,12 +9,15 @@ import com.asamblea.repository.ListaAsignacionRepository;
 import com.asamblea.repository.SocioRepository;
 import com.asamblea.repository.UsuarioRepository;
 import com.asamblea.repository.AsistenciaRepository;
+import com.asamblea.repository.LecturaRepository;
+import com.asamblea.service.EstadisticasListasService;
 import com.asamblea.service.ReporteExportService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 import jakarta.servlet.http.HttpServletRequest;
 
@@ -38,6 +41,13 @@ public class AsignacionController {
     private final com.asamblea.service.PushNotificationService pushService;
     private final com.asamblea.service.AvisoService avisoService;
     private final com.asamblea.service.ConfiguracionService configuracionService;
+    private final com.asamblea.service.SnapshotAsignacionesService snapshotAsignacionesService;
+    private final com.asamblea.service.SocioIndiceService socioIndiceService;
+    private final com.asamblea.service.ContadoresEnVivoService contadoresEnVivoService;
+    private final com.asamblea.service.ActividadRecienteService actividadRecienteService;
+    private final com.asamblea.service.EstadisticasListasService estadisticasListasService;
+    private final com.asamblea.service.PresenciaSociosService presenciaSociosService;
+    private final LecturaRepository lecturaRepository;
 
     @Autowired
     private JdbcTemplate jdbcTemplate;
@@ -69,40 +79,22 @@ public class AsignacionController {
                 return ResponseEntity.ok(new ArrayList<>());
             }
 
+            // Conteos de todas las listas del usuario en una sola consulta (o desde memoria)
+            Map<Long, EstadisticasListasService.Conteo> conteos = estadisticasListasService
+                    .obtener(listas.stream().map(ListaAsignacion::getId).toList());
+
             List<Map<String, Object>> result = new ArrayList<>();
             for (ListaAsignacion lista : listas) {
-                try {
-                    Map<String, Object> map = new HashMap<>();
-                    map.put("id", lista.getId());
-                    map.put("nombre", lista.getNombre() != null ? lista.getNombre() : "Lista sin nombre");
-                    map.put("descripcion", lista.getDescripcion() != null ? lista.getDescripcion() : "");
-
-                    // Safe counts with try-catch
-                    try {
-                        List<?> asignados = asignacionRepository.findByListaAsignacionId(lista.getId());
-                        map.put("total", asignados != null ? asignados.size() : 0);
-                    } catch (Exception ex) {
-                        System.err.println("ERROR counting total for list " + lista.getId() + ": " + ex.getMessage());
-                        ex.printStackTrace();
-                        map.put("total", 0);
-                    }
-
-                    try {
-                        map.put("vyv", asignacionRepository.countVyVByListaId(lista.getId()));
-                    } catch (Exception ex) {
-                        map.put("vyv", 0);
-                    }
-
-                    try {
-                        map.put("soloVoz", asignacionRepository.countSoloVozByListaId(lista.getId()));
-                    } catch (Exception ex) {
-                        map.put("soloVoz", 0);
-                    }
-
-                    result.add(map);
-                } catch (Exception ex) {
-                    System.err.println("Error processing list " + lista.getId() + ": " + ex.getMessage());
-                }
+                EstadisticasListasService.Conteo conteo = conteos.getOrDefault(lista.getId(),
+                        EstadisticasListasService.Conteo.VACIO);
+                Map<String, Object> map = new HashMap<>();
+                map.put("id", lista.getId());
+                map.put("nombre", lista.getNombre() != null ? lista.getNombre() : "Lista sin nombre");
+                map.put("descripcion", lista.getDescripcion() != null ? lista.getDescripcion() : "");
+                map.put("total", conteo.total());
+                map.put("vyv", conteo.vyv());
+                map.put("soloVoz", conteo.soloVoz());
+                result.add(map);
             }
 
             return ResponseEntity.ok(result);
@@ -135,8 +127,8 @@ public class AsignacionController {
                         u.rol,
                         COUNT(DISTINCT la.id) as totalListas,
                         COUNT(a.id) as totalAsignados,
-                        SUM(CASE WHEN (s.aporte_al_dia = 1 AND s.solidaridad_al_dia = 1 AND s.fondo_al_dia = 1 AND s.incoop_al_dia = 1 AND s.credito_al_dia = 1) THEN 1 ELSE 0 END) as vyv,
-                        SUM(CASE WHEN NOT (s.aporte_al_dia = 1 AND s.solidaridad_al_dia = 1 AND s.fondo_al_dia = 1 AND s.incoop_al_dia = 1 AND s.credito_al_dia = 1) THEN 1 ELSE 0 END) as soloVoz
+                        SUM(CASE WHEN s.voz_voto = 1 THEN 1 ELSE 0 END) as vyv,
+                        SUM(CASE WHEN s.voz_voto = 0 THEN 1 ELSE 0 END) as soloVoz
                     FROM usuarios u
                     INNER JOIN listas_asignacion la ON la.user_id = u.id
                     INNER JOIN asignaciones_socios a ON a.lista_id = la.id
@@ -177,21 +169,12 @@ public class AsignacionController {
             List<ListaAsignacion> listas = listaRepository.findByUsuarioId(user.getId());
             System.out.println("DEBUG: Found " + listas.size() + " listas for user " + user.getId());
 
-            long totalAsignados = 0;
-            long totalVyV = 0;
-            long totalSoloVoz = 0;
-            long presentes = 0;
-
-            for (ListaAsignacion lista : listas) {
-                try {
-                    totalAsignados += asignacionRepository.findByListaAsignacionId(lista.getId()).size();
-                    totalVyV += asignacionRepository.countVyVByListaId(lista.getId());
-                    totalSoloVoz += asignacionRepository.countSoloVozByListaId(lista.getId());
-                    presentes += asistenciaRepository.countPresentesByListaId(lista.getId());
-                } catch (Exception ex) {
-                    System.err.println("Error calculating stats for list " + lista.getId() + ": " + ex.getMessage());
-                }
-            }
+            EstadisticasListasService.Conteo suma = estadisticasListasService
+                    .sumar(listas.stream().map(ListaAsignacion::getId).toList());
+            long totalAsignados = suma.total();
+            long totalVyV = suma.vyv();
+            long totalSoloVoz = suma.soloVoz();
+            long presentes = suma.presentes();
 
             // Asegurar que presentes no supere el total de asignados
             long presentesCorregidos = Math.min(presentes, totalAsignados);
@@ -247,7 +230,8 @@ public class AsignacionController {
                 "CREAR_LISTA",
                 "Creó lista de asignación: " + lista.getNombre(),
                 user.getUsername(),
-                request.getRemoteAddr());
+                request.getRemoteAddr(),
+                "LISTA", null, user.getId());
 
         // Notificar a Admins
         pushService.sendToAdmins(
@@ -272,9 +256,12 @@ public class AsignacionController {
                 "ELIMINAR_LISTA",
                 "Eliminó lista de asignación: " + lista.getNombre(),
                 auth.getName(),
-                request.getRemoteAddr());
+                request.getRemoteAddr(),
+                "LISTA", null, lista.getUsuario().getId());
 
         listaRepository.delete(lista);
+        contadoresEnVivoService.invalidar();
+        actividadRecienteService.invalidar();
         return ResponseEntity.ok().build();
     }
 
@@ -302,7 +289,8 @@ public class AsignacionController {
                 "EDITAR_LISTA",
                 "Editó lista: " + lista.getNombre(),
                 auth.getName(),
-                request.getRemoteAddr());
+                request.getRemoteAddr(),
+                "LISTA", null, lista.getUsuario().getId());
 
         return ResponseEntity.ok(lista);
     }
@@ -331,7 +319,8 @@ public class AsignacionController {
                 "ACTIVAR_LISTA",
                 "Activó lista para trabajo: " + lista.getNombre(),
                 user.getUsername(),
-                request.getRemoteAddr());
+                request.getRemoteAddr(),
+                "LISTA", null, user.getId());
 
         return ResponseEntity.ok(actualizada);
     }
@@ -344,6 +333,8 @@ public class AsignacionController {
         }
 
         List<ListaAsignacion> todas = listaRepository.findAll();
+        Map<Long, EstadisticasListasService.Conteo> conteos = estadisticasListasService
+                .obtener(todas.stream().map(ListaAsignacion::getId).toList());
         List<Map<String, Object>> result = todas.stream().map(lista -> {
             Map<String, Object> map = new HashMap<>();
             map.put("id", lista.getId());
@@ -351,7 +342,8 @@ public class AsignacionController {
             map.put("responsable", lista.getUsuario().getNombreCompleto());
             map.put("responsableUser", lista.getUsuario().getUsername());
             map.put("activa", Boolean.TRUE.equals(lista.getActiva()));
-            map.put("total", asignacionRepository.findByListaAsignacionId(lista.getId()).size());
+            map.put("total", conteos.getOrDefault(lista.getId(),
+                    EstadisticasListasService.Conteo.VACIO).total());
             return map;
         }).collect(Collectors.toList());
 
@@ -367,6 +359,12 @@ public class AsignacionController {
 
         List<Usuario> usuarios = usuarioRepository.findByActivoTrue();
 
+        // Listas activas, sus totales y los registros de cada operador: tres consultas para todos
+        Map<Long, Long> listaActivaPorUsuario = lecturaRepository.listaActivaPorUsuario();
+        Map<Long, EstadisticasListasService.Conteo> conteos = estadisticasListasService
+                .obtener(listaActivaPorUsuario.values());
+        Map<Long, Long> registrosPorOperador = lecturaRepository.asistenciasPorOperador();
+
         List<Map<String, Object>> result = usuarios.stream()
                 .map(u -> {
                     Map<String, Object> m = new HashMap<>();
@@ -377,25 +375,22 @@ public class AsignacionController {
                     m.put("responsable", u.getNombreCompleto());
                     m.put("responsableUser", u.getUsername());
 
-                    // Buscar lista activa real y contar asignados
-                    List<ListaAsignacion> listas = listaRepository.findByUsuarioId(u.getId());
-                    Optional<ListaAsignacion> activa = listas.stream().filter(l -> Boolean.TRUE.equals(l.getActiva()))
-                            .findFirst();
-
-                    int totalAsignados = 0;
-                    if (activa.isPresent()) {
-                        totalAsignados = asignacionRepository.findByListaAsignacionId(activa.get().getId()).size();
-                        m.put("idListaReal", activa.get().getId());
+                    // Lista activa real y asignados
+                    Long activa = listaActivaPorUsuario.get(u.getId());
+                    long totalAsignados = 0;
+                    if (activa != null) {
+                        totalAsignados = conteos.getOrDefault(activa, EstadisticasListasService.Conteo.VACIO).total();
+                        m.put("idListaReal", activa);
                     }
 
-                    // Contar asistencias realizadas por el operador
-                    int totalRegistrados = asistenciaRepository.findByOperadorId(u.getId()).size();
+                    // Asistencias realizadas por el operador
+                    long totalRegistrados = registrosPorOperador.getOrDefault(u.getId(), 0L);
 
                     // Total combinado (aproximado, el detalle filtra duplicados)
                     m.put("total", totalAsignados + totalRegistrados);
 
                     // Consideramos activa si tiene lista activa O tiene registros
-                    m.put("activa", activa.isPresent() || totalRegistrados > 0);
+                    m.put("activa", activa != null || totalRegistrados > 0);
 
                     return m;
                 }).collect(Collectors.toList());
@@ -404,6 +399,7 @@ public class AsignacionController {
     }
 
     @PostMapping("/admin/asignar-a-usuario/{userId}")
+    @Transactional
     public ResponseEntity<?> asignarAUsuario(@PathVariable Long userId, @RequestBody Map<String, String> body,
             Authentication auth) {
         Usuario admin = usuarioRepository.findByUsername(auth.getName()).orElseThrow();
@@ -417,9 +413,8 @@ public class AsignacionController {
         }
 
         String term = body.get("term");
-        Optional<Socio> socioOpt = socioRepository.findByNumeroSocio(term);
-        if (socioOpt.isEmpty())
-            socioOpt = socioRepository.findByCedula(term);
+        Optional<Socio> socioOpt = socioIndiceService.buscarPorTermino(term)
+                .map(com.asamblea.service.SocioIndiceService.SocioResumen::aSocio);
         if (socioOpt.isEmpty())
             return ResponseEntity.status(404).body(Map.of("error", "Socio no encontrado"));
 
@@ -492,16 +487,21 @@ public class AsignacionController {
                     "Intento fallido Admin: " + admin.getUsername() + " quiso asignar a socio #"
                             + socioOpt.get().getNumeroSocio() + " pero ya pertenece a " + usuarioLista,
                     admin.getUsername(),
-                    "API_ADMIN_FAIL");
+                    "API_ADMIN_FAIL",
+                    "SOCIO", socioOpt.get().getId(), existing.getListaAsignacion().getUsuario().getId());
 
             return ResponseEntity.status(409).body(errorResponse);
         }
 
         Asignacion asignacion = new Asignacion();
         asignacion.setListaAsignacion(listaActiva);
-        asignacion.setSocio(socioOpt.get());
+        asignacion.setSocio(socioRepository.getReferenceById(socioOpt.get().getId()));
         asignacion.setAsignadoPor(admin); // Guardar quién hizo la asignación
         asignacionRepository.save(asignacion);
+        snapshotAsignacionesService.registrarAlta(asignacion);
+        contadoresEnVivoService.registrarAsignacion(socioOpt.get().getId(), destino.getRol());
+        estadisticasListasService.registrarAlta(listaActiva.getId(), socioOpt.get().getId());
+        publicarAsignacion(asignacion, socioOpt.get(), destino);
 
         // AUDITORÍA ÉXITO
         // Al método le falta HttpServletRequest, pero podemos usar uno dummy o nulo si
@@ -517,7 +517,8 @@ public class AsignacionController {
                 "Admin " + admin.getUsername() + " asignó socio #" + socioOpt.get().getNumeroSocio() + " a "
                         + destino.getUsername(),
                 admin.getUsername(),
-                "API_ADMIN");
+                "API_ADMIN",
+                "SOCIO", socioOpt.get().getId(), destino.getId());
 
         pushService.sendToAdmins(
                 "✅ ¡Socio Vinculado!",
@@ -528,6 +529,7 @@ public class AsignacionController {
     }
 
     @PostMapping("/{listaId}/agregar-socio")
+    @Transactional
     public ResponseEntity<?> agregarSocio(@PathVariable Long listaId, @RequestBody Map<String, String> body,
             Authentication auth, HttpServletRequest request) {
 
@@ -537,11 +539,10 @@ public class AsignacionController {
             return ResponseEntity.status(403).body(bloqueo);
         }
 
+        // Número de socio o cédula, resuelto desde el índice en memoria
         String term = body.get("term");
-        Optional<Socio> socioOpt = socioRepository.findByNumeroSocio(term);
-        if (socioOpt.isEmpty()) {
-            socioOpt = socioRepository.findByCedula(term);
-        }
+        Optional<Socio> socioOpt = socioIndiceService.buscarPorTermino(term)
+                .map(com.asamblea.service.SocioIndiceService.SocioResumen::aSocio);
 
         if (socioOpt.isEmpty()) {
             return ResponseEntity.status(404).body(Map.of("error", "Socio no encontrado"));
@@ -609,16 +610,21 @@ public class AsignacionController {
                     "Intento fallido: " + currentUser.getUsername() + " quiso asignar a socio #"
                             + socio.getNumeroSocio() + " pero ya pertenece a " + usuarioLista,
                     currentUser.getUsername(),
-                    request.getRemoteAddr());
+                    request.getRemoteAddr(),
+                    "SOCIO", socio.getId(), existing.getListaAsignacion().getUsuario().getId());
 
             return ResponseEntity.status(409).body(errorResponse);
         }
 
         Asignacion asignacion = new Asignacion();
         asignacion.setListaAsignacion(lista);
-        asignacion.setSocio(socio);
+        asignacion.setSocio(socioRepository.getReferenceById(socio.getId()));
         asignacion.setAsignadoPor(currentUser); // Guardar quién hizo la asignación
         asignacionRepository.save(asignacion);
+        snapshotAsignacionesService.registrarAlta(asignacion);
+        contadoresEnVivoService.registrarAsignacion(socio.getId(), lista.getUsuario().getRol());
+        estadisticasListasService.registrarAlta(lista.getId(), socio.getId());
+        publicarAsignacion(asignacion, socio, lista.getUsuario());
 
         // AUDITORÍA ÉXITO
         auditService.registrar(
@@ -627,7 +633,8 @@ public class AsignacionController {
                 "Usuario " + currentUser.getUsername() + " asignó socio #" + socio.getNumeroSocio() + " ("
                         + socio.getNombreCompleto() + ")",
                 currentUser.getUsername(),
-                request.getRemoteAddr());
+                request.getRemoteAddr(),
+                "SOCIO", socio.getId(), lista.getUsuario().getId());
 
         // Notificar a Admins (solo si no es el mismo admin quien asigna, para reducir
         // ruido, o siempre)
@@ -653,6 +660,7 @@ public class AsignacionController {
     }
 
     @DeleteMapping("/{listaId}/socio/{socioId}")
+    @Transactional
     public ResponseEntity<?> eliminarSocio(@PathVariable Long listaId, @PathVariable Long socioId,
             Authentication auth, HttpServletRequest request) {
         ListaAsignacion lista = listaRepository.findById(listaId).orElseThrow();
@@ -672,17 +680,30 @@ public class AsignacionController {
                 .orElseThrow(() -> new RuntimeException("Asignación no encontrada"));
 
         asignacionRepository.delete(asignacion);
+        snapshotAsignacionesService.registrarBaja(asignacion);
+        contadoresEnVivoService.registrarBajaAsignacion(socioId, lista.getUsuario().getRol());
+        estadisticasListasService.registrarBaja(listaId, socioId);
+        actividadRecienteService.invalidar();
 
         auditService.registrar(
                 "ASIGNACIONES",
                 "ELIMINAR_ASIGNACION",
                 "Eliminó asignación de socio #" + asignacion.getSocio().getNumeroSocio() + " de la lista " + listaId,
                 auth.getName(),
-                request.getRemoteAddr());
+                request.getRemoteAddr(),
+                "SOCIO", socioId, lista.getUsuario().getId());
 
         return ResponseEntity.ok(Map.of("success", true));
     }
 
+    // Evento para el feed de actividad y la pantalla en vivo (mismo formato que
+    // /api/public/ultimas-asignaciones)
+    private void publicarAsignacion(Asignacion asignacion, Socio socio, Usuario duenoLista) {
+        actividadRecienteService.registrarAsignacion(asignacion.getId(), socio.getNombreCompleto(),
+                socio.getNumeroSocio(), socio.getSucursal() != null ? socio.getSucursal().getNombre() : null,
+                duenoLista.getUsername(), socio.isEstadoVozVoto(), asignacion.getFechaAsignacion());
+    }
+
     @GetMapping("/{listaId}/socios")
     public ResponseEntity<List<Socio>> verSocios(@PathVariable Long listaId, Authentication auth) {
         if (auth == null) {
@@ -702,14 +723,7 @@ public class AsignacionController {
                 return ResponseEntity.status(403).build();
             }
 
-            List<Asignacion> asignaciones = asignacionRepository.findByListaAsignacionId(listaId);
-            if (asignaciones == null) {
-                return ResponseEntity.ok(new ArrayList<>());
-            }
-
-            List<Socio> socios = asignaciones.stream()
-                    .filter(a -> a.getSocio() != null)
-                    .map(Asignacion::getSocio)
+            List<Socio> socios = socioRepository.findSociosDeLista(listaId).stream()
                     .distinct()
                     .collect(Collectors.toList());
 
@@ -751,25 +765,26 @@ public class AsignacionController {
                 .findFirst();
 
         if (listaActiva.isPresent()) {
-            List<Asignacion> asignaciones = asignacionRepository.findByListaAsignacionId(listaActiva.get().getId());
-            for (Asignacion a : asignaciones) {
-                if (a.getSocio() != null && !procesados.contains(a.getSocio().getId())) {
-                    procesados.add(a.getSocio().getId());
-                    sociosDetalle.add(mapSocioDetalle(a.getSocio(), a.getFechaAsignacion(), "Asignación Lista",
-                            a.getAsignadoPor()));
+            for (LecturaRepository.AsignacionFila a : lecturaRepository
+                    .asignacionesDeListas(List.of(listaActiva.get().getId()))) {
+                if (!procesados.contains(a.socio().id())) {
+                    procesados.add(a.socio().id());
+                    sociosDetalle.add(mapSocioDetalle(a.socio(), a.fechaAsignacion(), "Asignación Lista",
+                            a.asignadoPor()));
                 }
             }
         }
 
         // 2. Obtener Registrados (asistencias realizadas por este operador)
-        List<com.asamblea.model.Asistencia> asistencias = asistenciaRepository.findByOperadorId(userId);
-        for (com.asamblea.model.Asistencia asist : asistencias) {
-            if (asist.getSocio() != null) {
-                if (!procesados.contains(asist.getSocio().getId())) {
+        List<LecturaRepository.AsistenciaFila> asistencias = lecturaRepository.asistenciasReporte(null, null, null,
+                userId, null);
+        for (LecturaRepository.AsistenciaFila asist : asistencias) {
+            if (asist.socio() != null) {
+                if (!procesados.contains(asist.socio().id())) {
                     // Es un registro nuevo (no estaba asignado)
-                    procesados.add(asist.getSocio().getId());
+                    procesados.add(asist.socio().id());
                     sociosDetalle
-                            .add(mapSocioDetalle(asist.getSocio(), asist.getFechaHora(), "Registro en Mesa", null));
+                            .add(mapSocioDetalle(asist.socio(), asist.fechaHora(), "Registro en Mesa", null));
                 } else {
                     // Ya estaba, actualizamos info de ingreso si es necesario (se hace en el
                     // mapSocioDetalle si consultamos)
@@ -779,15 +794,10 @@ public class AsignacionController {
             }
         }
 
-        // Re-procesar para asegurar fechas de ingreso correctas en todos
+        // Re-procesar para asegurar fechas de ingreso correctas en todos (una consulta para todos)
+        Map<Long, java.time.LocalDateTime> ingresos = presenciaSociosService.ingresos(procesados);
         for (Map<String, Object> item : sociosDetalle) {
-            Long socioId = (Long) item.get("id");
-            Optional<com.asamblea.model.Asistencia> asisOpt = asistenciaRepository.findFirstBySocioId(socioId);
-            if (asisOpt.isPresent()) {
-                item.put("fechaHoraIngreso", asisOpt.get().getFechaHora());
-            } else {
-                item.put("fechaHoraIngreso", null);
-            }
+            item.put("fechaHoraIngreso", ingresos.get((Long) item.get("id")));
         }
 
         // Stats
@@ -808,18 +818,18 @@ public class AsignacionController {
         return ResponseEntity.ok(response);
     }
 
-    private Map<String, Object> mapSocioDetalle(Socio socio, java.time.LocalDateTime fechaRef, String origen,
-            Usuario asignadoPorObj) {
+    private Map<String, Object> mapSocioDetalle(LecturaRepository.SocioFila socio, java.time.LocalDateTime fechaRef,
+            String origen, String asignadoPor) {
         Map<String, Object> m = new HashMap<>();
-        m.put("id", socio.getId());
-        m.put("cedula", socio.getCedula());
-        m.put("nombreCompleto", socio.getNombreCompleto());
-        m.put("numeroSocio", socio.getNumeroSocio());
+        m.put("id", socio.id());
+        m.put("cedula", socio.cedula());
+        m.put("nombreCompleto", socio.nombreCompleto());
+        m.put("numeroSocio", socio.numeroSocio());
         m.put("fechaAsignacion", fechaRef); // Usamos fecha de asignacion o de registro como referencia
-        m.put("esVyV", socio.isEstadoVozVoto());
-        m.put("condicion", socio.isEstadoVozVoto() ? "VOZ Y VOTO" : "SOLO VOZ");
+        m.put("esVyV", socio.estadoVozVoto());
+        m.put("condicion", socio.estadoVozVoto() ? "VOZ Y VOTO" : "SOLO VOZ");
         m.put("origen", origen);
-        m.put("asignadoPor", asignadoPorObj != null ? asignadoPorObj.getNombreCompleto()
+        m.put("asignadoPor", asignadoPor != null ? asignadoPor
                 : (origen.equals("Registro en Mesa") ? "Mesa de Entrada" : "Sistema"));
         return m;
     }
@@ -842,35 +852,31 @@ public class AsignacionController {
             }
 
             ListaAsignacion lista = listaOpt.get();
-            List<Asignacion> asignaciones = asignacionRepository.findByListaAsignacionId(listaId);
+            List<LecturaRepository.AsignacionFila> asignaciones = lecturaRepository
+                    .asignacionesDeListas(List.of(listaId));
+            Map<Long, java.time.LocalDateTime> ingresos = presenciaSociosService
+                    .ingresos(asignaciones.stream().map(a -> a.socio().id()).toList());
 
             List<Map<String, Object>> sociosDetalle = new ArrayList<>();
-            for (Asignacion asignacion : asignaciones) {
-                Socio socio = asignacion.getSocio();
+            for (LecturaRepository.AsignacionFila asignacion : asignaciones) {
+                LecturaRepository.SocioFila socio = asignacion.socio();
                 if (socio != null) {
-                    boolean esVyV = socio.isEstadoVozVoto();
+                    boolean esVyV = socio.estadoVozVoto();
 
                     Map<String, Object> socioMap = new HashMap<>();
-                    socioMap.put("id", socio.getId());
-                    socioMap.put("cedula", socio.getCedula() != null ? socio.getCedula() : "-");
+                    socioMap.put("id", socio.id());
+                    socioMap.put("cedula", socio.cedula() != null ? socio.cedula() : "-");
                     socioMap.put("nombreCompleto",
-                            socio.getNombreCompleto() != null ? socio.getNombreCompleto() : "Sin Nombre");
-                    socioMap.put("numeroSocio", socio.getNumeroSocio() != null ? socio.getNumeroSocio() : "-");
-                    socioMap.put("fechaAsignacion", asignacion.getFechaAsignacion());
+                            socio.nombreCompleto() != null ? socio.nombreCompleto() : "Sin Nombre");
+                    socioMap.put("numeroSocio", socio.numeroSocio() != null ? socio.numeroSocio() : "-");
+                    socioMap.put("fechaAsignacion", asignacion.fechaAsignacion());
                     socioMap.put("condicion", esVyV ? "VOZ Y VOTO" : "SOLO VOZ");
                     socioMap.put("esVyV", esVyV);
                     socioMap.put("asignadoPor",
-                            asignacion.getAsignadoPor() != null ? asignacion.getAsignadoPor().getNombreCompleto()
-                                    : "Sistema");
-
-                    // Buscar datos de asistencia (ingreso)
-                    java.util.Optional<com.asamblea.model.Asistencia> asistenciaOpt = asistenciaRepository
-                            .findFirstBySocioId(socio.getId());
-                    if (asistenciaOpt.isPresent()) {
-                        socioMap.put("fechaHoraIngreso", asistenciaOpt.get().getFechaHora());
-                    } else {
-                        socioMap.put("fechaHoraIngreso", null);
-                    }
+                            asignacion.asignadoPor() != null ? asignacion.asignadoPor() : "Sistema");
+
+                    // Datos de asistencia (ingreso)
+                    socioMap.put("fechaHoraIngreso", ingresos.get(socio.id()));
 
                     sociosDetalle.add(socioMap);
                 }
@@ -919,44 +925,37 @@ public class AsignacionController {
                 return ResponseEntity.ok(new ArrayList<>());
             }
 
-            List<Map<String, Object>> sociosDetalle = new ArrayList<>();
+            // Asignaciones de todas las listas y su asistencia: dos consultas en total
+            Map<Long, String> nombresLista = new HashMap<>();
+            for (ListaAsignacion lista : listas) {
+                nombresLista.put(lista.getId(), lista.getNombre() != null ? lista.getNombre() : "Lista sin nombre");
+            }
+            List<LecturaRepository.AsignacionFila> asignaciones = lecturaRepository
+                    .asignacionesDeListas(nombresLista.keySet());
+            Map<Long, java.time.LocalDateTime> ingresos = presenciaSociosService
+                    .ingresos(asignaciones.stream().map(a -> a.socio().id()).toList());
 
+            // Agrupadas por lista, en el orden de las listas
+            Map<Long, List<Map<String, Object>>> porLista = new LinkedHashMap<>();
             for (ListaAsignacion lista : listas) {
-                try {
-                    List<Asignacion> asignaciones = asignacionRepository.findByListaAsignacionId(lista.getId());
-                    if (asignaciones != null) {
-                        for (Asignacion asignacion : asignaciones) {
-                            try {
-                                Socio socio = asignacion.getSocio();
-                                if (socio != null) {
-                                    // Si existe un registro de asistencia, el socio está presente
-                                    boolean presente = asistenciaRepository.existsBySocioId(socio.getId());
-
-                                    Map<String, Object> socioMap = new HashMap<>();
-                                    socioMap.put("id", socio.getId());
-                                    socioMap.put("nombreCompleto",
-                                            socio.getNombreCompleto() != null ? socio.getNombreCompleto()
-                                                    : "Sin Nombre");
-                                    socioMap.put("numeroSocio",
-                                            socio.getNumeroSocio() != null ? socio.getNumeroSocio() : "N/A");
-                                    socioMap.put("cedula", socio.getCedula() != null ? socio.getCedula() : "N/A");
-                                    socioMap.put("presente", presente);
-                                    socioMap.put("lista",
-                                            lista.getNombre() != null ? lista.getNombre() : "Lista sin nombre");
-
-                                    sociosDetalle.add(socioMap);
-                                }
-                            } catch (Exception ex) {
-                                System.err.println(
-                                        "Error processing assignment " + asignacion.getId() + ": " + ex.getMessage());
-                            }
-                        }
-                    }
-                } catch (Exception ex) {
-                    System.err.println("Error processing list " + lista.getId() + " in details: " + ex.getMessage());
-                }
+                porLista.put(lista.getId(), new ArrayList<>());
+            }
+            for (LecturaRepository.AsignacionFila asignacion : asignaciones) {
+                LecturaRepository.SocioFila socio = asignacion.socio();
+                Map<String, Object> socioMap = new HashMap<>();
+                socioMap.put("id", socio.id());
+                socioMap.put("nombreCompleto", socio.nombreCompleto() != null ? socio.nombreCompleto() : "Sin Nombre");
+                socioMap.put("numeroSocio", socio.numeroSocio() != null ? socio.numeroSocio() : "N/A");
+                socioMap.put("cedula", socio.cedula() != null ? socio.cedula() : "N/A");
+                // Si existe un registro de asistencia, el socio está presente
+                socioMap.put("presente", ingresos.containsKey(socio.id()));
+                socioMap.put("lista", nombresLista.get(asignacion.listaId()));
+                porLista.get(asignacion.listaId()).add(socioMap);
             }
 
+            List<Map<String, Object>> sociosDetalle = new ArrayList<>();
+            porLista.values().forEach(sociosDetalle::addAll);
+
             return ResponseEntity.ok(sociosDetalle);
         } catch (Exception e) {
             System.err.println("CRITICAL ERROR in /mis-socios-detalle: " + e.getMessage());
@@ -1006,15 +1005,9 @@ public class AsignacionController {
             result.put("estadoActual", null);
         }
 
-        // 3. Historial de Auditoría
-        // Buscamos logs que contengan el numero de socio
-        List<com.asamblea.model.LogAuditoria> logs = auditService.buscarPorTermino(socio.getNumeroSocio());
-
-        // Filtramos para quedarnos con lo relevante de asignaciones
-        List<com.asamblea.model.LogAuditoria> logsRelevantes = logs.stream()
-                .filter(l -> l.getModulo().equals("ASIGNACIONES"))
-                // Opcional: filtrar por acciones especificas si hay mucho ruido
-                .collect(Collectors.toList());
+        // 3. Historial de Auditoría de asignaciones del socio (por socio_id, indexado)
+        List<com.asamblea.model.LogAuditoria> logsRelevantes = auditService.historialSocio(socio.getId(),
+                socio.getNumeroSocio(), "ASIGNACIONES");
 
         result.put("historial", logsRelevantes);
 
@@ -1050,19 +1043,36 @@ public class AsignacionController {
 
     @GetMapping("/exportar-asignaciones-excel")
     public ResponseEntity<byte[]> exportarAsignacionesExcel(@RequestParam(defaultValue = "30") int dias,
-            Authentication auth) {
+            Authentication auth) throws Exception {
         if (auth == null)
             return ResponseEntity.status(401).build();
 
-        List<Map<String, Object>> stats = asignacionRepository.findStatsPorDia(dias);
-        com.asamblea.service.ReporteExportService exportService = new com.asamblea.service.ReporteExportService(); // O
-                                                                                                                   // inyectarlo
-        byte[] excel = exportService.generarExcelAsignacionesDiarias(stats, dias); // Retorna CSV por ahora
+        java.io.ByteArrayOutputStream out = new java.io.ByteArrayOutputStream();
+        solicitudAsignacionesExcel(dias).generador().escribir(out);
 
         return ResponseEntity.ok()
                 .header("Content-Type", "text/csv")
                 .header("Content-Disposition", "attachment; filename=asignaciones_diarias.csv")
-                .body(excel);
+                .body(out.toByteArray());
+    }
+
+    /**
+     * Misma exportación que GET /exportar-asignaciones-excel, en la cola de reportes
+     */
+    @PostMapping("/exportar-asignaciones-excel/job")
+    public ResponseEntity<?> encolarAsignacionesExcel(@RequestParam(defaultValue = "30") int dias,
+            Authentication auth) {
+        if (auth == null)
+            return ResponseEntity.status(401).build();
+        return encolar(solicitudAsignacionesExcel(dias), auth);
+    }
+
+    private com.asamblea.service.ReporteJobService.Solicitud solicitudAsignacionesExcel(int dias) {
+        return new com.asamblea.service.ReporteJobService.Solicitud("asignaciones-diarias-csv", "dias=" + dias,
+                "asignaciones_diarias.csv", "text/csv", out -> {
+                    List<Map<String, Object>> stats = asignacionRepository.findStatsPorDia(dias);
+                    out.write(reporteExportService.generarExcelAsignacionesDiarias(stats, dias)); // CSV por ahora
+                });
     }
 
     @GetMapping("/stats-dia-hoy")
@@ -1077,11 +1087,48 @@ public class AsignacionController {
     @Autowired
     private ReporteExportService reporteExportService;
 
+    @Autowired
+    private com.asamblea.service.ReporteJobService reporteJobService;
+
     /**
      * Exportar PDF General de Gestión de Listas
      */
     @GetMapping("/export-pdf-general")
     public ResponseEntity<byte[]> exportarPdfGeneral(Authentication auth) {
+        ResponseEntity<byte[]> denegado = verificarGestionListas(auth);
+        if (denegado != null) {
+            return denegado;
+        }
+
+        try {
+            java.io.ByteArrayOutputStream out = new java.io.ByteArrayOutputStream();
+            solicitudPdfGeneral().generador().escribir(out);
+
+            return ResponseEntity.ok()
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=gestion_listas_general.pdf")
+                    .contentType(MediaType.APPLICATION_PDF)
+                    .body(out.toByteArray());
+
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    /**
+     * Mismo PDF general, generado en la cola de reportes
+     */
+    @PostMapping("/export-pdf-general/job")
+    public ResponseEntity<?> encolarPdfGeneral(Authentication auth) {
+        ResponseEntity<byte[]> denegado = verificarGestionListas(auth);
+        if (denegado != null) {
+            return denegado;
+        }
+        return encolar(solicitudPdfGeneral(), auth);
+    }
+
+    // SUPER_ADMIN o permiso granular "gestion-listas"; null si puede exportar
+    private <T> ResponseEntity<T> verificarGestionListas(Authentication auth) {
         if (auth == null) {
             return ResponseEntity.status(401).build();
         }
@@ -1097,41 +1144,47 @@ public class AsignacionController {
         if (admin.getRol() != Usuario.Rol.SUPER_ADMIN && !hasGranularPermission) {
             return ResponseEntity.status(403).build();
         }
+        return null;
+    }
 
-        try {
-            // Obtener ranking completo
-            String sql = """
-                SELECT
-                    u.id,
-                    u.nombre_completo as nombre,
-                    u.username,
-                    u.rol,
-                    COALESCE(suc.nombre, 'Sin Sucursal') as sucursal,
-                    COUNT(a.id) as totalAsignados,
-                    SUM(CASE WHEN (s.aporte_al_dia = 1 AND s.solidaridad_al_dia = 1 AND s.fondo_al_dia = 1 AND s.incoop_al_dia = 1 AND s.credito_al_dia = 1) THEN 1 ELSE 0 END) as vyv,
-                    SUM(CASE WHEN NOT (s.aporte_al_dia = 1 AND s.solidaridad_al_dia = 1 AND s.fondo_al_dia = 1 AND s.incoop_al_dia = 1 AND s.credito_al_dia = 1) THEN 1 ELSE 0 END) as soloVoz
-                FROM usuarios u
-                LEFT JOIN sucursales suc ON u.id_sucursal = suc.id
-                INNER JOIN listas_asignacion la ON la.user_id = u.id
-                INNER JOIN asignaciones_socios a ON a.lista_id = la.id
-                INNER JOIN socios s ON a.socio_id = s.id
-                GROUP BY u.id, u.nombre_completo, u.username, u.rol, suc.nombre
-                HAVING totalAsignados > 0
-                ORDER BY totalAsignados DESC
-            """;
-
-            List<Map<String, Object>> ranking = jdbcTemplate.queryForList(sql);
-
-            byte[] pdfContent = reporteExportService.generarPdfGestionListasGeneral(ranking);
-
-            return ResponseEntity.ok()
-                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=gestion_listas_general.pdf")
-                    .contentType(MediaType.APPLICATION_PDF)
-                    .body(pdfContent);
+    private com.asamblea.service.ReporteJobService.Solicitud solicitudPdfGeneral() {
+        return new com.asamblea.service.ReporteJobService.Solicitud("gestion-listas-general", "",
+                "gestion_listas_general.pdf", MediaType.APPLICATION_PDF_VALUE, out -> {
+                    // Obtener ranking completo
+                    String sql = """
+                        SELECT
+                            u.id,
+                            u.nombre_completo as nombre,
+                            u.username,
+                            u.rol,
+                            COALESCE(suc.nombre, 'Sin Sucursal') as sucursal,
+                            COUNT(a.id) as totalAsignados,
+                            SUM(CASE WHEN s.voz_voto = 1 THEN 1 ELSE 0 END) as vyv,
+                            SUM(CASE WHEN s.voz_voto = 0 THEN 1 ELSE 0 END) as soloVoz
+                        FROM usuarios u
+                        LEFT JOIN sucursales suc ON u.id_sucursal = suc.id
+                        INNER JOIN listas_asignacion la ON la.user_id = u.id
+                        INNER JOIN asignaciones_socios a ON a.lista_id = la.id
+                        INNER JOIN socios s ON a.socio_id = s.id
+                        GROUP BY u.id, u.nombre_completo, u.username, u.rol, suc.nombre
+                        HAVING totalAsignados > 0
+                        ORDER BY totalAsignados DESC
+                    """;
+
+                    List<Map<String, Object>> ranking = jdbcTemplate.queryForList(sql);
+                    out.write(reporteExportService.generarPdfGestionListasGeneral(ranking));
+                });
+    }
 
-        } catch (Exception e) {
-            e.printStackTrace();
-            return ResponseEntity.internalServerError().build();
+    // 202 con el trabajo (o 200 si ya estaba listo en cache); 503 con la cola llena
+    private ResponseEntity<?> encolar(com.asamblea.service.ReporteJobService.Solicitud solicitud,
+            Authentication auth) {
+        try {
+            var trabajo = reporteJobService.enviar(solicitud, auth.getName());
+            return ResponseEntity.status(trabajo.getEstado() == com.asamblea.service.ReporteJobService.Estado.LISTO
+                    ? 200 : 202).body(trabajo.aMapa());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(503).body(Map.of("error", e.getMessage()));
         }
     }
 
@@ -1169,7 +1222,7 @@ public class AsignacionController {
                     s.cedula,
                     s.nombre_completo,
                     COALESCE(suc.nombre, 'Sin Sucursal') as sucursal,
-                    CASE WHEN (s.aporte_al_dia = 1 AND s.solidaridad_al_dia = 1 AND s.fondo_al_dia = 1 AND s.incoop_al_dia = 1 AND s.credito_al_dia = 1) THEN 1 ELSE 0 END as es_vyv,
+                    CASE WHEN s.voz_voto = 1 THEN 1 ELSE 0 END as es_vyv,
                     a.fecha_asignacion,
                     s.aporte_al_dia, s.solidaridad_al_dia, s.fondo_al_dia, s.incoop_al_dia, s.credito_al_dia
                 FROM asignaciones_socios a
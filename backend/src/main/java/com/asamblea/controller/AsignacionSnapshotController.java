@@ -0,0 +1,93 @@
+package com.asamblea.controller;
+
+import com.asamblea.model.AsignacionSnapshot;
+import com.asamblea.service.DatosReemplazadosEvent;
+import com.asamblea.service.LogAuditoriaService;
+import com.asamblea.service.SnapshotAsignacionesService;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Snapshots versionados de asignaciones (reemplazan a las tablas
+ * z_respaldo_asignaciones_* que creaba cada importación).
+ */
+@RestController
+@RequestMapping("/api/admin/asignaciones-snapshots")
+@PreAuthorize("hasRole('SUPER_ADMIN')")
+@RequiredArgsConstructor
+@Slf4j
+public class AsignacionSnapshotController {
+
+    private final SnapshotAsignacionesService snapshotService;
+    private final LogAuditoriaService auditService;
+    private final ApplicationEventPublisher eventos;
+
+    /**
+     * Lista marcas y checkpoints disponibles
+     */
+    @GetMapping
+    public ResponseEntity<List<AsignacionSnapshot>> listar() {
+        return ResponseEntity.ok(snapshotService.listar());
+    }
+
+    /**
+     * Crea una marca manual en la versión actual
+     */
+    @PostMapping
+    public ResponseEntity<?> crear(Authentication auth) {
+        try {
+            return ResponseEntity.ok(snapshotService.crearSnapshot("MANUAL", auth.getName()));
+        } catch (Exception e) {
+            log.error("Error al crear snapshot de asignaciones: {}", e.getMessage());
+            return ResponseEntity.internalServerError().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Fuerza la compactación de un checkpoint completo
+     */
+    @PostMapping("/checkpoint")
+    public ResponseEntity<?> checkpoint(Authentication auth) {
+        try {
+            return ResponseEntity.ok(snapshotService.crearCheckpoint("MANUAL", auth.getName()));
+        } catch (Exception e) {
+            log.error("Error al crear checkpoint de asignaciones: {}", e.getMessage());
+            return ResponseEntity.internalServerError().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Restaura las asignaciones al estado de un snapshot
+     */
+    @PostMapping("/{id}/restaurar")
+    public ResponseEntity<?> restaurar(@PathVariable Long id, @RequestBody Map<String, String> body,
+            Authentication auth, HttpServletRequest request) {
+        if (!"RESTAURAR".equals(body.get("confirmacion"))) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Debe escribir 'RESTAURAR' para confirmar"));
+        }
+        try {
+            Map<String, Object> resultado = snapshotService.restaurar(id, auth.getName());
+            eventos.publishEvent(new DatosReemplazadosEvent("RESTAURAR_SNAPSHOT"));
+            auditService.registrar("ASIGNACIONES", "RESTAURAR_SNAPSHOT",
+                    "Restauró asignaciones al snapshot #" + id + ": " + resultado,
+                    auth.getName(), request.getRemoteAddr());
+            return ResponseEntity.ok(resultado);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(404).body(Map.of("error", e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(409).body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            log.error("Error al restaurar snapshot de asignaciones: {}", e.getMessage());
+            return ResponseEntity.internalServerError().body(Map.of("error", e.getMessage()));
+        }
+    }
+}
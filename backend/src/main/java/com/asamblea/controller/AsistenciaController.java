@@ -10,8 +10,12 @@ import com.asamblea.repository.AsignacionRepository;
 import com.asamblea.repository.SocioRepository;
 import com.asamblea.repository.UsuarioRepository;
 import com.asamblea.repository.AsambleaRepository;
+import com.asamblea.service.ActividadRecienteService;
+import com.asamblea.service.ContadoresEnVivoService;
+import com.asamblea.service.EstadisticasListasService;
 import com.asamblea.service.LogAuditoriaService;
 import com.asamblea.service.MesaService;
+import com.asamblea.service.SocioIndiceService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -35,6 +39,10 @@ public class AsistenciaController {
     private final AsambleaRepository asambleaRepository;
     private final LogAuditoriaService auditService;
     private final MesaService mesaService;
+    private final SocioIndiceService socioIndiceService;
+    private final ContadoresEnVivoService contadoresEnVivoService;
+    private final ActividadRecienteService actividadRecienteService;
+    private final EstadisticasListasService estadisticasListasService;
 
     @GetMapping("/hoy")
     public ResponseEntity<?> asistenciasHoy() {
@@ -67,8 +75,9 @@ public class AsistenciaController {
             Usuario operador = usuarioRepository.findByUsername(auth.getName())
                     .orElseThrow(() -> new RuntimeException("Operador no encontrado: " + auth.getName()));
 
-            // Obtener socio
-            Socio socio = socioRepository.findById(socioId)
+            // Obtener socio desde el índice en memoria (sin consulta a la base)
+            Socio socio = socioIndiceService.buscarPorId(socioId)
+                    .map(SocioIndiceService.SocioResumen::aSocio)
                     .orElseThrow(() -> new RuntimeException("Socio no encontrado con ID: " + socioId));
 
             // Obtener ASAMBLEA ACTIVA (Fix: id_asamblea cannot be null)
@@ -106,13 +115,16 @@ public class AsistenciaController {
 
             // Crear asistencia
             Asistencia asistencia = new Asistencia();
-            asistencia.setSocio(socio);
+            asistencia.setSocio(socioRepository.getReferenceById(socioId));
             asistencia.setOperador(operador);
             asistencia.setAsamblea(asamblea); // <--- ASIGNACIÓN FALTANTE
             asistencia.setEstadoVozVoto(vozVoto);
             asistencia.setFechaHora(LocalDateTime.now());
 
             Asistencia guardada = asistenciaRepository.save(asistencia);
+            contadoresEnVivoService.registrarAsistencia(vozVoto, guardada.getFechaHora());
+            estadisticasListasService.registrarAsistencia(socioId);
+            actividadRecienteService.registrarAsistencia(guardada.getId(), guardada.getFechaHora(), vozVoto);
 
             auditService.registrar(
                     "ASISTENCIA",
@@ -120,7 +132,8 @@ public class AsistenciaController {
                     String.format("Marcó asistencia del socio #%s (%s). Voto: %s", socio.getNumeroSocio(),
                             socio.getNombreCompleto(), vozVoto ? "SÍ" : "NO"),
                     auth.getName(),
-                    request.getRemoteAddr());
+                    request.getRemoteAddr(),
+                    "SOCIO", socio.getId(), null);
 
             // Calcular mesa asignada
             Map<String, Object> mesaInfo = mesaService.calcularMesa(socio);
@@ -167,6 +180,8 @@ public class AsistenciaController {
 
             // Eliminar la asistencia
             asistenciaRepository.deleteBySocioId(socioId);
+            contadoresEnVivoService.invalidar();
+            actividadRecienteService.invalidar();
 
             // Registrar en auditoría
             auditService.registrar(
@@ -175,7 +190,8 @@ public class AsistenciaController {
                     String.format("Eliminó asistencia del socio #%s (%s)", socio.getNumeroSocio(),
                             socio.getNombreCompleto()),
                     auth.getName(),
-                    request.getRemoteAddr());
+                    request.getRemoteAddr(),
+                    "SOCIO", socio.getId(), null);
 
             return ResponseEntity.ok(Map.of(
                     "mensaje", "Asistencia eliminada correctamente",
@@ -214,6 +230,8 @@ public class AsistenciaController {
 
             // Eliminar todas las asistencias
             asistenciaRepository.deleteAll();
+            contadoresEnVivoService.invalidar();
+            actividadRecienteService.invalidar();
 
             // Registrar en auditoría
             auditService.registrar(
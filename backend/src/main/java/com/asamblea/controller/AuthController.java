@@ -34,6 +34,9 @@ public class AuthController {
         private final ListaAsignacionRepository listaAsignacionRepository;
         private final ImportacionHistorialRepository importacionHistorialRepository;
         private final com.asamblea.service.LogAuditoriaService auditService;
+        private final com.asamblea.service.SnapshotAsignacionesService snapshotAsignacionesService;
+        private final com.asamblea.security.SesionCacheService sesionCacheService;
+        private final org.springframework.context.ApplicationEventPublisher eventos;
 
         @PostMapping("/login")
         public ResponseEntity<AuthResponse> login(@RequestBody LoginRequest request, HttpServletRequest httpRequest) {
@@ -46,7 +49,8 @@ public class AuthController {
                         System.out.println("DEBUG: Usuario autenticado con éxito, generando token...");
 
                         auditService.registrar("USUARIOS", "LOGIN", "Inició sesión exitosamente en el sistema.",
-                                        user.getUsername(), httpRequest.getRemoteAddr());
+                                        user.getUsername(), httpRequest.getRemoteAddr(), "USUARIO", null,
+                                        user.getId());
 
                         // DESACTIVADO: Detectar acceso duplicado - generaba falsos positivos
                         // if (user.getLastLogin() != null) {
@@ -139,6 +143,7 @@ public class AuthController {
                         user.setPasswordVisible(newPassword); // Mantener sincronizada la contraseña visible
                         user.setRequiresPasswordChange(false);
                         usuarioRepository.save(user);
+                        sesionCacheService.invalidar(user.getUsername());
 
                         return ResponseEntity.ok(Map.of("message", "Contraseña actualizada correctamente"));
                 } catch (Exception e) {
@@ -165,11 +170,13 @@ public class AuthController {
                         Integer currentVersion = user.getTokenVersion() != null ? user.getTokenVersion() : 0;
                         user.setTokenVersion(currentVersion + 1);
                         usuarioRepository.save(user);
+                        sesionCacheService.invalidar(user.getUsername());
 
                         auditService.registrar("USUARIOS", "LOGOUT_ALL_SESSIONS",
                                         "Cerró todas las sesiones activas. Token version incrementado a "
                                                         + user.getTokenVersion(),
-                                        user.getUsername(), httpRequest.getRemoteAddr());
+                                        user.getUsername(), httpRequest.getRemoteAddr(), "USUARIO", null,
+                                        user.getId());
 
                         return ResponseEntity.ok(Map.of("success", true, "message",
                                         "Todas las sesiones han sido cerradas. Debes iniciar sesión nuevamente."));
@@ -208,6 +215,7 @@ public class AuthController {
 
                         long asignaciones = asignacionRepository.count();
                         asignacionRepository.deleteAll();
+                        snapshotAsignacionesService.registrarVaciado();
 
                         long listas = listaAsignacionRepository.count();
                         listaAsignacionRepository.deleteAll();
@@ -220,6 +228,8 @@ public class AuthController {
 
                         long sucursales = sucursalRepository.count();
                         sucursalRepository.deleteAll();
+                        // Índice, contadores, feed y usuarios cacheados (apuntaban a sucursales borradas)
+                        eventos.publishEvent(new com.asamblea.service.DatosReemplazadosEvent("SYSTEM_RESET"));
 
                         System.out.println("✅ RESET COMPLETADO!");
 
@@ -281,7 +291,8 @@ public class AuthController {
                                         String.format("Super Admin '%s' inició sesión como '%s' (ID: %d)",
                                                         admin.getUsername(), targetUser.getUsername(),
                                                         targetUser.getId() != null ? targetUser.getId() : 0L),
-                                        admin.getUsername(), httpRequest.getRemoteAddr());
+                                        admin.getUsername(), httpRequest.getRemoteAddr(), "USUARIO", null,
+                                        targetUser.getId());
 
                         // Generar token para el usuario objetivo
                         var jwtToken = jwtService.generateToken(targetUser);
@@ -32,6 +32,7 @@ public class AvisosController {
     // for now
     private final UsuarioRepository usuarioRepository;
     private final com.asamblea.service.LogAuditoriaService auditService;
+    private final com.asamblea.service.TiempoRealService tiempoRealService;
 
     // ========================================================================
     // ADMIN: CREAR Y GESTIONAR AVISOS
@@ -128,6 +129,7 @@ public class AvisosController {
             destinatariosEntities.add(ad);
         }
         destinatarioRepository.saveAll(destinatariosEntities);
+        destinatarios.forEach(d -> tiempoRealService.marcarNoLeidos(d.getUsername()));
 
         aviso.setEstadoGeneral(Aviso.EstadoAviso.ENVIADO);
         avisoRepository.save(aviso);
@@ -306,6 +308,7 @@ public class AvisosController {
             ad.setEstado(AvisoDestinatario.EstadoDestinatario.LEIDO);
         }
         destinatarioRepository.save(ad);
+        tiempoRealService.marcarNoLeidos(current.getUsername());
 
         return ResponseEntity.ok(Map.of("success", true));
     }
@@ -330,6 +333,7 @@ public class AvisosController {
         ad.setConfirmadoAt(LocalDateTime.now());
         ad.setEstado(AvisoDestinatario.EstadoDestinatario.CONFIRMADO);
         destinatarioRepository.save(ad);
+        tiempoRealService.marcarNoLeidos(current.getUsername());
 
         return ResponseEntity.ok(Map.of("success", true));
     }
@@ -361,6 +365,7 @@ public class AvisosController {
         ad.setRespuestaTexto(respuestaTexto);
         ad.setEstado(AvisoDestinatario.EstadoDestinatario.RESPONDIDO);
         destinatarioRepository.save(ad);
+        tiempoRealService.marcarNoLeidos(current.getUsername());
 
         auditService.registrar("AVISOS", "RESPONDER_AVISO",
                 String.format("Respuesta a aviso #%d: %s", id, respuestaTipo),
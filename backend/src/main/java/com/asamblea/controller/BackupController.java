@@ -4,6 +4,7 @@ import com.asamblea.dto.BackupHistorialDTO;
 import com.asamblea.dto.ConfiguracionBackupDTO;
 import com.asamblea.model.BackupHistorial.TipoBackup;
 import com.asamblea.service.BackupService;
+import com.asamblea.service.MotorBackupService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -73,23 +74,37 @@ public class BackupController {
     }
 
     /**
-     * Crea un backup manual
+     * Encola un backup manual; el avance se consulta en /progreso
      */
     @PostMapping("/crear")
     public ResponseEntity<?> crearBackup(Authentication auth) {
         try {
             String usuario = auth.getName();
-            BackupHistorialDTO backup = backupService.crearBackup(usuario, TipoBackup.MANUAL);
-            return ResponseEntity.ok(Map.of(
-                "mensaje", "Backup creado exitosamente",
-                "backup", backup
+            MotorBackupService.Progreso progreso = backupService.iniciarBackup(usuario, TipoBackup.MANUAL);
+            return ResponseEntity.accepted().body(Map.of(
+                "mensaje", "Backup iniciado",
+                "progreso", progreso.aMapa()
             ));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(409).body(Map.of("error", e.getMessage()));
         } catch (Exception e) {
             logger.error("Error al crear backup: {}", e.getMessage());
             return ResponseEntity.internalServerError().body(Map.of("error", e.getMessage()));
         }
     }
 
+    /**
+     * Avance de la última operación de backup o restauración
+     */
+    @GetMapping("/progreso")
+    public ResponseEntity<?> getProgreso() {
+        MotorBackupService.Progreso progreso = backupService.getProgreso();
+        if (progreso == null) {
+            return ResponseEntity.ok(Map.of("estado", "SIN_OPERACIONES"));
+        }
+        return ResponseEntity.ok(progreso.aMapa());
+    }
+
     /**
      * Obtiene el historial de backups
      */
@@ -105,7 +120,7 @@ public class BackupController {
     }
 
     /**
-     * Restaura un backup específico
+     * Encola la restauración de un backup específico
      */
     @PostMapping("/restaurar/{id}")
     public ResponseEntity<?> restaurarBackup(
@@ -121,12 +136,14 @@ public class BackupController {
             }
             
             String usuario = auth.getName();
-            backupService.restaurarBackup(id, usuario);
+            MotorBackupService.Progreso progreso = backupService.iniciarRestauracion(id, usuario);
             
-            return ResponseEntity.ok(Map.of(
-                "mensaje", "Backup restaurado exitosamente",
-                "advertencia", "Se recomienda reiniciar la aplicación para aplicar todos los cambios"
+            return ResponseEntity.accepted().body(Map.of(
+                "mensaje", "Restauración iniciada",
+                "progreso", progreso.aMapa()
             ));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(409).body(Map.of("error", e.getMessage()));
         } catch (Exception e) {
             logger.error("Error al restaurar backup: {}", e.getMessage());
             return ResponseEntity.internalServerError().body(Map.of("error", e.getMessage()));
@@ -160,12 +177,14 @@ public class BackupController {
     public ResponseEntity<?> undoRestoration(Authentication auth) {
         try {
             String usuario = auth.getName();
-            backupService.restaurarUltimoUndo(usuario);
+            MotorBackupService.Progreso progreso = backupService.restaurarUltimoUndo(usuario);
             
-            return ResponseEntity.ok(Map.of(
-                "mensaje", "Restauración deshecha exitosamente. El sistema ha vuelto al estado anterior.",
-                "advertencia", "Se recomienda recargar la página."
+            return ResponseEntity.accepted().body(Map.of(
+                "mensaje", "Deshaciendo la última restauración",
+                "progreso", progreso.aMapa()
             ));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(409).body(Map.of("error", e.getMessage()));
         } catch (Exception e) {
             logger.error("Error al deshacer restauración: {}", e.getMessage());
             return ResponseEntity.internalServerError().body(Map.of("error", e.getMessage()));
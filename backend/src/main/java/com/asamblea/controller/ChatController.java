@@ -25,16 +25,27 @@ public class ChatController {
     private final UsuarioRepository usuarioRepository;
     private final com.asamblea.service.LogAuditoriaService auditService;
     private final com.asamblea.service.PushNotificationService pushNotificationService;
+    private final com.asamblea.service.TiempoRealService tiempoRealService;
+
+    // Mensajes por página de historial (la primera página son los más recientes)
+    private static final int MENSAJES_POR_PAGINA = 100;
+    private static final int MAX_MENSAJES_POR_PAGINA = 500;
+    private static final int CONVERSACIONES_POR_PAGINA = 200;
+    private static final int MAX_CONVERSACIONES_POR_PAGINA = 500;
 
     // ========================================================================
     // CONVERSACIONES
     // ========================================================================
 
     /**
-     * Lista de conversaciones (Admin: todas, Usuario: solo la suya)
+     * Lista de conversaciones (Admin: todas, ordenadas por último mensaje;
+     * Usuario: solo la suya). Sin page el admin recibe la lista completa (es
+     * su cola de trabajo, no se trunca); con page, esa página de size filas.
      */
     @GetMapping("/conversaciones")
-    public ResponseEntity<?> listarConversaciones(Authentication auth) {
+    public ResponseEntity<?> listarConversaciones(Authentication auth,
+            @RequestParam(required = false) Integer page,
+            @RequestParam(defaultValue = "" + CONVERSACIONES_POR_PAGINA) int size) {
         Usuario current = getCurrentUser(auth);
         if (current == null)
             return ResponseEntity.status(401).body(Map.of("error", "No autenticado"));
@@ -42,10 +53,13 @@ public class ChatController {
         List<Map<String, Object>> result = new ArrayList<>();
 
         if (isAdmin(current)) {
-            // Admin ve todas las conversaciones
-            List<Conversacion> convs = conversacionRepository.findAllOrderByLastMessageDesc();
-            for (Conversacion c : convs) {
-                result.add(mapConversacion(c, true));
+            // Admin ve todas las conversaciones: una sola consulta, sin leer mensajes
+            org.springframework.data.domain.Pageable pagina = page == null
+                    ? org.springframework.data.domain.Pageable.unpaged()
+                    : org.springframework.data.domain.PageRequest.of(Math.max(0, page),
+                            Math.max(1, Math.min(size, MAX_CONVERSACIONES_POR_PAGINA)));
+            for (Object[] r : conversacionRepository.findResumenes(pagina)) {
+                result.add(mapResumen(r));
             }
         } else {
             // Usuario solo ve su conversación (si existe)
@@ -60,7 +74,9 @@ public class ChatController {
      * Obtener o crear conversación para usuario actual
      */
     @GetMapping("/mi-conversacion")
-    public ResponseEntity<?> getMiConversacion(Authentication auth) {
+    public ResponseEntity<?> getMiConversacion(Authentication auth,
+            @RequestParam(required = false) Long antesDe,
+            @RequestParam(required = false) Integer limite) {
         Usuario current = getCurrentUser(auth);
         if (current == null)
             return ResponseEntity.status(401).body(Map.of("error", "No autenticado"));
@@ -71,6 +87,7 @@ public class ChatController {
                     nueva.setUsuario(current);
                     nueva.setCreatedAt(LocalDateTime.now());
                     Conversacion guardada = conversacionRepository.save(nueva);
+                    tiempoRealService.publicarConversacionChat(guardada);
 
                     // Notificar a admins que un usuario entró al chat por primera vez
                     pushNotificationService.sendToAdmins(
@@ -80,21 +97,21 @@ public class ChatController {
                     return guardada;
                 });
 
-        // Obtener mensajes
-        List<ChatMensaje> mensajes = chatMensajeRepository.findByConversacionIdOrderByCreatedAtAsc(conv.getId());
-
         Map<String, Object> response = new HashMap<>();
         response.put("conversacion", mapConversacion(conv, false));
-        response.put("mensajes", mensajes.stream().map(this::mapMensaje).toList());
+        agregarMensajes(response, conv.getId(), antesDe, limite);
 
         return ResponseEntity.ok(response);
     }
 
     /**
-     * Detalle de conversación con mensajes
+     * Detalle de conversación con la página más reciente de mensajes. Con
+     * antesDe (id del mensaje más viejo recibido) trae la página anterior.
      */
     @GetMapping("/conversacion/{id}")
-    public ResponseEntity<?> getConversacion(@PathVariable long id, Authentication auth) {
+    public ResponseEntity<?> getConversacion(@PathVariable long id, Authentication auth,
+            @RequestParam(required = false) Long antesDe,
+            @RequestParam(required = false) Integer limite) {
         Usuario current = getCurrentUser(auth);
         if (current == null)
             return ResponseEntity.status(401).body(Map.of("error", "No autenticado"));
@@ -111,21 +128,14 @@ public class ChatController {
             return ResponseEntity.status(403).body(Map.of("error", "Acceso denegado"));
         }
 
-        // Marcar como leídos los mensajes del otro
-        if (isAdmin(current)) {
-            chatMensajeRepository.markAsRead(id, ChatMensaje.SenderRole.USUARIO, LocalDateTime.now());
-            conv.setUnreadCountAdmin(0);
-        } else {
-            chatMensajeRepository.markAsRead(id, ChatMensaje.SenderRole.ADMIN, LocalDateTime.now());
-            conv.setUnreadCountUsuario(0);
+        // Marcar como leídos los mensajes del otro (no al pedir páginas anteriores)
+        if (antesDe == null) {
+            marcarLeidos(conv, current);
         }
-        conversacionRepository.save(conv);
-
-        List<ChatMensaje> mensajes = chatMensajeRepository.findByConversacionIdOrderByCreatedAtAsc(id);
 
         Map<String, Object> response = new HashMap<>();
         response.put("conversacion", mapConversacion(conv, isAdmin(current)));
-        response.put("mensajes", mensajes.stream().map(this::mapMensaje).toList());
+        agregarMensajes(response, id, antesDe, limite);
 
         return ResponseEntity.ok(response);
     }
@@ -164,9 +174,6 @@ public class ChatController {
                     return conversacionRepository.save(nueva);
                 });
 
-        // Obtener mensajes
-        List<ChatMensaje> mensajes = chatMensajeRepository.findByConversacionIdOrderByCreatedAtAsc(conv.getId());
-
         auditService.registrar("CHAT", "INICIAR_CONVERSACION",
                 String.format("Admin inició conversación con usuario #%d (%s)", usuarioId,
                         usuarioDestino.getNombreCompleto()),
@@ -174,7 +181,7 @@ public class ChatController {
 
         Map<String, Object> response = new HashMap<>();
         response.put("conversacion", mapConversacion(conv, true));
-        response.put("mensajes", mensajes.stream().map(this::mapMensaje).toList());
+        agregarMensajes(response, conv.getId(), null, null);
 
         return ResponseEntity.ok(response);
     }
@@ -234,12 +241,18 @@ public class ChatController {
 
         // Actualizar conversación
         conv.setLastMessageAt(LocalDateTime.now());
+        conv.setUltimoMensaje(preview(mensaje.getContenido()));
         if (isAdmin(current)) {
             conv.setUnreadCountUsuario(conv.getUnreadCountUsuario() + 1);
+            if (conv.getUsuario() != null) {
+                tiempoRealService.marcarNoLeidos(conv.getUsuario().getUsername());
+            }
         } else {
             conv.setUnreadCountAdmin(conv.getUnreadCountAdmin() + 1);
+            tiempoRealService.marcarNoLeidosAdmins();
         }
         conversacionRepository.save(conv);
+        tiempoRealService.publicarMensajeChat(conv, mapMensaje(mensaje));
 
         // Notificar a Super Admins si el mensaje lo envía un usuario regular
         if (!isAdmin(current)) {
@@ -278,6 +291,28 @@ public class ChatController {
         return ResponseEntity.ok(Map.of("success", true));
     }
 
+    /**
+     * Marca como leídos los mensajes del otro lado. Lo llama el cliente al
+     * recibir por el canal en vivo un mensaje con la conversación abierta.
+     */
+    @PostMapping("/conversacion/{id}/leer")
+    public ResponseEntity<?> leerConversacion(@PathVariable long id, Authentication auth) {
+        Usuario current = getCurrentUser(auth);
+        if (current == null)
+            return ResponseEntity.status(401).body(Map.of("error", "No autenticado"));
+
+        Conversacion conv = conversacionRepository.findById(id).orElse(null);
+        if (conv == null) {
+            return ResponseEntity.notFound().build();
+        }
+        if (!isAdmin(current) && !conv.getUsuario().getId().equals(current.getId())) {
+            return ResponseEntity.status(403).body(Map.of("error", "Acceso denegado"));
+        }
+
+        marcarLeidos(conv, current);
+        return ResponseEntity.ok(Map.of("success", true));
+    }
+
     /**
      * Contador de mensajes no leídos
      */
@@ -326,21 +361,84 @@ public class ChatController {
             map.put("usuarioNombre", c.getUsuario().getNombreCompleto());
         }
 
-        // Obtener último mensaje para preview
-        List<ChatMensaje> ultimosMensajes = chatMensajeRepository.findByConversacionIdOrderByCreatedAtAsc(c.getId());
-        if (!ultimosMensajes.isEmpty()) {
-            ChatMensaje ultimo = ultimosMensajes.get(ultimosMensajes.size() - 1);
-            String contenido = ultimo.getContenido();
-            // Truncar a 50 caracteres
-            if (contenido.length() > 50) {
-                contenido = contenido.substring(0, 47) + "...";
-            }
-            map.put("lastMessage", contenido);
+        // Preview del último mensaje (desnormalizado al enviar)
+        if (c.getUltimoMensaje() != null) {
+            map.put("lastMessage", c.getUltimoMensaje());
         }
 
         return map;
     }
 
+    // Misma forma que mapConversacion, desde una fila de findResumenes (vista admin)
+    private Map<String, Object> mapResumen(Object[] r) {
+        Map<String, Object> map = new HashMap<>();
+        map.put("id", r[0]);
+        map.put("createdAt", r[1]);
+        map.put("lastMessageAt", r[2]);
+        map.put("estado", r[3]);
+        map.put("unreadCount", r[4]);
+        map.put("usuarioId", r[5]);
+        map.put("usuarioNombre", r[6]);
+        if (r[7] != null) {
+            map.put("lastMessage", r[7]);
+        }
+        return map;
+    }
+
+    /**
+     * Marca como leídos los mensajes del otro lado, solo si el contador de la
+     * conversación dice que hay alguno: abrir o refrescar un chat ya leído no
+     * escribe nada.
+     */
+    private void marcarLeidos(Conversacion conv, Usuario current) {
+        LocalDateTime ahora = LocalDateTime.now();
+        if (isAdmin(current)) {
+            if (conv.getUnreadCountAdmin() == null || conv.getUnreadCountAdmin() == 0) {
+                return;
+            }
+            chatMensajeRepository.markAsRead(conv.getId(), ChatMensaje.SenderRole.USUARIO, ahora);
+            conv.setUnreadCountAdmin(0);
+            tiempoRealService.marcarNoLeidosAdmins();
+            tiempoRealService.publicarLeidosChat(conv, ChatMensaje.SenderRole.ADMIN.name(), ahora);
+        } else {
+            if (conv.getUnreadCountUsuario() == null || conv.getUnreadCountUsuario() == 0) {
+                return;
+            }
+            chatMensajeRepository.markAsRead(conv.getId(), ChatMensaje.SenderRole.ADMIN, ahora);
+            conv.setUnreadCountUsuario(0);
+            tiempoRealService.marcarNoLeidos(current.getUsername());
+            tiempoRealService.publicarLeidosChat(conv, ChatMensaje.SenderRole.USUARIO.name(), ahora);
+        }
+        conversacionRepository.save(conv);
+    }
+
+    // Truncar a 50 caracteres
+    private static String preview(String contenido) {
+        return contenido.length() > 50 ? contenido.substring(0, 47) + "..." : contenido;
+    }
+
+    /**
+     * Agrega una página de mensajes en orden cronológico. hayMasAnteriores y
+     * cursorAnterior (id para el próximo antesDe) permiten seguir hacia atrás.
+     */
+    private void agregarMensajes(Map<String, Object> response, Long conversacionId, Long antesDe, Integer limite) {
+        int tamanio = limite != null ? Math.max(1, Math.min(limite, MAX_MENSAJES_POR_PAGINA)) : MENSAJES_POR_PAGINA;
+        List<ChatMensaje> pagina = chatMensajeRepository.findAnteriores(conversacionId,
+                antesDe != null ? antesDe : Long.MAX_VALUE,
+                org.springframework.data.domain.PageRequest.of(0, tamanio + 1));
+        boolean hayMas = pagina.size() > tamanio;
+        if (hayMas) {
+            pagina = pagina.subList(0, tamanio);
+        }
+        List<Map<String, Object>> mensajes = new ArrayList<>(pagina.size());
+        for (int i = pagina.size() - 1; i >= 0; i--) {
+            mensajes.add(mapMensaje(pagina.get(i)));
+        }
+        response.put("mensajes", mensajes);
+        response.put("hayMasAnteriores", hayMas);
+        response.put("cursorAnterior", hayMas ? pagina.get(pagina.size() - 1).getId() : null);
+    }
+
     private Map<String, Object> mapMensaje(ChatMensaje m) {
         Map<String, Object> map = new HashMap<>();
         map.put("id", m.getId());
@@ -161,16 +161,18 @@ public class DashboardController {
      * @param tipo "vyv" para Voz y Voto, "voz" para Solo Voz
      */
     @GetMapping("/export-socios-pdf")
-    public ResponseEntity<byte[]> exportSociosPdf(
+    public void exportSociosPdf(
             Authentication authentication,
-            @RequestParam(defaultValue = "vyv") String tipo) {
+            @RequestParam(defaultValue = "vyv") String tipo,
+            jakarta.servlet.http.HttpServletResponse response) throws java.io.IOException {
 
         try {
             String username = authentication.getName();
             Usuario currentUser = usuarioRepository.findByUsername(username).orElse(null);
 
             if (currentUser == null) {
-                return ResponseEntity.status(401).build();
+                response.setStatus(401);
+                return;
             }
 
             // Solo SUPER_ADMIN puede ver datos globales
@@ -194,11 +196,7 @@ public class DashboardController {
                                 LEFT JOIN sucursales suc ON s.id_sucursal = suc.id
                                 INNER JOIN listas_asignacion la ON a.lista_id = la.id
                                 INNER JOIN usuarios u ON la.user_id = u.id
-                                WHERE s.aporte_al_dia = 1
-                                  AND s.solidaridad_al_dia = 1
-                                  AND s.fondo_al_dia = 1
-                                  AND s.incoop_al_dia = 1
-                                  AND s.credito_al_dia = 1
+                                WHERE s.voz_voto = 1
                                 ORDER BY CAST(s.numero_socio AS UNSIGNED), s.nombre_completo
                             """;
                 } else {
@@ -212,11 +210,7 @@ public class DashboardController {
                                 INNER JOIN listas_asignacion la ON a.lista_id = la.id
                                 INNER JOIN usuarios u ON la.user_id = u.id
                                 WHERE la.user_id = %d
-                                  AND s.aporte_al_dia = 1
-                                  AND s.solidaridad_al_dia = 1
-                                  AND s.fondo_al_dia = 1
-                                  AND s.incoop_al_dia = 1
-                                  AND s.credito_al_dia = 1
+                                  AND s.voz_voto = 1
                                 ORDER BY CAST(s.numero_socio AS UNSIGNED), s.nombre_completo
                             """.formatted(currentUser.getId());
                 }
@@ -236,11 +230,7 @@ public class DashboardController {
                                 LEFT JOIN sucursales suc ON s.id_sucursal = suc.id
                                 INNER JOIN listas_asignacion la ON a.lista_id = la.id
                                 INNER JOIN usuarios u ON la.user_id = u.id
-                                WHERE NOT (s.aporte_al_dia = 1
-                                  AND s.solidaridad_al_dia = 1
-                                  AND s.fondo_al_dia = 1
-                                  AND s.incoop_al_dia = 1
-                                  AND s.credito_al_dia = 1)
+                                WHERE s.voz_voto = 0
                                 ORDER BY CAST(s.numero_socio AS UNSIGNED), s.nombre_completo
                             """;
                 } else {
@@ -256,36 +246,35 @@ public class DashboardController {
                                 INNER JOIN listas_asignacion la ON a.lista_id = la.id
                                 INNER JOIN usuarios u ON la.user_id = u.id
                                 WHERE la.user_id = %d
-                                  AND NOT (s.aporte_al_dia = 1
-                                  AND s.solidaridad_al_dia = 1
-                                  AND s.fondo_al_dia = 1
-                                  AND s.incoop_al_dia = 1
-                                  AND s.credito_al_dia = 1)
+                                  AND s.voz_voto = 0
                                 ORDER BY CAST(s.numero_socio AS UNSIGNED), s.nombre_completo
                             """.formatted(currentUser.getId());
                 }
             }
 
-            List<Map<String, Object>> socios = jdbcTemplate.queryForList(sql);
-
-            byte[] pdfContent = exportService.generarPdfListaSocios(
-                    socios,
-                    title,
-                    description,
-                    "vyv".equalsIgnoreCase(tipo));
+            // El total va en el encabezado; las filas se leen con cursor mientras se escribe
+            Integer total = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM (" + sql + ") t", Integer.class);
 
             String filename = "vyv".equalsIgnoreCase(tipo)
                     ? "socios_voz_y_voto.pdf"
                     : "socios_solo_voz.pdf";
 
-            return ResponseEntity.ok()
-                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + filename)
-                    .contentType(MediaType.APPLICATION_PDF)
-                    .body(pdfContent);
+            response.setContentType(MediaType.APPLICATION_PDF_VALUE);
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + filename);
+            exportService.generarPdfListaSocios(
+                    total != null ? total : 0,
+                    ReporteExportService.FuenteFilas.cursor(jdbcTemplate, sql),
+                    title,
+                    description,
+                    "vyv".equalsIgnoreCase(tipo),
+                    response.getOutputStream());
 
         } catch (Exception e) {
             e.printStackTrace();
-            return ResponseEntity.internalServerError().build();
+            if (!response.isCommitted()) {
+                response.reset();
+                response.setStatus(500);
+            }
         }
     }
 }
@@ -1,6 +1,7 @@
 package com.asamblea.controller;
 
 import com.asamblea.model.FuncionarioDirectivo;
+import com.asamblea.service.ContadoresEnVivoService;
 import com.asamblea.service.FuncionarioDirectivoService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
@@ -18,6 +19,7 @@ import java.util.Map;
 public class FuncionarioDirectivoController {
 
     private final FuncionarioDirectivoService funcionarioService;
+    private final ContadoresEnVivoService contadoresEnVivoService;
 
     /**
      * Importar Excel de funcionarios y directivos
@@ -37,6 +39,7 @@ public class FuncionarioDirectivoController {
             }
 
             Map<String, Object> resultado = funcionarioService.importarFuncionarios(file);
+            contadoresEnVivoService.invalidar();
             return ResponseEntity.ok(resultado);
 
         } catch (Exception e) {
@@ -62,6 +65,7 @@ public class FuncionarioDirectivoController {
             }
 
             Map<String, Object> resultado = funcionarioService.importarAsesores(file);
+            contadoresEnVivoService.invalidar();
             return ResponseEntity.ok(resultado);
 
         } catch (Exception e) {
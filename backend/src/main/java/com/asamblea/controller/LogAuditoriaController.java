@@ -1,25 +1,86 @@
 package com.asamblea.controller;
 
-import com.asamblea.model.LogAuditoria;
+import com.asamblea.service.ArchivoAuditoriaService;
 import com.asamblea.service.LogAuditoriaService;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
+import java.util.Map;
+
 @RestController
 @RequestMapping("/api/auditoria")
 @RequiredArgsConstructor
 @PreAuthorize("hasRole('SUPER_ADMIN')")
+@Slf4j
 public class LogAuditoriaController {
 
     private final LogAuditoriaService logAuditoriaService;
+    private final ArchivoAuditoriaService archivoAuditoriaService;
 
+    /**
+     * Eventos recientes paginados por cursor: cursor = siguiente de la
+     * respuesta anterior (vacío para la primera página).
+     */
     @GetMapping
-    public ResponseEntity<Page<LogAuditoria>> listar(
-            @RequestParam(defaultValue = "0") int page,
+    public ResponseEntity<?> listar(
+            @RequestParam(required = false) String cursor,
             @RequestParam(defaultValue = "20") int size) {
-        return ResponseEntity.ok(logAuditoriaService.obtenerTodos(page, size));
+        try {
+            return ResponseEntity.ok(logAuditoriaService.pagina(cursor, Math.max(1, Math.min(size, 200))));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Meses archivados fuera de la tabla.
+     */
+    @GetMapping("/archivo")
+    public ResponseEntity<?> archivos() {
+        try {
+            return ResponseEntity.ok(archivoAuditoriaService.listar());
+        } catch (Exception e) {
+            log.error("Error listando el archivo de auditoría: {}", e.getMessage());
+            return ResponseEntity.internalServerError().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Búsqueda en los meses archivados (del más nuevo al más viejo).
+     */
+    @GetMapping("/archivo/buscar")
+    public ResponseEntity<?> buscarEnArchivo(
+            @RequestParam(required = false) String texto,
+            @RequestParam(required = false) Long socioId,
+            @RequestParam(required = false) Long usuarioId,
+            @RequestParam(required = false) String modulo,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta,
+            @RequestParam(defaultValue = "200") int limite) {
+        try {
+            return ResponseEntity.ok(archivoAuditoriaService.buscar(texto, socioId, usuarioId, modulo, desde, hasta,
+                    Math.max(1, Math.min(limite, 1000))));
+        } catch (Exception e) {
+            log.error("Error buscando en el archivo de auditoría: {}", e.getMessage());
+            return ResponseEntity.internalServerError().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Archiva ahora los meses vencidos (lo mismo que la tarea nocturna).
+     */
+    @PostMapping("/archivo/ejecutar")
+    public ResponseEntity<?> archivarAhora() {
+        try {
+            return ResponseEntity.ok(archivoAuditoriaService.archivar());
+        } catch (Exception e) {
+            log.error("Error archivando auditoría: {}", e.getMessage());
+            return ResponseEntity.internalServerError().body(Map.of("error", e.getMessage()));
+        }
     }
 }
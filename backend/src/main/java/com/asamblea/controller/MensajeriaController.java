@@ -1,6 +1,7 @@
 package com.asamblea.controller;
 
 import com.asamblea.service.MensajeriaExportService;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
@@ -8,6 +9,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Map;
@@ -62,17 +64,20 @@ public class MensajeriaController {
     }
 
     /**
-     * Exporta socios VyV a Excel.
+     * Exporta socios VyV a Excel (en streaming, directo a la respuesta).
      */
     @GetMapping("/exportar/excel")
-    public ResponseEntity<byte[]> exportarExcel(Authentication auth) {
+    public void exportarExcel(Authentication auth, HttpServletResponse response) throws IOException {
         if (auth == null) {
-            return ResponseEntity.status(401).build();
+            response.setStatus(401);
+            return;
         }
 
+        String filename = "socios_vyv_" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss")) + ".xlsx";
+        response.setContentType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"");
         try {
-            byte[] excel = exportService.exportarVyVtoExcel();
-            String filename = "socios_vyv_" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss")) + ".xlsx";
+            exportService.exportarVyVtoExcel(response.getOutputStream());
 
             // Auditoría
             auditService.registrar(
@@ -82,13 +87,12 @@ public class MensajeriaController {
                 auth.getName(),
                 "API"
             );
-
-            return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
-                .contentType(MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"))
-                .body(excel);
         } catch (Exception e) {
-            return ResponseEntity.status(500).body(("Error: " + e.getMessage()).getBytes());
+            if (!response.isCommitted()) {
+                response.reset();
+                response.setStatus(500);
+                response.getOutputStream().write(("Error: " + e.getMessage()).getBytes());
+            }
         }
     }
 }
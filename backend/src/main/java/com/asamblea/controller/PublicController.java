@@ -24,6 +24,8 @@ public class PublicController {
     private final ImportacionHistorialRepository importacionHistorialRepository;
     private final LogAuditoriaRepository logAuditoriaRepository;
     private final JdbcTemplate jdbcTemplate;
+    private final com.asamblea.service.SnapshotAsignacionesService snapshotAsignacionesService;
+    private final org.springframework.context.ApplicationEventPublisher eventos;
 
     @RequestMapping(value = "/fix-audit", method = { RequestMethod.GET, RequestMethod.POST })
     @Transactional
@@ -63,6 +65,7 @@ public class PublicController {
 
             System.out.println("Eliminando Asignaciones...");
             asignacionRepository.deleteAllInBatch();
+            snapshotAsignacionesService.registrarVaciado();
 
             System.out.println("Eliminando Listas...");
             listaAsignacionRepository.deleteAllInBatch();
@@ -72,6 +75,7 @@ public class PublicController {
 
             System.out.println("Eliminando Socios...");
             socioRepository.deleteAllInBatch();
+            eventos.publishEvent(new com.asamblea.service.DatosReemplazadosEvent("RESET_PUBLICO"));
 
             System.out.println("Eliminando Auditoría...");
             logAuditoriaRepository.deleteAllInBatch();
@@ -1,11 +1,14 @@
 package com.asamblea.controller;
 
-import com.asamblea.model.Asistencia;
-import com.asamblea.model.Usuario;
 import com.asamblea.repository.*;
+import com.asamblea.service.ActividadRecienteService;
+import com.asamblea.service.ContadoresEnVivoService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -23,44 +26,18 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class PublicDashboardController {
 
-    private final SocioRepository socioRepository;
     private final AsistenciaRepository asistenciaRepository;
-    private final AsignacionRepository asignacionRepository;
-    private final UsuarioRepository usuarioRepository;
+    private final ContadoresEnVivoService contadoresEnVivoService;
+    private final ActividadRecienteService actividadRecienteService;
 
     /**
      * Estadísticas generales del padrón - PÚBLICO
+     * SOLO socios en el padrón actual (excluye los dados de baja) y presentes hoy.
+     * Se sirven desde los contadores en memoria (ver ContadoresEnVivoService)
      */
     @GetMapping("/estadisticas")
     public ResponseEntity<Map<String, Object>> getEstadisticas() {
-        Map<String, Object> stats = new HashMap<>();
-
-        // SOLO contar socios en el padrón actual (excluye los dados de baja)
-        Long totalPadron = socioRepository.countEnPadronActual();
-        if (totalPadron == null)
-            totalPadron = 0L;
-
-        Long conVozYVoto = socioRepository.countConVozYVotoEnPadron();
-        if (conVozYVoto == null)
-            conVozYVoto = 0L;
-        Long soloVoz = socioRepository.countSoloVozEnPadron();
-        if (soloVoz == null)
-            soloVoz = 0L;
-
-        // Presentes hoy
-        LocalDateTime inicioDia = LocalDate.now().atStartOfDay();
-        LocalDateTime finDia = LocalDate.now().atTime(23, 59, 59);
-
-        long presentes = asistenciaRepository.countByFechaHoraBetween(inicioDia, finDia);
-        long presentesVyV = asistenciaRepository.countByFechaHoraBetweenAndEstadoVozVoto(inicioDia, finDia, true);
-
-        stats.put("totalPadron", totalPadron);
-        stats.put("conVozYVoto", conVozYVoto);
-        stats.put("soloVoz", soloVoz);
-        stats.put("presentes", presentes);
-        stats.put("presentesVyV", presentesVyV);
-
-        return ResponseEntity.ok(stats);
+        return ResponseEntity.ok(contadoresEnVivoService.obtener().aEstadisticas());
     }
 
     /**
@@ -70,59 +47,7 @@ public class PublicDashboardController {
      */
     @GetMapping("/metas")
     public ResponseEntity<Map<String, Object>> getMetas() {
-        Map<String, Object> response = new HashMap<>();
-
-        // Meta global
-        Long metaGlobal = usuarioRepository.sumTotalMetas();
-        if (metaGlobal == null)
-            metaGlobal = 0L;
-
-        // CORREGIDO: Contar desde ASIGNACIONES (listas creadas por usuarios)
-        Long registradosVyV = asignacionRepository.countTotalVyV();
-        if (registradosVyV == null)
-            registradosVyV = 0L;
-
-        double porcentaje = metaGlobal > 0 ? (registradosVyV.doubleValue() / metaGlobal.doubleValue()) * 100 : 0;
-
-        response.put("meta", metaGlobal);
-        response.put("registradosVozYVoto", registradosVyV);
-        response.put("porcentajeMeta", porcentaje);
-
-        // Segmentado: Asesores (desde sus listas)
-        Long metaAsesores = usuarioRepository.sumTotalMetasByRol(Usuario.Rol.ASESOR_DE_CREDITO);
-        if (metaAsesores == null)
-            metaAsesores = 0L;
-
-        Long regAsesores = asignacionRepository.countVyVByUsuarioRol(Usuario.Rol.ASESOR_DE_CREDITO);
-        if (regAsesores == null)
-            regAsesores = 0L;
-
-        double porcAsesores = metaAsesores > 0 ? (regAsesores.doubleValue() / metaAsesores.doubleValue()) * 100 : 0;
-
-        Map<String, Object> asesoresData = new HashMap<>();
-        asesoresData.put("meta", metaAsesores);
-        asesoresData.put("registradosVozYVoto", regAsesores);
-        asesoresData.put("porcentajeMeta", porcAsesores);
-        response.put("asesores", asesoresData);
-
-        // Segmentado: Funcionarios (desde sus listas)
-        Long metaFunc = usuarioRepository.sumTotalMetasByRolNot(Usuario.Rol.ASESOR_DE_CREDITO);
-        if (metaFunc == null)
-            metaFunc = 0L;
-
-        Long regFunc = asignacionRepository.countVyVByUsuarioRolNot(Usuario.Rol.ASESOR_DE_CREDITO);
-        if (regFunc == null)
-            regFunc = 0L;
-
-        double porcFunc = metaFunc > 0 ? (regFunc.doubleValue() / metaFunc.doubleValue()) * 100 : 0;
-
-        Map<String, Object> funcData = new HashMap<>();
-        funcData.put("meta", metaFunc);
-        funcData.put("registradosVozYVoto", regFunc);
-        funcData.put("porcentajeMeta", porcFunc);
-        response.put("funcionarios", funcData);
-
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok(contadoresEnVivoService.obtener().aMetas());
     }
 
     /**
@@ -133,7 +58,8 @@ public class PublicDashboardController {
         LocalDateTime inicioDia = LocalDate.now().atStartOfDay();
         LocalDateTime finDia = LocalDate.now().atTime(23, 59, 59);
 
-        List<Asistencia> asistencias = asistenciaRepository.findByFechaHoraBetween(inicioDia, finDia);
+        List<AsistenciaRepository.MarcaAsistencia> asistencias = asistenciaRepository
+                .findMarcasByFechaHoraBetween(inicioDia, finDia);
 
         // Retornar datos mínimos para la gráfica pública
         List<Map<String, Object>> result = asistencias.stream().map(a -> {
@@ -152,37 +78,7 @@ public class PublicDashboardController {
      */
     @GetMapping("/ranking-funcionarios")
     public ResponseEntity<List<Map<String, Object>>> getRankingFuncionarios() {
-        List<Object[]> resultados = usuarioRepository.findRankingByAsignaciones();
-
-        List<Map<String, Object>> ranking = resultados.stream()
-                .limit(10) // Top 10
-                .map(row -> {
-                    Map<String, Object> item = new HashMap<>();
-                    item.put("username", row[0]); // Keep username
-                    item.put("cargo", row[1]);
-                    item.put("meta", row[2]);
-                    item.put("registrados", row[3]);
-                    item.put("porcentaje", row[4] != null ? row[4] : 0);
-                    // NEW: Use full name and branch
-                    // Smart Name Resolution:
-                    String nombreUsuario = (String) row[5];
-                    String nombreSocio = (String) row[7]; // New column from repo
-                    String nombreFinal = nombreUsuario;
-
-                    // If name is null or looks like a number (ID), try to use Socio name
-                    if (nombreUsuario == null || nombreUsuario.matches("\\d+") || nombreUsuario.trim().isEmpty()) {
-                        if (nombreSocio != null && !nombreSocio.trim().isEmpty()) {
-                            nombreFinal = nombreSocio;
-                        }
-                    }
-
-                    item.put("nombre", nombreFinal != null ? nombreFinal : row[0]); // Fallback to username
-                    item.put("sucursal", row[6] != null ? row[6] : "Sin Sucursal");
-                    return item;
-                })
-                .collect(Collectors.toList());
-
-        return ResponseEntity.ok(ranking);
+        return ResponseEntity.ok(contadoresEnVivoService.rankingFuncionarios());
     }
 
     /**
@@ -190,41 +86,53 @@ public class PublicDashboardController {
      */
     @GetMapping("/distribucion-sucursales")
     public ResponseEntity<List<Map<String, Object>>> getDistribucionSucursales() {
-        List<Object[]> resultados = asignacionRepository.countBySucursal();
-
-        List<Map<String, Object>> distribucion = resultados.stream()
-                .map(row -> {
-                    Map<String, Object> item = new HashMap<>();
-                    item.put("sucursal", row[0] != null ? row[0] : "Sin Sucursal");
-                    item.put("total", row[1]);
-                    item.put("conVyV", row[2] != null ? row[2] : 0);
-                    return item;
-                })
-                .collect(Collectors.toList());
-
-        return ResponseEntity.ok(distribucion);
+        return ResponseEntity.ok(contadoresEnVivoService.obtener().aDistribucion());
     }
 
     /**
      * Últimas asignaciones (registros en listas) - PÚBLICO
+     * Se sirven desde el feed en memoria (ver ActividadRecienteService)
      */
     @GetMapping("/ultimas-asignaciones")
     public ResponseEntity<List<Map<String, Object>>> getUltimasAsignaciones() {
-        List<Object[]> resultados = asignacionRepository.findUltimasAsignaciones();
-
-        List<Map<String, Object>> ultimas = resultados.stream()
-                .limit(8)
-                .map(row -> {
-                    Map<String, Object> item = new HashMap<>();
-                    item.put("socioNombre", row[0]);
-                    item.put("socioNumero", row[1]);
-                    item.put("sucursal", row[2] != null ? row[2] : "N/A");
-                    item.put("funcionario", row[3]);
-                    item.put("tieneVyV", row[4]);
-                    return item;
-                })
-                .collect(Collectors.toList());
-
-        return ResponseEntity.ok(ultimas);
+        return ResponseEntity.ok(
+                actividadRecienteService.anteriores(ActividadRecienteService.Tipo.ASIGNACION, null, 8));
+    }
+
+    /**
+     * Feed de actividad reciente paginado hacia atrás - PÚBLICO
+     * tipo: asignaciones | asistencias. antesDe: "siguiente" de la página anterior.
+     */
+    @GetMapping("/actividad")
+    public ResponseEntity<Map<String, Object>> getActividad(
+            @RequestParam(defaultValue = "asignaciones") String tipo,
+            @RequestParam(required = false) Long antesDe,
+            @RequestParam(defaultValue = "20") int limite) {
+        ActividadRecienteService.Tipo t = "asistencias".equalsIgnoreCase(tipo)
+                ? ActividadRecienteService.Tipo.ASISTENCIA
+                : ActividadRecienteService.Tipo.ASIGNACION;
+        int tope = Math.max(1, Math.min(limite, 100));
+        List<Map<String, Object>> eventos = actividadRecienteService.anteriores(t, antesDe, tope);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("eventos", eventos);
+        response.put("siguiente", eventos.size() == tope ? eventos.get(eventos.size() - 1).get("seq") : null);
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Stream SSE de actividad (eventos "asignacion" y "asistencia") - PÚBLICO
+     * Al reconectar, el navegador reenvía Last-Event-ID y se retoma desde ahí.
+     */
+    @GetMapping(value = "/actividad/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamActividad(
+            @RequestHeader(value = "Last-Event-ID", required = false) Long ultimoId,
+            @RequestParam(required = false) Long desde) {
+        SseEmitter emitter = actividadRecienteService.suscribir(ultimoId != null ? ultimoId : desde);
+        if (emitter == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        // Sin buffer en nginx para que cada evento salga al momento
+        return ResponseEntity.ok().header("X-Accel-Buffering", "no").body(emitter);
     }
 }
@@ -249,16 +249,20 @@ public class ReporteAsesoresController {
      * Muestra socios separados por: Voz y Voto / Solo Voz
      */
     @GetMapping("/pdf/{userId}")
-    public ResponseEntity<byte[]> exportarPdfPorUsuario(
+    public void exportarPdfPorUsuario(
             @PathVariable Long userId,
-            Authentication auth) {
-        if (auth == null)
-            return ResponseEntity.status(401).build();
+            Authentication auth,
+            jakarta.servlet.http.HttpServletResponse response) throws Exception {
+        if (auth == null) {
+            response.setStatus(401);
+            return;
+        }
 
         // Buscar el usuario
         Usuario usuario = usuarioRepository.findById(userId).orElse(null);
         if (usuario == null) {
-            return ResponseEntity.notFound().build();
+            response.setStatus(404);
+            return;
         }
 
         // Obtener socios asignados por este usuario con Voz y Voto
@@ -271,16 +275,10 @@ public class ReporteAsesoresController {
                 INNER JOIN socios s ON asig.socio_id = s.id
                 LEFT JOIN sucursales suc ON s.id_sucursal = suc.id
                 WHERE la.user_id = ?
-                AND s.aporte_al_dia = true
-                AND s.solidaridad_al_dia = true
-                AND s.fondo_al_dia = true
-                AND s.incoop_al_dia = true
-                AND s.credito_al_dia = true
+                AND s.voz_voto = true
                 ORDER BY asig.fecha_asignacion DESC
                 """;
 
-        List<Map<String, Object>> sociosVyV = jdbcTemplate.queryForList(sqlVyV, userId);
-
         // Obtener socios asignados que NO tienen Voz y Voto (Solo Voz)
         String sqlSoloVoz = """
                 SELECT s.numero_socio, s.cedula, s.nombre_completo,
@@ -293,13 +291,23 @@ public class ReporteAsesoresController {
                 INNER JOIN socios s ON asig.socio_id = s.id
                 LEFT JOIN sucursales suc ON s.id_sucursal = suc.id
                 WHERE la.user_id = ?
-                AND NOT (s.aporte_al_dia = true AND s.solidaridad_al_dia = true
-                         AND s.fondo_al_dia = true AND s.incoop_al_dia = true
-                         AND s.credito_al_dia = true)
+                AND s.voz_voto = false
                 ORDER BY asig.fecha_asignacion DESC
                 """;
 
-        List<Map<String, Object>> sociosSoloVoz = jdbcTemplate.queryForList(sqlSoloVoz, userId);
+        // Totales para el encabezado; las filas se leen con cursor mientras se escribe el PDF
+        Integer totalVyV = jdbcTemplate.queryForObject("""
+                SELECT COUNT(*) FROM asignaciones_socios asig
+                INNER JOIN listas_asignacion la ON asig.lista_id = la.id
+                INNER JOIN socios s ON asig.socio_id = s.id
+                WHERE la.user_id = ? AND s.voz_voto = true
+                """, Integer.class, userId);
+        Integer totalSoloVoz = jdbcTemplate.queryForObject("""
+                SELECT COUNT(*) FROM asignaciones_socios asig
+                INNER JOIN listas_asignacion la ON asig.lista_id = la.id
+                INNER JOIN socios s ON asig.socio_id = s.id
+                WHERE la.user_id = ? AND s.voz_voto = false
+                """, Integer.class, userId);
 
         // Obtener sucursal del usuario
         String sucursalUsuario = "N/A";
@@ -309,19 +317,19 @@ public class ReporteAsesoresController {
             sucursalUsuario = usuario.getSocio().getSucursal().getNombre();
         }
 
-        // Generar el PDF
-        byte[] pdf = exportService.generarPdfPorUsuario(
+        String filename = "reporte_" + usuario.getNombreCompleto().replaceAll("\\s+", "_") + ".pdf";
+        response.setContentType("application/pdf");
+        response.setHeader("Content-Disposition", "attachment; filename=" + filename);
+
+        // Generar el PDF directo a la respuesta
+        exportService.generarPdfPorUsuario(
                 usuario.getNombreCompleto(),
                 usuario.getRol().getNombre(),
                 sucursalUsuario,
-                sociosVyV,
-                sociosSoloVoz);
-
-        String filename = "reporte_" + usuario.getNombreCompleto().replaceAll("\\s+", "_") + ".pdf";
-
-        return ResponseEntity.ok()
-                .header("Content-Type", "application/pdf")
-                .header("Content-Disposition", "attachment; filename=" + filename)
-                .body(pdf);
+                totalVyV != null ? totalVyV : 0,
+                ReporteExportService.FuenteFilas.cursor(jdbcTemplate, sqlVyV, userId),
+                totalSoloVoz != null ? totalSoloVoz : 0,
+                ReporteExportService.FuenteFilas.cursor(jdbcTemplate, sqlSoloVoz, userId),
+                response.getOutputStream());
     }
 }
@@ -1,12 +1,11 @@
 package com.asamblea.controller;
 
 import com.asamblea.model.Socio;
-import com.asamblea.model.Asistencia;
 import com.asamblea.model.Usuario;
-import com.asamblea.repository.AsistenciaRepository;
+import com.asamblea.repository.LecturaRepository;
+import com.asamblea.repository.LecturaRepository.AsignacionFila;
+import com.asamblea.repository.LecturaRepository.AsistenciaFila;
 import com.asamblea.repository.UsuarioRepository;
-import com.asamblea.repository.ListaAsignacionRepository;
-import com.asamblea.repository.AsignacionRepository;
 import com.asamblea.repository.SucursalRepository;
 import com.asamblea.repository.SocioRepository;
 import lombok.RequiredArgsConstructor;
@@ -26,13 +25,11 @@ import java.util.stream.Collectors;
 @CrossOrigin(origins = "*")
 public class ReporteController {
 
-        private final AsistenciaRepository asistenciaRepository;
-
         private final UsuarioRepository usuarioRepository;
-        private final ListaAsignacionRepository listaAsignacionRepository;
-        private final AsignacionRepository asignacionRepository;
         private final SucursalRepository sucursalRepository;
         private final SocioRepository socioRepository;
+        // Lecturas planas por JDBC: sin hidratar los grafos EAGER de Asignacion/Asistencia
+        private final LecturaRepository lecturaRepository;
 
         @GetMapping("/asistencia")
         public ResponseEntity<?> obtenerReporteAsistencia(
@@ -54,13 +51,7 @@ public class ReporteController {
                                 if (currentUser.getIdSocio() != null) {
                                         socioIds.add(currentUser.getIdSocio());
                                 }
-                                var listas = listaAsignacionRepository.findByUsuarioId(currentUser.getId());
-                                for (var lista : listas) {
-                                        var asignaciones = asignacionRepository.findByListaAsignacionId(lista.getId());
-                                        for (var asignacion : asignaciones) {
-                                                socioIds.add(asignacion.getSocio().getId());
-                                        }
-                                }
+                                socioIds.addAll(lecturaRepository.socioIdsDeUsuario(currentUser.getId()));
                                 operadorId = null; // Ver registros de CUALQUIER operador para MIS socios
                         } else {
                                 operadorId = currentUser.getId(); // Solo MIS registros
@@ -76,25 +67,21 @@ public class ReporteController {
                      return ResponseEntity.ok(Map.of("data", java.util.Collections.emptyList(), "stats", emptyStats));
                 }
 
-                List<Asistencia> filtradas = asistenciaRepository.findAsistenciasReporte(
-                                fechaInicio, fechaFin, sucursalId, operadorId, filterByAssignment,
-                                socioIds.isEmpty() ? java.util.Collections.singletonList(-1L) : socioIds);
+                List<AsistenciaFila> filtradas = lecturaRepository.asistenciasReporte(
+                                fechaInicio, fechaFin, sucursalId, operadorId, filterByAssignment ? socioIds : null);
 
                 // Transformar a DTO
                 List<Map<String, Object>> reporte = filtradas.stream().map(a -> {
                         Map<String, Object> fila = new HashMap<>();
-                        fila.put("id", a.getId());
-                        fila.put("fechaHora", a.getFechaHora());
-                        fila.put("socioId", a.getSocio().getId());
-                        fila.put("socioNombre", a.getSocio().getNombreCompleto());
-                        fila.put("socioNro", a.getSocio().getNumeroSocio());
-                        fila.put("cedula", a.getSocio().getCedula());
-                        fila.put("sucursal",
-                                        a.getSocio().getSucursal() != null ? a.getSocio().getSucursal().getNombre()
-                                                        : "Sin Sucursal");
-                        fila.put("vozVoto", a.getEstadoVozVoto() != null && a.getEstadoVozVoto() ? "HABILITADO"
-                                        : "OBSERVADO");
-                        fila.put("operador", a.getOperador() != null ? a.getOperador().getNombreCompleto() : "Sistema");
+                        fila.put("id", a.id());
+                        fila.put("fechaHora", a.fechaHora());
+                        fila.put("socioId", a.socio().id());
+                        fila.put("socioNombre", a.socio().nombreCompleto());
+                        fila.put("socioNro", a.socio().numeroSocio());
+                        fila.put("cedula", a.socio().cedula());
+                        fila.put("sucursal", a.socio().sucursal() != null ? a.socio().sucursal() : "Sin Sucursal");
+                        fila.put("vozVoto", Boolean.TRUE.equals(a.estadoVozVoto()) ? "HABILITADO" : "OBSERVADO");
+                        fila.put("operador", a.operador() != null ? a.operador() : "Sistema");
                         return fila;
                 }).collect(Collectors.toList());
 
@@ -121,48 +108,48 @@ public class ReporteController {
                 }
 
                 // Optimización: Fetch assignments por usuario (u Operador)
-                var asignaciones = asignacionRepository.findAsignacionesReporte(currentUser.getId());
+                var asignaciones = lecturaRepository.asignacionesReporte(currentUser.getId());
                 
                 // Collect socio IDs to fetch attendances efficiently
                 Set<Long> socioIds = asignaciones.stream()
-                    .map(a -> a.getSocio().getId())
+                    .map(a -> a.socio().id())
                     .collect(Collectors.toSet());
                 
                 // Fetch only relevant attendances
-                List<Asistencia> asistencias = socioIds.isEmpty() ? Collections.emptyList() :
-                    asistenciaRepository.findAsistenciasReporte(null, null, null, null, true, socioIds);
+                List<AsistenciaFila> asistencias = socioIds.isEmpty() ? Collections.emptyList() :
+                    lecturaRepository.asistenciasReporte(null, null, null, null, socioIds);
                 
-                Map<Long, Asistencia> asistenciaMap = asistencias.stream()
-                    .collect(Collectors.toMap(a -> a.getSocio().getId(), a -> a, (a1, a2) -> a1)); // Duplicate handler just in case
+                Map<Long, AsistenciaFila> asistenciaMap = asistencias.stream()
+                    .collect(Collectors.toMap(a -> a.socio().id(), a -> a, (a1, a2) -> a1)); // Duplicate handler just in case
 
                 List<Map<String, Object>> result = new ArrayList<>();
 
-                for (var asignacion : asignaciones) {
-                        com.asamblea.model.Socio s = asignacion.getSocio();
+                for (AsignacionFila asignacion : asignaciones) {
+                        LecturaRepository.SocioFila s = asignacion.socio();
 
                         Map<String, Object> fila = new HashMap<>();
-                        fila.put("id", s.getId());
-                        fila.put("socioNombre", s.getNombreCompleto());
-                        fila.put("socioNro", s.getNumeroSocio());
-                        fila.put("cedula", s.getCedula());
-                        fila.put("sucursal",
-                                        s.getSucursal() != null ? s.getSucursal().getNombre() : "Sin Sucursal");
-                        fila.put("vozVoto", s.isEstadoVozVoto() ? "HABILITADO" : "OBSERVADO");
-                        fila.put("fechaAsignacion", asignacion.getFechaAsignacion());
-
-                        if (asignacion.getAsignadoPor() != null) {
-                                fila.put("asignadoPor", asignacion.getAsignadoPor().getNombreCompleto());
+                        fila.put("id", s.id());
+                        fila.put("socioNombre", s.nombreCompleto());
+                        fila.put("socioNro", s.numeroSocio());
+                        fila.put("cedula", s.cedula());
+                        fila.put("sucursal", s.sucursal() != null ? s.sucursal() : "Sin Sucursal");
+                        fila.put("vozVoto", s.estadoVozVoto() ? "HABILITADO" : "OBSERVADO");
+                        fila.put("fechaAsignacion", asignacion.fechaAsignacion());
+
+                        if (asignacion.asignadoPor() != null) {
+                                fila.put("asignadoPor", asignacion.asignadoPor());
                         } else {
                                 fila.put("asignadoPor", "Sistema / Anterior");
                         }
 
-                        Asistencia asistenciaOpt = asistenciaMap.get(s.getId());
+                        AsistenciaFila asistenciaOpt = asistenciaMap.get(s.id());
                         if (asistenciaOpt != null) {
                                 fila.put("estado", "PRESENTE");
-                                fila.put("fechaHora", asistenciaOpt.getFechaHora());
-                                Usuario op = asistenciaOpt.getOperador();
-                                fila.put("operador", op != null ? op.getNombreCompleto() : "Sistema");
-                                fila.put("operadorId", op != null ? op.getId() : "SYS");
+                                fila.put("fechaHora", asistenciaOpt.fechaHora());
+                                fila.put("operador", asistenciaOpt.operadorId() != null ? asistenciaOpt.operador()
+                                                : "Sistema");
+                                fila.put("operadorId", asistenciaOpt.operadorId() != null ? asistenciaOpt.operadorId()
+                                                : "SYS");
                         } else {
                                 fila.put("estado", "AUSENTE");
                                 fila.put("fechaHora", null);
@@ -230,24 +217,25 @@ public class ReporteController {
                         return ResponseEntity.status(403).body(Map.of("error", "Acceso denegado."));
                 }
 
-                var asistencias = asistenciaRepository.findAll();
-
-                // Agrupar por sucursal
-                Map<String, List<Asistencia>> porSucursal = asistencias.stream()
-                                .collect(Collectors.groupingBy(a -> a.getSocio().getSucursal() != null
-                                                ? a.getSocio().getSucursal().getNombre()
-                                                : "Sin Sucursal"));
+                // Agrupado en la base: [sucursal, presentes, habilitados]
+                Map<String, long[]> porSucursal = new HashMap<>();
+                long totalPresentes = 0;
+                for (Object[] row : lecturaRepository.presentesPorSucursal()) {
+                        String sucursal = row[0] != null ? (String) row[0] : "Sin Sucursal";
+                        long[] conteo = porSucursal.computeIfAbsent(sucursal, k -> new long[2]);
+                        conteo[0] += (Long) row[1];
+                        conteo[1] += (Long) row[2];
+                        totalPresentes += (Long) row[1];
+                }
 
                 List<Map<String, Object>> result = new ArrayList<>();
                 for (var entry : porSucursal.entrySet()) {
                         Map<String, Object> fila = new HashMap<>();
                         fila.put("sucursal", entry.getKey());
-                        fila.put("totalPresentes", entry.getValue().size());
-                        long habilitados = entry.getValue().stream()
-                                        .filter(a -> a.getSocio().isEstadoVozVoto())
-                                        .count();
+                        fila.put("totalPresentes", (int) entry.getValue()[0]);
+                        long habilitados = entry.getValue()[1];
                         fila.put("habilitados", habilitados);
-                        fila.put("soloVoz", entry.getValue().size() - habilitados);
+                        fila.put("soloVoz", entry.getValue()[0] - habilitados);
                         result.add(fila);
                 }
 
@@ -258,7 +246,7 @@ public class ReporteController {
 
                 Map<String, Object> stats = new HashMap<>();
                 stats.put("totalSucursales", result.size());
-                stats.put("totalPresentes", asistencias.size());
+                stats.put("totalPresentes", (int) totalPresentes);
 
                 return ResponseEntity.ok(Map.of("data", result, "stats", stats));
         }
@@ -271,35 +259,32 @@ public class ReporteController {
                         return ResponseEntity.status(403).body(Map.of("error", "Acceso denegado."));
                 }
 
-                var asistencias = asistenciaRepository.findAll();
+                var asistencias = lecturaRepository.asistenciasReporte(null, null, null, null, null);
 
                 List<Map<String, Object>> result = new ArrayList<>();
-                for (Asistencia a : asistencias) {
-                        if (!a.getSocio().isEstadoVozVoto()) { // Solo los observados
+                for (AsistenciaFila a : asistencias) {
+                        var socio = a.socio();
+                        if (!socio.estadoVozVoto()) { // Solo los observados
                                 Map<String, Object> fila = new HashMap<>();
-                                fila.put("id", a.getSocio().getId());
-                                fila.put("socioNombre", a.getSocio().getNombreCompleto());
-                                fila.put("socioNro", a.getSocio().getNumeroSocio());
-                                fila.put("cedula", a.getSocio().getCedula());
-                                fila.put("sucursal",
-                                                a.getSocio().getSucursal() != null
-                                                                ? a.getSocio().getSucursal().getNombre()
-                                                                : "Sin Sucursal");
-                                fila.put("fechaIngreso", a.getFechaHora());
-                                fila.put("operador", a.getOperador() != null ? a.getOperador().getNombreCompleto()
-                                                : "Sistema");
+                                fila.put("id", socio.id());
+                                fila.put("socioNombre", socio.nombreCompleto());
+                                fila.put("socioNro", socio.numeroSocio());
+                                fila.put("cedula", socio.cedula());
+                                fila.put("sucursal", socio.sucursal() != null ? socio.sucursal() : "Sin Sucursal");
+                                fila.put("fechaIngreso", a.fechaHora());
+                                fila.put("operador", a.operadorId() != null ? a.operador() : "Sistema");
 
                                 // Motivos de observación (campos de deuda)
                                 List<String> motivos = new ArrayList<>();
-                                if (!a.getSocio().isAporteAlDia())
+                                if (!socio.aporteAlDia())
                                         motivos.add("Aporte");
-                                if (!a.getSocio().isSolidaridadAlDia())
+                                if (!socio.solidaridadAlDia())
                                         motivos.add("Solidaridad");
-                                if (!a.getSocio().isFondoAlDia())
+                                if (!socio.fondoAlDia())
                                         motivos.add("Fondo");
-                                if (!a.getSocio().isIncoopAlDia())
+                                if (!socio.incoopAlDia())
                                         motivos.add("INCOOP");
-                                if (!a.getSocio().isCreditoAlDia())
+                                if (!socio.creditoAlDia())
                                         motivos.add("Crédito");
                                 fila.put("motivos", String.join(", ", motivos));
 
@@ -340,17 +325,16 @@ public class ReporteController {
                         Authentication auth) {
                 
                 // Optimización: Cargar asignaciones filtradas desde DB con FETCH joins
-                var asignaciones = asignacionRepository.findAsignacionesPorSucursal(sucursalId, operadorId);
+                var asignaciones = lecturaRepository.asignacionesPorSucursal(sucursalId, operadorId);
                 
                 // Cargar todas las asistencias de la sucursal (mucho menos data que findAll global)
-                // Usamos el mismo findAsistenciasReporte
-                List<Asistencia> asistenciasSucursal = asistenciaRepository.findAsistenciasReporte(
-                    null, null, sucursalId, null, false, java.util.Collections.singletonList(-1L)
+                List<AsistenciaFila> asistenciasSucursal = lecturaRepository.asistenciasReporte(
+                    null, null, sucursalId, null, null
                 );
                 
-                Map<Long, Asistencia> asistenciaPorSocio = new HashMap<>();
-                for (Asistencia a : asistenciasSucursal) {
-                        asistenciaPorSocio.put(a.getSocio().getId(), a);
+                Map<Long, AsistenciaFila> asistenciaPorSocio = new HashMap<>();
+                for (AsistenciaFila a : asistenciasSucursal) {
+                        asistenciaPorSocio.put(a.socio().id(), a);
                 }
 
                 Set<Long> sociosProcesados = new HashSet<>();
@@ -358,25 +342,25 @@ public class ReporteController {
 
                 for (var asig : asignaciones) {
                         // El filtrado por operador y sucursal ya lo hizo la DB
-                        var socio = asig.getSocio();
+                        var socio = asig.socio();
 
-                        if (!sociosProcesados.contains(socio.getId())) {
-                                sociosProcesados.add(socio.getId());
+                        if (!sociosProcesados.contains(socio.id())) {
+                                sociosProcesados.add(socio.id());
 
                                 Map<String, Object> fila = new HashMap<>();
-                                fila.put("id", socio.getId());
-                                fila.put("socioNombre", socio.getNombreCompleto());
-                                fila.put("socioNro", socio.getNumeroSocio());
-                                fila.put("cedula", socio.getCedula());
-                                fila.put("sucursal", socio.getSucursal() != null ? socio.getSucursal().getNombre() : "N/A"); // Should act non-null due to query
-                                fila.put("vozVoto", socio.isEstadoVozVoto() ? "HABILITADO" : "OBSERVADO");
-                                fila.put("fechaAsignacion", asig.getFechaAsignacion());
-                                fila.put("operador", asig.getListaAsignacion().getUsuario().getNombreCompleto());
-
-                                Asistencia asist = asistenciaPorSocio.get(socio.getId());
+                                fila.put("id", socio.id());
+                                fila.put("socioNombre", socio.nombreCompleto());
+                                fila.put("socioNro", socio.numeroSocio());
+                                fila.put("cedula", socio.cedula());
+                                fila.put("sucursal", socio.sucursal() != null ? socio.sucursal() : "N/A"); // Should act non-null due to query
+                                fila.put("vozVoto", socio.estadoVozVoto() ? "HABILITADO" : "OBSERVADO");
+                                fila.put("fechaAsignacion", asig.fechaAsignacion());
+                                fila.put("operador", asig.responsable());
+
+                                AsistenciaFila asist = asistenciaPorSocio.get(socio.id());
                                 if (asist != null) {
                                         fila.put("estado", "PRESENTE");
-                                        fila.put("fechaHora", asist.getFechaHora());
+                                        fila.put("fechaHora", asist.fechaHora());
                                 } else {
                                         fila.put("estado", "AUSENTE");
                                         fila.put("fechaHora", null);
@@ -411,34 +395,33 @@ public class ReporteController {
                 }
 
                 // Optimización: Fetch ya filtrado por operador si aplica
-                var asignaciones = asignacionRepository.findAsignacionesReporte(operadorId);
+                var asignaciones = lecturaRepository.asignacionesReporte(operadorId);
                 
-                // Mapear asistencias. Como es reporte general, traemos todas o podríamos intentar optimizar.
-                // Si son muchas asignaciones, es mejor traer todas las asistencias de una vez que N+1
-                var asistencias = asistenciaRepository.findAll();
+                // Mapear asistencias. Como es reporte general, traemos todas de una vez (en vez de N+1)
+                var asistencias = lecturaRepository.asistenciasReporte(null, null, null, null, null);
 
-                Map<Long, Asistencia> asistenciaPorSocio = new HashMap<>();
-                for (Asistencia a : asistencias) {
-                        asistenciaPorSocio.put(a.getSocio().getId(), a);
+                Map<Long, AsistenciaFila> asistenciaPorSocio = new HashMap<>();
+                for (AsistenciaFila a : asistencias) {
+                        asistenciaPorSocio.put(a.socio().id(), a);
                 }
 
                 List<Map<String, Object>> result = new ArrayList<>();
                 for (var asig : asignaciones) {
-                        var socio = asig.getSocio();
+                        var socio = asig.socio();
                         Map<String, Object> fila = new HashMap<>();
-                        fila.put("id", socio.getId());
-                        fila.put("socioNombre", socio.getNombreCompleto());
-                        fila.put("socioNro", socio.getNumeroSocio());
-                        fila.put("cedula", socio.getCedula());
-                        fila.put("sucursal", socio.getSucursal() != null ? socio.getSucursal().getNombre() : "Sin Sucursal");
-                        fila.put("vozVoto", socio.isEstadoVozVoto() ? "HABILITADO" : "OBSERVADO");
-                        fila.put("operador", asig.getListaAsignacion().getUsuario().getNombreCompleto());
-                        fila.put("fechaAsignacion", asig.getFechaAsignacion());
-
-                        Asistencia asist = asistenciaPorSocio.get(socio.getId());
+                        fila.put("id", socio.id());
+                        fila.put("socioNombre", socio.nombreCompleto());
+                        fila.put("socioNro", socio.numeroSocio());
+                        fila.put("cedula", socio.cedula());
+                        fila.put("sucursal", socio.sucursal() != null ? socio.sucursal() : "Sin Sucursal");
+                        fila.put("vozVoto", socio.estadoVozVoto() ? "HABILITADO" : "OBSERVADO");
+                        fila.put("operador", asig.responsable());
+                        fila.put("fechaAsignacion", asig.fechaAsignacion());
+
+                        AsistenciaFila asist = asistenciaPorSocio.get(socio.id());
                         if (asist != null) {
                                 fila.put("estado", "PRESENTE");
-                                fila.put("fechaHora", asist.getFechaHora());
+                                fila.put("fechaHora", asist.fechaHora());
                         } else {
                                 fila.put("estado", "AUSENTE");
                                 fila.put("fechaHora", null);
@@ -0,0 +1,60 @@
+package com.asamblea.controller;
+
+import com.asamblea.service.ReporteJobService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+/**
+ * Estado y descarga de los reportes en cola (ver ReporteJobService). Cada
+ * exportación pesada tiene su POST .../job en su controlador, que valida
+ * permisos y devuelve el id del trabajo.
+ */
+@RestController
+@RequestMapping("/api/reportes/jobs")
+@RequiredArgsConstructor
+public class ReporteJobController {
+
+    private final ReporteJobService reporteJobService;
+
+    @GetMapping("/{id}")
+    public ResponseEntity<?> estado(@PathVariable String id, Authentication auth) {
+        if (auth == null) {
+            return ResponseEntity.status(401).build();
+        }
+        ReporteJobService.Trabajo trabajo = reporteJobService.obtener(id, auth.getName());
+        if (trabajo == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(trabajo.aMapa());
+    }
+
+    @GetMapping("/{id}/descargar")
+    public ResponseEntity<?> descargar(@PathVariable String id, Authentication auth) {
+        if (auth == null) {
+            return ResponseEntity.status(401).build();
+        }
+        ReporteJobService.Trabajo trabajo = reporteJobService.obtener(id, auth.getName());
+        if (trabajo == null) {
+            return ResponseEntity.notFound().build();
+        }
+        if (trabajo.getEstado() != ReporteJobService.Estado.LISTO) {
+            return ResponseEntity.status(409).body(Map.of("error", "El reporte todavía no está listo",
+                    "estado", trabajo.getEstado().name()));
+        }
+        FileSystemResource archivo = new FileSystemResource(trabajo.getArchivo());
+        if (!archivo.exists()) {
+            return ResponseEntity.status(410).body(Map.of("error", "El reporte venció, vuelva a solicitarlo"));
+        }
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + trabajo.getNombreArchivo())
+                .header(HttpHeaders.CONTENT_TYPE, trabajo.getContentType())
+                .contentLength(trabajo.getBytes())
+                .body(archivo);
+    }
+}
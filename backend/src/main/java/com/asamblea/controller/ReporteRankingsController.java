@@ -3,6 +3,7 @@ package com.asamblea.controller;
 import com.asamblea.model.Usuario;
 import com.asamblea.repository.UsuarioRepository;
 import com.asamblea.service.ReporteExportService;
+import com.asamblea.service.ReporteJobService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
@@ -24,6 +25,7 @@ public class ReporteRankingsController {
     private final JdbcTemplate jdbcTemplate;
     private final UsuarioRepository usuarioRepository;
     private final ReporteExportService exportService;
+    private final ReporteJobService reporteJobService;
 
     private boolean isAuthorized(Authentication auth) {
         if (auth == null)
@@ -51,11 +53,7 @@ public class ReporteRankingsController {
                     INNER JOIN asignaciones_socios a ON a.lista_id = la.id
                     INNER JOIN socios socio ON a.socio_id = socio.id
                     WHERE u.rol = 'ASESOR_DE_CREDITO'
-                    AND socio.aporte_al_dia = 1
-                    AND socio.solidaridad_al_dia = 1
-                    AND socio.fondo_al_dia = 1
-                    AND socio.incoop_al_dia = 1
-                    AND socio.credito_al_dia = 1
+                    AND socio.voz_voto = 1
                     GROUP BY u.id, u.nombre_completo, u.username, s.nombre
                     ORDER BY total_vyv DESC
                     LIMIT 10
@@ -82,11 +80,7 @@ public class ReporteRankingsController {
                     INNER JOIN listas_asignacion la ON la.user_id = u.id
                     INNER JOIN asignaciones_socios a ON a.lista_id = la.id
                     INNER JOIN socios socio ON a.socio_id = socio.id
-                    WHERE socio.aporte_al_dia = 1
-                    AND socio.solidaridad_al_dia = 1
-                    AND socio.fondo_al_dia = 1
-                    AND socio.incoop_al_dia = 1
-                    AND socio.credito_al_dia = 1
+                    WHERE socio.voz_voto = 1
                     GROUP BY u.id, u.nombre_completo, u.username, u.rol, s.nombre
                     ORDER BY total_vyv DESC
                     LIMIT 10
@@ -110,11 +104,7 @@ public class ReporteRankingsController {
                     INNER JOIN listas_asignacion la ON la.user_id = u.id
                     INNER JOIN asignaciones_socios a ON a.lista_id = la.id
                     INNER JOIN socios socio ON a.socio_id = socio.id
-                    WHERE socio.aporte_al_dia = 1
-                    AND socio.solidaridad_al_dia = 1
-                    AND socio.fondo_al_dia = 1
-                    AND socio.incoop_al_dia = 1
-                    AND socio.credito_al_dia = 1
+                    WHERE socio.voz_voto = 1
                     GROUP BY s.id, s.nombre
                     ORDER BY total_vyv DESC
                     LIMIT 10
@@ -134,7 +124,7 @@ public class ReporteRankingsController {
                             INNER JOIN asignaciones_socios a ON a.lista_id = la.id
                             INNER JOIN socios socio ON a.socio_id = socio.id
                             WHERE u.rol = 'ASESOR_DE_CREDITO'
-                            AND socio.aporte_al_dia = 1 AND socio.solidaridad_al_dia = 1 AND socio.fondo_al_dia = 1 AND socio.incoop_al_dia = 1 AND socio.credito_al_dia = 1
+                            AND socio.voz_voto = 1
                             GROUP BY u.id, u.nombre_completo, s.nombre
                             ORDER BY total_vyv DESC LIMIT 10
                         """);
@@ -149,7 +139,7 @@ public class ReporteRankingsController {
                             INNER JOIN listas_asignacion la ON la.user_id = u.id
                             INNER JOIN asignaciones_socios a ON a.lista_id = la.id
                             INNER JOIN socios socio ON a.socio_id = socio.id
-                            WHERE socio.aporte_al_dia = 1 AND socio.solidaridad_al_dia = 1 AND socio.fondo_al_dia = 1 AND socio.incoop_al_dia = 1 AND socio.credito_al_dia = 1
+                            WHERE socio.voz_voto = 1
                             GROUP BY u.id, u.nombre_completo, u.rol, s.nombre
                             ORDER BY total_vyv DESC LIMIT 10
                         """);
@@ -164,21 +154,25 @@ public class ReporteRankingsController {
                             INNER JOIN listas_asignacion la ON la.user_id = u.id
                             INNER JOIN asignaciones_socios a ON a.lista_id = la.id
                             INNER JOIN socios socio ON a.socio_id = socio.id
-                            WHERE socio.aporte_al_dia = 1 AND socio.solidaridad_al_dia = 1 AND socio.fondo_al_dia = 1 AND socio.incoop_al_dia = 1 AND socio.credito_al_dia = 1
+                            WHERE socio.voz_voto = 1
                             GROUP BY s.id, s.nombre
                             ORDER BY total_vyv DESC LIMIT 10
                         """);
     }
 
     @GetMapping("/export-excel")
-    public ResponseEntity<byte[]> exportToExcel(Authentication auth) {
-        if (!isAuthorized(auth))
-            return ResponseEntity.status(403).build();
-        byte[] excelContent = exportService.generarExcelRankings(fetchAsesores(), fetchUsuarios(), fetchSucursales());
-        return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=rankings_vyv.xlsx")
-                .contentType(MediaType.APPLICATION_OCTET_STREAM)
-                .body(excelContent);
+    public void exportToExcel(Authentication auth, jakarta.servlet.http.HttpServletResponse response)
+            throws java.io.IOException {
+        if (!isAuthorized(auth)) {
+            response.setStatus(403);
+            return;
+        }
+        List<Map<String, Object>> asesores = fetchAsesores();
+        List<Map<String, Object>> usuarios = fetchUsuarios();
+        List<Map<String, Object>> sucursales = fetchSucursales();
+        response.setContentType(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=rankings_vyv.xlsx");
+        exportService.generarExcelRankings(asesores, usuarios, sucursales, response.getOutputStream());
     }
 
     @GetMapping("/export-pdf")
@@ -191,4 +185,42 @@ public class ReporteRankingsController {
                 .contentType(MediaType.APPLICATION_PDF)
                 .body(pdfContent);
     }
+
+    /**
+     * Mismo Excel de rankings, generado en la cola de reportes (ver /api/reportes/jobs)
+     */
+    @PostMapping("/export-excel/job")
+    public ResponseEntity<?> encolarExcel(Authentication auth) {
+        if (!isAuthorized(auth))
+            return ResponseEntity.status(403).build();
+        return encolar(new ReporteJobService.Solicitud("rankings-excel", "", "rankings_vyv.xlsx",
+                MediaType.APPLICATION_OCTET_STREAM_VALUE,
+                out -> exportService.generarExcelRankings(fetchAsesores(), fetchUsuarios(), fetchSucursales(), out)),
+                auth);
+    }
+
+    /**
+     * Mismo PDF de rankings, generado en la cola de reportes
+     */
+    @PostMapping("/export-pdf/job")
+    public ResponseEntity<?> encolarPdf(@RequestParam(defaultValue = "all") String type, Authentication auth) {
+        if (!isAuthorized(auth))
+            return ResponseEntity.status(403).build();
+        return encolar(new ReporteJobService.Solicitud("rankings-pdf", "type=" + type, "rankings_vyv_" + type + ".pdf",
+                MediaType.APPLICATION_PDF_VALUE,
+                out -> out.write(exportService.generarPdfRankings(type, fetchAsesores(), fetchUsuarios(),
+                        fetchSucursales()))),
+                auth);
+    }
+
+    // 202 con el trabajo (o 200 si ya estaba listo en cache); 503 con la cola llena
+    private ResponseEntity<?> encolar(ReporteJobService.Solicitud solicitud, Authentication auth) {
+        try {
+            ReporteJobService.Trabajo trabajo = reporteJobService.enviar(solicitud, auth.getName());
+            return ResponseEntity.status(trabajo.getEstado() == ReporteJobService.Estado.LISTO ? 200 : 202)
+                    .body(trabajo.aMapa());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(503).body(Map.of("error", e.getMessage()));
+        }
+    }
 }
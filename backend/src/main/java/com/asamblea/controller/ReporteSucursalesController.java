@@ -66,26 +66,14 @@ public class ReporteSucursalesController {
                     SELECT
                         COALESCE(s.nombre, 'Sin Sucursal') as sucursal,
                         COUNT(CASE
-                            WHEN socio.aporte_al_dia=1
-                             AND socio.solidaridad_al_dia=1
-                             AND socio.fondo_al_dia=1
-                             AND socio.incoop_al_dia=1
-                             AND socio.credito_al_dia=1
+                            WHEN socio.voz_voto = 1
                             THEN 1 END) as vyv,
                         COUNT(CASE
-                            WHEN NOT(socio.aporte_al_dia=1
-                             AND socio.solidaridad_al_dia=1
-                             AND socio.fondo_al_dia=1
-                             AND socio.incoop_al_dia=1
-                             AND socio.credito_al_dia=1)
+                            WHEN socio.voz_voto = 0
                             THEN 1 END) as solo_voz,
                         COUNT(a.id) as total,
                         ROUND(COUNT(CASE
-                            WHEN socio.aporte_al_dia=1
-                             AND socio.solidaridad_al_dia=1
-                             AND socio.fondo_al_dia=1
-                             AND socio.incoop_al_dia=1
-                             AND socio.credito_al_dia=1
+                            WHEN socio.voz_voto = 1
                             THEN 1 END) * 100.0 / COUNT(a.id), 1) as porcentaje_vyv
                     FROM asignaciones_socios a
                     INNER JOIN socios socio ON a.socio_id = socio.id
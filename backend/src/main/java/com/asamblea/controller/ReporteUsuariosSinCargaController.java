@@ -109,21 +109,21 @@ public class ReporteUsuariosSinCargaController {
      * GET /api/reportes/usuarios-sin-carga/export-excel
      */
     @GetMapping("/export-excel")
-    public ResponseEntity<byte[]> exportExcel(
+    public void exportExcel(
             Authentication auth,
             @RequestParam(defaultValue = "false") boolean soloAsesores,
-            @RequestParam(required = false) Long sucursalId) {
-        if (!isAuthorized(auth))
-            return ResponseEntity.status(403).build();
+            @RequestParam(required = false) Long sucursalId,
+            jakarta.servlet.http.HttpServletResponse response) throws java.io.IOException {
+        if (!isAuthorized(auth)) {
+            response.setStatus(403);
+            return;
+        }
 
         List<Usuario> usuarios = fetchUsuarios(soloAsesores, sucursalId);
 
-        byte[] excel = exportService.generarExcelUsuariosSinCarga(usuarios);
-
-        return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=usuarios_sin_carga.xlsx")
-                .contentType(MediaType.APPLICATION_OCTET_STREAM)
-                .body(excel);
+        response.setContentType(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=usuarios_sin_carga.xlsx");
+        exportService.generarExcelUsuariosSinCarga(usuarios, response.getOutputStream());
     }
 
     private List<Usuario> fetchUsuarios(boolean soloAsesores, Long sucursalId) {
@@ -34,13 +34,21 @@ public class SocioController {
     private final com.asamblea.service.LogAuditoriaService auditService;
     private final com.asamblea.repository.UsuarioRepository usuarioRepository;
     private final org.springframework.jdbc.core.JdbcTemplate jdbcTemplate;
+    private final com.asamblea.service.SnapshotAsignacionesService snapshotAsignacionesService;
+    private final com.asamblea.service.SocioIndiceService socioIndiceService;
+    private final com.asamblea.service.ContadoresEnVivoService contadoresEnVivoService;
+    private final com.asamblea.service.ActividadRecienteService actividadRecienteService;
+    private final org.springframework.context.ApplicationEventPublisher eventos;
+    private final com.asamblea.service.ReporteJobService reporteJobService;
 
     @PostMapping("/import")
-    public ResponseEntity<?> importExcel(@RequestParam("file") MultipartFile file, Authentication auth) {
+    public ResponseEntity<?> importExcel(@RequestParam("file") MultipartFile file,
+            @RequestParam(defaultValue = "COMPLETO") ImportacionService.ModoImportacion modo,
+            Authentication auth) {
         try {
             // Inicia el proceso asincrono y retorna un ID
             String username = auth != null ? auth.getName() : "SISTEMA";
-            String processId = importacionService.iniciarImportacion(file, username);
+            String processId = importacionService.iniciarImportacion(file, username, modo);
             return ResponseEntity.ok(Map.of("processId", processId));
         } catch (Exception e) {
             return ResponseEntity.internalServerError().body(Map.of("error", e.getMessage()));
@@ -135,32 +143,25 @@ public class SocioController {
     @GetMapping("/buscar")
     public ResponseEntity<List<Map<String, Object>>> buscar(@RequestParam String term) {
         String cleanTerm = term.trim();
-        List<Socio> sociosEncontrados;
 
-        List<Socio> exactos = socioRepository.buscarExacto(cleanTerm);
-        if (!exactos.isEmpty()) {
-            sociosEncontrados = exactos;
-        } else {
-            sociosEncontrados = socioRepository.buscarParcial(cleanTerm);
-            if (sociosEncontrados.size() > 50) {
-                sociosEncontrados = sociosEncontrados.subList(0, 50);
-            }
-        }
+        // Exactos por número/cédula o top 50 parciales, desde el índice en memoria
+        List<com.asamblea.service.SocioIndiceService.SocioResumen> sociosEncontrados = socioIndiceService
+                .buscar(cleanTerm, 50);
 
         List<Map<String, Object>> response = new ArrayList<>();
-        for (Socio socio : sociosEncontrados) {
+        for (com.asamblea.service.SocioIndiceService.SocioResumen socio : sociosEncontrados) {
             Map<String, Object> dto = new HashMap<>();
-            dto.put("id", socio.getId());
-            dto.put("nombreCompleto", socio.getNombreCompleto());
-            dto.put("numeroSocio", socio.getNumeroSocio());
-            dto.put("cedula", socio.getCedula());
-            dto.put("telefono", socio.getTelefono());
+            dto.put("id", socio.id());
+            dto.put("nombreCompleto", socio.nombreCompleto());
+            dto.put("numeroSocio", socio.numeroSocio());
+            dto.put("cedula", socio.cedula());
+            dto.put("telefono", socio.telefono());
             // SUCURSAL - devolver como objeto para compatibilidad con frontend
-            if (socio.getSucursal() != null) {
+            if (socio.sucursal() != null) {
                 Map<String, Object> sucursalObj = new HashMap<>();
-                sucursalObj.put("id", socio.getSucursal().getId());
-                sucursalObj.put("nombre", socio.getSucursal().getNombre());
-                sucursalObj.put("codigo", socio.getSucursal().getCodigo());
+                sucursalObj.put("id", socio.sucursal().id());
+                sucursalObj.put("nombre", socio.sucursal().nombre());
+                sucursalObj.put("codigo", socio.sucursal().codigo());
                 dto.put("sucursal", sucursalObj);
             } else {
                 dto.put("sucursal", null);
@@ -203,6 +204,8 @@ public class SocioController {
             if (updates.containsKey("creditoAlDia"))
                 socio.setCreditoAlDia(updates.get("creditoAlDia"));
             socioRepository.save(socio);
+            socioIndiceService.actualizar(socio);
+            contadoresEnVivoService.invalidar();
             return ResponseEntity.ok(Map.of("message", "Estado actualizado correctamente", "socio", socio));
         }).orElse(ResponseEntity.notFound().build());
     }
@@ -277,22 +280,16 @@ public class SocioController {
     public ResponseEntity<?> buscarSocio(@RequestParam String term) {
         String cleanTerm = term.trim();
 
-        // 1. Buscar por número de socio exacto
-        Optional<Socio> socioOpt = socioRepository.findByNumeroSocio(cleanTerm);
-
-        // 2. Si no encontró, buscar por cédula
-        if (socioOpt.isEmpty()) {
-            socioOpt = socioRepository.findByCedula(cleanTerm);
-        }
+        // 1-2. Buscar por número de socio exacto y, si no, por cédula
+        Optional<Socio> socioOpt = socioIndiceService.buscarPorTermino(cleanTerm)
+                .map(com.asamblea.service.SocioIndiceService.SocioResumen::aSocio);
 
         // 3. Si no encontró y el término tiene al menos 3 caracteres, buscar por nombre
         // parcial
         if (socioOpt.isEmpty() && cleanTerm.length() >= 3) {
-            List<Socio> porNombre = socioRepository.buscarParcial(cleanTerm);
-            if (!porNombre.isEmpty()) {
-                // Tomar el primero que coincida
-                socioOpt = Optional.of(porNombre.get(0));
-            }
+            // Tomar el primero que coincida
+            socioOpt = socioIndiceService.buscar(cleanTerm, 1).stream().findFirst()
+                    .map(com.asamblea.service.SocioIndiceService.SocioResumen::aSocio);
         }
 
         if (socioOpt.isEmpty()) {
@@ -384,6 +381,7 @@ public class SocioController {
             if (borrarListas || borrarAsignaciones) {
                 // Primero el detalle (Asignaciones)
                 jdbcTemplate.execute("DELETE FROM asignaciones_socios");
+                snapshotAsignacionesService.registrarVaciado();
                 deletedCounts.put("asignaciones", -1L);
 
                 // Luego la cabecera (Listas)
@@ -414,6 +412,8 @@ public class SocioController {
             }
 
             System.out.println("✅ Strict Reset Completed!");
+            // Usuarios desvinculados y tablas vaciadas: caches en memoria fuera
+            eventos.publishEvent(new com.asamblea.service.DatosReemplazadosEvent("RESET_GRANULAR"));
 
             auditService.registrar(
                     "SOCIOS",
@@ -446,64 +446,61 @@ public class SocioController {
         response.setContentType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
         response.setHeader("Content-Disposition", "attachment; filename=padron_socios.xlsx");
 
-        List<Socio> socios = socioRepository.findAll();
-
-        try (org.apache.poi.xssf.usermodel.XSSFWorkbook workbook = new org.apache.poi.xssf.usermodel.XSSFWorkbook()) {
-            org.apache.poi.xssf.usermodel.XSSFSheet sheet = workbook.createSheet("Padrón de Socios");
-
-            // Header style
-            org.apache.poi.xssf.usermodel.XSSFCellStyle headerStyle = workbook.createCellStyle();
-            org.apache.poi.xssf.usermodel.XSSFFont headerFont = workbook.createFont();
-            headerFont.setBold(true);
-            headerStyle.setFont(headerFont);
-            headerStyle.setFillForegroundColor(org.apache.poi.ss.usermodel.IndexedColors.LIGHT_GREEN.getIndex());
-            headerStyle.setFillPattern(org.apache.poi.ss.usermodel.FillPatternType.SOLID_FOREGROUND);
-
-            // Create header row
-            org.apache.poi.ss.usermodel.Row headerRow = sheet.createRow(0);
-            String[] columns = { "N° Socio", "Nombre Completo", "Cédula", "Teléfono", "Sucursal", "Aporte",
-                    "Solidaridad", "Fondo", "INCOOP", "Crédito", "Voz y Voto" };
-            for (int i = 0; i < columns.length; i++) {
-                org.apache.poi.ss.usermodel.Cell cell = headerRow.createCell(i);
-                cell.setCellValue(columns[i]);
-                cell.setCellStyle(headerStyle);
-            }
-
-            // Data rows
-            int rowNum = 1;
-            for (Socio socio : socios) {
-                org.apache.poi.ss.usermodel.Row row = sheet.createRow(rowNum++);
-                row.createCell(0).setCellValue(socio.getNumeroSocio());
-                row.createCell(1).setCellValue(socio.getNombreCompleto());
-                row.createCell(2).setCellValue(socio.getCedula());
-                row.createCell(3).setCellValue(socio.getTelefono() != null ? socio.getTelefono() : "");
-                row.createCell(4).setCellValue(socio.getSucursal() != null ? socio.getSucursal().getNombre() : "");
-                row.createCell(5).setCellValue(socio.isAporteAlDia() ? "SI" : "NO");
-                row.createCell(6).setCellValue(socio.isSolidaridadAlDia() ? "SI" : "NO");
-                row.createCell(7).setCellValue(socio.isFondoAlDia() ? "SI" : "NO");
-                row.createCell(8).setCellValue(socio.isIncoopAlDia() ? "SI" : "NO");
-                row.createCell(9).setCellValue(socio.isCreditoAlDia() ? "SI" : "NO");
-                row.createCell(10).setCellValue(socio.isEstadoVozVoto() ? "SI" : "NO");
-            }
-
-            // Auto-size columns
-            for (int i = 0; i < columns.length; i++) {
-                sheet.autoSizeColumn(i);
-            }
-
-            workbook.write(response.getOutputStream());
+        // Streaming: cursor JDBC -> SXSSF -> respuesta, sin cargar el padrón en memoria
+        try (com.asamblea.service.ExcelStreamWriter excel = new com.asamblea.service.ExcelStreamWriter(
+                response.getOutputStream())) {
+            excel.hoja("Padrón de Socios",
+                    excel.estiloEncabezado(org.apache.poi.ss.usermodel.IndexedColors.LIGHT_GREEN, null),
+                    "N° Socio", "Nombre Completo", "Cédula", "Teléfono", "Sucursal", "Aporte",
+                    "Solidaridad", "Fondo", "INCOOP", "Crédito", "Voz y Voto");
+
+            jdbcTemplate.query(com.asamblea.service.ExcelStreamWriter.cursor(
+                    "SELECT s.numero_socio, s.nombre_completo, s.cedula, s.telefono, su.nombre, " +
+                            "s.aporte_al_dia, s.solidaridad_al_dia, s.fondo_al_dia, s.incoop_al_dia, " +
+                            "s.credito_al_dia FROM socios s LEFT JOIN sucursales su ON su.id = s.id_sucursal " +
+                            "ORDER BY s.id"),
+                    (org.springframework.jdbc.core.RowCallbackHandler) rs -> {
+                        boolean aporte = rs.getBoolean(6), solidaridad = rs.getBoolean(7),
+                                fondo = rs.getBoolean(8), incoop = rs.getBoolean(9), credito = rs.getBoolean(10);
+                        excel.fila(rs.getString(1), rs.getString(2), rs.getString(3),
+                                rs.getString(4) != null ? rs.getString(4) : "",
+                                rs.getString(5) != null ? rs.getString(5) : "",
+                                siNo(aporte), siNo(solidaridad), siNo(fondo), siNo(incoop), siNo(credito),
+                                siNo(aporte && solidaridad && fondo && incoop && credito));
+                    });
         }
     }
 
+    private static String siNo(boolean valor) {
+        return valor ? "SI" : "NO";
+    }
+
     @GetMapping("/export/pdf")
     public void exportToPdf(jakarta.servlet.http.HttpServletResponse response) throws Exception {
         response.setContentType("application/pdf");
         response.setHeader("Content-Disposition", "attachment; filename=padron_socios.pdf");
+        escribirPadronPdf(response.getOutputStream());
+    }
 
-        List<Socio> socios = socioRepository.findAll();
+    /**
+     * Mismo padrón en PDF, generado en la cola de reportes (ver /api/reportes/jobs)
+     */
+    @PostMapping("/export/pdf/job")
+    public ResponseEntity<?> encolarPadronPdf(Authentication auth) {
+        try {
+            var trabajo = reporteJobService.enviar(new com.asamblea.service.ReporteJobService.Solicitud(
+                    "padron-pdf", "", "padron_socios.pdf", "application/pdf", this::escribirPadronPdf),
+                    auth.getName());
+            return ResponseEntity.status(trabajo.getEstado() == com.asamblea.service.ReporteJobService.Estado.LISTO
+                    ? 200 : 202).body(trabajo.aMapa());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(503).body(Map.of("error", e.getMessage()));
+        }
+    }
 
+    private void escribirPadronPdf(java.io.OutputStream out) throws Exception {
         com.lowagie.text.Document document = new com.lowagie.text.Document(com.lowagie.text.PageSize.A4.rotate());
-        com.lowagie.text.pdf.PdfWriter.getInstance(document, response.getOutputStream());
+        com.lowagie.text.pdf.PdfWriter writer = com.lowagie.text.pdf.PdfWriter.getInstance(document, out);
         document.open();
 
         // Title
@@ -535,26 +532,35 @@ public class SocioController {
             table.addCell(cell);
         }
 
-        // Data rows
+        // Data rows: cursor JDBC, volcadas al documento por tramos (sin cargar el padrón)
         com.lowagie.text.Font dataFont = new com.lowagie.text.Font(com.lowagie.text.Font.HELVETICA, 8);
-        for (Socio socio : socios) {
-            table.addCell(new com.lowagie.text.Phrase(socio.getNumeroSocio(), dataFont));
-            table.addCell(new com.lowagie.text.Phrase(socio.getNombreCompleto(), dataFont));
-            table.addCell(new com.lowagie.text.Phrase(socio.getCedula(), dataFont));
-            table.addCell(
-                    new com.lowagie.text.Phrase(socio.getTelefono() != null ? socio.getTelefono() : "-", dataFont));
-            table.addCell(new com.lowagie.text.Phrase(
-                    socio.getSucursal() != null ? socio.getSucursal().getNombre() : "-", dataFont));
-            table.addCell(new com.lowagie.text.Phrase(socio.isAporteAlDia() ? "SI" : "NO", dataFont));
-            table.addCell(new com.lowagie.text.Phrase(socio.isCreditoAlDia() ? "SI" : "NO", dataFont));
-            table.addCell(new com.lowagie.text.Phrase(socio.isEstadoVozVoto() ? "SI" : "NO", dataFont));
-        }
-
-        document.add(table);
+        com.asamblea.service.PdfStreamTable stream = new com.asamblea.service.PdfStreamTable(writer,
+                document, table);
+        jdbcTemplate.query(com.asamblea.service.ExcelStreamWriter.cursor(
+                "SELECT s.numero_socio, s.nombre_completo, s.cedula, s.telefono, su.nombre, " +
+                        "s.aporte_al_dia, s.solidaridad_al_dia, s.fondo_al_dia, s.incoop_al_dia, " +
+                        "s.credito_al_dia FROM socios s LEFT JOIN sucursales su ON su.id = s.id_sucursal " +
+                        "ORDER BY s.id"),
+                (org.springframework.jdbc.core.RowCallbackHandler) rs -> {
+                    boolean aporte = rs.getBoolean(6), credito = rs.getBoolean(10);
+                    boolean vozVoto = aporte && rs.getBoolean(7) && rs.getBoolean(8) && rs.getBoolean(9) && credito;
+                    table.addCell(new com.lowagie.text.Phrase(rs.getString(1), dataFont));
+                    table.addCell(new com.lowagie.text.Phrase(rs.getString(2), dataFont));
+                    table.addCell(new com.lowagie.text.Phrase(rs.getString(3), dataFont));
+                    table.addCell(new com.lowagie.text.Phrase(rs.getString(4) != null ? rs.getString(4) : "-",
+                            dataFont));
+                    table.addCell(new com.lowagie.text.Phrase(rs.getString(5) != null ? rs.getString(5) : "-",
+                            dataFont));
+                    table.addCell(new com.lowagie.text.Phrase(siNo(aporte), dataFont));
+                    table.addCell(new com.lowagie.text.Phrase(siNo(credito), dataFont));
+                    table.addCell(new com.lowagie.text.Phrase(siNo(vozVoto), dataFont));
+                    stream.filaTerminada();
+                });
+        stream.cerrar();
 
         // Footer
         com.lowagie.text.Paragraph footer = new com.lowagie.text.Paragraph(
-                "Total: " + socios.size() + " socios | Generado: "
+                "Total: " + stream.getFilas() + " socios | Generado: "
                         + java.time.LocalDateTime.now()
                                 .format(java.time.format.DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm")),
                 new com.lowagie.text.Font(com.lowagie.text.Font.HELVETICA, 10, com.lowagie.text.Font.ITALIC));
@@ -588,10 +594,12 @@ public class SocioController {
             }
 
             Socio saved = socioRepository.save(socio);
+            socioIndiceService.actualizar(saved);
+            contadoresEnVivoService.invalidar();
 
             auditService.registrar("SOCIOS", "CREAR",
                     "Socio creado: " + saved.getNumeroSocio() + " - " + saved.getNombreCompleto(),
-                    auth != null ? auth.getName() : "SYSTEM", request.getRemoteAddr());
+                    auth != null ? auth.getName() : "SYSTEM", request.getRemoteAddr(), "SOCIO", saved.getId(), null);
 
             return ResponseEntity.ok(Map.of("message", "Socio creado exitosamente", "socio", saved));
         } catch (Exception e) {
@@ -621,9 +629,12 @@ public class SocioController {
             socio.setCreditoAlDia(socioData.isCreditoAlDia());
 
             Socio updated = socioRepository.save(socio);
+            socioIndiceService.actualizar(updated);
+            contadoresEnVivoService.invalidar();
 
             auditService.registrar("SOCIOS", "MODIFICAR", "Socio modificado: " + updated.getNumeroSocio(),
-                    auth != null ? auth.getName() : "SYSTEM", request.getRemoteAddr());
+                    auth != null ? auth.getName() : "SYSTEM", request.getRemoteAddr(), "SOCIO", updated.getId(),
+                    null);
 
             return ResponseEntity.ok(Map.of("message", "Socio actualizado exitosamente", "socio", updated));
         }).orElse(ResponseEntity.notFound().build());
@@ -640,13 +651,17 @@ public class SocioController {
             // Eliminar asistencias relacionadas
             asistenciaRepository.deleteBySocioId(id);
 
-            // Eliminar de asignaciones
+            // Eliminar de asignaciones (registrando las bajas en el changelog)
+            snapshotAsignacionesService.registrarBajasDeSocio(id);
             jdbcTemplate.update("DELETE FROM asignaciones_socios WHERE socio_id = ?", id);
 
             socioRepository.delete(socio);
+            socioIndiceService.eliminar(id);
+            contadoresEnVivoService.invalidar();
+            actividadRecienteService.invalidar();
 
             auditService.registrar("SOCIOS", "ELIMINAR", "Socio eliminado: " + numeroSocio + " - " + nombre,
-                    auth != null ? auth.getName() : "SYSTEM", request.getRemoteAddr());
+                    auth != null ? auth.getName() : "SYSTEM", request.getRemoteAddr(), "SOCIO", id, null);
 
             return ResponseEntity.ok(Map.of("message", "Socio eliminado exitosamente"));
         }).orElse(ResponseEntity.notFound().build());
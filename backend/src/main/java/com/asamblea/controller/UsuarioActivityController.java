@@ -31,31 +31,15 @@ public class UsuarioActivityController {
         if (auth == null)
             return ResponseEntity.status(401).build();
 
-        Usuario usuario = usuarioRepository.findByUsername(auth.getName()).orElse(null);
+        // El principal ya es el usuario (cache del filtro JWT): sin consulta
+        Usuario usuario = auth.getPrincipal() instanceof Usuario u ? u
+                : usuarioRepository.findByUsername(auth.getName()).orElse(null);
         if (usuario == null)
             return ResponseEntity.status(401).build();
 
-        LocalDateTime now = LocalDateTime.now();
-        LocalDateTime lastHb = usuario.getLastHeartbeat();
-
-        if (lastHb != null) {
-            long secondsSinceLast = Duration.between(lastHb, now).getSeconds();
-            // Si el último pulso fue hace menos de 90 segundos (considerando el intervalo
-            // de 60s + margen), sumamos el tiempo REAL.
-            // Si fue hace más, probablemente cerró la pestaña y volvió, no sumamos ese gap.
-            if (secondsSinceLast > 0 && secondsSinceLast < 90) {
-                Long total = usuario.getTotalOnlineSeconds();
-                if (total == null)
-                    total = 0L;
-                usuario.setTotalOnlineSeconds(total + secondsSinceLast);
-            }
-        }
-
-        usuario.setLastHeartbeat(now);
-        usuarioRepository.save(usuario);
-
-        // Notificar al servicio de presencia para el conteo en tiempo real
-        presenciaService.heartbeat(usuario.getId());
+        // Presencia en tiempo real (por rol y sucursal) y tiempo online (se
+        // acumula en memoria y se guarda por lotes; ver PresenciaService)
+        presenciaService.heartbeat(usuario);
 
         return ResponseEntity.ok().build();
     }
@@ -180,8 +164,10 @@ public class UsuarioActivityController {
                         m -> ((Number) m.get("total")).longValue()));
 
         List<UsuarioActivityDto> dtos = usuarios.stream().map(u -> {
-            boolean isOnline = u.getLastHeartbeat() != null &&
-                    Duration.between(u.getLastHeartbeat(), now).getSeconds() < 120;
+            LocalDateTime lastHeartbeat = presenciaService.lastHeartbeat(u);
+            boolean isOnline = lastHeartbeat != null &&
+                    Duration.between(lastHeartbeat, now).getSeconds() < 120;
+            long totalOnline = presenciaService.totalOnlineSeconds(u);
 
             long reg = registrosMap.getOrDefault(u.getId(), 0L);
             long asig = asignacionesMap.getOrDefault(u.getId(), 0L);
@@ -201,11 +187,11 @@ public class UsuarioActivityController {
                     .sucursal(sucursalNombre)
                     .lastLogin(u.getLastLogin())
                     .loginCount(u.getLoginCount() != null ? u.getLoginCount() : 0)
-                    .totalOnlineSeconds(u.getTotalOnlineSeconds() != null ? u.getTotalOnlineSeconds() : 0L)
+                    .totalOnlineSeconds(totalOnline)
                     .isOnline(isOnline)
                     .totalRegistros(reg)
                     .totalAsignaciones(asig)
-                    .timeOnlineFormatted(formatTime(u.getTotalOnlineSeconds(), reg, asig,
+                    .timeOnlineFormatted(formatTime(totalOnline, reg, asig,
                             u.getLoginCount() != null ? u.getLoginCount() : 0))
                     .lastSeenRelative(formatLastSeen(u.getLastLogin(), isOnline))
                     .build();
@@ -266,14 +252,18 @@ public class UsuarioActivityController {
     }
 
     @GetMapping("/exportar-excel")
-    public ResponseEntity<byte[]> exportarExcel(@RequestParam(defaultValue = "todos") String filtro,
-            Authentication auth) {
-        if (auth == null)
-            return ResponseEntity.status(401).build();
+    public void exportarExcel(@RequestParam(defaultValue = "todos") String filtro,
+            Authentication auth, jakarta.servlet.http.HttpServletResponse httpResponse) throws java.io.IOException {
+        if (auth == null) {
+            httpResponse.setStatus(401);
+            return;
+        }
 
         ResponseEntity<?> response = getReporteActividad(auth);
-        if (response.getStatusCode().isError())
-            return ResponseEntity.status(response.getStatusCode()).build();
+        if (response.getStatusCode().isError()) {
+            httpResponse.setStatus(response.getStatusCode().value());
+            return;
+        }
 
         @SuppressWarnings("unchecked")
         List<UsuarioActivityDto> data = (List<UsuarioActivityDto>) response.getBody();
@@ -289,12 +279,9 @@ public class UsuarioActivityController {
         }
 
         String titulo = filtro.equals("habituales") ? "Usuarios Habituales" : "Reporte General de Usuarios";
-        byte[] excel = exportService.generarExcelActividad(data, titulo);
-
-        return ResponseEntity.ok()
-                .header("Content-Type", "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet")
-                .header("Content-Disposition", "attachment; filename=reporte_usuarios.xlsx")
-                .body(excel);
+        httpResponse.setContentType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
+        httpResponse.setHeader("Content-Disposition", "attachment; filename=reporte_usuarios.xlsx");
+        exportService.generarExcelActividad(data, titulo, httpResponse.getOutputStream());
     }
 
     private String formatTime(Long seconds, long registros, long asignaciones, long loginCount) {
@@ -29,6 +29,12 @@ public class UsuarioController {
     private final com.asamblea.service.LogAuditoriaService auditService;
     private final com.asamblea.service.ArizarService arizarService;
     private final com.asamblea.service.PresenciaService presenciaService;
+    private final com.asamblea.service.SocioIndiceService socioIndiceService;
+    private final com.asamblea.service.ContadoresEnVivoService contadoresEnVivoService;
+    private final com.asamblea.security.SesionCacheService sesionCacheService;
+
+    // Máximo de socios que aporta el buscador combinado usuarios + socios
+    private static final int LIMITE_BUSQUEDA_SOCIOS = 200;
 
     // Buscar unificado (Usuarios + Socios) con FUSIÓN INTELIGENTE
     // Buscar unificado (Usuarios + Socios) con FUSIÓN INTELIGENTE
@@ -125,8 +131,9 @@ public class UsuarioController {
             List<Socio> socios;
             if (!query.isEmpty()) {
                 // Agregar búsqueda por numeroSocio también aquí si no lo hace ya
-                List<Socio> exactos = socioRepository.buscarExacto(query);
-                socios = !exactos.isEmpty() ? exactos : socioRepository.buscarParcial(query);
+                socios = socioIndiceService.buscar(query, LIMITE_BUSQUEDA_SOCIOS).stream()
+                        .map(com.asamblea.service.SocioIndiceService.SocioResumen::aSocio)
+                        .collect(Collectors.toList());
             } else {
                 socios = socioRepository.findAll().stream().limit(100).collect(Collectors.toList());
             }
@@ -411,12 +418,15 @@ public class UsuarioController {
             }
 
             usuarioRepository.save(usuario);
+            // Meta y rol alimentan los contadores del dashboard público
+            contadoresEnVivoService.invalidar();
 
             // SYNC SOCIO: Si tiene socio vinculado, actualizar teléfono también
             if (usuario.getSocio() != null && usuario.getTelefono() != null && !usuario.getTelefono().isEmpty()) {
                 Socio s = usuario.getSocio();
                 s.setTelefono(usuario.getTelefono());
                 socioRepository.save(s);
+                socioIndiceService.actualizar(s);
             }
 
             auditService.registrar(
@@ -424,7 +434,8 @@ public class UsuarioController {
                     "CREAR_USUARIO",
                     String.format("Creó al usuario '%s' con rol %s", username, rol),
                     auth != null ? auth.getName() : "SISTEMA",
-                    request.getRemoteAddr());
+                    request.getRemoteAddr(),
+                    "USUARIO", null, usuario.getId());
 
             return ResponseEntity.ok(Map.of("message", "Usuario creado exitosamente", "id", usuario.getId()));
         } catch (Exception e) {
@@ -466,6 +477,7 @@ public class UsuarioController {
                         Socio s = usuario.getSocio();
                         s.setTelefono(nuevoTelefono);
                         socioRepository.save(s);
+                        socioIndiceService.actualizar(s);
                     }
                 }
 
@@ -514,13 +526,17 @@ public class UsuarioController {
             }
 
             usuarioRepository.save(usuario);
+            contadoresEnVivoService.invalidar();
+            // Rol, estado o contraseña pueden haber cambiado
+            sesionCacheService.invalidar(usuario.getUsername());
 
             auditService.registrar(
                     "USUARIOS",
                     "ACTUALIZAR_USUARIO",
                     String.format("Actualizó datos del usuario '%s'", usuario.getUsername()),
                     auth.getName(),
-                    request.getRemoteAddr());
+                    request.getRemoteAddr(),
+                    "USUARIO", null, usuario.getId());
 
             return ResponseEntity.ok(Map.of("message", "Usuario actualizado exitosamente"));
         } catch (Exception e) {
@@ -539,13 +555,15 @@ public class UsuarioController {
         Usuario usuario = opt.get();
         usuario.setActivo(false);
         usuarioRepository.save(usuario);
+        sesionCacheService.invalidar(usuario.getUsername());
 
         auditService.registrar(
                 "USUARIOS",
                 "DESACTIVAR_USUARIO",
                 String.format("Desactivó al usuario '%s'", usuario.getUsername()),
                 auth.getName(),
-                request.getRemoteAddr());
+                request.getRemoteAddr(),
+                "USUARIO", null, usuario.getId());
 
         return ResponseEntity.ok(Map.of("message", "Usuario desactivado"));
     }
@@ -635,6 +653,7 @@ public class UsuarioController {
             usuario.setPasswordVisible(newPassword);
             usuario.setRequiresPasswordChange(false);
             usuarioRepository.save(usuario);
+            sesionCacheService.invalidar(usuario.getUsername());
 
             return ResponseEntity.ok(Map.of("message", "Contraseña actualizada correctamente"));
         } catch (Exception e) {
@@ -693,7 +712,7 @@ public class UsuarioController {
         // Usuarios sin registros - que han entrado pero no han hecho nada
         long sinRegistros = allUsers.stream()
                 .filter(u -> u.getLastLogin() != null)
-                .filter(u -> u.getTotalOnlineSeconds() != null && u.getTotalOnlineSeconds() > 0)
+                .filter(u -> presenciaService.totalOnlineSeconds(u) > 0)
                 // Aquí la lógica real sería contar asignaciones, pero por ahora usamos tiempo
                 // online como proxy o 0 asignaciones
                 .count();
@@ -702,7 +721,10 @@ public class UsuarioController {
                 "total", total,
                 "usuales", usuales,
                 "activos", activos,
-                "sinRegistros", sinRegistros));
+                "activosPorRol", presenciaService.getActivosPorRol(),
+                "activosPorSucursal", presenciaService.getActivosPorSucursal(),
+                "sinRegistros", sinRegistros,
+                "escriturasPresencia", presenciaService.getEstadisticasEscritura()));
 
     }
 
@@ -15,6 +15,9 @@ public class BackupHistorialDTO {
     private String tablasIncluidas;
     private Boolean disponible;
     private String notas;
+    private Boolean incremental;
+    private Long baseId;
+    private Long checkpointId;
     
     // Constructors
     public BackupHistorialDTO() {}
@@ -30,6 +33,9 @@ public class BackupHistorialDTO {
         this.tablasIncluidas = backup.getTablasIncluidas();
         this.disponible = backup.getDisponible();
         this.notas = backup.getNotas();
+        this.incremental = Boolean.TRUE.equals(backup.getIncremental());
+        this.baseId = backup.getBaseId();
+        this.checkpointId = backup.getCheckpointId();
     }
     
     private String formatearTamano(Long bytes) {
@@ -120,4 +126,28 @@ public class BackupHistorialDTO {
     public void setNotas(String notas) {
         this.notas = notas;
     }
+
+    public Boolean getIncremental() {
+        return incremental;
+    }
+    
+    public void setIncremental(Boolean incremental) {
+        this.incremental = incremental;
+    }
+    
+    public Long getBaseId() {
+        return baseId;
+    }
+    
+    public void setBaseId(Long baseId) {
+        this.baseId = baseId;
+    }
+    
+    public Long getCheckpointId() {
+        return checkpointId;
+    }
+    
+    public void setCheckpointId(Long checkpointId) {
+        this.checkpointId = checkpointId;
+    }
 }
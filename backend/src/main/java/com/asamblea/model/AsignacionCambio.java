@@ -0,0 +1,61 @@
+package com.asamblea.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+/**
+ * Entrada del changelog de asignaciones_socios. El id autoincremental es la
+ * versión: un snapshot es simplemente "el estado hasta el cambio N".
+ */
+@Entity
+@Table(name = "asignaciones_cambios", indexes = {
+        @Index(name = "idx_asig_cambios_created", columnList = "created_at")
+})
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class AsignacionCambio {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private Operacion operacion;
+
+    @Column(name = "asignacion_id")
+    private Long asignacionId;
+
+    @Column(name = "lista_id")
+    private Long listaId;
+
+    @Column(name = "socio_id")
+    private Long socioId;
+
+    @Column(name = "asignado_por_id")
+    private Long asignadoPorId;
+
+    @Column(name = "fecha_asignacion")
+    private LocalDateTime fechaAsignacion;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    public enum Operacion {
+        ALTA, // Asignación creada
+        BAJA, // Asignación eliminada
+        VACIADO, // Tabla vaciada completa (reset)
+        REEMPLAZO // Tabla reemplazada por fuera del changelog (restauración de backup / modo prueba)
+    }
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
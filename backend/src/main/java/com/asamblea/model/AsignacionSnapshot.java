@@ -0,0 +1,55 @@
+package com.asamblea.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+/**
+ * Snapshot versionado de asignaciones_socios.
+ * MARCA: solo registra la versión del changelog (costo O(1)).
+ * CHECKPOINT: estado completo compactado en un archivo .csv.gz.
+ */
+@Entity
+@Table(name = "asignaciones_snapshots")
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class AsignacionSnapshot {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 12)
+    private Tipo tipo;
+
+    @Column(nullable = false)
+    private Long version; // Último id de asignaciones_cambios incluido
+
+    @Column(name = "total_asignaciones")
+    private Integer totalAsignaciones; // Solo CHECKPOINT
+
+    private String archivo; // Solo CHECKPOINT
+
+    private String motivo; // IMPORTACION, MANUAL, PRE_RESTAURACION, PROGRAMADO...
+
+    private String usuario;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    public enum Tipo {
+        MARCA,
+        CHECKPOINT
+    }
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
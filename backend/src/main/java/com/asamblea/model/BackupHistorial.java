@@ -39,6 +39,16 @@ public class BackupHistorial {
     @Column(name = "ruta_completa")
     private String rutaCompleta;
 
+    // Linaje: un incremental guarda solo lo cambiado desde base_id; checkpoint_id es el completo de su cadena
+    @Column(name = "incremental")
+    private Boolean incremental = false;
+
+    @Column(name = "base_id")
+    private Long baseId;
+
+    @Column(name = "checkpoint_id")
+    private Long checkpointId;
+
     public enum TipoBackup {
         AUTOMATICO,
         MANUAL,
@@ -138,4 +148,28 @@ public class BackupHistorial {
     public void setRutaCompleta(String rutaCompleta) {
         this.rutaCompleta = rutaCompleta;
     }
+
+    public Boolean getIncremental() {
+        return incremental;
+    }
+
+    public void setIncremental(Boolean incremental) {
+        this.incremental = incremental;
+    }
+
+    public Long getBaseId() {
+        return baseId;
+    }
+
+    public void setBaseId(Long baseId) {
+        this.baseId = baseId;
+    }
+
+    public Long getCheckpointId() {
+        return checkpointId;
+    }
+
+    public void setCheckpointId(Long checkpointId) {
+        this.checkpointId = checkpointId;
+    }
 }
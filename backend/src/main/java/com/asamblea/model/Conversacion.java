@@ -7,7 +7,9 @@ import lombok.AllArgsConstructor;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "conversaciones")
+@Table(name = "conversaciones", indexes = {
+        @Index(name = "idx_conversaciones_last_message", columnList = "last_message_at")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -41,6 +43,10 @@ public class Conversacion {
     @Column(name = "unread_count_admin")
     private Integer unreadCountAdmin = 0;
 
+    // Preview del último mensaje (ya truncado), para listar sin leer chat_mensajes
+    @Column(name = "ultimo_mensaje", length = 50)
+    private String ultimoMensaje;
+
     public enum EstadoConversacion {
         ACTIVA, ARCHIVADA
     }
@@ -8,7 +8,11 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "auditoria")
+@Table(name = "auditoria", indexes = {
+        @Index(name = "idx_auditoria_socio", columnList = "socio_id, created_at"),
+        @Index(name = "idx_auditoria_usuario", columnList = "usuario_id, created_at"),
+        @Index(name = "idx_auditoria_created", columnList = "created_at")
+})
 @Data
 @Builder
 @AllArgsConstructor
@@ -33,11 +37,22 @@ public class LogAuditoria {
     @Column(name = "ip_address")
     private String ipAddress;
 
+    @Column(name = "entidad_tipo", length = 20)
+    private String entidadTipo; // SOCIO, LISTA, USUARIO (null en eventos sin entidad)
+
+    @Column(name = "socio_id")
+    private Long socioId; // Socio afectado
+
+    @Column(name = "usuario_id")
+    private Long usuarioId; // Usuario afectado: el que inicia sesión, el editado o el dueño de la lista
+
     @Column(name = "created_at")
     private LocalDateTime createdAt;
 
     @PrePersist
     protected void onCreate() {
-        createdAt = LocalDateTime.now();
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now();
+        }
     }
 }
@@ -7,7 +7,10 @@ import lombok.AllArgsConstructor;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "socios")
+@Table(name = "socios", indexes = {
+        @Index(name = "idx_socios_voz_voto_padron", columnList = "voz_voto, en_padron_actual"),
+        @Index(name = "idx_socios_sucursal_voz_voto", columnList = "id_sucursal, voz_voto")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -53,10 +56,20 @@ public class Socio {
     @Column(name = "en_padron_actual")
     private boolean enPadronActual = true;
 
-    // El estado de voz y voto se calcula en la lógica de negocio o mediante una
-    // columna persistida/virtual
+    // Voz y voto persistido (los 5 campos al día) para que los conteos y filtros
+    // usen índice. Se recalcula en cada insert/update JPA; la importación por JDBC
+    // lo escribe explícitamente.
+    @Column(name = "voz_voto")
+    private boolean vozVoto;
+
     @Transient
     public boolean isEstadoVozVoto() {
         return aporteAlDia && solidaridadAlDia && fondoAlDia && incoopAlDia && creditoAlDia;
     }
+
+    @PrePersist
+    @PreUpdate
+    void calcularVozVoto() {
+        vozVoto = isEstadoVozVoto();
+    }
 }
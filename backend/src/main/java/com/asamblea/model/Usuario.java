@@ -77,10 +77,12 @@ public class Usuario implements UserDetails {
     @Column(name = "login_count")
     private Integer loginCount = 0;
 
-    @Column(name = "total_online_seconds")
+    // Los escribe solo PresenciaService (por lotes): un save() del usuario no
+    // debe pisarlos con valores leídos antes del último lote
+    @Column(name = "total_online_seconds", updatable = false)
     private Long totalOnlineSeconds = 0L;
 
-    @Column(name = "last_heartbeat")
+    @Column(name = "last_heartbeat", updatable = false)
     private LocalDateTime lastHeartbeat;
 
     @Column(name = "token_version")
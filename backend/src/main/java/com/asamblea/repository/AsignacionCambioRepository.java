@@ -0,0 +1,29 @@
+package com.asamblea.repository;
+
+import com.asamblea.model.AsignacionCambio;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface AsignacionCambioRepository extends JpaRepository<AsignacionCambio, Long> {
+
+    // Versión actual del changelog (0 si está vacío)
+    @Query("SELECT COALESCE(MAX(c.id), 0) FROM AsignacionCambio c")
+    Long findUltimaVersion();
+
+    // Cambios a re-aplicar entre dos versiones (desde exclusivo, hasta inclusivo)
+    List<AsignacionCambio> findByIdGreaterThanAndIdLessThanEqualOrderByIdAsc(Long desde, Long hasta);
+
+    long countByIdGreaterThan(Long version);
+
+    boolean existsByIdGreaterThanAndOperacion(Long version, AsignacionCambio.Operacion operacion);
+
+    // Compactación: lo que ya está cubierto por el checkpoint base se descarta
+    @Modifying
+    @Query("DELETE FROM AsignacionCambio c WHERE c.id <= :version")
+    int deleteHastaVersion(Long version);
+}
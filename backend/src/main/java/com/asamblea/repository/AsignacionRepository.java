@@ -20,11 +20,11 @@ public interface AsignacionRepository extends JpaRepository<Asignacion, Long> {
                         "GROUP BY DATE(fecha_asignacion) ORDER BY fecha DESC", nativeQuery = true)
         List<Map<String, Object>> findStatsPorDia(@Param("dias") int dias);
 
-        @Query("SELECT COUNT(a) FROM Asignacion a WHERE a.listaAsignacion.id = :listaId AND a.socio.aporteAlDia = true AND a.socio.solidaridadAlDia = true AND a.socio.fondoAlDia = true AND a.socio.incoopAlDia = true AND a.socio.creditoAlDia = true")
+        @Query("SELECT COUNT(a) FROM Asignacion a WHERE a.listaAsignacion.id = :listaId AND a.socio.vozVoto = true")
 
         Long countVyVByListaId(@org.springframework.data.repository.query.Param("listaId") Long listaId);
 
-        @Query("SELECT COUNT(a) FROM Asignacion a WHERE a.listaAsignacion.id = :listaId AND NOT (a.socio.aporteAlDia = true AND a.socio.solidaridadAlDia = true AND a.socio.fondoAlDia = true AND a.socio.incoopAlDia = true AND a.socio.creditoAlDia = true)")
+        @Query("SELECT COUNT(a) FROM Asignacion a WHERE a.listaAsignacion.id = :listaId AND a.socio.vozVoto = false")
 
         Long countSoloVozByListaId(@org.springframework.data.repository.query.Param("listaId") Long listaId);
 
@@ -47,67 +47,67 @@ public interface AsignacionRepository extends JpaRepository<Asignacion, Long> {
         // ====== Métodos para cálculo de METAS por rol del usuario ======
 
         // Contar asignaciones con Voz y Voto creadas por usuarios con rol específico
-        @Query("SELECT COUNT(a) FROM Asignacion a WHERE a.listaAsignacion.usuario.rol = :rol AND a.socio.aporteAlDia = true AND a.socio.solidaridadAlDia = true AND a.socio.fondoAlDia = true AND a.socio.incoopAlDia = true AND a.socio.creditoAlDia = true")
+        @Query("SELECT COUNT(a) FROM Asignacion a WHERE a.listaAsignacion.usuario.rol = :rol AND a.socio.vozVoto = true")
 
         Long countVyVByUsuarioRol(
                         @org.springframework.data.repository.query.Param("rol") com.asamblea.model.Usuario.Rol rol);
 
         // Contar asignaciones con Solo Voz creadas por usuarios con rol específico
-        @Query("SELECT COUNT(a) FROM Asignacion a WHERE a.listaAsignacion.usuario.rol = :rol AND NOT (a.socio.aporteAlDia = true AND a.socio.solidaridadAlDia = true AND a.socio.fondoAlDia = true AND a.socio.incoopAlDia = true AND a.socio.creditoAlDia = true)")
+        @Query("SELECT COUNT(a) FROM Asignacion a WHERE a.listaAsignacion.usuario.rol = :rol AND a.socio.vozVoto = false")
 
         Long countSoloVozByUsuarioRol(
                         @org.springframework.data.repository.query.Param("rol") com.asamblea.model.Usuario.Rol rol);
 
         // Contar asignaciones con Voz y Voto creadas por usuarios SIN el rol
         // especificado (funcionarios)
-        @Query("SELECT COUNT(a) FROM Asignacion a WHERE a.listaAsignacion.usuario.rol != :rol AND a.socio.aporteAlDia = true AND a.socio.solidaridadAlDia = true AND a.socio.fondoAlDia = true AND a.socio.incoopAlDia = true AND a.socio.creditoAlDia = true")
+        @Query("SELECT COUNT(a) FROM Asignacion a WHERE a.listaAsignacion.usuario.rol != :rol AND a.socio.vozVoto = true")
 
         Long countVyVByUsuarioRolNot(
                         @org.springframework.data.repository.query.Param("rol") com.asamblea.model.Usuario.Rol rol);
 
         // Contar asignaciones con Solo Voz creadas por usuarios SIN el rol especificado
-        @Query("SELECT COUNT(a) FROM Asignacion a WHERE a.listaAsignacion.usuario.rol != :rol AND NOT (a.socio.aporteAlDia = true AND a.socio.solidaridadAlDia = true AND a.socio.fondoAlDia = true AND a.socio.incoopAlDia = true AND a.socio.creditoAlDia = true)")
+        @Query("SELECT COUNT(a) FROM Asignacion a WHERE a.listaAsignacion.usuario.rol != :rol AND a.socio.vozVoto = false")
 
         Long countSoloVozByUsuarioRolNot(
                         @org.springframework.data.repository.query.Param("rol") com.asamblea.model.Usuario.Rol rol);
 
         // Total de asignaciones con Voz y Voto (global) - SOLO socios en padrón actual
-        @Query("SELECT COUNT(a) FROM Asignacion a WHERE a.socio.aporteAlDia = true AND a.socio.solidaridadAlDia = true AND a.socio.fondoAlDia = true AND a.socio.incoopAlDia = true AND a.socio.creditoAlDia = true")
+        @Query("SELECT COUNT(a) FROM Asignacion a WHERE a.socio.vozVoto = true")
 
         Long countTotalVyV();
 
         // Total de asignaciones con Solo Voz (global) - SOLO socios en padrón actual
-        @Query("SELECT COUNT(a) FROM Asignacion a WHERE NOT (a.socio.aporteAlDia = true AND a.socio.solidaridadAlDia = true AND a.socio.fondoAlDia = true AND a.socio.incoopAlDia = true AND a.socio.creditoAlDia = true)")
+        @Query("SELECT COUNT(a) FROM Asignacion a WHERE a.socio.vozVoto = false")
 
         Long countTotalSoloVoz();
 
         // Por usuario específico (para dashboard personal) - SOLO socios en padrón
         // actual
-        @Query("SELECT COUNT(a) FROM Asignacion a WHERE a.listaAsignacion.usuario.id = :userId AND a.socio.aporteAlDia = true AND a.socio.solidaridadAlDia = true AND a.socio.fondoAlDia = true AND a.socio.incoopAlDia = true AND a.socio.creditoAlDia = true")
+        @Query("SELECT COUNT(a) FROM Asignacion a WHERE a.listaAsignacion.usuario.id = :userId AND a.socio.vozVoto = true")
 
         Long countVyVByUsuarioId(@org.springframework.data.repository.query.Param("userId") Long userId);
 
-        @Query("SELECT COUNT(a) FROM Asignacion a WHERE a.listaAsignacion.usuario.id = :userId AND NOT (a.socio.aporteAlDia = true AND a.socio.solidaridadAlDia = true AND a.socio.fondoAlDia = true AND a.socio.incoopAlDia = true AND a.socio.creditoAlDia = true)")
+        @Query("SELECT COUNT(a) FROM Asignacion a WHERE a.listaAsignacion.usuario.id = :userId AND a.socio.vozVoto = false")
 
         Long countSoloVozByUsuarioId(@org.springframework.data.repository.query.Param("userId") Long userId);
 
         // Distribución por sucursal
         @Query("SELECT s.sucursal.nombre, COUNT(a.id), " +
-                        "SUM(CASE WHEN s.aporteAlDia = true AND s.solidaridadAlDia = true AND s.fondoAlDia = true AND s.incoopAlDia = true AND s.creditoAlDia = true THEN 1 ELSE 0 END) "
+                        "SUM(CASE WHEN s.vozVoto = true THEN 1 ELSE 0 END) "
                         +
                         "FROM Asignacion a JOIN a.socio s " +
                         "GROUP BY s.sucursal.nombre ORDER BY COUNT(a.id) DESC")
         java.util.List<Object[]> countBySucursal();
 
-        // Últimas asignaciones (con detalles) - SOLO socios en padrón actual
-        @Query("SELECT s.nombreCompleto, s.numeroSocio, suc.nombre, u.username, " +
-                        "CASE WHEN s.aporteAlDia = true AND s.solidaridadAlDia = true AND s.fondoAlDia = true AND s.incoopAlDia = true AND s.creditoAlDia = true THEN true ELSE false END "
+        // Últimas asignaciones (con detalles) para precargar el feed de actividad.
+        // Siempre con límite (Pageable): recorre el PK hacia atrás, no la tabla
+        @Query("SELECT a.id, s.nombreCompleto, s.numeroSocio, suc.nombre, u.username, " +
+                        "CASE WHEN s.vozVoto = true THEN true ELSE false END, a.fechaAsignacion "
                         +
                         "FROM Asignacion a JOIN a.socio s LEFT JOIN s.sucursal suc " +
                         "JOIN a.listaAsignacion l JOIN l.usuario u " +
                         "ORDER BY a.id DESC")
-
-        java.util.List<Object[]> findUltimasAsignaciones();
+        java.util.List<Object[]> findUltimasAsignaciones(org.springframework.data.domain.Pageable pageable);
 
         // ====== Queries para Estadísticas de Asignaciones por Día ======
 
@@ -0,0 +1,27 @@
+package com.asamblea.repository;
+
+import com.asamblea.model.AsignacionSnapshot;
+import com.asamblea.model.AsignacionSnapshot.Tipo;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface AsignacionSnapshotRepository extends JpaRepository<AsignacionSnapshot, Long> {
+
+    List<AsignacionSnapshot> findAllByOrderByCreatedAtDesc();
+
+    // Último checkpoint (para decidir si toca compactar)
+    Optional<AsignacionSnapshot> findFirstByTipoOrderByVersionDesc(Tipo tipo);
+
+    // Checkpoint base para reconstruir una versión
+    Optional<AsignacionSnapshot> findFirstByTipoAndVersionLessThanEqualOrderByVersionDesc(Tipo tipo, Long version);
+
+    List<AsignacionSnapshot> findByTipoOrderByVersionAsc(Tipo tipo);
+
+    // Retención de marcas
+    List<AsignacionSnapshot> findByTipoAndCreatedAtBefore(Tipo tipo, LocalDateTime fecha);
+}
@@ -42,6 +42,23 @@ public interface AsistenciaRepository extends JpaRepository<Asistencia, Long> {
 
     java.util.List<Asistencia> findByFechaHoraBetween(java.time.LocalDateTime start, java.time.LocalDateTime end);
 
+    // Proyección para la gráfica pública: solo hora y condición, sin socio/operador/asamblea
+    interface MarcaAsistencia {
+        java.time.LocalDateTime getFechaHora();
+
+        Boolean getEstadoVozVoto();
+    }
+
+    @Query("SELECT a.fechaHora AS fechaHora, a.estadoVozVoto AS estadoVozVoto FROM Asistencia a "
+            + "WHERE a.fechaHora BETWEEN :inicio AND :fin")
+    java.util.List<MarcaAsistencia> findMarcasByFechaHoraBetween(
+            @org.springframework.data.repository.query.Param("inicio") java.time.LocalDateTime inicio,
+            @org.springframework.data.repository.query.Param("fin") java.time.LocalDateTime fin);
+
+    // Últimos check-ins (id, fechaHora, vozVoto) para precargar el feed de actividad
+    @Query("SELECT a.id, a.fechaHora, a.estadoVozVoto FROM Asistencia a ORDER BY a.id DESC")
+    java.util.List<Object[]> findUltimas(org.springframework.data.domain.Pageable pageable);
+
     // Optimized Report Query
     @Query("SELECT a FROM Asistencia a " +
            "WHERE (:fechaInicio IS NULL OR a.fechaHora >= :fechaInicio) " +
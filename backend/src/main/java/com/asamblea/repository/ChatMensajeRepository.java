@@ -19,6 +19,12 @@ public interface ChatMensajeRepository extends JpaRepository<ChatMensaje, Long>
     @Query("SELECT m FROM ChatMensaje m WHERE m.conversacion.id = :conversacionId ORDER BY m.createdAt DESC")
     List<ChatMensaje> findLastMessages(Long conversacionId, org.springframework.data.domain.Pageable pageable);
 
+    // Página de historial por keyset: los mensajes con id menor al cursor, del más nuevo
+    // al más viejo. Usa el índice de la FK (conversacion_id, que en InnoDB incluye el id)
+    @Query("SELECT m FROM ChatMensaje m WHERE m.conversacion.id = :conversacionId AND m.id < :antesDe " +
+            "ORDER BY m.id DESC")
+    List<ChatMensaje> findAnteriores(Long conversacionId, Long antesDe, org.springframework.data.domain.Pageable pageable);
+
     // Marcar mensajes como leídos
     @Modifying
     @Query("UPDATE ChatMensaje m SET m.readAt = :readAt, m.estado = 'LEIDO' " +
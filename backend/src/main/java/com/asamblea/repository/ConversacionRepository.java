@@ -1,9 +1,12 @@
 package com.asamblea.repository;
 
 import com.asamblea.model.Conversacion;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -18,6 +21,23 @@ public interface ConversacionRepository extends JpaRepository<Conversacion, Long
     @Query("SELECT c FROM Conversacion c JOIN FETCH c.usuario ORDER BY c.lastMessageAt DESC")
     List<Conversacion> findAllOrderByLastMessageDesc();
 
+    // Página de la lista para admin en una sola consulta, con el preview desnormalizado:
+    // id, createdAt, lastMessageAt, estado, unreadCountAdmin, usuarioId, usuarioNombre, ultimoMensaje
+    @Query("SELECT c.id, c.createdAt, c.lastMessageAt, c.estado, c.unreadCountAdmin, u.id, u.nombreCompleto, " +
+            "c.ultimoMensaje FROM Conversacion c JOIN c.usuario u ORDER BY c.lastMessageAt DESC, c.id DESC")
+    List<Object[]> findResumenes(Pageable pageable);
+
+    // Completa el preview de conversaciones con mensajes anteriores a la columna
+    // (o escritos por fuera de /mensaje, como una restauración). Solo toca las que no lo tienen.
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE conversaciones c SET ultimo_mensaje = (" +
+            "SELECT CASE WHEN CHAR_LENGTH(m.contenido) > 50 THEN CONCAT(SUBSTRING(m.contenido, 1, 47), '...') " +
+            "ELSE m.contenido END FROM chat_mensajes m WHERE m.conversacion_id = c.id ORDER BY m.id DESC LIMIT 1) " +
+            "WHERE c.ultimo_mensaje IS NULL " +
+            "AND EXISTS (SELECT 1 FROM chat_mensajes m2 WHERE m2.conversacion_id = c.id)", nativeQuery = true)
+    int completarUltimoMensaje();
+
     // Conversaciones con mensajes no leídos para admin
     @Query("SELECT c FROM Conversacion c JOIN FETCH c.usuario WHERE c.unreadCountAdmin > 0 ORDER BY c.lastMessageAt DESC")
     List<Conversacion> findWithUnreadForAdmin();
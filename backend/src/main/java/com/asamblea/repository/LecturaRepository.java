@@ -0,0 +1,238 @@
+package com.asamblea.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Modelo de lectura para listas, reportes y dashboard: filas planas (records)
+ * con solo las columnas que usan esas vistas, leídas con JDBC.
+ * Las entidades Asignacion y Asistencia tienen sus relaciones EAGER (socio y
+ * su sucursal, lista y su usuario, asignadoPor, operador), así que leerlas
+ * para mostrar una tabla hidrata grafos completos, muchas veces con selects
+ * secundarios. Acá cada método es una sola consulta con los JOIN necesarios.
+ */
+@Repository
+@RequiredArgsConstructor
+public class LecturaRepository {
+
+    // Ids por consulta en los filtros IN
+    private static final int LOTE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Datos del socio que muestran las vistas. estadoVozVoto es la columna
+     * socios.voz_voto; los requisitos van aparte para listar qué le falta.
+     */
+    public record SocioFila(Long id, String cedula, String nombreCompleto, String numeroSocio, String sucursal,
+            boolean estadoVozVoto, boolean aporteAlDia, boolean solidaridadAlDia, boolean fondoAlDia,
+            boolean incoopAlDia, boolean creditoAlDia) {
+    }
+
+    /**
+     * Asignación con el nombre del responsable de la lista y de quien asignó
+     * (null si no se registró).
+     */
+    public record AsignacionFila(Long id, Long listaId, String listaNombre, Long responsableId, String responsable,
+            LocalDateTime fechaAsignacion, String asignadoPor, SocioFila socio) {
+    }
+
+    /**
+     * Asistencia con el operador que la registró (null si fue el sistema).
+     */
+    public record AsistenciaFila(Long id, LocalDateTime fechaHora, Boolean estadoVozVoto, Long operadorId,
+            String operador, SocioFila socio) {
+    }
+
+    private static final String SOCIO_COLUMNAS = "s.id AS socio_id, s.cedula, s.nombre_completo, s.numero_socio, "
+            + "suc.nombre AS sucursal, s.voz_voto, s.aporte_al_dia, s.solidaridad_al_dia, s.fondo_al_dia, s.incoop_al_dia, "
+            + "s.credito_al_dia";
+
+    private static final String SQL_ASIGNACIONES = "SELECT a.id, a.lista_id, l.nombre AS lista_nombre, "
+            + "u.id AS responsable_id, u.nombre_completo AS responsable, a.fecha_asignacion, "
+            + "ap.nombre_completo AS asignado_por, " + SOCIO_COLUMNAS + " "
+            + "FROM asignaciones_socios a "
+            + "JOIN socios s ON s.id = a.socio_id "
+            + "LEFT JOIN sucursales suc ON suc.id = s.id_sucursal "
+            + "JOIN listas_asignacion l ON l.id = a.lista_id "
+            + "JOIN usuarios u ON u.id = l.user_id "
+            + "LEFT JOIN usuarios ap ON ap.id = a.asignado_por_id ";
+
+    private static final String SQL_ASISTENCIAS = "SELECT x.id, x.fecha_hora, x.estado_voz_voto, "
+            + "op.id AS operador_id, op.nombre_completo AS operador, " + SOCIO_COLUMNAS + " "
+            + "FROM asistencias x "
+            + "JOIN socios s ON s.id = x.id_socio "
+            + "LEFT JOIN sucursales suc ON suc.id = s.id_sucursal "
+            + "LEFT JOIN usuarios op ON op.id = x.id_operador ";
+
+    private static final RowMapper<AsignacionFila> ASIGNACION = (rs, i) -> new AsignacionFila(
+            rs.getLong("id"), rs.getLong("lista_id"), rs.getString("lista_nombre"),
+            rs.getLong("responsable_id"), rs.getString("responsable"), fecha(rs, "fecha_asignacion"),
+            rs.getString("asignado_por"), socio(rs));
+
+    private static final RowMapper<AsistenciaFila> ASISTENCIA = (rs, i) -> {
+        boolean vozVoto = rs.getBoolean("estado_voz_voto");
+        Boolean estadoVozVoto = rs.wasNull() ? null : vozVoto;
+        long id = rs.getLong("operador_id");
+        Long operadorId = rs.wasNull() ? null : id;
+        return new AsistenciaFila(rs.getLong("id"), fecha(rs, "fecha_hora"), estadoVozVoto, operadorId,
+                rs.getString("operador"), socio(rs));
+    };
+
+    // ===== ASIGNACIONES =====
+
+    /**
+     * Asignaciones de las listas indicadas, en orden de alta.
+     */
+    public List<AsignacionFila> asignacionesDeListas(Collection<Long> listaIds) {
+        List<AsignacionFila> filas = new ArrayList<>();
+        for (List<Long> lote : lotes(listaIds)) {
+            filas.addAll(jdbcTemplate.query(SQL_ASIGNACIONES + "WHERE a.lista_id IN (" + marcas(lote.size())
+                    + ") ORDER BY a.id", ASIGNACION, lote.toArray()));
+        }
+        return filas;
+    }
+
+    /**
+     * Asignaciones de las listas de un responsable (todas si operadorId es null).
+     */
+    public List<AsignacionFila> asignacionesReporte(Long operadorId) {
+        if (operadorId == null) {
+            return jdbcTemplate.query(SQL_ASIGNACIONES + "ORDER BY a.id", ASIGNACION);
+        }
+        return jdbcTemplate.query(SQL_ASIGNACIONES + "WHERE u.id = ? ORDER BY a.id", ASIGNACION, operadorId);
+    }
+
+    /**
+     * Asignaciones de socios de una sucursal, opcionalmente de un responsable.
+     */
+    public List<AsignacionFila> asignacionesPorSucursal(Long sucursalId, Long operadorId) {
+        if (operadorId == null) {
+            return jdbcTemplate.query(SQL_ASIGNACIONES + "WHERE s.id_sucursal = ? ORDER BY a.id", ASIGNACION,
+                    sucursalId);
+        }
+        return jdbcTemplate.query(SQL_ASIGNACIONES + "WHERE s.id_sucursal = ? AND u.id = ? ORDER BY a.id",
+                ASIGNACION, sucursalId, operadorId);
+    }
+
+    /**
+     * Ids de los socios asignados a las listas de un usuario.
+     */
+    public List<Long> socioIdsDeUsuario(Long usuarioId) {
+        return jdbcTemplate.queryForList("SELECT a.socio_id FROM asignaciones_socios a "
+                + "JOIN listas_asignacion l ON l.id = a.lista_id WHERE l.user_id = ?", Long.class, usuarioId);
+    }
+
+    /**
+     * Primera lista activa (por id) de cada usuario: usuarioId -> listaId.
+     */
+    public Map<Long, Long> listaActivaPorUsuario() {
+        Map<Long, Long> activas = new HashMap<>();
+        jdbcTemplate.query("SELECT user_id, id FROM listas_asignacion WHERE activa = TRUE ORDER BY id",
+                (ResultSet rs) -> {
+                    activas.putIfAbsent(rs.getLong(1), rs.getLong(2));
+                });
+        return activas;
+    }
+
+    // ===== ASISTENCIAS =====
+
+    /**
+     * Asistencias registradas por cada operador: operadorId -> cantidad.
+     */
+    public Map<Long, Long> asistenciasPorOperador() {
+        Map<Long, Long> conteos = new HashMap<>();
+        jdbcTemplate.query("SELECT id_operador, COUNT(*) FROM asistencias WHERE id_operador IS NOT NULL "
+                + "GROUP BY id_operador", (ResultSet rs) -> {
+                    conteos.put(rs.getLong(1), rs.getLong(2));
+                });
+        return conteos;
+    }
+
+    /**
+     * Asistencias con los mismos filtros opcionales que
+     * AsistenciaRepository.findAsistenciasReporte; socioIds null = sin filtro
+     * por socio.
+     */
+    public List<AsistenciaFila> asistenciasReporte(LocalDateTime fechaInicio, LocalDateTime fechaFin,
+            Long sucursalId, Long operadorId, Collection<Long> socioIds) {
+        StringBuilder where = new StringBuilder("WHERE 1 = 1");
+        List<Object> params = new ArrayList<>();
+        if (fechaInicio != null) {
+            where.append(" AND x.fecha_hora >= ?");
+            params.add(Timestamp.valueOf(fechaInicio));
+        }
+        if (fechaFin != null) {
+            where.append(" AND x.fecha_hora <= ?");
+            params.add(Timestamp.valueOf(fechaFin));
+        }
+        if (sucursalId != null) {
+            where.append(" AND s.id_sucursal = ?");
+            params.add(sucursalId);
+        }
+        if (operadorId != null) {
+            where.append(" AND x.id_operador = ?");
+            params.add(operadorId);
+        }
+        if (socioIds == null) {
+            return jdbcTemplate.query(SQL_ASISTENCIAS + where + " ORDER BY x.id", ASISTENCIA, params.toArray());
+        }
+        List<AsistenciaFila> filas = new ArrayList<>();
+        for (List<Long> lote : lotes(socioIds)) {
+            List<Object> conLote = new ArrayList<>(params);
+            conLote.addAll(lote);
+            filas.addAll(jdbcTemplate.query(SQL_ASISTENCIAS + where + " AND x.id_socio IN ("
+                    + marcas(lote.size()) + ") ORDER BY x.id", ASISTENCIA, conLote.toArray()));
+        }
+        return filas;
+    }
+
+    /**
+     * Presentes por sucursal del socio: [sucursal (null = sin sucursal), total, con voz y voto].
+     */
+    public List<Object[]> presentesPorSucursal() {
+        return jdbcTemplate.query("SELECT suc.nombre, COUNT(*), "
+                + "SUM(CASE WHEN s.voz_voto THEN 1 ELSE 0 END) "
+                + "FROM asistencias x JOIN socios s ON s.id = x.id_socio "
+                + "LEFT JOIN sucursales suc ON suc.id = s.id_sucursal GROUP BY suc.nombre",
+                (rs, i) -> new Object[] { rs.getString(1), rs.getLong(2), rs.getLong(3) });
+    }
+
+    private static SocioFila socio(ResultSet rs) throws SQLException {
+        return new SocioFila(rs.getLong("socio_id"), rs.getString("cedula"), rs.getString("nombre_completo"),
+                rs.getString("numero_socio"), rs.getString("sucursal"), rs.getBoolean("voz_voto"),
+                rs.getBoolean("aporte_al_dia"), rs.getBoolean("solidaridad_al_dia"), rs.getBoolean("fondo_al_dia"),
+                rs.getBoolean("incoop_al_dia"), rs.getBoolean("credito_al_dia"));
+    }
+
+    private static LocalDateTime fecha(ResultSet rs, String columna) throws SQLException {
+        Timestamp ts = rs.getTimestamp(columna);
+        return ts != null ? ts.toLocalDateTime() : null;
+    }
+
+    private static List<List<Long>> lotes(Collection<Long> ids) {
+        List<Long> todos = new ArrayList<>(ids);
+        List<List<Long>> lotes = new ArrayList<>();
+        for (int desde = 0; desde < todos.size(); desde += LOTE) {
+            lotes.add(todos.subList(desde, Math.min(desde + LOTE, todos.size())));
+        }
+        return lotes;
+    }
+
+    private static String marcas(int n) {
+        return String.join(", ", Collections.nCopies(n, "?"));
+    }
+}
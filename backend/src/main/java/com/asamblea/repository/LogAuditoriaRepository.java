@@ -1,18 +1,32 @@
 package com.asamblea.repository;
 
 import com.asamblea.model.LogAuditoria;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
 public interface LogAuditoriaRepository extends JpaRepository<LogAuditoria, Long> {
-    Page<LogAuditoria> findAllByOrderByCreatedAtDesc(Pageable pageable);
+    // Paginación por cursor (createdAt, id): recorre idx_auditoria_created desde el cursor, sin OFFSET
+    List<LogAuditoria> findAllByOrderByCreatedAtDescIdDesc(Pageable pageable);
+
+    @Query("SELECT l FROM LogAuditoria l WHERE l.createdAt <= :fecha AND (l.createdAt < :fecha OR l.id < :id) "
+            + "ORDER BY l.createdAt DESC, l.id DESC")
+    List<LogAuditoria> findAnteriores(@Param("fecha") LocalDateTime fecha, @Param("id") Long id, Pageable pageable);
 
     List<LogAuditoria> findByModuloOrderByCreatedAtDesc(String modulo);
 
-    List<LogAuditoria> findByDetallesContainingOrderByCreatedAtDesc(String texto);
+    // Usa idx_auditoria_socio
+    List<LogAuditoria> findBySocioIdAndModuloOrderByCreatedAtDesc(Long socioId, String modulo);
+
+    // Filas anteriores a las columnas de entidad (id <= hastaId): solo se pueden buscar por texto
+    @Query("SELECT l FROM LogAuditoria l WHERE l.id <= :hastaId AND l.modulo = :modulo "
+            + "AND l.detalles LIKE CONCAT('%', :texto, '%') ORDER BY l.createdAt DESC")
+    List<LogAuditoria> findAnterioresPorTexto(@Param("hastaId") Long hastaId, @Param("modulo") String modulo,
+            @Param("texto") String texto);
 }
@@ -2,7 +2,9 @@ package com.asamblea.repository;
 
 import com.asamblea.model.Socio;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -25,12 +27,16 @@ public interface SocioRepository extends JpaRepository<Socio, Long> {
         @Query("SELECT s FROM Socio s LEFT JOIN FETCH s.sucursal WHERE s.sucursal.id = :sucursalId")
         List<Socio> findBySucursalId(Long sucursalId);
 
+        // Socios de una lista sin pasar por Asignacion (que trae lista, usuario y asignadoPor EAGER)
+        @Query("SELECT s FROM Asignacion a JOIN a.socio s LEFT JOIN FETCH s.sucursal WHERE a.listaAsignacion.id = :listaId ORDER BY a.id")
+        List<Socio> findSociosDeLista(@org.springframework.data.repository.query.Param("listaId") Long listaId);
+
         // Contar total con Voz y Voto (los 4 campos en SI)
-        @Query("SELECT COUNT(s) FROM Socio s WHERE s.aporteAlDia = true AND s.solidaridadAlDia = true AND s.fondoAlDia = true AND s.incoopAlDia = true AND s.creditoAlDia = true")
+        @Query("SELECT COUNT(s) FROM Socio s WHERE s.vozVoto = true")
         Long countConVozYVoto();
 
         // Contar solo voz (al menos 1 campo en NO)
-        @Query("SELECT COUNT(s) FROM Socio s WHERE NOT (s.aporteAlDia = true AND s.solidaridadAlDia = true AND s.fondoAlDia = true AND s.incoopAlDia = true AND s.creditoAlDia = true)")
+        @Query("SELECT COUNT(s) FROM Socio s WHERE s.vozVoto = false")
         Long countSoloVoz();
 
         // Contar socios en padrón actual (excluye los dados de baja / fuera del último
@@ -39,19 +45,27 @@ public interface SocioRepository extends JpaRepository<Socio, Long> {
         Long countEnPadronActual();
 
         // Contar con Voz y Voto SOLO del padrón actual
-        @Query("SELECT COUNT(s) FROM Socio s WHERE s.enPadronActual = true AND s.aporteAlDia = true AND s.solidaridadAlDia = true AND s.fondoAlDia = true AND s.incoopAlDia = true AND s.creditoAlDia = true")
+        @Query("SELECT COUNT(s) FROM Socio s WHERE s.enPadronActual = true AND s.vozVoto = true")
         Long countConVozYVotoEnPadron();
 
         // Contar solo voz SOLO del padrón actual
-        @Query("SELECT COUNT(s) FROM Socio s WHERE s.enPadronActual = true AND NOT (s.aporteAlDia = true AND s.solidaridadAlDia = true AND s.fondoAlDia = true AND s.incoopAlDia = true AND s.creditoAlDia = true)")
+        @Query("SELECT COUNT(s) FROM Socio s WHERE s.enPadronActual = true AND s.vozVoto = false")
         Long countSoloVozEnPadron();
 
+        // Recalcula la columna voz_voto para filas escritas por fuera de JPA (columna
+        // recién agregada, restauración de backup). Solo toca las que están desfasadas.
+        @Modifying
+        @Transactional
+        @Query(value = "UPDATE socios SET voz_voto = (aporte_al_dia AND solidaridad_al_dia AND fondo_al_dia AND incoop_al_dia AND credito_al_dia) "
+                        + "WHERE voz_voto IS NULL OR voz_voto <> (aporte_al_dia AND solidaridad_al_dia AND fondo_al_dia AND incoop_al_dia AND credito_al_dia)", nativeQuery = true)
+        int recalcularVozVoto();
+
         // Contar por sucursal
         @Query("SELECT COUNT(s) FROM Socio s WHERE s.sucursal.id = :sucursalId")
         Long countBySucursalId(Long sucursalId);
 
         // Contar con voz y voto por sucursal
-        @Query("SELECT COUNT(s) FROM Socio s WHERE s.sucursal.id = :sucursalId AND s.aporteAlDia = true AND s.solidaridadAlDia = true AND s.fondoAlDia = true AND s.incoopAlDia = true AND s.creditoAlDia = true")
+        @Query("SELECT COUNT(s) FROM Socio s WHERE s.sucursal.id = :sucursalId AND s.vozVoto = true")
         Long countConVozYVotoBySucursalId(Long sucursalId);
 
         // Buscar exacto por número de socio o cédula - CON SUCURSAL
@@ -69,12 +83,12 @@ public interface SocioRepository extends JpaRepository<Socio, Long> {
         List<Socio> findSociosSinAsignar();
 
         // Paginación con filtro Voz y Voto (todos los campos en SI)
-        @Query(value = "SELECT s FROM Socio s LEFT JOIN FETCH s.sucursal WHERE s.aporteAlDia = true AND s.solidaridadAlDia = true AND s.fondoAlDia = true AND s.incoopAlDia = true AND s.creditoAlDia = true ORDER BY CAST(s.numeroSocio AS int) ASC", countQuery = "SELECT COUNT(s) FROM Socio s WHERE s.aporteAlDia = true AND s.solidaridadAlDia = true AND s.fondoAlDia = true AND s.incoopAlDia = true AND s.creditoAlDia = true")
+        @Query(value = "SELECT s FROM Socio s LEFT JOIN FETCH s.sucursal WHERE s.vozVoto = true ORDER BY CAST(s.numeroSocio AS int) ASC", countQuery = "SELECT COUNT(s) FROM Socio s WHERE s.vozVoto = true")
         org.springframework.data.domain.Page<Socio> findAllConVozYVoto(
                         org.springframework.data.domain.Pageable pageable);
 
         // Paginación con filtro Solo Voz (al menos 1 campo en NO)
-        @Query(value = "SELECT s FROM Socio s LEFT JOIN FETCH s.sucursal WHERE NOT (s.aporteAlDia = true AND s.solidaridadAlDia = true AND s.fondoAlDia = true AND s.incoopAlDia = true AND s.creditoAlDia = true) ORDER BY CAST(s.numeroSocio AS int) ASC", countQuery = "SELECT COUNT(s) FROM Socio s WHERE NOT (s.aporteAlDia = true AND s.solidaridadAlDia = true AND s.fondoAlDia = true AND s.incoopAlDia = true AND s.creditoAlDia = true)")
+        @Query(value = "SELECT s FROM Socio s LEFT JOIN FETCH s.sucursal WHERE s.vozVoto = false ORDER BY CAST(s.numeroSocio AS int) ASC", countQuery = "SELECT COUNT(s) FROM Socio s WHERE s.vozVoto = false")
         org.springframework.data.domain.Page<Socio> findAllSoloVoz(org.springframework.data.domain.Pageable pageable);
 
         @Query(value = "SELECT s FROM Socio s LEFT JOIN FETCH s.sucursal WHERE " +
@@ -83,9 +97,9 @@ public interface SocioRepository extends JpaRepository<Socio, Long> {
                         "(:telefono IS NULL OR s.telefono LIKE CONCAT('%', :telefono, '%')) AND " +
                         "(:sucursalId IS NULL OR s.sucursal.id = :sucursalId) AND " +
                         "(:estado IS NULL OR " +
-                        "  (:estado = 'vozYVoto' AND s.aporteAlDia = true AND s.solidaridadAlDia = true AND s.fondoAlDia = true AND s.incoopAlDia = true AND s.creditoAlDia = true) OR "
+                        "  (:estado = 'vozYVoto' AND s.vozVoto = true) OR "
                         +
-                        "  (:estado = 'soloVoz' AND NOT(s.aporteAlDia = true AND s.solidaridadAlDia = true AND s.fondoAlDia = true AND s.incoopAlDia = true AND s.creditoAlDia = true))"
+                        "  (:estado = 'soloVoz' AND s.vozVoto = false)"
                         +
                         ") ORDER BY CAST(s.numeroSocio AS int) ASC", countQuery = "SELECT COUNT(s) FROM Socio s WHERE "
                                         +
@@ -95,9 +109,9 @@ public interface SocioRepository extends JpaRepository<Socio, Long> {
                                         "(:telefono IS NULL OR s.telefono LIKE CONCAT('%', :telefono, '%')) AND " +
                                         "(:sucursalId IS NULL OR s.sucursal.id = :sucursalId) AND " +
                                         "(:estado IS NULL OR " +
-                                        "  (:estado = 'vozYVoto' AND s.aporteAlDia = true AND s.solidaridadAlDia = true AND s.fondoAlDia = true AND s.incoopAlDia = true AND s.creditoAlDia = true) OR "
+                                        "  (:estado = 'vozYVoto' AND s.vozVoto = true) OR "
                                         +
-                                        "  (:estado = 'soloVoz' AND NOT(s.aporteAlDia = true AND s.solidaridadAlDia = true AND s.fondoAlDia = true AND s.incoopAlDia = true AND s.creditoAlDia = true))"
+                                        "  (:estado = 'soloVoz' AND s.vozVoto = false)"
                                         +
                                         ")")
         org.springframework.data.domain.Page<Socio> findWithFilters(
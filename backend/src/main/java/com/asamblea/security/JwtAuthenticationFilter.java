@@ -1,5 +1,6 @@
 package com.asamblea.security;
 
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -9,7 +10,7 @@ import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -21,7 +22,7 @@ import java.io.IOException;
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
-    private final UserDetailsService userDetailsService;
+    private final SesionCacheService sesionCacheService;
     private final com.asamblea.service.ConfiguracionService configuracionService;
 
     @Override
@@ -57,13 +58,19 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         try {
             jwt = authHeader.substring(7).trim();
-            username = jwtService.extractUsername(jwt);
+            // Una sola verificación de firma por petición
+            Claims claims = jwtService.parseClaims(jwt);
+            username = claims.getSubject();
 
             if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
+                // Desde el cache de sesiones (sin consulta salvo TTL vencido o invalidación)
+                UserDetails userDetails = sesionCacheService.obtener(username, jwtService.extractTokenVersion(claims));
+                if (userDetails == null) {
+                    throw new UsernameNotFoundException("Usuario no encontrado");
+                }
 
                 // --- MAINTENANCE MODE CHECK ---
-                boolean maintenanceMode = "true".equals(configuracionService.obtener("MODO_MANTENIMIENTO", "false"));
+                boolean maintenanceMode = configuracionService.isModoMantenimiento();
                 if (maintenanceMode) {
                     boolean isSuperAdmin = userDetails.getAuthorities().stream()
                             .anyMatch(a -> a.getAuthority().equals("ROLE_SUPER_ADMIN"));
@@ -77,7 +84,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                 }
                 // ------------------------------
 
-                if (jwtService.isTokenValid(jwt, userDetails)) {
+                if (jwtService.isTokenValid(claims, userDetails)) {
                     UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                             userDetails,
                             null,
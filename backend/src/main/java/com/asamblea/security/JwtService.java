@@ -1,6 +1,7 @@
 package com.asamblea.security;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
@@ -24,6 +25,9 @@ public class JwtService {
     @Value("${jwt.expiration}")
     private long jwtExpiration;
 
+    // El parser es inmutable y thread-safe: se arma una sola vez
+    private volatile JwtParser parser;
+
     public String extractUsername(String token) {
         return extractClaim(token, Claims::getSubject);
     }
@@ -68,9 +72,40 @@ public class JwtService {
         return basicValid;
     }
 
+    /**
+     * Mismo criterio que isTokenValid(String, UserDetails) pero sobre claims ya
+     * verificados (ver parseClaims): evita volver a parsear el token.
+     */
+    public boolean isTokenValid(Claims claims, UserDetails userDetails) {
+        boolean basicValid = userDetails.getUsername().equals(claims.getSubject())
+                && !claims.getExpiration().before(new Date());
+
+        if (basicValid && userDetails instanceof Usuario) {
+            Usuario usuario = (Usuario) userDetails;
+            Integer currentTokenVersion = usuario.getTokenVersion() != null ? usuario.getTokenVersion() : 0;
+            return extractTokenVersion(claims).equals(currentTokenVersion);
+        }
+
+        return basicValid;
+    }
+
+    /**
+     * Verifica la firma (y la expiración) una sola vez y devuelve los claims.
+     */
+    public Claims parseClaims(String token) {
+        return extractAllClaims(token);
+    }
+
     public Integer extractTokenVersion(String token) {
         try {
-            Claims claims = extractAllClaims(token);
+            return extractTokenVersion(extractAllClaims(token));
+        } catch (Exception e) {
+            return 0;
+        }
+    }
+
+    public Integer extractTokenVersion(Claims claims) {
+        try {
             Object version = claims.get("tokenVersion");
             if (version instanceof Integer) {
                 return (Integer) version;
@@ -92,11 +127,14 @@ public class JwtService {
     }
 
     private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSignInKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+        JwtParser p = parser;
+        if (p == null) {
+            p = Jwts.parser()
+                    .verifyWith(getSignInKey())
+                    .build();
+            parser = p;
+        }
+        return p.parseSignedClaims(token).getPayload();
     }
 
     private SecretKey getSignInKey() {
@@ -1,5 +1,6 @@
 package com.asamblea.security;
 
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -32,9 +33,13 @@ public class SecurityConfiguration {
                                 .csrf(AbstractHttpConfigurer::disable)
                                 .cors(cors -> cors.configurationSource(corsConfigurationSource()))
                                 .authorizeHttpRequests(auth -> auth
+                                                // Respuesta diferida (stream SSE de actividad): la petición ya se autorizó al entrar
+                                                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                                                 .requestMatchers("/public/**", "/api/auth/login", "/error").permitAll()
                                                 .requestMatchers("/api/public/**").permitAll() // Endpoints públicos
                                                                                                // para pantalla
+                                                // Handshake del canal en vivo; la autenticación va en el CONNECT STOMP
+                                                .requestMatchers("/api/ws/**", "/api/ws-sockjs/**").permitAll()
                                                 .requestMatchers("/api/candidatos/publico").permitAll() // Candidatos público
                                                 .requestMatchers("/api/configuracion").permitAll()
                                                 .requestMatchers("/v3/api-docs/**", "/swagger-ui/**").permitAll()
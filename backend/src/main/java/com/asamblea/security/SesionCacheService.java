@@ -0,0 +1,87 @@
+package com.asamblea.security;
+
+import com.asamblea.model.Usuario;
+import com.asamblea.repository.UsuarioRepository;
+import com.asamblea.service.DatosReemplazadosEvent;
+import com.asamblea.service.TransaccionUtil;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache de usuarios autenticados por username para JwtAuthenticationFilter:
+ * una petición con token cuesta una verificación de firma y ninguna consulta.
+ * - Cada entrada vive un TTL corto; pasado ese tiempo se relee de la base.
+ * - Si el token trae un tokenVersion mayor al cacheado (otra instancia cerró
+ *   sesiones, por ejemplo) se relee en el momento.
+ * - Los cambios de contraseña, cierre de sesiones, rol o estado invalidan la
+ *   entrada de forma explícita; restauraciones y reseteos vacían todo.
+ * El usuario cacheado es una copia desconectada: solo se usa como principal
+ * (username, rol, tokenVersion), nunca para guardar.
+ */
+@Service
+@RequiredArgsConstructor
+public class SesionCacheService {
+
+    private final UsuarioRepository usuarioRepository;
+
+    @Value("${seguridad.sesion-cache.ttl-ms:30000}")
+    private long ttlMs = 30000;
+
+    private record Entrada(Usuario usuario, long cargadoEn) {
+    }
+
+    private final Map<String, Entrada> cache = new ConcurrentHashMap<>();
+
+    /**
+     * Usuario para el principal del token, o null si ya no existe.
+     */
+    public Usuario obtener(String username, Integer tokenVersionJwt) {
+        long ahora = System.currentTimeMillis();
+        Entrada e = cache.get(username);
+        if (e != null && ahora - e.cargadoEn() < ttlMs && !versionMasNueva(tokenVersionJwt, e.usuario())) {
+            return e.usuario();
+        }
+        Usuario usuario = usuarioRepository.findByUsername(username).orElse(null);
+        if (usuario == null) {
+            cache.remove(username);
+            return null;
+        }
+        cache.put(username, new Entrada(usuario, ahora));
+        return usuario;
+    }
+
+    /**
+     * Descarta la entrada del usuario ahora y otra vez al confirmar la
+     * transacción (por si una petición concurrente alcanzó a leer el dato viejo).
+     */
+    public void invalidar(String username) {
+        if (username == null) {
+            return;
+        }
+        cache.remove(username);
+        TransaccionUtil.alConfirmar(() -> cache.remove(username));
+    }
+
+    /**
+     * Restauraciones, reseteos y cambios masivos de usuarios.
+     */
+    public void invalidarTodo() {
+        cache.clear();
+        TransaccionUtil.alConfirmar(cache::clear);
+    }
+
+    @EventListener
+    public void alReemplazarDatos(DatosReemplazadosEvent evento) {
+        invalidarTodo();
+    }
+
+    private static boolean versionMasNueva(Integer tokenVersionJwt, Usuario cacheado) {
+        int actual = cacheado.getTokenVersion() != null ? cacheado.getTokenVersion() : 0;
+        return tokenVersionJwt != null && tokenVersionJwt > actual;
+    }
+}
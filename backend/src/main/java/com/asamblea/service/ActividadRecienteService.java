@@ -0,0 +1,435 @@
+package com.asamblea.service;
+
+import com.asamblea.repository.AsignacionRepository;
+import com.asamblea.repository.AsistenciaRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Feed de actividad reciente (asignaciones y check-ins) en anillos de tamaño
+ * fijo. Se llena desde los caminos de escritura al confirmarse la
+ * transacción y se precarga desde la base al arrancar (solo las últimas N
+ * filas por id), así que leer el feed no depende del tamaño de las tablas.
+ * - Cada evento lleva un "seq" creciente y único entre ambos tipos: sirve de
+ *   cursor para paginar hacia atrás y para retomar el stream (Last-Event-ID).
+ * - Las bajas, vaciados y restauraciones marcan el feed como desfasado y se
+ *   vuelve a cargar en el siguiente chequeo.
+ * - Lo consumen /api/public/actividad (paginado y SSE) y el push STOMP.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ActividadRecienteService {
+
+    public enum Tipo {
+        ASIGNACION, ASISTENCIA
+    }
+
+    /**
+     * Evento del feed. idOrigen es el id de la fila en la base (no se expone);
+     * se usa para no duplicar eventos al recargar.
+     */
+    public record Evento(long seq, Tipo tipo, Long idOrigen, Map<String, Object> datos) {
+    }
+
+    /**
+     * Eventos posteriores a un cursor. omitidos cuenta los que no entraron en
+     * el límite y el cliente no va a recibir.
+     */
+    public record Posteriores(List<Evento> eventos, int omitidos, long cursor) {
+    }
+
+    private final AsignacionRepository asignacionRepository;
+    private final AsistenciaRepository asistenciaRepository;
+
+    @Value("${actividad.capacidad:200}")
+    private int capacidad = 200;
+
+    @Value("${actividad.stream.max-clientes:200}")
+    private int maxClientesStream = 200;
+
+    @Value("${actividad.stream.timeout-ms:1800000}")
+    private long timeoutStreamMs = 1800000;
+
+    @Value("${actividad.stream.latido-ms:15000}")
+    private long latidoStreamMs = 15000;
+
+    private Anillo asignaciones;
+    private Anillo asistencias;
+
+    // Arranca en la hora de inicio (en micros) para que un cliente que retoma
+    // con un Last-Event-ID de antes del reinicio no quede esperando eventos
+    private long ultimoSeq = System.currentTimeMillis() * 1000;
+
+    private final AtomicBoolean desfasado = new AtomicBoolean(true);
+    private final Object cargaLock = new Object();
+
+    private final List<Suscripcion> suscripciones = new CopyOnWriteArrayList<>();
+
+    // ========================================================================
+    // ESCRITURA
+    // ========================================================================
+
+    /**
+     * Socio agregado a una lista. Mismos campos que /api/public/ultimas-asignaciones.
+     */
+    public void registrarAsignacion(Long asignacionId, String socioNombre, String socioNumero, String sucursal,
+            String funcionario, boolean tieneVyV, LocalDateTime fecha) {
+        TransaccionUtil.alConfirmar(() -> agregar(Tipo.ASIGNACION, asignacionId,
+                datosAsignacion(socioNombre, socioNumero, sucursal, funcionario, tieneVyV, fecha)));
+    }
+
+    /**
+     * Check-in registrado. Solo datos mínimos, igual que /api/public/asistencia-hoy.
+     */
+    public void registrarAsistencia(Long asistenciaId, LocalDateTime fechaHora, boolean vozVoto) {
+        TransaccionUtil.alConfirmar(() -> agregar(Tipo.ASISTENCIA, asistenciaId, datosAsistencia(fechaHora, vozVoto)));
+    }
+
+    /**
+     * Bajas de asignaciones, vaciados o restauraciones: el feed puede mostrar
+     * filas que ya no existen. Se recarga en el próximo chequeo.
+     */
+    public void invalidar() {
+        TransaccionUtil.alConfirmar(() -> desfasado.set(true));
+    }
+
+    @EventListener
+    public void alReemplazarDatos(DatosReemplazadosEvent evento) {
+        invalidar();
+    }
+
+    // ========================================================================
+    // LECTURA
+    // ========================================================================
+
+    /**
+     * Página del feed, de la más nueva a la más vieja. antesDe es el seq del
+     * último evento de la página anterior (null para la primera).
+     */
+    public List<Map<String, Object>> anteriores(Tipo tipo, Long antesDe, int limite) {
+        asegurarCargado();
+        List<Evento> eventos;
+        synchronized (this) {
+            Anillo a = anillo(tipo);
+            if (a == null) {
+                return List.of();
+            }
+            eventos = a.anteriores(antesDe != null ? antesDe : Long.MAX_VALUE, limite);
+        }
+        return eventos.stream().map(Evento::datos).toList();
+    }
+
+    /**
+     * Eventos registrados en vivo después del cursor (los precargados desde la
+     * base no cuentan como nuevos). Si hay más que el límite se devuelven los
+     * más recientes.
+     */
+    public Posteriores posteriores(Tipo tipo, long desde, int limite) {
+        asegurarCargado();
+        synchronized (this) {
+            Anillo a = anillo(tipo);
+            return a != null ? a.posteriores(desde, limite) : new Posteriores(List.of(), 0, desde);
+        }
+    }
+
+    public synchronized long ultimoSeq() {
+        return ultimoSeq;
+    }
+
+    // ========================================================================
+    // STREAM (SSE)
+    // ========================================================================
+
+    /**
+     * Abre un stream SSE con los eventos nuevos de ambos tipos. Cada evento se
+     * envía con id = seq; al reconectar el navegador manda ese id como
+     * Last-Event-ID y se retoma desde ahí (mientras siga en el anillo).
+     */
+    public SseEmitter suscribir(Long desde) {
+        if (suscripciones.size() >= maxClientesStream) {
+            return null;
+        }
+        SseEmitter emitter = new SseEmitter(timeoutStreamMs);
+        long cursor = desde != null ? Math.min(desde, ultimoSeq()) : ultimoSeq();
+        Suscripcion s = new Suscripcion(emitter, cursor, cursor);
+        suscripciones.add(s);
+        emitter.onCompletion(() -> suscripciones.remove(s));
+        emitter.onTimeout(() -> suscripciones.remove(s));
+        emitter.onError(e -> suscripciones.remove(s));
+        return emitter;
+    }
+
+    @Scheduled(fixedDelayString = "${actividad.stream.intervalo-ms:250}")
+    public void difundir() {
+        if (suscripciones.isEmpty()) {
+            return;
+        }
+        long ahora = System.currentTimeMillis();
+        for (Suscripcion s : suscripciones) {
+            try {
+                Posteriores asig = posteriores(Tipo.ASIGNACION, s.cursorAsignaciones, capacidad);
+                Posteriores asis = posteriores(Tipo.ASISTENCIA, s.cursorAsistencias, capacidad);
+                List<Evento> nuevos = new ArrayList<>(asig.eventos().size() + asis.eventos().size());
+                nuevos.addAll(asig.eventos());
+                nuevos.addAll(asis.eventos());
+                if (nuevos.isEmpty()) {
+                    if (ahora - s.ultimoEnvio >= latidoStreamMs) {
+                        s.emitter.send(SseEmitter.event().comment("latido"));
+                        s.ultimoEnvio = ahora;
+                    }
+                    continue;
+                }
+                nuevos.sort(Comparator.comparingLong(Evento::seq));
+                for (Evento e : nuevos) {
+                    s.emitter.send(SseEmitter.event()
+                            .id(Long.toString(e.seq()))
+                            .name(e.tipo() == Tipo.ASIGNACION ? "asignacion" : "asistencia")
+                            .data(e.datos()));
+                }
+                s.cursorAsignaciones = asig.cursor();
+                s.cursorAsistencias = asis.cursor();
+                s.ultimoEnvio = ahora;
+            } catch (IOException | IllegalStateException e) {
+                // Cliente desconectado
+                suscripciones.remove(s);
+                s.emitter.completeWithError(e);
+            }
+        }
+    }
+
+    // ========================================================================
+    // CARGA DESDE LA BASE
+    // ========================================================================
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void cargarAlIniciar() {
+        try {
+            cargar();
+        } catch (Exception e) {
+            log.warn("⚠️ No se pudo precargar el feed de actividad: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${dashboard.contadores.chequeo-ms:2000}")
+    public void verificar() {
+        if (desfasado.get()) {
+            try {
+                cargar();
+            } catch (Exception e) {
+                log.warn("⚠️ No se pudo recargar el feed de actividad: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void asegurarCargado() {
+        boolean cargado;
+        synchronized (this) {
+            cargado = asignaciones != null;
+        }
+        if (!cargado) {
+            cargar();
+        }
+    }
+
+    private void cargar() {
+        synchronized (cargaLock) {
+            desfasado.set(false);
+            long base;
+            synchronized (this) {
+                // Se reserva un rango de seq para lo precargado, por debajo de lo
+                // que llegue en vivo mientras se consulta
+                base = ultimoSeq;
+                ultimoSeq += 2L * capacidad;
+            }
+            long finReserva = base + 2L * capacidad;
+            PageRequest ultimas = PageRequest.of(0, capacidad);
+
+            List<Object[]> filasAsig;
+            List<Object[]> filasAsis;
+            try {
+                filasAsig = asignacionRepository.findUltimasAsignaciones(ultimas);
+                filasAsis = asistenciaRepository.findUltimas(ultimas);
+            } catch (RuntimeException e) {
+                desfasado.set(true);
+                throw e;
+            }
+
+            // Las consultas vienen de la más nueva a la más vieja
+            long seq = base;
+            List<Evento> cargadasAsig = new ArrayList<>(filasAsig.size());
+            for (int i = filasAsig.size() - 1; i >= 0; i--) {
+                Object[] row = filasAsig.get(i);
+                cargadasAsig.add(new Evento(++seq, Tipo.ASIGNACION, (Long) row[0],
+                        conSeq(seq, datosAsignacion((String) row[1], (String) row[2], (String) row[3],
+                                (String) row[4], Boolean.TRUE.equals(row[5]), (LocalDateTime) row[6]))));
+            }
+            List<Evento> cargadasAsis = new ArrayList<>(filasAsis.size());
+            for (int i = filasAsis.size() - 1; i >= 0; i--) {
+                Object[] row = filasAsis.get(i);
+                cargadasAsis.add(new Evento(++seq, Tipo.ASISTENCIA, (Long) row[0],
+                        conSeq(seq, datosAsistencia((LocalDateTime) row[1], Boolean.TRUE.equals(row[2])))));
+            }
+
+            synchronized (this) {
+                asignaciones = Anillo.recargado(capacidad, cargadasAsig, asignaciones, finReserva);
+                asistencias = Anillo.recargado(capacidad, cargadasAsis, asistencias, finReserva);
+            }
+            log.debug("Feed de actividad cargado: {} asignaciones, {} asistencias", cargadasAsig.size(),
+                    cargadasAsis.size());
+        }
+    }
+
+    // ========================================================================
+    // INTERNOS
+    // ========================================================================
+
+    // Corre en afterCommit: no consulta la base. Si todavía no hubo carga, el
+    // evento entra en la próxima (ya está confirmado)
+    private void agregar(Tipo tipo, Long idOrigen, Map<String, Object> datos) {
+        synchronized (this) {
+            Anillo a = anillo(tipo);
+            if (a == null) {
+                desfasado.set(true);
+                return;
+            }
+            long seq = ++ultimoSeq;
+            a.agregar(new Evento(seq, tipo, idOrigen, conSeq(seq, datos)));
+        }
+    }
+
+    private Anillo anillo(Tipo tipo) {
+        return tipo == Tipo.ASIGNACION ? asignaciones : asistencias;
+    }
+
+    private static Map<String, Object> datosAsignacion(String socioNombre, String socioNumero, String sucursal,
+            String funcionario, boolean tieneVyV, LocalDateTime fecha) {
+        Map<String, Object> item = new HashMap<>();
+        item.put("socioNombre", socioNombre);
+        item.put("socioNumero", socioNumero);
+        item.put("sucursal", sucursal != null ? sucursal : "N/A");
+        item.put("funcionario", funcionario);
+        item.put("tieneVyV", tieneVyV);
+        item.put("fecha", fecha);
+        return item;
+    }
+
+    private static Map<String, Object> datosAsistencia(LocalDateTime fechaHora, boolean vozVoto) {
+        Map<String, Object> item = new HashMap<>();
+        item.put("fechaHora", fechaHora);
+        item.put("vozVoto", vozVoto);
+        return item;
+    }
+
+    private static Map<String, Object> conSeq(long seq, Map<String, Object> datos) {
+        datos.put("seq", seq);
+        return Collections.unmodifiableMap(datos);
+    }
+
+    private static final class Suscripcion {
+        final SseEmitter emitter;
+        long cursorAsignaciones;
+        long cursorAsistencias;
+        long ultimoEnvio = System.currentTimeMillis();
+
+        Suscripcion(SseEmitter emitter, long cursorAsignaciones, long cursorAsistencias) {
+            this.emitter = emitter;
+            this.cursorAsignaciones = cursorAsignaciones;
+            this.cursorAsistencias = cursorAsistencias;
+        }
+    }
+
+    /**
+     * Buffer circular de eventos ordenados por seq. No es thread-safe: se usa
+     * bajo el lock del servicio.
+     */
+    private static final class Anillo {
+        private final Evento[] eventos;
+        private int inicio;
+        private int tamano;
+        // Eventos con seq <= seqCarga vienen de la base, no de una escritura en vivo
+        private long seqCarga;
+
+        Anillo(int capacidad) {
+            this.eventos = new Evento[Math.max(1, capacidad)];
+        }
+
+        /**
+         * Anillo nuevo con lo leído de la base más los eventos que llegaron en
+         * vivo durante la consulta (seq mayor que la reserva) y que la consulta
+         * no haya alcanzado a ver.
+         */
+        static Anillo recargado(int capacidad, List<Evento> cargados, Anillo previo, long finReserva) {
+            Anillo nuevo = new Anillo(capacidad);
+            Set<Long> ids = new HashSet<>();
+            for (Evento e : cargados) {
+                nuevo.agregar(e);
+                ids.add(e.idOrigen());
+            }
+            nuevo.seqCarga = finReserva;
+            if (previo != null) {
+                for (int i = 0; i < previo.tamano; i++) {
+                    Evento e = previo.en(i);
+                    if (e.seq() > finReserva && !ids.contains(e.idOrigen())) {
+                        nuevo.agregar(e);
+                    }
+                }
+            }
+            return nuevo;
+        }
+
+        void agregar(Evento e) {
+            if (tamano < eventos.length) {
+                eventos[(inicio + tamano) % eventos.length] = e;
+                tamano++;
+            } else {
+                eventos[inicio] = e;
+                inicio = (inicio + 1) % eventos.length;
+            }
+        }
+
+        private Evento en(int i) {
+            return eventos[(inicio + i) % eventos.length];
+        }
+
+        List<Evento> anteriores(long antesDe, int limite) {
+            List<Evento> res = new ArrayList<>(Math.min(limite, tamano));
+            for (int i = tamano - 1; i >= 0 && res.size() < limite; i--) {
+                Evento e = en(i);
+                if (e.seq() < antesDe) {
+                    res.add(e);
+                }
+            }
+            return res;
+        }
+
+        Posteriores posteriores(long desde, int limite) {
+            long piso = Math.max(desde, seqCarga);
+            int primero = tamano;
+            while (primero > 0 && en(primero - 1).seq() > piso) {
+                primero--;
+            }
+            int desdeIndice = Math.max(primero, tamano - limite);
+            List<Evento> res = new ArrayList<>(tamano - desdeIndice);
+            for (int i = desdeIndice; i < tamano; i++) {
+                res.add(en(i));
+            }
+            int omitidos = desdeIndice - primero;
+            long cursor = res.isEmpty() ? piso : res.get(res.size() - 1).seq();
+            return new Posteriores(res, omitidos, cursor);
+        }
+    }
+}
@@ -0,0 +1,277 @@
+package com.asamblea.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Archivo de auditoría por segmentos mensuales.
+ * - La tabla auditoria guarda solo lo reciente: cada noche los meses cerrados
+ *   que ya pasaron la retención se escriben a un .jsonl.gz por mes (un evento
+ *   JSON por línea, en orden de id) y se borran de la tabla por rangos de id.
+ *   Así la tabla, las consultas y los backups no crecen con el historial.
+ * - Los archivos se llaman auditoria_AAAA-MM_desdeId-hastaId.jsonl.gz: si un
+ *   mes vuelve a tener filas (p. ej. tras restaurar un backup) se agrega otro
+ *   archivo del mismo mes en vez de pisar el anterior.
+ * - Se pueden buscar desde la API o sin la aplicación (zcat/zgrep, jq).
+ */
+@Service
+@Slf4j
+public class ArchivoAuditoriaService {
+
+    private static final Pattern NOMBRE = Pattern.compile("auditoria_(\\d{4}-\\d{2})_(\\d+)-(\\d+)\\.jsonl\\.gz");
+    private static final int LOTE = 5000;
+
+    private static final String SQL_SEGMENTO = "SELECT id, modulo, accion, detalles, usuario, ip_address, "
+            + "entidad_tipo, socio_id, usuario_id, created_at FROM auditoria "
+            + "WHERE created_at >= ? AND created_at < ? AND id > ? ORDER BY id LIMIT " + LOTE;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Value("${auditoria.archivo.directorio:${backup.directory:/backups}/auditoria}")
+    private String directorio;
+
+    // Días que los eventos quedan en la tabla como mínimo (se archivan meses completos)
+    @Value("${auditoria.archivo.retencion-dias:90}")
+    private int retencionDias = 90;
+
+    public ArchivoAuditoriaService(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Archivo de un mes ya sacado de la tabla.
+     */
+    public record Segmento(String archivo, String mes, long desdeId, long hastaId, long bytes) {
+    }
+
+    @Scheduled(cron = "${auditoria.archivo.cron:0 30 3 * * *}")
+    public void archivarProgramado() {
+        try {
+            archivar();
+        } catch (Exception e) {
+            log.error("Error archivando auditoría: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Archiva, del más viejo al más nuevo, los meses que terminaron antes de
+     * la retención. Devuelve los archivos creados.
+     */
+    public synchronized List<Segmento> archivar() throws IOException {
+        YearMonth limite = YearMonth.from(LocalDate.now().minusDays(retencionDias));
+        List<Segmento> creados = new ArrayList<>();
+        while (true) {
+            Timestamp primero = jdbcTemplate.queryForObject("SELECT MIN(created_at) FROM auditoria", Timestamp.class);
+            if (primero == null) {
+                break;
+            }
+            YearMonth mes = YearMonth.from(primero.toLocalDateTime());
+            if (!mes.isBefore(limite)) {
+                break;
+            }
+            Segmento s = archivarMes(mes);
+            if (s == null) {
+                break;
+            }
+            creados.add(s);
+        }
+        return creados;
+    }
+
+    private Segmento archivarMes(YearMonth mes) throws IOException {
+        long inicio = System.currentTimeMillis();
+        Timestamp desde = Timestamp.valueOf(mes.atDay(1).atStartOfDay());
+        Timestamp hasta = Timestamp.valueOf(mes.plusMonths(1).atDay(1).atStartOfDay());
+        Path dir = Path.of(directorio);
+        Files.createDirectories(dir);
+        Path tmp = dir.resolve("auditoria_" + mes + ".jsonl.gz.tmp");
+
+        long[] rango = { Long.MAX_VALUE, 0 };
+        long filas = 0;
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(
+                new GZIPOutputStream(Files.newOutputStream(tmp), 64 * 1024), StandardCharsets.UTF_8))) {
+            int leidas;
+            do {
+                List<Map<String, Object>> lote = jdbcTemplate.query(SQL_SEGMENTO, (rs, i) -> {
+                    Map<String, Object> e = new LinkedHashMap<>();
+                    // socioId y usuarioId antes de createdAt (nunca null): buscar() los filtra en la línea cruda
+                    e.put("id", rs.getLong("id"));
+                    e.put("socioId", rs.getObject("socio_id") != null ? rs.getLong("socio_id") : null);
+                    e.put("usuarioId", rs.getObject("usuario_id") != null ? rs.getLong("usuario_id") : null);
+                    e.put("createdAt", rs.getTimestamp("created_at").toLocalDateTime().toString());
+                    e.put("entidadTipo", rs.getString("entidad_tipo"));
+                    e.put("modulo", rs.getString("modulo"));
+                    e.put("accion", rs.getString("accion"));
+                    e.put("usuario", rs.getString("usuario"));
+                    e.put("ipAddress", rs.getString("ip_address"));
+                    e.put("detalles", rs.getString("detalles"));
+                    return e;
+                }, desde, hasta, rango[1]);
+                for (Map<String, Object> e : lote) {
+                    out.write(objectMapper.writeValueAsString(e));
+                    out.write('\n');
+                    long id = (Long) e.get("id");
+                    rango[0] = Math.min(rango[0], id);
+                    rango[1] = id;
+                }
+                leidas = lote.size();
+                filas += leidas;
+            } while (leidas == LOTE);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+        if (filas == 0) {
+            Files.deleteIfExists(tmp);
+            return null;
+        }
+
+        Path archivo = dir.resolve("auditoria_" + mes + "_" + rango[0] + "-" + rango[1] + ".jsonl.gz");
+        Files.move(tmp, archivo, StandardCopyOption.REPLACE_EXISTING);
+
+        // Borrar solo lo que quedó en el archivo, por rangos de id para no tener transacciones enormes
+        long borradas = 0;
+        for (long d = rango[0]; d <= rango[1]; d += LOTE) {
+            borradas += jdbcTemplate.update("DELETE FROM auditoria WHERE id >= ? AND id < ? AND id <= ? "
+                    + "AND created_at >= ? AND created_at < ?", d, d + LOTE, rango[1], desde, hasta);
+        }
+        Segmento s = new Segmento(archivo.getFileName().toString(), mes.toString(), rango[0], rango[1],
+                Files.size(archivo));
+        log.info("🗄️ Auditoría {} archivada: {} eventos en {} ({} KB, {} filas borradas, {}ms)", mes, filas,
+                s.archivo(), s.bytes() / 1024, borradas, System.currentTimeMillis() - inicio);
+        return s;
+    }
+
+    /**
+     * Archivos del directorio, del mes más nuevo al más viejo.
+     */
+    public List<Segmento> listar() throws IOException {
+        Path dir = Path.of(directorio);
+        if (!Files.isDirectory(dir)) {
+            return List.of();
+        }
+        List<Segmento> segmentos = new ArrayList<>();
+        try (Stream<Path> archivos = Files.list(dir)) {
+            for (Path p : (Iterable<Path>) archivos::iterator) {
+                Matcher m = NOMBRE.matcher(p.getFileName().toString());
+                if (m.matches()) {
+                    segmentos.add(new Segmento(p.getFileName().toString(), m.group(1), Long.parseLong(m.group(2)),
+                            Long.parseLong(m.group(3)), Files.size(p)));
+                }
+            }
+        }
+        segmentos.sort(Comparator.comparing(Segmento::mes).thenComparingLong(Segmento::desdeId).reversed());
+        return segmentos;
+    }
+
+    /**
+     * Busca en los archivos. Todos los filtros son opcionales; texto se busca
+     * en detalles, usuario y acción (sin distinguir mayúsculas). Devuelve como
+     * máximo limite eventos, del más nuevo al más viejo.
+     */
+    public List<JsonNode> buscar(String texto, Long socioId, Long usuarioId, String modulo, LocalDate desde,
+            LocalDate hasta, int limite) throws IOException {
+        String textoMin = texto != null && !texto.isBlank() ? texto.toLowerCase() : null;
+        // Comillas y barras van escapadas en el JSON: con ellas no sirve buscar en la línea cruda
+        boolean descarteCrudo = textoMin != null && textoMin.indexOf('"') < 0 && textoMin.indexOf('\\') < 0;
+        // En las líneas de archivarMes socioId y usuarioId siempre van seguidos de coma
+        String socioCrudo = socioId != null ? "\"socioId\":" + socioId + "," : null;
+        String usuarioCrudo = usuarioId != null ? "\"usuarioId\":" + usuarioId + "," : null;
+        YearMonth mesDesde = desde != null ? YearMonth.from(desde) : null;
+        YearMonth mesHasta = hasta != null ? YearMonth.from(hasta) : null;
+        LocalDateTime inicio = desde != null ? desde.atStartOfDay() : null;
+        LocalDateTime fin = hasta != null ? hasta.plusDays(1).atStartOfDay() : null;
+
+        List<JsonNode> resultado = new ArrayList<>();
+        for (Segmento s : listar()) {
+            YearMonth mes = YearMonth.parse(s.mes());
+            if ((mesDesde != null && mes.isBefore(mesDesde)) || (mesHasta != null && mes.isAfter(mesHasta))) {
+                continue;
+            }
+            List<JsonNode> delArchivo = new ArrayList<>();
+            try (BufferedReader in = new BufferedReader(new InputStreamReader(
+                    new GZIPInputStream(Files.newInputStream(Path.of(directorio, s.archivo())), 64 * 1024),
+                    StandardCharsets.UTF_8))) {
+                String linea;
+                while ((linea = in.readLine()) != null) {
+                    // Descarte barato antes de parsear la línea
+                    if ((socioCrudo != null && !linea.contains(socioCrudo))
+                            || (usuarioCrudo != null && !linea.contains(usuarioCrudo))
+                            || (descarteCrudo && !linea.toLowerCase().contains(textoMin))) {
+                        continue;
+                    }
+                    JsonNode e = objectMapper.readTree(linea);
+                    if (coincide(e, textoMin, socioId, usuarioId, modulo, inicio, fin)) {
+                        delArchivo.add(e);
+                    }
+                }
+            }
+            Collections.reverse(delArchivo);
+            for (JsonNode e : delArchivo) {
+                resultado.add(e);
+                if (resultado.size() >= limite) {
+                    return resultado;
+                }
+            }
+        }
+        return resultado;
+    }
+
+    private static boolean coincide(JsonNode e, String textoMin, Long socioId, Long usuarioId, String modulo,
+            LocalDateTime inicio, LocalDateTime fin) {
+        if (socioId != null && e.path("socioId").asLong(-1) != socioId) {
+            return false;
+        }
+        if (usuarioId != null && e.path("usuarioId").asLong(-1) != usuarioId) {
+            return false;
+        }
+        if (modulo != null && !modulo.equals(e.path("modulo").asText())) {
+            return false;
+        }
+        if (inicio != null || fin != null) {
+            LocalDateTime fecha = LocalDateTime.parse(e.path("createdAt").asText());
+            if ((inicio != null && fecha.isBefore(inicio)) || (fin != null && !fecha.isBefore(fin))) {
+                return false;
+            }
+        }
+        if (textoMin != null) {
+            return e.path("detalles").asText("").toLowerCase().contains(textoMin)
+                    || e.path("usuario").asText("").toLowerCase().contains(textoMin)
+                    || e.path("accion").asText("").toLowerCase().contains(textoMin);
+        }
+        return true;
+    }
+}
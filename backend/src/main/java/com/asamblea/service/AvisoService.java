@@ -24,6 +24,7 @@ public class AvisoService {
     private final AvisoDestinatarioRepository destinatarioRepository;
     private final ConfiguracionRepository configuracionRepository;
     private final UsuarioRepository usuarioRepository;
+    private final TiempoRealService tiempoRealService;
 
     @Transactional
     public void crearAvisoSeguridad(Usuario usuario, String contenido) {
@@ -49,6 +50,7 @@ public class AvisoService {
         dest.setEstado(AvisoDestinatario.EstadoDestinatario.PENDIENTE);
 
         destinatarioRepository.save(dest);
+        tiempoRealService.marcarNoLeidos(usuario.getUsername());
     }
 
     /**
@@ -90,6 +92,7 @@ public class AvisoService {
             dest.setEnviadoAt(LocalDateTime.now());
             dest.setEstado(AvisoDestinatario.EstadoDestinatario.PENDIENTE);
             destinatarioRepository.save(dest);
+            tiempoRealService.marcarNoLeidos(admin.getUsername());
         }
     }
 
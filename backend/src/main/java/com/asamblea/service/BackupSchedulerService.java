@@ -29,11 +29,15 @@ public class BackupSchedulerService {
 
     /**
      * Tarea diaria de limpieza a las 3:00 AM
-     * Verifica que los archivos físicos existan y actualiza disponibilidad
+     * Verifica que los archivos físicos existan, recalcula sus checksums y actualiza disponibilidad
      */
     @Scheduled(cron = "0 0 3 * * *")
     public void verificarIntegridadBackups() {
         logger.info("Iniciando verificación de integridad de backups...");
-        // Esta funcionalidad se puede expandir para verificar checksums, etc.
+        try {
+            backupService.verificarIntegridad();
+        } catch (Exception e) {
+            logger.error("Error en verificación de integridad de backups: {}", e.getMessage());
+        }
     }
 }
@@ -7,10 +7,13 @@ import com.asamblea.model.BackupHistorial.TipoBackup;
 import com.asamblea.model.ConfiguracionBackup;
 import com.asamblea.repository.BackupHistorialRepository;
 import com.asamblea.repository.ConfiguracionBackupRepository;
+import com.asamblea.repository.SocioRepository;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -20,7 +23,14 @@ import java.nio.file.*;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 
 @Service
@@ -37,6 +47,27 @@ public class BackupService {
     
     @Autowired
     private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private SnapshotAsignacionesService snapshotAsignacionesService;
+
+    @Autowired
+    private ApplicationEventPublisher eventos;
+
+    @Autowired
+    private SocioRepository socioRepository;
+
+    @Autowired
+    private MotorBackupService motorBackupService;
+
+    // Backups y restauraciones corren de a uno y fuera de los hilos de Tomcat y del scheduler
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "backup");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private volatile MotorBackupService.Progreso progreso;
     
     @Value("${spring.datasource.url}")
     private String datasourceUrl;
@@ -49,6 +80,10 @@ public class BackupService {
     
     @Value("${backup.directory:/backups}")
     private String backupDirectory;
+
+    // Incrementales seguidos antes de volver a generar un backup automático completo
+    @Value("${backup.incremental.checkpoint-cada:24}")
+    private int checkpointCada = 24;
     
     private static final String CODIGO_POR_DEFECTO = "226118";
     
@@ -58,7 +93,7 @@ public class BackupService {
         "asistencias", "sucursales", "funcionarios_directivos", "configuracion",
         "avisos", "avisos_destinatarios", "chat_mensajes", "conversaciones",
         "listas_asignacion", "auditoria", "notificaciones_log", "push_subscriptions",
-        "importaciones_historial"
+        "importaciones_historial", "candidatos", "cooperativa"
     );
 
     /**
@@ -118,161 +153,261 @@ public class BackupService {
     }
 
     /**
-     * Crea un backup manual de la base de datos
+     * Encola un backup en el hilo de backups y devuelve su progreso. Lanza
+     * IllegalStateException si ya hay un backup o una restauración en curso.
      */
-    @Transactional
-    public BackupHistorialDTO crearBackup(String usuario, TipoBackup tipo) {
+    public synchronized MotorBackupService.Progreso iniciarBackup(String usuario, TipoBackup tipo) {
+        MotorBackupService.Progreso progreso = nuevaOperacion("BACKUP");
+        executor.execute(() -> {
+            try {
+                BackupHistorialDTO backup = ejecutarBackup(usuario, tipo, progreso);
+                progreso.terminar(backup.getNombreArchivo(), null);
+            } catch (Exception e) {
+                logger.error("Error al crear backup: {}", e.getMessage(), e);
+                progreso.terminar(null, mensaje(e));
+            }
+        });
+        return progreso;
+    }
+
+    /**
+     * Encola la restauración de un backup; corre en el mismo hilo que los
+     * backups, así nunca se pisan.
+     */
+    public synchronized MotorBackupService.Progreso iniciarRestauracion(Long backupId, String usuario) {
+        BackupHistorial backup = backupHistorialRepository.findById(backupId)
+            .orElseThrow(() -> new RuntimeException("Backup no encontrado"));
+        return encolarRestauracion(backup, usuario);
+    }
+
+    /**
+     * Progreso de la última operación (en curso o terminada), o null si no hubo ninguna.
+     */
+    public MotorBackupService.Progreso getProgreso() {
+        return progreso;
+    }
+
+    private MotorBackupService.Progreso nuevaOperacion(String operacion) {
+        if (progreso != null && progreso.isEnCurso()) {
+            throw new IllegalStateException("Ya hay una operación de backup en curso");
+        }
+        progreso = new MotorBackupService.Progreso(operacion);
+        return progreso;
+    }
+
+    private MotorBackupService.Progreso encolarRestauracion(BackupHistorial backup, String usuario) {
+        List<BackupHistorial> cadena = cadena(backup);
+        MotorBackupService.Progreso progreso = nuevaOperacion("RESTAURACION");
+        executor.execute(() -> {
+            try {
+                restaurarBackup(backup, cadena, usuario, progreso);
+                progreso.terminar(backup.getNombreArchivo(), null);
+            } catch (Exception e) {
+                logger.error("Error al restaurar backup: {}", e.getMessage(), e);
+                progreso.terminar(backup.getNombreArchivo(), mensaje(e));
+            }
+        });
+        return progreso;
+    }
+
+    /**
+     * Genera el archivo con el motor nativo. Corre en el hilo de backups.
+     */
+    private BackupHistorialDTO ejecutarBackup(String usuario, TipoBackup tipo,
+            MotorBackupService.Progreso progreso) throws Exception {
         logger.info("Iniciando backup {} por usuario: {}", tipo, usuario);
-        
+        long inicio = System.currentTimeMillis();
+
+        // Crear directorio si no existe
+        Path backupPath = Paths.get(backupDirectory);
+        if (!Files.exists(backupPath)) {
+            Files.createDirectories(backupPath);
+        }
+
+        // Los automáticos son incrementales sobre el anterior mientras la cadena lo permita
+        BackupHistorial base = tipo == TipoBackup.AUTOMATICO ? baseIncremental() : null;
+
+        // Generar nombre del archivo
+        String timestamp = LocalDateTime.now().format(BACKUP_DATE_FORMAT);
+        String nombreArchivo = String.format("backup_%s%s_%s.zip", tipo.name().toLowerCase(),
+            base != null ? "_incremental" : "", timestamp);
+        Path archivo = backupPath.resolve(nombreArchivo);
+
+        MotorBackupService.Manifiesto manifiesto = motorBackupService.respaldar(archivo, TABLAS_BACKUP,
+            base != null ? Paths.get(base.getRutaCompleta()) : null, progreso);
+        long tamano = Files.size(archivo);
+        long filas = manifiesto.tablas().stream().mapToLong(MotorBackupService.TablaRespaldada::filas).sum();
+
+        // Guardar en historial
+        BackupHistorial historial = new BackupHistorial(nombreArchivo, tipo, usuario);
+        historial.setTamanoBytes(tamano);
+        historial.setRutaCompleta(archivo.toString());
+        historial.setTablasIncluidas(manifiesto.tablas().stream()
+            .map(MotorBackupService.TablaRespaldada::nombre)
+            .collect(Collectors.joining(",")));
+        if (base != null) {
+            historial.setIncremental(true);
+            historial.setBaseId(base.getId());
+            historial.setCheckpointId(Boolean.TRUE.equals(base.getIncremental()) ? base.getCheckpointId() : base.getId());
+            historial.setNotas(String.format("Incremental: %d filas cambiadas en %d tablas", filas,
+                manifiesto.tablas().stream().filter(t -> t.filas() > 0 || t.eliminados() != null && !t.eliminados().isEmpty()).count()));
+        } else {
+            historial.setNotas(String.format("%d filas en %d tablas", filas, manifiesto.tablas().size()));
+        }
+
+        backupHistorialRepository.save(historial);
+
+        // Actualizar último backup en configuración
+        ConfiguracionBackup config = configRepository.getConfiguracion();
+        config.setUltimoBackup(LocalDateTime.now());
+        configRepository.save(config);
+
+        // Limpiar backups antiguos
+        limpiarBackupsAntiguos();
+
+        logger.info("💾 Backup creado exitosamente: {} ({} filas, {} bytes, {}ms)", nombreArchivo, filas, tamano,
+            System.currentTimeMillis() - inicio);
+
+        return new BackupHistorialDTO(historial);
+    }
+
+    /**
+     * Backup anterior sobre el que se calcula el próximo automático, o null si
+     * toca un completo (checkpoint): no hay anterior, su cadena está rota o ya
+     * tiene backup.incremental.checkpoint-cada incrementales, o hubo una
+     * restauración después.
+     */
+    private BackupHistorial baseIncremental() {
+        BackupHistorial ultimo = backupHistorialRepository.findFirstByTipoOrderByFechaCreacionDesc(TipoBackup.AUTOMATICO);
+        if (ultimo == null || !esNativo(Paths.get(ultimo.getRutaCompleta()))) {
+            return null;
+        }
+        BackupHistorial restauracion = backupHistorialRepository.findFirstByTipoOrderByFechaCreacionDesc(TipoBackup.PRE_RESTAURACION);
+        if (restauracion != null && restauracion.getFechaCreacion().isAfter(ultimo.getFechaCreacion())) {
+            return null;
+        }
         try {
-            // Crear directorio si no existe
-            Path backupPath = Paths.get(backupDirectory);
-            if (!Files.exists(backupPath)) {
-                Files.createDirectories(backupPath);
+            // La cadena incluye el completo: size() - 1 incrementales
+            return cadena(ultimo).size() > checkpointCada ? null : ultimo;
+        } catch (RuntimeException e) {
+            logger.warn("⚠️ Cadena de backups incompleta ({}), se genera un completo", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Backups necesarios para restaurar el indicado: su completo y los
+     * incrementales hasta él, en orden. Lanza RuntimeException si falta alguno.
+     */
+    private List<BackupHistorial> cadena(BackupHistorial backup) {
+        LinkedList<BackupHistorial> cadena = new LinkedList<>();
+        BackupHistorial actual = backup;
+        while (true) {
+            if (!Boolean.TRUE.equals(actual.getDisponible())) {
+                throw new RuntimeException(actual == backup
+                    ? "El archivo de backup no está disponible"
+                    : "El backup base " + actual.getNombreArchivo() + " no está disponible");
             }
-            
-            // Generar nombre del archivo
-            String timestamp = LocalDateTime.now().format(BACKUP_DATE_FORMAT);
-            String nombreArchivo = String.format("backup_%s_%s.sql", tipo.name().toLowerCase(), timestamp);
-            String rutaCompleta = backupPath.resolve(nombreArchivo).toString();
-            
-            // Extraer host y database del datasource URL
-            String[] dbInfo = extraerInfoDB();
-            String host = dbInfo[0];
-            String database = dbInfo[1];
-            
-            // Ejecutar mysqldump
-            ProcessBuilder pb = new ProcessBuilder(
-                "mysqldump",
-                "-h", host,
-                "-u", dbUsername,
-                "-p" + dbPassword,
-                "--single-transaction",
-                "--routines",
-                "-p" + dbPassword,
-                "--single-transaction",
-                "--routines",
-                "--triggers",
-                "--no-tablespaces",
-                "--skip-ssl",
-                database
-            );
-            
-            pb.redirectOutput(new File(rutaCompleta));
-            pb.redirectErrorStream(false);
-            
-            Process process = pb.start();
-            int exitCode = process.waitFor();
-            
-            if (exitCode != 0) {
-                // Leer error
-                BufferedReader errorReader = new BufferedReader(new InputStreamReader(process.getErrorStream()));
-                String errorLine;
-                StringBuilder error = new StringBuilder();
-                while ((errorLine = errorReader.readLine()) != null) {
-                    error.append(errorLine);
-                }
-                logger.error("Error en mysqldump: {}", error.toString());
-                throw new RuntimeException("Error al crear backup: " + error.toString());
+            if (!new File(actual.getRutaCompleta()).exists()) {
+                actual.setDisponible(false);
+                backupHistorialRepository.save(actual);
+                throw new RuntimeException(actual == backup
+                    ? "El archivo de backup no existe en el servidor"
+                    : "El backup base " + actual.getNombreArchivo() + " no existe en el servidor");
             }
-            
-            // Obtener tamaño del archivo
-            File backupFile = new File(rutaCompleta);
-            long tamano = backupFile.length();
-            
-            // Guardar en historial
-            BackupHistorial historial = new BackupHistorial(nombreArchivo, tipo, usuario);
-            historial.setTamanoBytes(tamano);
-            historial.setRutaCompleta(rutaCompleta);
-            historial.setTablasIncluidas(String.join(",", TABLAS_BACKUP));
-            
-            backupHistorialRepository.save(historial);
-            
-            // Actualizar último backup en configuración
-            ConfiguracionBackup config = configRepository.getConfiguracion();
-            config.setUltimoBackup(LocalDateTime.now());
-            configRepository.save(config);
-            
-            // Limpiar backups antiguos
-            limpiarBackupsAntiguos();
-            
-            logger.info("Backup creado exitosamente: {} ({} bytes)", nombreArchivo, tamano);
-            
-            return new BackupHistorialDTO(historial);
-            
-        } catch (Exception e) {
-            logger.error("Error al crear backup: {}", e.getMessage(), e);
-            throw new RuntimeException("Error al crear backup: " + e.getMessage());
+            cadena.addFirst(actual);
+            if (!Boolean.TRUE.equals(actual.getIncremental())) {
+                return cadena;
+            }
+            Long baseId = actual.getBaseId();
+            actual = backupHistorialRepository.findById(baseId)
+                .orElseThrow(() -> new RuntimeException("El backup base " + baseId + " ya no existe"));
         }
     }
 
     /**
-     * Restaura un backup específico
+     * Restaura un backup específico (aplicando su cadena si es incremental).
+     * Corre en el hilo de backups.
      */
-    @Transactional
-    public void restaurarBackup(Long backupId, String usuario) {
-        logger.info("Iniciando restauración de backup ID: {} por usuario: {}", backupId, usuario);
-        
-        BackupHistorial backup = backupHistorialRepository.findById(backupId)
-            .orElseThrow(() -> new RuntimeException("Backup no encontrado"));
-        
-        if (!backup.getDisponible()) {
-            throw new RuntimeException("El archivo de backup no está disponible");
+    private void restaurarBackup(BackupHistorial backup, List<BackupHistorial> cadena, String usuario,
+            MotorBackupService.Progreso progreso) throws Exception {
+        logger.info("Iniciando restauración de backup ID: {} por usuario: {} ({} archivos en la cadena)",
+            backup.getId(), usuario, cadena.size());
+        long inicio = System.currentTimeMillis();
+        Path archivo = Paths.get(backup.getRutaCompleta());
+        List<Path> archivos = cadena.stream().map(b -> Paths.get(b.getRutaCompleta())).toList();
+
+        // Un archivo dañado no debe llegar a generar el backup de seguridad ni a borrar nada
+        if (esNativo(archivo)) {
+            progreso.fase("Verificando archivos", 0);
+            motorBackupService.verificarCadena(archivos);
         }
-        
-        File backupFile = new File(backup.getRutaCompleta());
-        if (!backupFile.exists()) {
-            backup.setDisponible(false);
-            backupHistorialRepository.save(backup);
-            throw new RuntimeException("El archivo de backup no existe en el servidor");
+
+        // Crear backup de seguridad antes de restaurar
+        logger.info("Creando backup de seguridad antes de restaurar...");
+        ejecutarBackup(usuario, TipoBackup.PRE_RESTAURACION, progreso);
+
+        if (esNativo(archivo)) {
+            motorBackupService.restaurar(archivos, progreso);
+        } else {
+            restaurarSqlLegado(archivo.toFile());
         }
-        
+
+        // asignaciones_socios se reemplazó por fuera del changelog: forzar checkpoint nuevo
+        snapshotAsignacionesService.registrarReemplazo();
         try {
-            // Crear backup de seguridad antes de restaurar
-            logger.info("Creando backup de seguridad antes de restaurar...");
-            crearBackup(usuario, TipoBackup.PRE_RESTAURACION);
-            
-            // Extraer info de DB
-            String[] dbInfo = extraerInfoDB();
-            String host = dbInfo[0];
-            String database = dbInfo[1];
-            
-            // Ejecutar restauración con mysql
-            ProcessBuilder pb = new ProcessBuilder(
-                "mysql",
-                "-h", host,
-                "-u", dbUsername,
-                "-u", dbUsername,
-                "-p" + dbPassword,
-                "--skip-ssl",
-                database
-            );
-            
-            pb.redirectInput(backupFile);
-            pb.redirectErrorStream(true);
-            
-            Process process = pb.start();
-            int exitCode = process.waitFor();
-            
-            if (exitCode != 0) {
-                BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
-                String line;
-                StringBuilder output = new StringBuilder();
-                while ((line = reader.readLine()) != null) {
-                    output.append(line);
-                }
-                logger.error("Error en restauración: {}", output.toString());
-                throw new RuntimeException("Error al restaurar backup: " + output.toString());
-            }
-            
-            logger.info("Backup restaurado exitosamente desde: {}", backup.getNombreArchivo());
-            
+            socioRepository.recalcularVozVoto();
         } catch (Exception e) {
-            logger.error("Error al restaurar backup: {}", e.getMessage(), e);
-            throw new RuntimeException("Error al restaurar backup: " + e.getMessage());
+            // Backups anteriores a la columna: la recalcula el arranque siguiente
+            logger.warn("No se pudo recalcular voz_voto tras la restauración: {}", e.getMessage());
+        }
+        eventos.publishEvent(new DatosReemplazadosEvent("RESTAURACION"));
+
+        logger.info("Backup restaurado exitosamente desde: {} ({}ms)", backup.getNombreArchivo(),
+            System.currentTimeMillis() - inicio);
+    }
+
+    private boolean esNativo(Path archivo) {
+        return archivo.getFileName().toString().endsWith(".zip");
+    }
+
+    /**
+     * Backups .sql generados con mysqldump antes del motor nativo: se siguen
+     * restaurando con el cliente mysql.
+     */
+    private void restaurarSqlLegado(File backupFile) throws IOException, InterruptedException {
+        // Extraer info de DB
+        String[] dbInfo = extraerInfoDB();
+        String host = dbInfo[0];
+        String database = dbInfo[1];
+
+        ProcessBuilder pb = new ProcessBuilder(
+            "mysql",
+            "-h", host,
+            "-u", dbUsername,
+            "-p" + dbPassword,
+            "--skip-ssl",
+            database
+        );
+
+        pb.redirectInput(backupFile);
+        pb.redirectErrorStream(true);
+
+        Process process = pb.start();
+        // Leer la salida antes de esperar: si se llena el pipe el proceso se bloquea
+        String output = new String(process.getInputStream().readAllBytes());
+        int exitCode = process.waitFor();
+
+        if (exitCode != 0) {
+            logger.error("Error en restauración: {}", output);
+            throw new RuntimeException("Error al restaurar backup: " + output);
         }
     }
 
+    private String mensaje(Exception e) {
+        return e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+    }
+
     /**
      * Obtiene el historial de backups
      */
@@ -284,34 +419,63 @@ public class BackupService {
     }
 
     /**
-     * Verifica y ejecuta backup automático si es necesario
+     * Encola un backup automático si corresponde. No espera a que termine.
      */
-    @Transactional
     public void verificarBackupAutomatico() {
         ConfiguracionBackup config = configRepository.getConfiguracion();
         
         if (!config.getBackupAutomaticoActivo()) {
             return;
         }
+        if (progreso != null && progreso.isEnCurso()) {
+            return;
+        }
         
         LocalDateTime ahora = LocalDateTime.now();
         LocalDateTime ultimoBackup = config.getUltimoBackup();
         
-        if (ultimoBackup == null) {
-            // Nunca se ha hecho backup, crear uno
-            crearBackup("SISTEMA", TipoBackup.AUTOMATICO);
-            return;
+        // Nunca se ha hecho backup, o pasó el tiempo de frecuencia
+        if (ultimoBackup == null
+                || java.time.Duration.between(ultimoBackup, ahora).toMinutes() >= config.getFrecuenciaMinutos()) {
+            iniciarBackup("SISTEMA", TipoBackup.AUTOMATICO);
         }
-        
-        // Verificar si pasó el tiempo de frecuencia
-        long minutosDesdeUltimo = java.time.Duration.between(ultimoBackup, ahora).toMinutes();
-        if (minutosDesdeUltimo >= config.getFrecuenciaMinutos()) {
-            crearBackup("SISTEMA", TipoBackup.AUTOMATICO);
+    }
+
+    /**
+     * Marca como no disponibles los backups cuyo archivo falta o no pasa la
+     * verificación de checksums.
+     */
+    public void verificarIntegridad() {
+        int revisados = 0;
+        int invalidos = 0;
+        for (BackupHistorial backup : backupHistorialRepository.findByDisponibleTrueOrderByFechaCreacionDesc()) {
+            revisados++;
+            Path archivo = Paths.get(backup.getRutaCompleta());
+            String problema = null;
+            if (!Files.exists(archivo)) {
+                problema = "Archivo inexistente";
+            } else if (esNativo(archivo)) {
+                try {
+                    motorBackupService.verificar(archivo);
+                } catch (IOException e) {
+                    problema = e.getMessage();
+                }
+            }
+            if (problema != null) {
+                invalidos++;
+                logger.warn("⚠️ Backup {} no disponible: {}", backup.getNombreArchivo(), problema);
+                backup.setDisponible(false);
+                backup.setNotas(problema);
+                backupHistorialRepository.save(backup);
+            }
         }
+        logger.info("Verificación de integridad de backups: {} revisados, {} inválidos", revisados, invalidos);
     }
 
     /**
-     * Limpia backups antiguos según la configuración de retención
+     * Limpia backups antiguos según la configuración de retención. Un
+     * automático fuera de la retención se conserva si algún backup retenido
+     * lo necesita como base.
      */
     private void limpiarBackupsAntiguos() {
         ConfiguracionBackup config = configRepository.getConfiguracion();
@@ -321,9 +485,20 @@ public class BackupService {
             .findByTipoOrderByFechaCreacionDesc(TipoBackup.AUTOMATICO);
         
         if (backupsAutomaticos.size() > retencion) {
+            Map<Long, BackupHistorial> porId = new HashMap<>();
+            backupsAutomaticos.forEach(b -> porId.put(b.getId(), b));
+            Set<Long> necesarios = new HashSet<>();
+            for (BackupHistorial backup : backupsAutomaticos.subList(0, retencion)) {
+                for (BackupHistorial b = backup; b != null && necesarios.add(b.getId()); ) {
+                    b = Boolean.TRUE.equals(b.getIncremental()) ? porId.get(b.getBaseId()) : null;
+                }
+            }
             List<BackupHistorial> aEliminar = backupsAutomaticos.subList(retencion, backupsAutomaticos.size());
             
             for (BackupHistorial backup : aEliminar) {
+                if (necesarios.contains(backup.getId()) || !backup.getDisponible()) {
+                    continue;
+                }
                 try {
                     // Eliminar archivo físico
                     Files.deleteIfExists(Paths.get(backup.getRutaCompleta()));
@@ -367,10 +542,9 @@ public class BackupService {
     }
 
     /**
-     * Restaura el último backup de seguridad
+     * Encola la restauración del último backup de seguridad
      */
-    @Transactional
-    public void restaurarUltimoUndo(String usuario) {
+    public synchronized MotorBackupService.Progreso restaurarUltimoUndo(String usuario) {
         BackupHistorial backup = backupHistorialRepository.findFirstByTipoOrderByFechaCreacionDesc(TipoBackup.PRE_RESTAURACION);
         
         if (backup == null || !backup.getDisponible()) {
@@ -378,6 +552,11 @@ public class BackupService {
         }
         
         logger.info("Ejecutando UNDO (Restaurando backup de seguridad): {}", backup.getNombreArchivo());
-        restaurarBackup(backup.getId(), usuario);
+        return encolarRestauracion(backup, usuario);
+    }
+
+    @PreDestroy
+    public void detener() {
+        executor.shutdownNow();
     }
 }
@@ -28,6 +28,29 @@ public class ConfiguracionService {
     // Clave para restricción de solo Voz y Voto
     public static final String SOLO_VOZ_VOTO_ACTIVO = "SOLO_VOZ_VOTO_ACTIVO";
 
+    // Clave de modo mantenimiento (la consulta el filtro JWT en cada petición)
+    public static final String MODO_MANTENIMIENTO = "MODO_MANTENIMIENTO";
+
+    // Cache corto del modo mantenimiento; guardar() lo invalida al momento
+    private static final long TTL_MODO_MANTENIMIENTO_MS = 5000;
+    private volatile Boolean modoMantenimiento;
+    private volatile long modoMantenimientoLeidoEn;
+
+    /**
+     * Modo mantenimiento activo, cacheado unos segundos para no consultar la
+     * base en cada petición autenticada.
+     */
+    public boolean isModoMantenimiento() {
+        Boolean valor = modoMantenimiento;
+        long ahora = System.currentTimeMillis();
+        if (valor == null || ahora - modoMantenimientoLeidoEn >= TTL_MODO_MANTENIMIENTO_MS) {
+            valor = "true".equals(obtener(MODO_MANTENIMIENTO, "false"));
+            modoMantenimiento = valor;
+            modoMantenimientoLeidoEn = ahora;
+        }
+        return valor;
+    }
+
     /**
      * Verifica si la restricción de solo permitir socios con Voz y Voto está activa
      * @return true si solo se permiten socios con voz y voto, false si se permiten todos
@@ -148,6 +171,9 @@ public class ConfiguracionService {
         config.setValor(valor);
         config.setUpdatedAt(LocalDateTime.now());
         configuracionRepository.save(config);
+        if (MODO_MANTENIMIENTO.equals(clave)) {
+            modoMantenimiento = null;
+        }
 
         // Sincronizar con la Asamblea activa si es un parámetro relevante
         try {
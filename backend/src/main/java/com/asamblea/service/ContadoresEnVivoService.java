@@ -0,0 +1,356 @@
+package com.asamblea.service;
+
+import com.asamblea.model.Usuario;
+import com.asamblea.repository.AsignacionRepository;
+import com.asamblea.repository.AsistenciaRepository;
+import com.asamblea.repository.SocioRepository;
+import com.asamblea.repository.UsuarioRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Contadores agregados del dashboard público (padrón, presentes del día, metas
+ * y distribución por sucursal) mantenidos en memoria.
+ * - Los endpoints leen una foto inmutable, sin consultar la base.
+ * - Asignaciones y check-ins aplican deltas al confirmarse la transacción.
+ * - Las operaciones masivas (importación, vaciados, cambios de metas/roles)
+ *   marcan la foto como desfasada y se recalcula en el siguiente chequeo.
+ * - Además se reconcilia contra la base cada cierto tiempo por si algún camino
+ *   de escritura no avisó.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ContadoresEnVivoService {
+
+    private final SocioRepository socioRepository;
+    private final AsistenciaRepository asistenciaRepository;
+    private final AsignacionRepository asignacionRepository;
+    private final UsuarioRepository usuarioRepository;
+    private final SocioIndiceService socioIndiceService;
+
+    @Value("${dashboard.contadores.reconciliar-ms:60000}")
+    private long reconciliarMs = 60000;
+
+    private volatile Contadores actual;
+    private volatile long ultimoRecalculo;
+
+    private final AtomicBoolean desfasado = new AtomicBoolean(true);
+    // Se incrementa con cada delta; permite saber si hubo escrituras durante un recálculo
+    private long version;
+
+    // Escrituras notificadas (deltas e invalidaciones); sello de datos de ReporteJobService
+    private final AtomicLong cambios = new AtomicLong();
+
+    // Solo invalidaciones (cambios masivos); las caches derivadas se vacían al verlo cambiar
+    private final AtomicLong invalidaciones = new AtomicLong();
+
+    private final Object recalculoLock = new Object();
+
+    /**
+     * Foto inmutable de los contadores. Los registrados se cuentan desde las
+     * asignaciones (listas), igual que las consultas que reemplaza.
+     */
+    public record Contadores(LocalDate dia,
+            long totalPadron, long conVozYVoto, long soloVoz,
+            long presentes, long presentesVyV,
+            long metaGlobal, long metaAsesores, long metaFuncionarios,
+            long registradosVyV, long registradosVyVAsesores, long registradosVyVFuncionarios,
+            List<ConteoSucursal> porSucursal) {
+
+        /** Cuerpo de /api/public/estadisticas. */
+        public Map<String, Object> aEstadisticas() {
+            Map<String, Object> stats = new HashMap<>();
+            stats.put("totalPadron", totalPadron);
+            stats.put("conVozYVoto", conVozYVoto);
+            stats.put("soloVoz", soloVoz);
+            stats.put("presentes", presentes);
+            stats.put("presentesVyV", presentesVyV);
+            return stats;
+        }
+
+        /** Cuerpo de /api/public/metas (global, asesores y funcionarios). */
+        public Map<String, Object> aMetas() {
+            Map<String, Object> response = metaMap(metaGlobal, registradosVyV);
+            response.put("asesores", metaMap(metaAsesores, registradosVyVAsesores));
+            response.put("funcionarios", metaMap(metaFuncionarios, registradosVyVFuncionarios));
+            return response;
+        }
+
+        /** Cuerpo de /api/public/distribucion-sucursales. */
+        public List<Map<String, Object>> aDistribucion() {
+            List<Map<String, Object>> distribucion = new ArrayList<>(porSucursal.size());
+            for (ConteoSucursal cs : porSucursal) {
+                Map<String, Object> item = new HashMap<>();
+                item.put("sucursal", cs.sucursal() != null ? cs.sucursal() : "Sin Sucursal");
+                item.put("total", cs.total());
+                item.put("conVyV", cs.conVyV());
+                distribucion.add(item);
+            }
+            return distribucion;
+        }
+
+        private static Map<String, Object> metaMap(long meta, long registrados) {
+            Map<String, Object> data = new HashMap<>();
+            data.put("meta", meta);
+            data.put("registradosVozYVoto", registrados);
+            data.put("porcentajeMeta", meta > 0 ? ((double) registrados / meta) * 100 : 0);
+            return data;
+        }
+    }
+
+    public record ConteoSucursal(String sucursal, long total, long conVyV) {
+    }
+
+    /**
+     * Devuelve la foto vigente. Solo la primera llamada (o tras un arranque en
+     * frío) consulta la base.
+     */
+    public Contadores obtener() {
+        Contadores c = actual;
+        if (c == null) {
+            return recalcular();
+        }
+        if (!c.dia().equals(LocalDate.now())) {
+            // Cambió el día: los presentes del día anterior ya no aplican
+            desfasado.set(true);
+        }
+        return c;
+    }
+
+    /**
+     * Socio agregado a una lista cuyo dueño tiene el rol indicado.
+     */
+    public void registrarAsignacion(Long socioId, Usuario.Rol rolResponsable) {
+        TransaccionUtil.alConfirmar(() -> aplicarAsignacion(socioId, rolResponsable, 1));
+    }
+
+    /**
+     * Socio quitado de una lista cuyo dueño tiene el rol indicado.
+     */
+    public void registrarBajaAsignacion(Long socioId, Usuario.Rol rolResponsable) {
+        TransaccionUtil.alConfirmar(() -> aplicarAsignacion(socioId, rolResponsable, -1));
+    }
+
+    public void registrarAsistencia(boolean vozVoto, LocalDateTime fechaHora) {
+        TransaccionUtil.alConfirmar(() -> {
+            cambios.incrementAndGet();
+            synchronized (this) {
+                Contadores c = actual;
+                if (c == null || fechaHora == null || !c.dia().equals(fechaHora.toLocalDate())) {
+                    desfasado.set(true);
+                    return;
+                }
+                actual = new Contadores(c.dia(), c.totalPadron(), c.conVozYVoto(), c.soloVoz(),
+                        c.presentes() + 1, c.presentesVyV() + (vozVoto ? 1 : 0),
+                        c.metaGlobal(), c.metaAsesores(), c.metaFuncionarios(),
+                        c.registradosVyV(), c.registradosVyVAsesores(), c.registradosVyVFuncionarios(),
+                        c.porSucursal());
+                version++;
+            }
+        });
+    }
+
+    /**
+     * Cambios que no se pueden expresar como delta (importación, vaciados,
+     * restauraciones, ABM de socios o usuarios). Se recalcula en el próximo
+     * chequeo programado.
+     */
+    public void invalidar() {
+        TransaccionUtil.alConfirmar(() -> {
+            cambios.incrementAndGet();
+            invalidaciones.incrementAndGet();
+            desfasado.set(true);
+        });
+    }
+
+    @EventListener
+    public void alReemplazarDatos(DatosReemplazadosEvent evento) {
+        invalidar();
+    }
+
+    /**
+     * Contador que crece con cada asignación, check-in o invalidación
+     * confirmada. Sirve para saber si hubo escrituras desde una lectura anterior.
+     */
+    public long getCambios() {
+        return cambios.get();
+    }
+
+    /**
+     * Contador que crece solo con las invalidaciones (cambios que no son delta).
+     */
+    public long getInvalidaciones() {
+        return invalidaciones.get();
+    }
+
+    /**
+     * Top 10 de funcionarios por registros en sus listas. No se mantiene en
+     * memoria: lo consultan el endpoint público y el push de ranking (limitado).
+     */
+    public List<Map<String, Object>> rankingFuncionarios() {
+        List<Map<String, Object>> ranking = new ArrayList<>();
+        for (Object[] row : usuarioRepository.findRankingByAsignaciones()) {
+            if (ranking.size() == 10) {
+                break;
+            }
+            Map<String, Object> item = new HashMap<>();
+            item.put("username", row[0]);
+            item.put("cargo", row[1]);
+            item.put("meta", row[2]);
+            item.put("registrados", row[3]);
+            item.put("porcentaje", row[4] != null ? row[4] : 0);
+            // Si el nombre de usuario es nulo o parece un número (ID), usar el del socio
+            String nombreUsuario = (String) row[5];
+            String nombreSocio = (String) row[7];
+            String nombreFinal = nombreUsuario;
+            if (nombreUsuario == null || nombreUsuario.matches("\\d+") || nombreUsuario.trim().isEmpty()) {
+                if (nombreSocio != null && !nombreSocio.trim().isEmpty()) {
+                    nombreFinal = nombreSocio;
+                }
+            }
+            item.put("nombre", nombreFinal != null ? nombreFinal : row[0]);
+            item.put("sucursal", row[6] != null ? row[6] : "Sin Sucursal");
+            ranking.add(item);
+        }
+        return ranking;
+    }
+
+    @Scheduled(fixedDelayString = "${dashboard.contadores.chequeo-ms:2000}")
+    public void verificar() {
+        Contadores c = actual;
+        boolean vencido = System.currentTimeMillis() - ultimoRecalculo >= reconciliarMs;
+        if (c == null || desfasado.get() || vencido || !c.dia().equals(LocalDate.now())) {
+            try {
+                recalcular();
+            } catch (Exception e) {
+                log.warn("⚠️ No se pudieron recalcular los contadores del dashboard: {}", e.getMessage());
+            }
+        }
+    }
+
+    private Contadores recalcular() {
+        synchronized (recalculoLock) {
+            long versionInicial;
+            synchronized (this) {
+                versionInicial = version;
+            }
+            desfasado.set(false);
+            Contadores leidos;
+            try {
+                leidos = leerDeBase();
+            } catch (RuntimeException e) {
+                desfasado.set(true);
+                throw e;
+            }
+            synchronized (this) {
+                if (version != versionInicial) {
+                    // Hubo deltas mientras se consultaba: no se sabe si la lectura los
+                    // incluye, así que se publica igual y se repite en el próximo chequeo
+                    desfasado.set(true);
+                }
+                actual = leidos;
+            }
+            ultimoRecalculo = System.currentTimeMillis();
+            return leidos;
+        }
+    }
+
+    private Contadores leerDeBase() {
+        LocalDate hoy = LocalDate.now();
+        LocalDateTime inicioDia = hoy.atStartOfDay();
+        LocalDateTime finDia = hoy.atTime(23, 59, 59);
+
+        List<ConteoSucursal> porSucursal = new ArrayList<>();
+        for (Object[] row : asignacionRepository.countBySucursal()) {
+            porSucursal.add(new ConteoSucursal((String) row[0], valor(row[1]), valor(row[2])));
+        }
+
+        return new Contadores(hoy,
+                valor(socioRepository.countEnPadronActual()),
+                valor(socioRepository.countConVozYVotoEnPadron()),
+                valor(socioRepository.countSoloVozEnPadron()),
+                asistenciaRepository.countByFechaHoraBetween(inicioDia, finDia),
+                asistenciaRepository.countByFechaHoraBetweenAndEstadoVozVoto(inicioDia, finDia, true),
+                valor(usuarioRepository.sumTotalMetas()),
+                valor(usuarioRepository.sumTotalMetasByRol(Usuario.Rol.ASESOR_DE_CREDITO)),
+                valor(usuarioRepository.sumTotalMetasByRolNot(Usuario.Rol.ASESOR_DE_CREDITO)),
+                valor(asignacionRepository.countTotalVyV()),
+                valor(asignacionRepository.countVyVByUsuarioRol(Usuario.Rol.ASESOR_DE_CREDITO)),
+                valor(asignacionRepository.countVyVByUsuarioRolNot(Usuario.Rol.ASESOR_DE_CREDITO)),
+                List.copyOf(porSucursal));
+    }
+
+    private void aplicarAsignacion(Long socioId, Usuario.Rol rol, int delta) {
+        cambios.incrementAndGet();
+        var socio = socioIndiceService.buscarPorId(socioId).orElse(null);
+        synchronized (this) {
+            Contadores c = actual;
+            if (c == null || socio == null) {
+                desfasado.set(true);
+                return;
+            }
+            boolean vyv = socio.isEstadoVozVoto();
+            int deltaVyV = vyv ? delta : 0;
+            // Los conteos por rol excluyen listas sin dueño (rol nulo), igual que el JOIN
+            long asesores = c.registradosVyVAsesores()
+                    + (rol == Usuario.Rol.ASESOR_DE_CREDITO ? deltaVyV : 0);
+            long funcionarios = c.registradosVyVFuncionarios()
+                    + (rol != null && rol != Usuario.Rol.ASESOR_DE_CREDITO ? deltaVyV : 0);
+
+            List<ConteoSucursal> porSucursal = c.porSucursal();
+            String nombreSucursal = socio.sucursal() != null ? socio.sucursal().nombre() : null;
+            if (nombreSucursal != null) {
+                porSucursal = sumarSucursal(porSucursal, nombreSucursal, delta, deltaVyV);
+            }
+
+            actual = new Contadores(c.dia(), c.totalPadron(), c.conVozYVoto(), c.soloVoz(),
+                    c.presentes(), c.presentesVyV(),
+                    c.metaGlobal(), c.metaAsesores(), c.metaFuncionarios(),
+                    c.registradosVyV() + deltaVyV, asesores, funcionarios,
+                    porSucursal);
+            version++;
+        }
+    }
+
+    private static List<ConteoSucursal> sumarSucursal(List<ConteoSucursal> actuales, String nombre, int delta,
+            int deltaVyV) {
+        List<ConteoSucursal> nuevos = new ArrayList<>(actuales.size() + 1);
+        boolean encontrada = false;
+        for (ConteoSucursal cs : actuales) {
+            if (cs.sucursal() != null && cs.sucursal().equals(nombre)) {
+                encontrada = true;
+                long total = cs.total() + delta;
+                if (total > 0) {
+                    nuevos.add(new ConteoSucursal(nombre, total, cs.conVyV() + deltaVyV));
+                }
+            } else {
+                nuevos.add(cs);
+            }
+        }
+        if (!encontrada && delta > 0) {
+            nuevos.add(new ConteoSucursal(nombre, delta, deltaVyV));
+        }
+        // Mismo orden que la consulta: más registros primero
+        nuevos.sort(Comparator.comparingLong(ConteoSucursal::total).reversed());
+        return List.copyOf(nuevos);
+    }
+
+    private static long valor(Object n) {
+        return n instanceof Number num ? num.longValue() : 0L;
+    }
+}
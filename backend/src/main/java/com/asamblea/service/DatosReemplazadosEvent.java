@@ -0,0 +1,9 @@
+package com.asamblea.service;
+
+/**
+ * Cambio masivo que los deltas no describen (importación, reseteos, vaciados,
+ * restauraciones). Se publica dentro de la transacción que lo hizo; cada cache
+ * en memoria lo escucha y se descarta o recarga al confirmarse.
+ */
+public record DatosReemplazadosEvent(String motivo) {
+}
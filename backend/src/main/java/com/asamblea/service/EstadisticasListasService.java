@@ -0,0 +1,247 @@
+package com.asamblea.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Conteos por lista de asignación (total, con voz y voto, solo voz y
+ * presentes) para /mis-listas, /stats-socio y las vistas de admin.
+ * - Las listas que faltan en memoria se leen todas juntas con una consulta
+ *   agrupada, en vez de cargar las asignaciones de cada lista.
+ * - Altas, bajas y check-ins aplican deltas a las listas en memoria al
+ *   confirmarse la transacción. Mientras alguna está en curso (desde que se
+ *   registra hasta que se aplica su delta o hace rollback) lo leído de la base
+ *   se devuelve pero no se guarda como vigente: podría incluir ya la fila y
+ *   recibir el delta otra vez.
+ * - Las invalidaciones de ContadoresEnVivoService (importación, vaciados,
+ *   restauraciones, borrado de listas) vacían la cache entera, y cada entrada
+ *   vence a los ttl-ms por si algún camino de escritura no avisó.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class EstadisticasListasService {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ContadoresEnVivoService contadoresEnVivoService;
+
+    @Value("${listas.estadisticas.ttl-ms:60000}")
+    private long ttlMs = 60000;
+
+    private final Map<Long, Entrada> cache = new ConcurrentHashMap<>();
+
+    // Se incrementa con cada delta o vaciado; permite saber si hubo escrituras durante una lectura
+    private long version;
+    // Escrituras registradas cuyo delta todavía no se aplicó, y total de las iniciadas
+    private int escriturasEnCurso;
+    private long escriturasIniciadas;
+    private volatile long invalidacionesVistas = -1;
+
+    /**
+     * Conteos de una lista. presentes cuenta asistencias de socios de la lista,
+     * igual que AsistenciaRepository.countPresentesByListaId.
+     */
+    public record Conteo(long total, long vyv, long soloVoz, long presentes) {
+
+        public static final Conteo VACIO = new Conteo(0, 0, 0, 0);
+
+        public Conteo mas(Conteo otro) {
+            return new Conteo(total + otro.total, vyv + otro.vyv, soloVoz + otro.soloVoz,
+                    presentes + otro.presentes);
+        }
+    }
+
+    private record Entrada(Conteo conteo, long vence) {
+    }
+
+    /**
+     * Conteos de las listas pedidas (las inexistentes no aparecen en el mapa).
+     */
+    public Map<Long, Conteo> obtener(Collection<Long> listaIds) {
+        if (listaIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        long invalidaciones = revisarInvalidaciones();
+        long ahora = System.currentTimeMillis();
+        Map<Long, Conteo> resultado = new HashMap<>();
+        List<Long> faltantes = new ArrayList<>();
+        for (Long id : new LinkedHashSet<>(listaIds)) {
+            Entrada e = cache.get(id);
+            if (e != null && e.vence() > ahora) {
+                resultado.put(id, e.conteo());
+            } else {
+                faltantes.add(id);
+            }
+        }
+        if (faltantes.isEmpty()) {
+            return resultado;
+        }
+
+        long versionInicial;
+        long iniciadasAntes;
+        boolean sinEscrituras;
+        synchronized (this) {
+            versionInicial = version;
+            iniciadasAntes = escriturasIniciadas;
+            sinEscrituras = escriturasEnCurso == 0;
+        }
+        Map<Long, Conteo> leidos = leerDeBase(faltantes);
+        synchronized (this) {
+            // Con escrituras en curso en algún momento de la consulta no se sabe si la
+            // lectura las incluye: se devuelve igual pero la entrada queda vencida y se
+            // relee la próxima vez
+            boolean limpia = sinEscrituras
+                    && escriturasEnCurso == 0
+                    && escriturasIniciadas == iniciadasAntes
+                    && version == versionInicial
+                    && contadoresEnVivoService.getInvalidaciones() == invalidaciones;
+            long vence = limpia ? ahora + ttlMs : 0;
+            leidos.forEach((id, conteo) -> cache.put(id, new Entrada(conteo, vence)));
+        }
+        resultado.putAll(leidos);
+        return resultado;
+    }
+
+    /**
+     * Suma de los conteos de varias listas (p. ej. todas las de un usuario).
+     */
+    public Conteo sumar(Collection<Long> listaIds) {
+        Conteo suma = Conteo.VACIO;
+        for (Conteo c : obtener(listaIds).values()) {
+            suma = suma.mas(c);
+        }
+        return suma;
+    }
+
+    /**
+     * Socio agregado a la lista.
+     */
+    public void registrarAlta(Long listaId, Long socioId) {
+        iniciarEscritura();
+        TransaccionUtil.alConfirmar(() -> aplicarAsignacion(listaId, socioId, 1), this::terminarEscritura);
+    }
+
+    /**
+     * Socio quitado de la lista.
+     */
+    public void registrarBaja(Long listaId, Long socioId) {
+        iniciarEscritura();
+        TransaccionUtil.alConfirmar(() -> aplicarAsignacion(listaId, socioId, -1), this::terminarEscritura);
+    }
+
+    /**
+     * Check-in de un socio: suma un presente en las listas que lo tienen.
+     */
+    public void registrarAsistencia(Long socioId) {
+        iniciarEscritura();
+        TransaccionUtil.alConfirmar(() -> {
+            if (cache.isEmpty()) {
+                return;
+            }
+            List<Long> listas;
+            try {
+                listas = jdbcTemplate.queryForList(
+                        "SELECT lista_id FROM asignaciones_socios WHERE socio_id = ?", Long.class, socioId);
+            } catch (DataAccessException e) {
+                log.warn("⚠️ No se pudo aplicar el check-in del socio {} a las listas: {}", socioId, e.getMessage());
+                vaciar();
+                return;
+            }
+            synchronized (this) {
+                for (Long listaId : listas) {
+                    cache.computeIfPresent(listaId,
+                            (id, e) -> new Entrada(e.conteo().mas(new Conteo(0, 0, 0, 1)), e.vence()));
+                }
+                version++;
+            }
+        }, this::terminarEscritura);
+    }
+
+    private synchronized void iniciarEscritura() {
+        escriturasEnCurso++;
+        escriturasIniciadas++;
+    }
+
+    private synchronized void terminarEscritura() {
+        escriturasEnCurso--;
+    }
+
+    private void aplicarAsignacion(Long listaId, Long socioId, int delta) {
+        if (!cache.containsKey(listaId)) {
+            synchronized (this) {
+                version++;
+            }
+            return;
+        }
+        Conteo conteo;
+        try {
+            // voz_voto y asistencias del socio, en la misma forma que la consulta agrupada
+            conteo = jdbcTemplate.queryForObject(
+                    "SELECT s.voz_voto, (SELECT COUNT(*) FROM asistencias x WHERE x.id_socio = s.id) "
+                            + "FROM socios s WHERE s.id = ?",
+                    (rs, i) -> {
+                        boolean vyv = rs.getBoolean(1);
+                        boolean nulo = rs.wasNull();
+                        return new Conteo(delta, !nulo && vyv ? delta : 0, !nulo && !vyv ? delta : 0,
+                                delta * rs.getLong(2));
+                    },
+                    socioId);
+        } catch (DataAccessException e) {
+            conteo = null;
+        }
+        synchronized (this) {
+            if (conteo == null) {
+                cache.remove(listaId);
+            } else {
+                Conteo d = conteo;
+                cache.computeIfPresent(listaId, (id, e) -> new Entrada(e.conteo().mas(d), e.vence()));
+            }
+            version++;
+        }
+    }
+
+    private long revisarInvalidaciones() {
+        long invalidaciones = contadoresEnVivoService.getInvalidaciones();
+        if (invalidaciones != invalidacionesVistas) {
+            vaciar();
+            invalidacionesVistas = invalidaciones;
+        }
+        return invalidaciones;
+    }
+
+    private synchronized void vaciar() {
+        cache.clear();
+        version++;
+    }
+
+    private Map<Long, Conteo> leerDeBase(List<Long> listaIds) {
+        String marcas = String.join(", ", Collections.nCopies(listaIds.size(), "?"));
+        String sql = "SELECT la.id, COUNT(a.id), "
+                + "COALESCE(SUM(CASE WHEN s.voz_voto = TRUE THEN 1 ELSE 0 END), 0), "
+                + "COALESCE(SUM(CASE WHEN s.voz_voto = FALSE THEN 1 ELSE 0 END), 0), "
+                + "(SELECT COUNT(*) FROM asistencias x WHERE x.id_socio IN "
+                + "(SELECT a2.socio_id FROM asignaciones_socios a2 WHERE a2.lista_id = la.id)) "
+                + "FROM listas_asignacion la "
+                + "LEFT JOIN asignaciones_socios a ON a.lista_id = la.id "
+                + "LEFT JOIN socios s ON s.id = a.socio_id "
+                + "WHERE la.id IN (" + marcas + ") GROUP BY la.id";
+        Map<Long, Conteo> leidos = new HashMap<>();
+        jdbcTemplate.query(sql, rs -> {
+            leidos.put(rs.getLong(1), new Conteo(rs.getLong(2), rs.getLong(3), rs.getLong(4), rs.getLong(5)));
+        }, listaIds.toArray());
+        return leidos;
+    }
+}
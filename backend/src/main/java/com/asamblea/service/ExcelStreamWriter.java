@@ -0,0 +1,178 @@
+package com.asamblea.service;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.FillPatternType;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.IndexedColors;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Escritor de Excel en streaming (SXSSF) compartido por las exportaciones.
+ * - Solo mantiene en memoria una ventana de filas; el resto va a un temporal
+ *   comprimido y al cerrar se escribe directo al OutputStream recibido.
+ * - El ancho de columna se estima con el largo del texto de cada celda en vez
+ *   de autoSizeColumn (que recorre todas las filas por columna).
+ * Pensado para alimentarse desde un cursor JDBC (ver {@link #cursor}) o
+ * cualquier iteración, fila por fila, sin juntar la lista completa antes.
+ *
+ * Uso: try (ExcelStreamWriter excel = new ExcelStreamWriter(out)) { hoja(...); fila(...)... }
+ */
+public class ExcelStreamWriter implements AutoCloseable {
+
+    // Filas que quedan en memoria antes de bajar a disco
+    private static final int VENTANA_FILAS = 200;
+
+    // Ancho máximo estimado (en caracteres) para que un texto largo no deforme la hoja
+    private static final int ANCHO_MAXIMO = 60;
+
+    // Filas por viaje en bases sin streaming fila a fila (no MySQL)
+    private static final int FETCH_SIZE = 1000;
+
+    private final SXSSFWorkbook workbook;
+    private final OutputStream out;
+    private final List<Hoja> hojas = new ArrayList<>();
+    private Hoja actual;
+
+    private static final class Hoja {
+        final SXSSFSheet sheet;
+        int[] anchos;
+        int filas;
+
+        Hoja(SXSSFSheet sheet) {
+            this.sheet = sheet;
+            this.anchos = new int[0];
+        }
+    }
+
+    public ExcelStreamWriter(OutputStream out) {
+        this.out = out;
+        this.workbook = new SXSSFWorkbook(VENTANA_FILAS);
+        this.workbook.setCompressTempFiles(true);
+    }
+
+    /**
+     * Libro subyacente, para estilos a medida.
+     */
+    public SXSSFWorkbook getWorkbook() {
+        return workbook;
+    }
+
+    /**
+     * Estilo de encabezado: negrita sobre fondo sólido.
+     */
+    public CellStyle estiloEncabezado(IndexedColors fondo, IndexedColors colorFuente) {
+        CellStyle style = workbook.createCellStyle();
+        Font font = workbook.createFont();
+        font.setBold(true);
+        if (colorFuente != null) {
+            font.setColor(colorFuente.getIndex());
+        }
+        style.setFont(font);
+        style.setFillForegroundColor(fondo.getIndex());
+        style.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+        return style;
+    }
+
+    /**
+     * Abre una hoja nueva con su fila de encabezados; las filas siguientes van a ella.
+     */
+    public void hoja(String nombre, CellStyle estiloEncabezado, String... encabezados) {
+        actual = new Hoja(workbook.createSheet(nombre));
+        hojas.add(actual);
+        Row row = actual.sheet.createRow(actual.filas++);
+        for (int i = 0; i < encabezados.length; i++) {
+            Cell cell = row.createCell(i);
+            cell.setCellValue(encabezados[i]);
+            if (estiloEncabezado != null) {
+                cell.setCellStyle(estiloEncabezado);
+            }
+            medir(i, encabezados[i].length());
+        }
+    }
+
+    /**
+     * Agrega una fila a la hoja actual. Números como número, null como vacío,
+     * lo demás como texto.
+     */
+    public void fila(Object... valores) {
+        Row row = actual.sheet.createRow(actual.filas++);
+        for (int i = 0; i < valores.length; i++) {
+            Object v = valores[i];
+            Cell cell = row.createCell(i);
+            if (v instanceof Number n) {
+                cell.setCellValue(n.doubleValue());
+                medir(i, String.valueOf(v).length());
+            } else {
+                String texto = v != null ? String.valueOf(v) : "";
+                cell.setCellValue(texto);
+                medir(i, texto.length());
+            }
+        }
+    }
+
+    /**
+     * Filas de datos escritas en la hoja actual (sin el encabezado).
+     */
+    public int getFilas() {
+        return actual != null ? actual.filas - 1 : 0;
+    }
+
+    private void medir(int columna, int largo) {
+        if (columna >= actual.anchos.length) {
+            actual.anchos = Arrays.copyOf(actual.anchos, columna + 1);
+        }
+        if (largo > actual.anchos[columna]) {
+            actual.anchos[columna] = largo;
+        }
+    }
+
+    /**
+     * Aplica los anchos estimados y escribe el libro al OutputStream (que no se cierra).
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            for (Hoja h : hojas) {
+                for (int i = 0; i < h.anchos.length; i++) {
+                    int caracteres = Math.min(h.anchos[i], ANCHO_MAXIMO) + 2;
+                    h.sheet.setColumnWidth(i, caracteres * 256);
+                }
+            }
+            workbook.write(out);
+            out.flush();
+        } finally {
+            workbook.dispose();
+            workbook.close();
+        }
+    }
+
+    /**
+     * Consulta de solo lectura que recorre el resultado sin cargarlo entero:
+     * en MySQL usa el streaming fila a fila de Connector/J; en otras bases,
+     * un fetch size acotado.
+     */
+    public static PreparedStatementCreator cursor(String sql, Object... params) {
+        return con -> {
+            PreparedStatement ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY,
+                    ResultSet.CONCUR_READ_ONLY);
+            boolean mysql = con.getMetaData().getDatabaseProductName().toLowerCase().contains("mysql");
+            ps.setFetchSize(mysql ? Integer.MIN_VALUE : FETCH_SIZE);
+            for (int i = 0; i < params.length; i++) {
+                ps.setObject(i + 1, params[i]);
+            }
+            return ps;
+        };
+    }
+}
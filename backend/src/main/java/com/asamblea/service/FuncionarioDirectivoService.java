@@ -32,6 +32,7 @@ public class FuncionarioDirectivoService {
     private final ListaAsignacionRepository listaAsignacionRepository;
     private final PasswordEncoder passwordEncoder;
     private final JdbcTemplate jdbcTemplate;
+    private final com.asamblea.security.SesionCacheService sesionCacheService;
 
     /**
      * Importa el Excel de funcionarios y directivos (GENÉRICO)
@@ -370,6 +371,9 @@ public class FuncionarioDirectivoService {
         // Si el usuario ya existe, preservamos su estado de activo/inactivo
 
         usuarioRepository.save(usuario);
+        // Rol ajustado y, si venía del login viejo, username migrado a la cédula
+        sesionCacheService.invalidar(usuario.getUsername());
+        sesionCacheService.invalidar(numeroSocio);
 
         // 5. CREAR LISTA POR DEFECTO AUTOMÁTICAMENTE
         // Si no tiene lista, le creamos una activa
@@ -5,9 +5,12 @@ import com.asamblea.model.Sucursal;
 import com.asamblea.repository.ImportacionHistorialRepository;
 import com.asamblea.repository.SucursalRepository;
 import lombok.RequiredArgsConstructor;
+import com.github.pjfanning.xlsx.SharedStringsImplementationType;
+import com.github.pjfanning.xlsx.StreamingReader;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.poi.openxml4j.util.ZipSecureFile;
 import org.apache.poi.ss.usermodel.*;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
@@ -19,18 +22,31 @@ import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
+import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Servicio de importación de Excel de alto rendimiento.
  * Optimizaciones:
- * - Streaming estricto sin DataFormatter
- * - Buffer de lectura de 512KB
+ * - Streaming estricto sin DataFormatter (lectura SAX fila a fila, sin cargar la hoja en memoria)
+ * - Buffer de lectura de 512KB y ventana acotada de filas en memoria
  * - Inserción batch JDBC pura
+ * - Pipeline lector -> normalizadores -> escritor con colas acotadas
+ * - Modo INCREMENTAL: compara huellas por cédula y solo escribe lo que cambió
  * - Mínima creación de objetos
  */
 @Service
@@ -43,9 +59,21 @@ public class ImportacionService {
     private final JdbcTemplate jdbcTemplate;
     private final com.asamblea.service.LogAuditoriaService auditService;
     private final FuncionarioDirectivoService funcionarioService;
+    private final SnapshotAsignacionesService snapshotAsignacionesService;
+    private final ApplicationEventPublisher eventos;
 
     // Buffer optimizado para SSDs modernos y streaming
     private static final int BATCH_SIZE = 5000; // Lotes más grandes para UPSERTs
+    private static final int READ_BUFFER_SIZE = 512 * 1024; // Buffer del XML de la hoja
+    private static final int ROW_CACHE_SIZE = 200; // Filas parseadas retenidas en memoria a la vez
+
+    // Pipeline: 1 lector, N normalizadores y 1 escritor dueño de la conexión JDBC
+    private static final int PIPELINE_WORKERS = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+    private static final int PIPELINE_QUEUE_CAPACITY = 2 * BATCH_SIZE;
+    private static final FilaLeida FIN_LECTURA = new FilaLeida(-1, null, null, null, null, null,
+            false, false, false, false, false);
+    private static final FilaSocio FIN_NORMALIZACION = new FilaSocio(-1, null, null, null, null, null,
+            false, false, false, false, false);
 
     // Índices dinámicos (se detectan en tiempo de ejecución)
     private static final String HDR_SOCIO_NRO = "NRO SOCIO";
@@ -59,9 +87,21 @@ public class ImportacionService {
     private static final String HDR_INCOOP = "INCOOP";
     private static final String HDR_CREDITO = "CREDITO";
 
+    // Huella reservada para socios que hoy están fuera del padrón (siempre se reescriben)
+    private static final long SIN_HUELLA = 0L;
+
+    /**
+     * COMPLETO: marca todo el padrón como inactivo y hace UPSERT de cada fila.
+     * INCREMENTAL: solo escribe socios nuevos o con cambios y saca del padrón la
+     * diferencia de conjuntos, sin reescribir la tabla completa.
+     */
+    public enum ModoImportacion {
+        COMPLETO, INCREMENTAL
+    }
+
     private final Map<String, ImportStatus> progressMap = new ConcurrentHashMap<>();
 
-    public String iniciarImportacion(MultipartFile file, String usuario) throws Exception {
+    public String iniciarImportacion(MultipartFile file, String usuario, ModoImportacion modo) throws Exception {
         String processId = UUID.randomUUID().toString();
         String tempFilename = file.getOriginalFilename();
         String originalFilename = (tempFilename != null && !tempFilename.isBlank()) ? tempFilename : "padron.xlsx";
@@ -87,7 +127,7 @@ public class ImportacionService {
         final String finalOriginalFilename = originalFilename;
         final String finalPermanentPath = permanentFile.toString();
         CompletableFuture.runAsync(() -> procesarAsync(processId, permanentFile.toFile(), usuario,
-                finalOriginalFilename, finalPermanentPath));
+                finalOriginalFilename, finalPermanentPath, modo));
 
         return processId;
     }
@@ -104,15 +144,16 @@ public class ImportacionService {
     }
 
     protected void procesarAsync(String processId, File tempFile, String usuario, String originalFilename,
-            String archivoRuta) {
-        log.info("[{}] Iniciando importación optimizada - Archivo: {}", processId, originalFilename);
+            String archivoRuta, ModoImportacion modo) {
+        log.info("[{}] Iniciando importación optimizada - Archivo: {} - Modo: {}", processId, originalFilename, modo);
+        boolean incremental = modo == ModoImportacion.INCREMENTAL;
         long start = System.currentTimeMillis();
         ImportStatus status = progressMap.get(processId);
 
         try {
             // 1. Pre-cargar sucursales en memoria (Map<Codigo, ID> y Map<Nombre, ID>)
             // Esto evita miles de consultas a DB
-            Map<String, Long> sucursalMap = new HashMap<>();
+            Map<String, Long> sucursalMap = new ConcurrentHashMap<>();
             sucursalRepository.findAll().forEach(s -> {
                 // Mapear por código
                 if (s.getCodigo() != null)
@@ -127,14 +168,21 @@ public class ImportacionService {
             Set<String> cedulasProcesadas = new HashSet<>();
 
             // 2. CARGAR CÉDULAS EXISTENTES EN MEMORIA (para calcular nuevos vs actualizados
-            // con precisión)
+            // con precisión). En modo incremental se carga además la huella de cada socio.
             Set<String> cedulasExistentes = new HashSet<>();
-            try {
-                List<String> existingCedulas = jdbcTemplate.queryForList("SELECT cedula FROM socios", String.class);
-                cedulasExistentes.addAll(existingCedulas);
-                log.info("Cédulas existentes cargadas en memoria: {}", cedulasExistentes.size());
-            } catch (Exception e) {
-                log.warn("No se pudieron cargar cédulas existentes: {}", e.getMessage());
+            Map<String, Long> huellas = null;
+            if (incremental) {
+                huellas = cargarHuellas();
+                cedulasExistentes = huellas.keySet();
+                log.info("Huellas de socios existentes cargadas en memoria: {}", huellas.size());
+            } else {
+                try {
+                    List<String> existingCedulas = jdbcTemplate.queryForList("SELECT cedula FROM socios", String.class);
+                    cedulasExistentes.addAll(existingCedulas);
+                    log.info("Cédulas existentes cargadas en memoria: {}", cedulasExistentes.size());
+                } catch (Exception e) {
+                    log.warn("No se pudieron cargar cédulas existentes: {}", e.getMessage());
+                }
             }
             int sociosPrevios = cedulasExistentes.size();
 
@@ -142,23 +190,30 @@ public class ImportacionService {
             // Luego el UPSERT los marcará como activos si están en el archivo
             
             // SEGURIDAD CRÍTICA: Respaldar asignaciones antes de cualquier cambio en el padrón
+            // (marca versionada sobre el changelog: no copia la tabla)
             try {
-                String backupTableName = "z_respaldo_asignaciones_" + LocalDateTime.now().format(java.time.format.DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
-                jdbcTemplate.execute("CREATE TABLE " + backupTableName + " SELECT * FROM asignaciones_socios");
-                log.info("🛡️ BACKUP CRÍTICO: Se ha creado el respaldo '{}' de las asignaciones existentes.", backupTableName);
+                var snapshot = snapshotAsignacionesService.crearSnapshot("IMPORTACION", usuario);
+                log.info("🛡️ BACKUP CRÍTICO: Snapshot #{} de asignaciones en versión {}.", snapshot.getId(),
+                        snapshot.getVersion());
             } catch (Exception e) {
                 log.warn("⚠️ No se pudo crear el respaldo de seguridad de asignaciones: {}", e.getMessage());
             }
 
-            int sociosMarcadosInactivos = jdbcTemplate.update("UPDATE socios SET en_padron_actual = false");
-            log.info("Marcados {} socios como inactivos temporalmente", sociosMarcadosInactivos);
+            // En modo incremental no se toca la tabla completa: al final solo se sacan
+            // del padrón las cédulas que no vinieron en el archivo
+            int sociosMarcadosInactivos = 0;
+            if (!incremental) {
+                sociosMarcadosInactivos = jdbcTemplate.update("UPDATE socios SET en_padron_actual = false");
+                log.info("Marcados {} socios como inactivos temporalmente", sociosMarcadosInactivos);
+            }
 
             // 3. Preparar inserción Batch con UPSERT (ON DUPLICATE KEY UPDATE)
             // Incluye en_padron_actual = true para marcar los importados como activos
+            // y voz_voto precalculado (columna indexada para conteos)
             String sql = "INSERT INTO socios (numero_socio, cedula, nombre_completo, telefono, id_sucursal, " +
-                    "aporte_al_dia, solidaridad_al_dia, fondo_al_dia, incoop_al_dia, credito_al_dia, created_at, en_padron_actual) "
+                    "aporte_al_dia, solidaridad_al_dia, fondo_al_dia, incoop_al_dia, credito_al_dia, created_at, en_padron_actual, voz_voto) "
                     +
-                    "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, true) " +
+                    "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, true, ?) " +
                     "ON DUPLICATE KEY UPDATE " +
                     "nombre_completo = VALUES(nombre_completo), " +
                     "telefono = VALUES(telefono), " +
@@ -168,10 +223,12 @@ public class ImportacionService {
                     "fondo_al_dia = VALUES(fondo_al_dia), " +
                     "incoop_al_dia = VALUES(incoop_al_dia), " +
                     "credito_al_dia = VALUES(credito_al_dia), " +
+                    "voz_voto = VALUES(voz_voto), " +
                     "en_padron_actual = true";
 
             int imported = 0;
-            int errors = 0;
+            int rowIndex = 0;
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
             int duplicados = 0;
             int sinCedula = 0;
             int sinNombre = 0;
@@ -195,20 +252,40 @@ public class ImportacionService {
             // Fix: Zip bomb detected! (Permitir ratios de compresión más altos)
             ZipSecureFile.setMinInflateRatio(0.001);
 
-            try (
-                    Connection conn = Objects.requireNonNull(jdbcTemplate.getDataSource()).getConnection();
-                    PreparedStatement ps = conn.prepareStatement(sql);
-                    Workbook workbook = WorkbookFactory.create(tempFile, null, true)) {
-
-                conn.setAutoCommit(false); // Importante para velocidad
+            ExecutorService pipeline = Executors.newFixedThreadPool(PIPELINE_WORKERS + 1, r -> {
+                Thread t = new Thread(r, "import-" + processId.substring(0, 8));
+                t.setDaemon(true);
+                return t;
+            });
+            AtomicBoolean abortar = new AtomicBoolean(false);
+            AtomicInteger errors = new AtomicInteger();
+            AtomicInteger omitidos = new AtomicInteger();
+            ContextoPipeline ctx = new ContextoPipeline(status, sucursalMap, huellas, abortar, errors, omitidos);
+
+            try (Workbook workbook = abrirLibroStreaming(tempFile)) {
+
+                // ===== PIPELINE: lector -> N normalizadores -> escritor =====
+                // Colas acotadas: si MySQL se atrasa, el lector se frena (backpressure)
+                BlockingQueue<FilaLeida> colaLeidas = new ArrayBlockingQueue<>(PIPELINE_QUEUE_CAPACITY);
+                BlockingQueue<FilaSocio> colaNormalizadas = new ArrayBlockingQueue<>(PIPELINE_QUEUE_CAPACITY);
+                AtomicInteger normalizadoresActivos = new AtomicInteger(PIPELINE_WORKERS);
+
+                Future<Integer> escritor = pipeline.submit(
+                        () -> escribirLotes(sql, now, colaNormalizadas, ctx));
+                List<Future<?>> normalizadores = new ArrayList<>();
+                for (int w = 0; w < PIPELINE_WORKERS; w++) {
+                    normalizadores.add(pipeline.submit(
+                            () -> normalizarFilas(colaLeidas, colaNormalizadas, normalizadoresActivos, ctx)));
+                }
 
                 Sheet sheet = workbook.getSheetAt(0);
-                int rowIndex = 0;
-                Timestamp now = Timestamp.valueOf(LocalDateTime.now());
 
                 // MAPA DE COLUMNAS DETECTADAS
                 Map<String, Integer> colMap = new HashMap<>();
-                
+                Integer idxSocio = null, idxCedula = null, idxNombre = null, idxTel = null, idxSuc = null;
+                Integer idxAporte = null, idxSolid = null, idxFondo = null, idxIncoop = null, idxCred = null;
+
+                // ETAPA LECTORA: solo extrae celdas y clasifica por cédula (orden del archivo)
                 for (Row row : sheet) {
                     rowIndex++;
                     
@@ -251,16 +328,24 @@ public class ImportacionService {
                         if (!colMap.containsKey("DOC NUM") || !colMap.containsKey("SOCIO NOMBRE")) {
                             throw new Exception("No se encontraron las columnas críticas 'DOC NUM' o 'SOCIO NOMBRE' en el archivo.");
                         }
+
+                        // Índices resueltos una sola vez (no por fila)
+                        idxSocio = colMap.getOrDefault("NRO SOCIO", colMap.get("DOC NUM"));
+                        idxCedula = colMap.get("DOC NUM");
+                        idxNombre = colMap.get("SOCIO NOMBRE");
+                        idxTel = colMap.get("TELEFONO");
+                        idxSuc = colMap.get("SUCURSAL");
+                        idxAporte = colMap.get("APORTE");
+                        idxSolid = colMap.get("SOLIDARIDAD");
+                        idxFondo = colMap.get("FONDO");
+                        idxIncoop = colMap.get("INCOOP");
+                        idxCred = colMap.get("CREDITO");
                         continue; 
                     }
 
-                    // Verificar cancelación
-                    if (status.isCancelled()) {
-                        log.warn("Proceso {} cancelado por usuario", processId);
-                        conn.rollback();
-                        status.setError("Cancelado por el usuario");
-                        status.setCompleted(true);
-                        return;
+                    // Verificar cancelación (o falla de otra etapa)
+                    if (status.isCancelled() || abortar.get()) {
+                        break;
                     }
 
                     // Reporte de progreso ligero cada 1000 filas (menos overhead)
@@ -270,18 +355,6 @@ public class ImportacionService {
                     }
 
                     try {
-                        // Extracción USANDO EL MAPA DINÁMICO
-                        Integer idxSocio = colMap.getOrDefault("NRO SOCIO", colMap.get("DOC NUM"));
-                        Integer idxCedula = colMap.get("DOC NUM");
-                        Integer idxNombre = colMap.get("SOCIO NOMBRE");
-                        Integer idxTel = colMap.get("TELEFONO");
-                        Integer idxSuc = colMap.get("SUCURSAL");
-                        Integer idxAporte = colMap.get("APORTE");
-                        Integer idxSolid = colMap.get("SOLIDARIDAD");
-                        Integer idxFondo = colMap.get("FONDO");
-                        Integer idxIncoop = colMap.get("INCOOP");
-                        Integer idxCred = colMap.get("CREDITO");
-
                         String nroSocio = idxSocio != null ? getRawValue(row, idxSocio) : null;
                         String cedula = idxCedula != null ? getRawValue(row, idxCedula) : null;
                         if (cedula != null)
@@ -320,7 +393,7 @@ public class ImportacionService {
                             // Si ya existe en el archivo, lo saltamos y guardamos el detalle
                             duplicados++;
                             if (duplicadosDetalle.size() < 500) { // Limitar a 500 para no consumir mucha memoria
-                                duplicadosDetalle.add(new DuplicateDetail(rowIndex, cedula, nombre != null ? nombre.trim() : "Sin nombre"));
+                                duplicadosDetalle.add(new DuplicateDetail(rowIndex, cedula, nombre.trim()));
                             }
                             continue;
                         }
@@ -333,114 +406,65 @@ public class ImportacionService {
                             nuevosContador++;
                         }
 
-                        // F: Teléfono
-                        String rawTel = idxTel != null ? getRawValue(row, idxTel) : null;
-                        String tel = procesarTelefonoParaguayo(rawTel);
-
-                        // G: Sucursal
-                        String sucCod = idxSuc != null ? getRawValue(row, idxSuc) : null;
-                        Long sucId = null;
-                        // Debug: Loguear primeros valores de sucursal encontrados
-                        if (rowIndex <= 5) {
-                            log.info("DEBUG Fila {}: Columna Sucursal (G) = '{}'", rowIndex, sucCod);
-                        }
-                        if (sucCod != null && !sucCod.trim().isEmpty()) {
-                            String code = sucCod.trim().toUpperCase();
-                            sucId = sucursalMap.get(code);
-                            if (sucId == null && code.length() < 10 && !code.equals("SI") && !code.equals("NO")) {
-                                // AUTO-CREAR SUCURSAL SI NO EXISTE con nombre correcto
-                                try {
-                                    Sucursal newSuc = new Sucursal();
-                                    newSuc.setCodigo(code);
-
-                                    // Mapear códigos a nombres reales
-                                    String sucNombre;
-                                    String ciudad = null;
-                                    switch (code) {
-                                        case "1":
-                                        case "CC":
-                                            sucNombre = "Casa Central";
-                                            ciudad = "Asunción";
-                                            break;
-                                        case "2":
-                                            sucNombre = "Ciudad del Este";
-                                            ciudad = "Ciudad del Este";
-                                            break;
-                                        case "3":
-                                            sucNombre = "Villarrica";
-                                            ciudad = "Villarrica";
-                                            break;
-                                        case "5":
-                                            sucNombre = "Sucursal 5";
-                                            ciudad = null;
-                                            break;
-                                        case "6":
-                                            sucNombre = "Hernandarias";
-                                            ciudad = "Hernandarias";
-                                            break;
-                                        case "7":
-                                            sucNombre = "San Lorenzo";
-                                            ciudad = "San Lorenzo";
-                                            break;
-                                        default:
-                                            sucNombre = "Sucursal " + code;
-                                            break;
-                                    }
-
-                                    newSuc.setNombre(sucNombre);
-                                    newSuc.setCiudad(ciudad);
-                                    newSuc = sucursalRepository.save(newSuc);
-                                    sucursalMap.put(code, newSuc.getId());
-                                    sucId = newSuc.getId();
-                                } catch (Exception e) {
-                                    log.warn("Error auto-creando sucursal {}: {}", code, e.getMessage());
-                                }
-                            }
-                        }
-
                         // Booleanos H-L con fallback (si no existe la columna en el Excel, se asume true o false según criterio histórico)
-                        boolean aporte = idxAporte != null ? parseBoolean(getRawValue(row, idxAporte)) : true;
-                        boolean solidaridad = idxSolid != null ? parseBoolean(getRawValue(row, idxSolid)) : true;
-                        boolean fondo = idxFondo != null ? parseBoolean(getRawValue(row, idxFondo)) : true;
-                        boolean incoop = idxIncoop != null ? parseBoolean(getRawValue(row, idxIncoop)) : true;
-                        boolean credito = idxCred != null ? parseBoolean(getRawValue(row, idxCred)) : true;
-
-                        ps.setString(1, nroSocio);
-                        ps.setString(2, cedula);
-                        // nombre ya fue validado como no-null en línea 247-251, pero usamos
-                        // Objects.requireNonNull para satisfacer el análisis estático
-                        ps.setString(3, Objects.requireNonNull(nombre).trim().toUpperCase());
-
-                        ps.setString(4, tel);
-                        if (sucId != null)
-                            ps.setLong(5, sucId);
-                        else
-                            ps.setNull(5, java.sql.Types.BIGINT);
-                        ps.setBoolean(6, aporte);
-                        ps.setBoolean(7, solidaridad);
-                        ps.setBoolean(8, fondo);
-                        ps.setBoolean(9, incoop);
-                        ps.setBoolean(10, credito);
-                        ps.setTimestamp(11, now);
-
-                        ps.addBatch();
-                        imported++;
-
-                        if (imported % BATCH_SIZE == 0) {
-                            ps.executeBatch();
-                            conn.commit();
-                            ps.clearBatch();
+                        FilaLeida fila = new FilaLeida(rowIndex, nroSocio, cedula, nombre,
+                                idxTel != null ? getRawValue(row, idxTel) : null,
+                                idxSuc != null ? getRawValue(row, idxSuc) : null,
+                                idxAporte != null ? parseBoolean(getRawValue(row, idxAporte)) : true,
+                                idxSolid != null ? parseBoolean(getRawValue(row, idxSolid)) : true,
+                                idxFondo != null ? parseBoolean(getRawValue(row, idxFondo)) : true,
+                                idxIncoop != null ? parseBoolean(getRawValue(row, idxIncoop)) : true,
+                                idxCred != null ? parseBoolean(getRawValue(row, idxCred)) : true);
+
+                        if (!encolar(colaLeidas, fila, abortar)) {
+                            break;
                         }
 
                     } catch (Exception ex) {
-                        errors++;
+                        errors.incrementAndGet();
                         status.addErrorDetail(rowIndex, "FILA ERROR", ex.getMessage());
                     }
                 }
 
-                // Flush final
-                ps.executeBatch();
-                conn.commit();
+                // Cancelación: el escritor descarta el lote pendiente (rollback)
+                if (status.isCancelled()) {
+                    abortar.set(true);
+                }
+
+                // Fin de lectura: una marca por normalizador; el último avisa al escritor
+                for (int w = 0; w < PIPELINE_WORKERS; w++) {
+                    if (!encolar(colaLeidas, FIN_LECTURA, abortar)) {
+                        break;
+                    }
+                }
+                for (Future<?> n : normalizadores) {
+                    n.get();
+                }
+                // Un lote que no se pudo escribir es fatal: sus socios quedarían con
+                // en_padron_actual = false y la limpieza de abajo los borraría
+                int escritos;
+                try {
+                    escritos = escritor.get();
+                } catch (ExecutionException e) {
+                    throw e.getCause() instanceof Exception causa ? causa : e;
+                }
+                imported = escritos + omitidos.get();
+
+                if (status.isCancelled()) {
+                    log.warn("Proceso {} cancelado por usuario", processId);
+                    status.setError("Cancelado por el usuario");
+                    status.setCompleted(true);
+                    return;
+                }
+
+                // Modo incremental: sacar del padrón solo la diferencia (estaban y no vinieron)
+                int sacadosDelPadron = 0;
+                if (incremental) {
+                    sacadosDelPadron = marcarFueraDelPadron(huellas, cedulasProcesadas);
+                    actualizadosContador -= omitidos.get(); // Los omitidos no se actualizaron
+                    log.info("Modo incremental: {} escritos, {} sin cambios, {} fuera del padrón",
+                            escritos, omitidos.get(), sacadosDelPadron);
+                }
 
                 // ===== MANEJO DE SOCIOS QUE YA NO ESTÁN EN EL PADRÓN =====
                 // IMPORTANTE: NUNCA eliminamos asignaciones - son datos críticos
@@ -556,8 +580,17 @@ public class ImportacionService {
                 stats.put("imported", imported); // Total procesados (para compatibilidad)
                 stats.put("nuevos", nuevosContador); // Socios realmente nuevos (insertados)
                 stats.put("actualizados", actualizadosContador); // Socios existentes actualizados
-                stats.put("mode", "UPSERT"); // Informative flag
-                stats.put("errors", errors);
+                stats.put("mode", incremental ? "INCREMENTAL" : "UPSERT"); // Informative flag
+                // Amplificación de escritura: filas tocadas vs. las que tocaría el modo completo
+                int escriturasModoCompleto = sociosPrevios + imported;
+                int escriturasRealizadas = incremental ? escritos + sacadosDelPadron
+                        : sociosMarcadosInactivos + escritos;
+                stats.put("escritos", escritos);
+                stats.put("omitidosSinCambios", omitidos.get());
+                stats.put("sacadosDelPadron", sacadosDelPadron);
+                stats.put("escriturasRealizadas", escriturasRealizadas);
+                stats.put("escriturasEvitadas", Math.max(0, escriturasModoCompleto - escriturasRealizadas));
+                stats.put("errors", errors.get());
                 stats.put("duplicados", duplicados);
                 stats.put("duplicadosDetalle", duplicadosDetalle); // Lista detallada de duplicados
                 stats.put("sinCedula", sinCedula);
@@ -567,6 +600,7 @@ public class ImportacionService {
                 stats.put("sociosInactivados", sociosInactivados); // Socios preservados como inactivos (tienen asignaciones)
                 stats.put("timeMs", ms);
                 stats.put("rowsPerSecond", (int) speed);
+                stats.put("pipelineWorkers", PIPELINE_WORKERS);
                 stats.put("usuariosCreados", usuariosCreados);
 
                 ImportStatus s = progressMap.get(processId);
@@ -600,6 +634,9 @@ public class ImportacionService {
 
                 log.info("Importación finalizada. {} filas en {}ms ({} filas/s)", imported, ms, (int) speed);
 
+            } finally {
+                abortar.set(true);
+                pipeline.shutdownNow();
             }
 
         } catch (Exception e) {
@@ -608,6 +645,9 @@ public class ImportacionService {
             s.error = "Error interno: " + e.getMessage();
             s.completed = true;
         } finally {
+            // El padrón cambió (o pudo cambiar parcialmente): reconstruir el índice en memoria
+            eventos.publishEvent(new DatosReemplazadosEvent("IMPORTACION"));
+
             // Limpieza temp (archivo y carpeta)
             try {
                 if (tempFile.exists()) {
@@ -620,12 +660,318 @@ public class ImportacionService {
         }
     }
 
+    /**
+     * Etapa normalizadora: nombre, teléfono y sucursal. Corre en PIPELINE_WORKERS
+     * hilos; el último en terminar deja la marca de fin para el escritor.
+     */
+    private void normalizarFilas(BlockingQueue<FilaLeida> entrada, BlockingQueue<FilaSocio> salida,
+            AtomicInteger activos, ContextoPipeline ctx) {
+        AtomicBoolean abortar = ctx.abortar();
+        try {
+            while (true) {
+                FilaLeida f = tomar(entrada, abortar);
+                if (f == null || f == FIN_LECTURA || abortar.get()) {
+                    break;
+                }
+                try {
+                    // Debug: Loguear primeros valores de sucursal encontrados
+                    if (f.fila() <= 5) {
+                        log.info("DEBUG Fila {}: Columna Sucursal (G) = '{}'", f.fila(), f.sucursal());
+                    }
+                    FilaSocio socio = new FilaSocio(f.fila(), f.nroSocio(), f.cedula(),
+                            f.nombre().trim().toUpperCase(),
+                            procesarTelefonoParaguayo(f.telefono()),
+                            resolverSucursal(ctx.sucursalMap(), f.sucursal()),
+                            f.aporte(), f.solidaridad(), f.fondo(), f.incoop(), f.credito());
+
+                    // Modo incremental: si la huella coincide con la de la base, no se escribe
+                    if (ctx.huellas() != null) {
+                        Long actual = ctx.huellas().get(socio.cedula());
+                        if (actual != null && actual == huella(socio.nombre(), socio.telefono(), socio.sucursalId(),
+                                socio.aporte(), socio.solidaridad(), socio.fondo(), socio.incoop(), socio.credito())) {
+                            ctx.omitidos().incrementAndGet();
+                            continue;
+                        }
+                    }
+
+                    if (!encolar(salida, socio, abortar)) {
+                        break;
+                    }
+                } catch (Exception ex) {
+                    ctx.errors().incrementAndGet();
+                    ctx.status().addErrorDetail(f.fila(), "FILA ERROR", ex.getMessage());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (activos.decrementAndGet() == 0) {
+                try {
+                    encolar(salida, FIN_NORMALIZACION, abortar);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    /**
+     * Etapa escritora: único dueño de la conexión. Acumula UPSERTs y hace commit
+     * cada BATCH_SIZE filas mientras el lector sigue parseando. Si el proceso se
+     * aborta (cancelación o error) descarta el lote pendiente; si falla un lote,
+     * aborta todas las etapas y propaga el error. Devuelve las filas confirmadas.
+     */
+    private int escribirLotes(String sql, Timestamp now, BlockingQueue<FilaSocio> entrada, ContextoPipeline ctx)
+            throws Exception {
+        AtomicBoolean abortar = ctx.abortar();
+        int escritos = 0;
+        int enLote = 0;
+        int ultimaFila = 0;
+
+        try (
+                Connection conn = Objects.requireNonNull(jdbcTemplate.getDataSource()).getConnection();
+                PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            conn.setAutoCommit(false); // Importante para velocidad
+            try {
+                while (true) {
+                    FilaSocio f = tomar(entrada, abortar);
+                    if (f == null || abortar.get()) {
+                        conn.rollback();
+                        return escritos;
+                    }
+                    if (f == FIN_NORMALIZACION) {
+                        break;
+                    }
+
+                    ps.setString(1, f.nroSocio());
+                    ps.setString(2, f.cedula());
+                    ps.setString(3, f.nombre());
+                    ps.setString(4, f.telefono());
+                    if (f.sucursalId() != null)
+                        ps.setLong(5, f.sucursalId());
+                    else
+                        ps.setNull(5, java.sql.Types.BIGINT);
+                    ps.setBoolean(6, f.aporte());
+                    ps.setBoolean(7, f.solidaridad());
+                    ps.setBoolean(8, f.fondo());
+                    ps.setBoolean(9, f.incoop());
+                    ps.setBoolean(10, f.credito());
+                    ps.setTimestamp(11, now);
+                    ps.setBoolean(12, f.aporte() && f.solidaridad() && f.fondo() && f.incoop() && f.credito());
+
+                    ps.addBatch();
+                    enLote++;
+                    ultimaFila = f.fila();
+
+                    if (enLote == BATCH_SIZE) {
+                        ejecutarLote(conn, ps, ultimaFila, ctx);
+                        escritos += enLote;
+                        enLote = 0;
+                    }
+                }
+
+                // Flush final
+                ejecutarLote(conn, ps, ultimaFila, ctx);
+                escritos += enLote;
+            } catch (Exception e) {
+                abortar.set(true);
+                conn.rollback();
+                throw e;
+            }
+        }
+        return escritos;
+    }
+
+    private void ejecutarLote(Connection conn, PreparedStatement ps, int ultimaFila, ContextoPipeline ctx)
+            throws SQLException {
+        try {
+            ps.executeBatch();
+            conn.commit();
+        } catch (SQLException e) {
+            ctx.errors().incrementAndGet();
+            ctx.status().addErrorDetail(ultimaFila, "LOTE ERROR", e.getMessage());
+            throw e;
+        } finally {
+            ps.clearBatch();
+        }
+    }
+
+    /**
+     * Carga cédula -> huella de todos los socios. Los que hoy están fuera del
+     * padrón quedan con SIN_HUELLA para que se reescriban (y se reactiven).
+     */
+    private Map<String, Long> cargarHuellas() {
+        Map<String, Long> huellas = new HashMap<>();
+        jdbcTemplate.query("SELECT cedula, nombre_completo, telefono, id_sucursal, aporte_al_dia, " +
+                "solidaridad_al_dia, fondo_al_dia, incoop_al_dia, credito_al_dia, en_padron_actual FROM socios",
+                rs -> {
+                    long sucursalId = rs.getLong("id_sucursal");
+                    Long sucursal = rs.wasNull() ? null : sucursalId;
+                    long h = rs.getBoolean("en_padron_actual")
+                            ? huella(rs.getString("nombre_completo"), rs.getString("telefono"), sucursal,
+                                    rs.getBoolean("aporte_al_dia"), rs.getBoolean("solidaridad_al_dia"),
+                                    rs.getBoolean("fondo_al_dia"), rs.getBoolean("incoop_al_dia"),
+                                    rs.getBoolean("credito_al_dia"))
+                            : SIN_HUELLA;
+                    huellas.put(rs.getString("cedula"), h);
+                });
+        return huellas;
+    }
+
+    // Huella FNV-1a de 64 bits de los campos que el UPSERT puede modificar
+    private static long huella(String nombre, String telefono, Long sucursalId, boolean aporte,
+            boolean solidaridad, boolean fondo, boolean incoop, boolean credito) {
+        long h = 0xcbf29ce484222325L;
+        h = mezclar(h, nombre);
+        h = mezclar(h, telefono);
+        h = (h ^ (sucursalId != null ? sucursalId : -1L)) * 0x100000001b3L;
+        int flags = (aporte ? 1 : 0) | (solidaridad ? 2 : 0) | (fondo ? 4 : 0) | (incoop ? 8 : 0)
+                | (credito ? 16 : 0);
+        h = (h ^ flags) * 0x100000001b3L;
+        return h == SIN_HUELLA ? 1L : h;
+    }
+
+    private static long mezclar(long h, String valor) {
+        if (valor == null) {
+            return (h ^ 0xff) * 0x100000001b3L; // null distinto de ""
+        }
+        for (int i = 0; i < valor.length(); i++) {
+            h = (h ^ valor.charAt(i)) * 0x100000001b3L;
+        }
+        return (h ^ 0x1f) * 0x100000001b3L; // separador de campo
+    }
+
+    /**
+     * Saca del padrón solo a los socios que estaban activos y no vinieron en el
+     * archivo (diferencia de conjuntos), en lotes por cédula.
+     */
+    private int marcarFueraDelPadron(Map<String, Long> huellas, Set<String> cedulasEnArchivo) {
+        List<String> salientes = new ArrayList<>();
+        huellas.forEach((cedula, h) -> {
+            if (h != SIN_HUELLA && !cedulasEnArchivo.contains(cedula)) {
+                salientes.add(cedula);
+            }
+        });
+        if (salientes.isEmpty()) {
+            return 0;
+        }
+        jdbcTemplate.batchUpdate("UPDATE socios SET en_padron_actual = false WHERE cedula = ?", salientes,
+                BATCH_SIZE, (ps, cedula) -> ps.setString(1, cedula));
+        return salientes.size();
+    }
+
+    // Encola con espera acotada; devuelve false si el pipeline fue abortado
+    private static <T> boolean encolar(BlockingQueue<T> cola, T item, AtomicBoolean abortar)
+            throws InterruptedException {
+        while (!cola.offer(item, 100, TimeUnit.MILLISECONDS)) {
+            if (abortar.get()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Toma con espera acotada; devuelve null si el pipeline fue abortado
+    private static <T> T tomar(BlockingQueue<T> cola, AtomicBoolean abortar) throws InterruptedException {
+        T item;
+        while ((item = cola.poll(100, TimeUnit.MILLISECONDS)) == null) {
+            if (abortar.get()) {
+                return null;
+            }
+        }
+        return item;
+    }
+
+    private Long resolverSucursal(Map<String, Long> sucursalMap, String sucCod) {
+        if (sucCod == null || sucCod.trim().isEmpty()) {
+            return null;
+        }
+        String code = sucCod.trim().toUpperCase();
+        Long sucId = sucursalMap.get(code);
+        if (sucId != null || code.length() >= 10 || code.equals("SI") || code.equals("NO")) {
+            return sucId;
+        }
+
+        // AUTO-CREAR SUCURSAL SI NO EXISTE (un normalizador a la vez, con re-chequeo)
+        synchronized (sucursalMap) {
+            sucId = sucursalMap.get(code);
+            if (sucId != null) {
+                return sucId;
+            }
+            try {
+                Sucursal newSuc = new Sucursal();
+                newSuc.setCodigo(code);
+
+                // Mapear códigos a nombres reales
+                String sucNombre;
+                String ciudad = null;
+                switch (code) {
+                    case "1":
+                    case "CC":
+                        sucNombre = "Casa Central";
+                        ciudad = "Asunción";
+                        break;
+                    case "2":
+                        sucNombre = "Ciudad del Este";
+                        ciudad = "Ciudad del Este";
+                        break;
+                    case "3":
+                        sucNombre = "Villarrica";
+                        ciudad = "Villarrica";
+                        break;
+                    case "5":
+                        sucNombre = "Sucursal 5";
+                        ciudad = null;
+                        break;
+                    case "6":
+                        sucNombre = "Hernandarias";
+                        ciudad = "Hernandarias";
+                        break;
+                    case "7":
+                        sucNombre = "San Lorenzo";
+                        ciudad = "San Lorenzo";
+                        break;
+                    default:
+                        sucNombre = "Sucursal " + code;
+                        break;
+                }
+
+                newSuc.setNombre(sucNombre);
+                newSuc.setCiudad(ciudad);
+                newSuc = sucursalRepository.save(newSuc);
+                sucursalMap.put(code, newSuc.getId());
+                sucId = newSuc.getId();
+            } catch (Exception e) {
+                log.warn("Error auto-creando sucursal {}: {}", code, e.getMessage());
+            }
+        }
+        return sucId;
+    }
+
     private void updateProgress(String id, int p) {
         ImportStatus s = progressMap.get(id);
         if (s != null)
             s.progress = p;
     }
 
+    /**
+     * Abre el Excel en modo streaming: la hoja se recorre fila a fila sobre el XML
+     * y solo se retienen ROW_CACHE_SIZE filas a la vez. La tabla de textos
+     * compartidos se vuelca a un archivo temporal para que el heap no crezca con
+     * la cantidad de nombres distintos del padrón.
+     */
+    private Workbook abrirLibroStreaming(File file) {
+        return StreamingReader.builder()
+                .rowCacheSize(ROW_CACHE_SIZE)
+                .bufferSize(READ_BUFFER_SIZE)
+                .setSharedStringsImplementationType(SharedStringsImplementationType.TEMP_FILE_BACKED)
+                .setReadComments(false)
+                .setReadHyperlinks(false)
+                .setReadShapes(false)
+                .open(file);
+    }
+
     // Extracción raw optimizada
     private String getRawValue(Row row, int index) {
         if (index < 0) return null;
@@ -643,7 +989,7 @@ public class ImportacionService {
                 // Forzar formato sin decimales para cédulas y códigos
                 double val = cell.getNumericCellValue();
                 if (val == (long) val) {
-                    return String.format("%d", (long) val);
+                    return Long.toString((long) val);
                 } else {
                     return String.valueOf(val);
                 }
@@ -656,7 +1002,7 @@ public class ImportacionService {
                     try {
                         double valFormula = cell.getNumericCellValue();
                         if (valFormula == (long) valFormula) {
-                            return String.format("%d", (long) valFormula);
+                            return Long.toString((long) valFormula);
                         }
                         return String.valueOf(valFormula);
                     } catch (Exception ex) {
@@ -764,12 +1110,13 @@ public class ImportacionService {
 
     // Clase interna para el estado (DTO)
     public static class ImportStatus {
-        private int progress;
-        private boolean completed;
-        private boolean cancelled;
-        private String error;
-        private Map<String, Object> result;
-        private List<ErrorDetail> errorDetails = new ArrayList<>();
+        private volatile int progress;
+        private volatile boolean completed;
+        private volatile boolean cancelled;
+        private volatile String error;
+        private volatile Map<String, Object> result;
+        // Escrita por varios normalizadores y leída por el endpoint de estado
+        private final List<ErrorDetail> errorDetails = new CopyOnWriteArrayList<>();
 
         public ImportStatus() {
         }
@@ -782,7 +1129,7 @@ public class ImportacionService {
             this.cancelled = false;
         }
 
-        public void addErrorDetail(int row, String cedula, String message) {
+        public synchronized void addErrorDetail(int row, String cedula, String message) {
             if (this.errorDetails.size() < 100) {
                 this.errorDetails.add(new ErrorDetail(row, cedula, message));
             }
@@ -838,4 +1185,19 @@ public class ImportacionService {
     
     public static record DuplicateDetail(int row, String cedula, String nombre) {
     }
+
+    // Estado compartido por las etapas del pipeline de una importación
+    private record ContextoPipeline(ImportStatus status, Map<String, Long> sucursalMap,
+            Map<String, Long> huellas, AtomicBoolean abortar, AtomicInteger errors, AtomicInteger omitidos) {
+    }
+
+    // Fila tal como sale del Excel, ya clasificada por cédula en el lector
+    private record FilaLeida(int fila, String nroSocio, String cedula, String nombre, String telefono,
+            String sucursal, boolean aporte, boolean solidaridad, boolean fondo, boolean incoop, boolean credito) {
+    }
+
+    // Fila normalizada, lista para el UPSERT
+    private record FilaSocio(int fila, String nroSocio, String cedula, String nombre, String telefono,
+            Long sucursalId, boolean aporte, boolean solidaridad, boolean fondo, boolean incoop, boolean credito) {
+    }
 }
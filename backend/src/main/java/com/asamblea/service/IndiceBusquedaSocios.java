@@ -0,0 +1,444 @@
+package com.asamblea.service;
+
+import java.text.Normalizer;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.function.IntPredicate;
+import java.util.regex.Pattern;
+
+/**
+ * Índice de búsqueda parcial sobre socios (reemplaza el LIKE '%term%' de
+ * SocioRepository.buscarParcial).
+ * - Cada socio se codifica como "NOMBRE␀NUMERO␀CEDULA" plegado (mayúsculas, sin
+ *   tildes) en un alfabeto de 6 bits, todo en un único byte[].
+ * - Índice invertido de trigramas con posiciones en delta-varint; se recorre
+ *   solo la lista del trigrama más raro y se verifica cada candidato.
+ * - Prefijos de número y cédula por búsqueda binaria sobre arreglos ordenados.
+ * Las posiciones siguen el orden alfabético del nombre, así que recorrerlas en
+ * orden ascendente ya devuelve los resultados como el ORDER BY original.
+ */
+final class IndiceBusquedaSocios {
+
+    // Rangos de la clave devuelta: (rango << 32) | posición
+    static final int RANGO_EXACTO = 0;
+    static final int RANGO_PREFIJO = 1;
+    static final int RANGO_CONTIENE = 2;
+
+    private static final byte SEPARADOR = 0;
+    private static final byte OTRO = 63;
+    private static final int TRIGRAMAS = 1 << 18;
+    private static final Pattern MARCAS = Pattern.compile("\\p{M}+");
+
+    private final String[] numeros;
+    private final String[] cedulas;
+    private final byte[] texto;
+    private final int[] inicio;
+    private final byte[][] posiciones;
+    private final int[] frecuencia;
+    private final int[] ordenNumero;
+    private final int[] ordenCedula;
+
+    /**
+     * @param nombresPlegados nombre de cada posición ya pasado por {@link #plegar}
+     */
+    IndiceBusquedaSocios(String[] nombresPlegados, String[] numeros, String[] cedulas) {
+        int n = numeros.length;
+        this.numeros = sinNulos(numeros);
+        this.cedulas = sinNulos(cedulas);
+
+        // Texto codificado de todos los socios
+        int largo = 0;
+        for (int i = 0; i < n; i++) {
+            largo += nombresPlegados[i].length() + 2 + plegar(this.numeros[i]).length()
+                    + plegar(this.cedulas[i]).length();
+        }
+        this.texto = new byte[largo];
+        this.inicio = new int[n + 1];
+        int p = 0;
+        for (int i = 0; i < n; i++) {
+            inicio[i] = p;
+            p = codificarEn(nombresPlegados[i], texto, p);
+            texto[p++] = SEPARADOR;
+            p = codificarEn(plegar(this.numeros[i]), texto, p);
+            texto[p++] = SEPARADOR;
+            p = codificarEn(plegar(this.cedulas[i]), texto, p);
+        }
+        inicio[n] = p;
+
+        // Dos pasadas: primero tamaños (en bytes) de cada lista, después se escriben
+        this.frecuencia = new int[TRIGRAMAS];
+        int[] bytes = new int[TRIGRAMAS];
+        int[] ultima = new int[TRIGRAMAS];
+        Arrays.fill(ultima, -1);
+        int maximo = 0;
+        for (int i = 0; i < n; i++) {
+            maximo = Math.max(maximo, inicio[i + 1] - inicio[i]);
+        }
+        int[] propios = new int[maximo];
+        for (int i = 0; i < n; i++) {
+            int cantidad = trigramasUnicos(i, propios);
+            for (int k = 0; k < cantidad; k++) {
+                int t = propios[k];
+                bytes[t] += largoVarint(i - ultima[t]);
+                ultima[t] = i;
+                frecuencia[t]++;
+            }
+        }
+        this.posiciones = new byte[TRIGRAMAS][];
+        int[] escrito = new int[TRIGRAMAS];
+        Arrays.fill(ultima, -1);
+        for (int i = 0; i < n; i++) {
+            int cantidad = trigramasUnicos(i, propios);
+            for (int k = 0; k < cantidad; k++) {
+                int t = propios[k];
+                if (posiciones[t] == null) {
+                    posiciones[t] = new byte[bytes[t]];
+                }
+                escrito[t] = escribirVarint(posiciones[t], escrito[t], i - ultima[t]);
+                ultima[t] = i;
+            }
+        }
+
+        this.ordenNumero = ordenar(this.numeros);
+        this.ordenCedula = ordenar(this.cedulas);
+    }
+
+    /**
+     * Búsqueda parcial con el orden de buscarParcial: exactos de número/cédula,
+     * luego prefijos, luego el resto que contiene el término; dentro de cada
+     * grupo por nombre.
+     *
+     * @param omitir posiciones a ignorar (p. ej. socios con parches pendientes)
+     * @return claves (rango << 32) | posición, ordenadas, como máximo {@code limite}
+     */
+    long[] buscar(String termino, int limite, IntPredicate omitir) {
+        byte[] t = codificar(plegar(termino));
+        if (t.length == 0 || limite <= 0) {
+            return new long[0];
+        }
+
+        // 1. Exactos y prefijos de número/cédula: se guardan los 'limite' mejores
+        MejoresK mejores = new MejoresK(limite);
+        agregarPrefijos(ordenNumero, numeros, termino, omitir, mejores, false);
+        agregarPrefijos(ordenCedula, cedulas, termino, omitir, mejores, true);
+        long[] resultado = mejores.ordenados();
+        if (resultado.length >= limite) {
+            return resultado;
+        }
+
+        // 2. Resto: contiene el término en nombre, número o cédula
+        long[] salida = Arrays.copyOf(resultado, limite);
+        int total = resultado.length;
+        if (t.length >= 3) {
+            int raro = trigramaMasRaro(t);
+            byte[] lista = raro < 0 ? null : posiciones[raro];
+            if (lista == null) {
+                return resultado;
+            }
+            int pos = -1;
+            int[] cursor = {0};
+            while (cursor[0] < lista.length && total < limite) {
+                pos += leerVarint(lista, cursor);
+                if (aceptarContiene(pos, termino, t, omitir)) {
+                    salida[total++] = ((long) RANGO_CONTIENE << 32) | pos;
+                }
+            }
+        } else {
+            // Términos de 1-2 letras: recorrido lineal, corta al llenar el límite
+            for (int pos = 0; pos < numeros.length && total < limite; pos++) {
+                if (aceptarContiene(pos, termino, t, omitir)) {
+                    salida[total++] = ((long) RANGO_CONTIENE << 32) | pos;
+                }
+            }
+        }
+        return Arrays.copyOf(salida, total);
+    }
+
+    /**
+     * Verifica un socio fuera del índice (parches) con la misma semántica.
+     *
+     * @return rango o -1 si no coincide
+     */
+    static int rango(String termino, String nombre, String numero, String cedula) {
+        if (termino.equals(numero) || termino.equals(cedula)) {
+            return RANGO_EXACTO;
+        }
+        if ((numero != null && numero.startsWith(termino)) || (cedula != null && cedula.startsWith(termino))) {
+            return RANGO_PREFIJO;
+        }
+        String t = plegar(termino);
+        if ((nombre != null && plegar(nombre).contains(t))
+                || (numero != null && plegar(numero).contains(t))
+                || (cedula != null && plegar(cedula).contains(t))) {
+            return RANGO_CONTIENE;
+        }
+        return -1;
+    }
+
+    /**
+     * Mayúsculas sin tildes ni diéresis ("Peña" → "PENA", "Güemes" → "GUEMES").
+     */
+    static String plegar(String s) {
+        if (s == null) {
+            return "";
+        }
+        boolean ascii = true;
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) > 127) {
+                ascii = false;
+                break;
+            }
+        }
+        String base = ascii ? s : MARCAS.matcher(Normalizer.normalize(s, Normalizer.Form.NFD)).replaceAll("");
+        return base.toUpperCase(Locale.ROOT);
+    }
+
+    private boolean aceptarContiene(int pos, String termino, byte[] t, IntPredicate omitir) {
+        if (omitir.test(pos) || !contiene(pos, t)) {
+            return false;
+        }
+        // Los que empiezan con el término ya entraron en el grupo de prefijos
+        return !(numeros[pos].startsWith(termino) || cedulas[pos].startsWith(termino));
+    }
+
+    private void agregarPrefijos(int[] orden, String[] valores, String termino, IntPredicate omitir,
+            MejoresK mejores, boolean saltarPorNumero) {
+        int lo = 0;
+        int hi = orden.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (valores[orden[mid]].compareTo(termino) < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        for (int k = lo; k < orden.length; k++) {
+            int pos = orden[k];
+            String v = valores[pos];
+            if (!v.startsWith(termino)) {
+                break;
+            }
+            // Un socio cuyo número también empieza con el término ya se ofreció
+            if (omitir.test(pos) || (saltarPorNumero && numeros[pos].startsWith(termino))) {
+                continue;
+            }
+            int r = v.equals(termino) || termino.equals(numeros[pos]) || termino.equals(cedulas[pos])
+                    ? RANGO_EXACTO
+                    : RANGO_PREFIJO;
+            mejores.ofrecer(((long) r << 32) | pos);
+        }
+    }
+
+    private boolean contiene(int pos, byte[] t) {
+        int desde = inicio[pos];
+        int hasta = inicio[pos + 1] - t.length;
+        for (int i = desde; i <= hasta; i++) {
+            int j = 0;
+            while (j < t.length && texto[i + j] == t[j]) {
+                j++;
+            }
+            if (j == t.length) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int trigramaMasRaro(byte[] t) {
+        int mejor = -1;
+        int minimo = Integer.MAX_VALUE;
+        for (int i = 0; i + 2 < t.length; i++) {
+            int tri = trigrama(t[i], t[i + 1], t[i + 2]);
+            if (frecuencia[tri] < minimo) {
+                minimo = frecuencia[tri];
+                mejor = tri;
+            }
+        }
+        return minimo == 0 ? -1 : mejor;
+    }
+
+    /**
+     * Trigramas distintos del socio en la posición i (sin cruzar separadores).
+     * El destino debe tener lugar para el largo del texto del socio.
+     */
+    private int trigramasUnicos(int pos, int[] destino) {
+        int desde = inicio[pos];
+        int hasta = inicio[pos + 1];
+        int cantidad = 0;
+        for (int i = desde; i + 2 < hasta; i++) {
+            byte a = texto[i];
+            byte b = texto[i + 1];
+            byte c = texto[i + 2];
+            if (a == SEPARADOR || b == SEPARADOR || c == SEPARADOR) {
+                continue;
+            }
+            destino[cantidad++] = trigrama(a, b, c);
+        }
+        Arrays.sort(destino, 0, cantidad);
+        int unicos = 0;
+        for (int i = 0; i < cantidad; i++) {
+            if (unicos == 0 || destino[unicos - 1] != destino[i]) {
+                destino[unicos++] = destino[i];
+            }
+        }
+        return unicos;
+    }
+
+    private static int trigrama(byte a, byte b, byte c) {
+        return (a << 12) | (b << 6) | c;
+    }
+
+    private static String[] sinNulos(String[] valores) {
+        String[] r = valores.clone();
+        for (int i = 0; i < r.length; i++) {
+            if (r[i] == null) {
+                r[i] = "";
+            }
+        }
+        return r;
+    }
+
+    private static int[] ordenar(String[] valores) {
+        Integer[] orden = new Integer[valores.length];
+        for (int i = 0; i < orden.length; i++) {
+            orden[i] = i;
+        }
+        Arrays.sort(orden, (a, b) -> {
+            int c = valores[a].compareTo(valores[b]);
+            return c != 0 ? c : Integer.compare(a, b);
+        });
+        int[] resultado = new int[orden.length];
+        for (int i = 0; i < orden.length; i++) {
+            resultado[i] = orden[i];
+        }
+        return resultado;
+    }
+
+    private static byte[] codificar(String plegado) {
+        byte[] b = new byte[plegado.length()];
+        codificarEn(plegado, b, 0);
+        return b;
+    }
+
+    private static int codificarEn(String plegado, byte[] destino, int p) {
+        for (int i = 0; i < plegado.length(); i++) {
+            destino[p++] = codigo(plegado.charAt(i));
+        }
+        return p;
+    }
+
+    private static byte codigo(char c) {
+        if (c >= 'A' && c <= 'Z') {
+            return (byte) (1 + c - 'A');
+        }
+        if (c >= '0' && c <= '9') {
+            return (byte) (27 + c - '0');
+        }
+        return switch (c) {
+            case ' ' -> 37;
+            case '.' -> 38;
+            case '-' -> 39;
+            case ',' -> 40;
+            case '\'' -> 41;
+            case '/' -> 42;
+            case '&' -> 43;
+            case '(' -> 44;
+            case ')' -> 45;
+            default -> OTRO;
+        };
+    }
+
+    private static int largoVarint(int v) {
+        int largo = 1;
+        while ((v & ~0x7F) != 0) {
+            v >>>= 7;
+            largo++;
+        }
+        return largo;
+    }
+
+    private static int escribirVarint(byte[] destino, int p, int v) {
+        while ((v & ~0x7F) != 0) {
+            destino[p++] = (byte) ((v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        destino[p++] = (byte) v;
+        return p;
+    }
+
+    private static int leerVarint(byte[] origen, int[] cursor) {
+        int v = 0;
+        int desplazamiento = 0;
+        byte b;
+        do {
+            b = origen[cursor[0]++];
+            v |= (b & 0x7F) << desplazamiento;
+            desplazamiento += 7;
+        } while ((b & 0x80) != 0);
+        return v;
+    }
+
+    /**
+     * Montículo máximo acotado de claves long: conserva las K menores.
+     */
+    private static final class MejoresK {
+        private final long[] heap;
+        private int tamanio;
+
+        MejoresK(int k) {
+            this.heap = new long[k];
+        }
+
+        void ofrecer(long clave) {
+            if (tamanio < heap.length) {
+                heap[tamanio] = clave;
+                subir(tamanio++);
+            } else if (clave < heap[0]) {
+                heap[0] = clave;
+                bajar(0);
+            }
+        }
+
+        long[] ordenados() {
+            long[] r = Arrays.copyOf(heap, tamanio);
+            Arrays.sort(r);
+            return r;
+        }
+
+        private void subir(int i) {
+            while (i > 0) {
+                int padre = (i - 1) >>> 1;
+                if (heap[padre] >= heap[i]) {
+                    return;
+                }
+                intercambiar(i, padre);
+                i = padre;
+            }
+        }
+
+        private void bajar(int i) {
+            while (true) {
+                int izq = 2 * i + 1;
+                int mayor = i;
+                if (izq < tamanio && heap[izq] > heap[mayor]) {
+                    mayor = izq;
+                }
+                if (izq + 1 < tamanio && heap[izq + 1] > heap[mayor]) {
+                    mayor = izq + 1;
+                }
+                if (mayor == i) {
+                    return;
+                }
+                intercambiar(i, mayor);
+                i = mayor;
+            }
+        }
+
+        private void intercambiar(int a, int b) {
+            long tmp = heap[a];
+            heap[a] = heap[b];
+            heap[b] = tmp;
+        }
+    }
+}
@@ -2,42 +2,245 @@ package com.asamblea.service;
 
 import com.asamblea.model.LogAuditoria;
 import com.asamblea.repository.LogAuditoriaRepository;
-import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Registro de auditoría.
+ * - registrar() no toca la base: deja el evento en una cola sin locks al
+ *   confirmarse la transacción del llamador (antes el save se descartaba con
+ *   el rollback) y un escritor lo inserta por lotes cada auditoria.flush-ms.
+ *   Al apagar se escribe lo pendiente.
+ * - Si la cola pasa de auditoria.buffer.max, quien registra escribe los lotes
+ *   pendientes antes de seguir: la memoria queda acotada si la base se atrasa.
+ * - Los eventos llevan la entidad afectada (tipo, socio, usuario) en columnas
+ *   indexadas; el historial de un socio se lee por socio_id.
+ */
 @Service
-@RequiredArgsConstructor
+@Slf4j
 public class LogAuditoriaService {
 
+    // Filas por INSERT en lote
+    private static final int LOTE = 500;
+
+    private static final String SQL_INSERT = "INSERT INTO auditoria (modulo, accion, detalles, usuario, ip_address, "
+            + "entidad_tipo, socio_id, usuario_id, created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
     private final LogAuditoriaRepository logAuditoriaRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transaccion;
+
+    @Value("${auditoria.buffer.max:20000}")
+    private int maxPendientes = 20000;
+
+    /**
+     * Página del listado. siguiente es el cursor de la página siguiente (null
+     * si no hay más).
+     */
+    public record Pagina(List<LogAuditoria> content, String siguiente) {
+    }
+
+    private record Evento(String modulo, String accion, String detalles, String usuario, String ip,
+            String entidadTipo, Long socioId, Long usuarioId, LocalDateTime fecha) {
+    }
+
+    private final ConcurrentLinkedDeque<Evento> cola = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger pendientes = new AtomicInteger();
+    private final ReentrantLock escritura = new ReentrantLock();
+    private final AtomicLong escritos = new AtomicLong();
+
+    // Filas hasta este id son de antes de socio_id: ahí el historial se busca por texto
+    private volatile long ultimoIdSinEntidad;
+
+    public LogAuditoriaService(LogAuditoriaRepository logAuditoriaRepository, JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager) {
+        this.logAuditoriaRepository = logAuditoriaRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        // Transacción propia: también se escribe desde afterCommit de otra transacción
+        this.transaccion = new TransactionTemplate(transactionManager);
+        this.transaccion.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @PostConstruct
+    public void cargarUltimoIdSinEntidad() {
+        try {
+            Long primero = jdbcTemplate.queryForObject(
+                    "SELECT MIN(id) FROM auditoria WHERE socio_id IS NOT NULL", Long.class);
+            Long hasta = primero != null ? Long.valueOf(primero - 1)
+                    : jdbcTemplate.queryForObject("SELECT MAX(id) FROM auditoria", Long.class);
+            ultimoIdSinEntidad = hasta != null ? hasta : 0;
+        } catch (Exception e) {
+            log.warn("⚠️ No se pudo leer el último id de auditoría: {}", e.getMessage());
+        }
+    }
 
-    @Transactional
     public void registrar(String modulo, String accion, String detalles, String usuario, String ip) {
-        LogAuditoria log = LogAuditoria.builder()
-                .modulo(modulo)
-                .accion(accion)
-                .detalles(detalles)
-                .usuario(usuario)
-                .ipAddress(ip)
-                .build();
-        if (log != null) {
-            logAuditoriaRepository.save(log);
+        registrar(modulo, accion, detalles, usuario, ip, null, null, null);
+    }
+
+    /**
+     * Evento con la entidad afectada: entidadTipo SOCIO, LISTA o USUARIO;
+     * socioId y usuarioId pueden ir null.
+     */
+    public void registrar(String modulo, String accion, String detalles, String usuario, String ip,
+            String entidadTipo, Long socioId, Long usuarioId) {
+        Evento evento = new Evento(modulo, accion, detalles, usuario, ip, entidadTipo, socioId, usuarioId,
+                LocalDateTime.now());
+        TransaccionUtil.alConfirmar(() -> {
+            cola.offerLast(evento);
+            if (pendientes.incrementAndGet() > maxPendientes) {
+                escribirPendientes();
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${auditoria.flush-ms:1000}")
+    public void escribirPendientes() {
+        if (pendientes.get() == 0) {
+            return;
+        }
+        escritura.lock();
+        try {
+            while (escribirLote()) {
+                // siguiente lote
+            }
+        } finally {
+            escritura.unlock();
         }
     }
 
-    public Page<LogAuditoria> obtenerTodos(int page, int size) {
-        return logAuditoriaRepository.findAllByOrderByCreatedAtDesc(PageRequest.of(page, size));
+    @PreDestroy
+    public void alApagar() {
+        escribirPendientes();
+        if (pendientes.get() > 0) {
+            log.warn("⚠️ Quedaron {} eventos de auditoría sin escribir al apagar", pendientes.get());
+        }
+    }
+
+    /**
+     * Eventos del más nuevo al más viejo. cursor es el siguiente de la página
+     * anterior ("fecha,id"), null para la primera; el costo no depende de la
+     * profundidad de la página.
+     */
+    public Pagina pagina(String cursor, int size) {
+        escribirPendientes();
+        // Uno de más para saber si hay otra página
+        PageRequest limite = PageRequest.of(0, size + 1);
+        List<LogAuditoria> logs;
+        if (cursor == null || cursor.isBlank()) {
+            logs = logAuditoriaRepository.findAllByOrderByCreatedAtDescIdDesc(limite);
+        } else {
+            int coma = cursor.lastIndexOf(',');
+            if (coma < 0) {
+                throw new IllegalArgumentException("Cursor inválido: " + cursor);
+            }
+            LocalDateTime fecha;
+            long id;
+            try {
+                fecha = LocalDateTime.parse(cursor.substring(0, coma));
+                id = Long.parseLong(cursor.substring(coma + 1));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Cursor inválido: " + cursor);
+            }
+            logs = logAuditoriaRepository.findAnteriores(fecha, id, limite);
+        }
+        if (logs.size() <= size) {
+            return new Pagina(logs, null);
+        }
+        LogAuditoria ultimo = logs.get(size - 1);
+        return new Pagina(logs.subList(0, size), ultimo.getCreatedAt() + "," + ultimo.getId());
     }
 
     @Transactional
     public void borrarTodo() {
-        logAuditoriaRepository.deleteAll();
+        escritura.lock();
+        try {
+            pendientes.addAndGet(-vaciarCola());
+            logAuditoriaRepository.deleteAll();
+        } finally {
+            escritura.unlock();
+        }
     }
 
-    public java.util.List<LogAuditoria> buscarPorTermino(String termino) {
-        return logAuditoriaRepository.findByDetallesContainingOrderByCreatedAtDesc(termino);
+    /**
+     * Eventos de un módulo sobre un socio, del más nuevo al más viejo. Las
+     * filas anteriores a socio_id se buscan por el número de socio en el texto.
+     */
+    public List<LogAuditoria> historialSocio(Long socioId, String numeroSocio, String modulo) {
+        escribirPendientes();
+        List<LogAuditoria> logs = new ArrayList<>(
+                logAuditoriaRepository.findBySocioIdAndModuloOrderByCreatedAtDesc(socioId, modulo));
+        if (ultimoIdSinEntidad > 0) {
+            // Todas las anteriores son más viejas que las que tienen socio_id
+            logs.addAll(logAuditoriaRepository.findAnterioresPorTexto(ultimoIdSinEntidad, modulo, numeroSocio));
+        }
+        return logs;
+    }
+
+    /**
+     * Escribe hasta LOTE eventos; devuelve true si puede haber más. Si falla,
+     * los eventos vuelven al frente de la cola para el próximo intento.
+     */
+    private boolean escribirLote() {
+        List<Evento> lote = new ArrayList<>(LOTE);
+        Evento e;
+        while (lote.size() < LOTE && (e = cola.pollFirst()) != null) {
+            lote.add(e);
+        }
+        if (lote.isEmpty()) {
+            return false;
+        }
+        try {
+            transaccion.executeWithoutResult(status -> jdbcTemplate.batchUpdate(SQL_INSERT, lote, lote.size(),
+                    (ps, ev) -> {
+                        ps.setString(1, ev.modulo());
+                        ps.setString(2, ev.accion());
+                        ps.setString(3, ev.detalles());
+                        ps.setString(4, ev.usuario());
+                        ps.setString(5, ev.ip());
+                        ps.setString(6, ev.entidadTipo());
+                        ps.setObject(7, ev.socioId(), Types.BIGINT);
+                        ps.setObject(8, ev.usuarioId(), Types.BIGINT);
+                        ps.setTimestamp(9, Timestamp.valueOf(ev.fecha()));
+                    }));
+        } catch (Exception ex) {
+            for (int i = lote.size() - 1; i >= 0; i--) {
+                cola.offerFirst(lote.get(i));
+            }
+            log.warn("⚠️ No se pudieron guardar {} eventos de auditoría: {}", lote.size(), ex.getMessage());
+            return false;
+        }
+        pendientes.addAndGet(-lote.size());
+        log.debug("Auditoría: {} eventos guardados ({} desde el inicio)", lote.size(),
+                escritos.addAndGet(lote.size()));
+        return lote.size() == LOTE;
+    }
+
+    private int vaciarCola() {
+        int n = 0;
+        while (cola.pollFirst() != null) {
+            n++;
+        }
+        return n;
     }
 }
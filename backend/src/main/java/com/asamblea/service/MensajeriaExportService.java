@@ -3,11 +3,12 @@ package com.asamblea.service;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.stereotype.Service;
 
-import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.*;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -22,6 +23,14 @@ import java.util.regex.Pattern;
 public class MensajeriaExportService {
 
     private final JdbcTemplate jdbcTemplate;
+
+    private static final String SQL_SOCIOS_VYV = """
+            SELECT numero_socio, cedula, nombre_completo, telefono
+            FROM socios
+            WHERE en_padron_actual = true
+              AND voz_voto = true
+            ORDER BY nombre_completo
+        """;
     
     // Patrón para extraer números de celular paraguayos
     private static final Pattern MOBILE_PATTERN = Pattern.compile("(?:(?:\\+?595|0)?\\s?)?(9[0-9]{2})\\s?([0-9]{3})\\s?([0-9]{3})");
@@ -57,17 +66,14 @@ public class MensajeriaExportService {
     }
     
     /**
-     * Exporta socios con Voz y Voto a formato Excel.
+     * Exporta socios con Voz y Voto a formato Excel, escribiendo en streaming
+     * al OutputStream (recorre la consulta con cursor, sin armar la lista).
      */
-    public byte[] exportarVyVtoExcel() throws Exception {
-        List<Map<String, Object>> socios = obtenerSociosVyV();
-        
-        try (Workbook workbook = new XSSFWorkbook()) {
-            Sheet sheet = workbook.createSheet("Socios VyV");
-            
+    public void exportarVyVtoExcel(OutputStream out) throws IOException {
+        try (ExcelStreamWriter excel = new ExcelStreamWriter(out)) {
             // Estilo para encabezados
-            CellStyle headerStyle = workbook.createCellStyle();
-            Font headerFont = workbook.createFont();
+            CellStyle headerStyle = excel.getWorkbook().createCellStyle();
+            Font headerFont = excel.getWorkbook().createFont();
             headerFont.setBold(true);
             headerFont.setFontHeightInPoints((short) 12);
             headerStyle.setFont(headerFont);
@@ -77,44 +83,24 @@ public class MensajeriaExportService {
             headerStyle.setBorderTop(BorderStyle.THIN);
             headerStyle.setBorderLeft(BorderStyle.THIN);
             headerStyle.setBorderRight(BorderStyle.THIN);
-            
-            // Crear encabezados
-            Row headerRow = sheet.createRow(0);
-            String[] headers = {"NRO_SOCIO", "CEDULA", "NOMBRE_COMPLETO", "TELEFONO_1", "TELEFONO_2", "TELEFONO_3"};
-            for (int i = 0; i < headers.length; i++) {
-                Cell cell = headerRow.createCell(i);
-                cell.setCellValue(headers[i]);
-                cell.setCellStyle(headerStyle);
-            }
-            
+
+            excel.hoja("Socios VyV", headerStyle,
+                    "NRO_SOCIO", "CEDULA", "NOMBRE_COMPLETO", "TELEFONO_1", "TELEFONO_2", "TELEFONO_3");
+
             // Llenar datos
-            int rowNum = 1;
-            for (Map<String, Object> socio : socios) {
-                Row row = sheet.createRow(rowNum++);
-                
-                String numeroSocio = (String) socio.get("numero_socio");
-                String cedula = (String) socio.get("cedula");
-                String nombre = limpiarTexto((String) socio.get("nombre_completo"));
-                String telefonoRaw = (String) socio.get("telefono");
-                
-                List<String> telefonos = limpiarYSepararTelefonos(telefonoRaw);
-                
-                row.createCell(0).setCellValue(numeroSocio != null ? numeroSocio : "");
-                row.createCell(1).setCellValue(cedula != null ? cedula : "");
-                row.createCell(2).setCellValue(nombre != null ? nombre : "");
-                row.createCell(3).setCellValue(telefonos.size() > 0 ? telefonos.get(0) : "");
-                row.createCell(4).setCellValue(telefonos.size() > 1 ? telefonos.get(1) : "");
-                row.createCell(5).setCellValue(telefonos.size() > 2 ? telefonos.get(2) : "");
-            }
-            
-            // Auto-ajustar columnas
-            for (int i = 0; i < headers.length; i++) {
-                sheet.autoSizeColumn(i);
-            }
-            
-            ByteArrayOutputStream out = new ByteArrayOutputStream();
-            workbook.write(out);
-            return out.toByteArray();
+            jdbcTemplate.query(ExcelStreamWriter.cursor(SQL_SOCIOS_VYV), (RowCallbackHandler) rs -> {
+                String numeroSocio = rs.getString("numero_socio");
+                String cedula = rs.getString("cedula");
+                String nombre = limpiarTexto(rs.getString("nombre_completo"));
+                List<String> telefonos = limpiarYSepararTelefonos(rs.getString("telefono"));
+
+                excel.fila(numeroSocio != null ? numeroSocio : "",
+                        cedula != null ? cedula : "",
+                        nombre,
+                        telefonos.size() > 0 ? telefonos.get(0) : "",
+                        telefonos.size() > 1 ? telefonos.get(1) : "",
+                        telefonos.size() > 2 ? telefonos.get(2) : "");
+            });
         }
     }
     
@@ -122,18 +108,7 @@ public class MensajeriaExportService {
      * Obtiene todos los socios con Voz y Voto.
      */
     private List<Map<String, Object>> obtenerSociosVyV() {
-        String sql = """
-            SELECT numero_socio, cedula, nombre_completo, telefono
-            FROM socios
-            WHERE en_padron_actual = true
-              AND aporte_al_dia = true
-              AND solidaridad_al_dia = true
-              AND fondo_al_dia = true
-              AND incoop_al_dia = true
-              AND credito_al_dia = true
-            ORDER BY nombre_completo
-        """;
-        return jdbcTemplate.queryForList(sql);
+        return jdbcTemplate.queryForList(SQL_SOCIOS_VYV);
     }
     
     /**
@@ -214,13 +189,11 @@ public class MensajeriaExportService {
         
         Integer totalVyV = jdbcTemplate.queryForObject(
             "SELECT COUNT(*) FROM socios WHERE en_padron_actual = true " +
-            "AND aporte_al_dia = true AND solidaridad_al_dia = true AND fondo_al_dia = true " +
-            "AND incoop_al_dia = true AND credito_al_dia = true", Integer.class);
+            "AND voz_voto = true", Integer.class);
         
         Integer conTelefono = jdbcTemplate.queryForObject(
             "SELECT COUNT(*) FROM socios WHERE en_padron_actual = true " +
-            "AND aporte_al_dia = true AND solidaridad_al_dia = true AND fondo_al_dia = true " +
-            "AND incoop_al_dia = true AND credito_al_dia = true " +
+            "AND voz_voto = true " +
             "AND telefono IS NOT NULL AND telefono != '' AND telefono != 'Actualizar Nro' AND telefono LIKE '+595%'", 
             Integer.class);
         
@@ -0,0 +1,948 @@
+package com.asamblea.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.*;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Motor de backup nativo (sin mysqldump ni mysql CLI).
+ * - Respaldo: una sola conexión con snapshot consistente; cada tabla se lee con
+ *   cursor y se escribe en trozos binarios dentro de un .zip, con SHA-256 por
+ *   tabla y un manifest.json al final.
+ * - Incremental: con un backup base, cada tabla guarda solo lo que cambió.
+ *   · BLOQUES: las filas se agrupan por rango de id y se compara el hash de cada
+ *     bloque con el del manifiesto base; se guardan los bloques distintos y se
+ *     anotan los que desaparecieron. Detecta altas, bajas y modificaciones.
+ *   · ALTAS: tablas de solo inserción (backup.incremental.solo-altas) guardan las
+ *     filas con id mayor a la marca del base, sin releer el resto. Si faltan
+ *     filas por debajo de la marca se copia la tabla entera.
+ *   · COMPLETO: tabla entera (backup completo, tabla nueva o columnas cambiadas).
+ * - Restauración: primero se verifican los checksums de toda la cadena; después
+ *   se cargan las tablas en paralelo, una transacción por tabla que aplica el
+ *   completo y cada incremental en orden, con inserts en lote sobre las columnas
+ *   que existen en el archivo y en la tabla actual.
+ */
+@Service
+@Slf4j
+public class MotorBackupService {
+
+    public static final int FORMATO = 2;
+    private static final String MANIFIESTO = "manifest.json";
+    private static final int LOTE = 1000;
+
+    public static final String COMPLETO = "COMPLETO";
+    public static final String BLOQUES = "BLOQUES";
+    public static final String ALTAS = "ALTAS";
+
+    // Marcas del formato de filas
+    private static final byte FILA = 1;
+    private static final byte FIN_TROZO = 0;
+
+    // Tipos de valor
+    private static final byte NULO = 0;
+    private static final byte ENTERO = 1;
+    private static final byte DOBLE = 2;
+    private static final byte TEXTO = 3;
+    private static final byte BYTES = 4;
+    private static final byte BOOLEANO = 5;
+    private static final byte DECIMAL = 6;
+    private static final byte FECHA = 7;
+    private static final byte HORA = 8;
+    private static final byte FECHA_HORA = 9;
+
+    private final DataSource dataSource;
+    private final ObjectMapper objectMapper;
+
+    // Filas por entrada del .zip: acota lo que hay que releer para verificar un trozo
+    @Value("${backup.trozo-filas:50000}")
+    private int trozoFilas = 50000;
+
+    // Nivel de compresión (1 = más rápido, 9 = más chico)
+    @Value("${backup.compresion:" + Deflater.BEST_SPEED + "}")
+    private int compresion = Deflater.BEST_SPEED;
+
+    // Tablas que se cargan a la vez al restaurar (cada una usa una conexión del pool)
+    @Value("${backup.restauracion.hilos:4}")
+    private int hilosRestauracion = 4;
+
+    // Ids por bloque en los incrementales: más chico = menos filas por bloque cambiado, manifiesto más grande
+    @Value("${backup.incremental.bloque-ids:1000}")
+    private long bloqueIds = 1000;
+
+    // Tablas donde solo se insertan filas (logs): el incremental lee solo desde la marca de id
+    @Value("${backup.incremental.solo-altas:auditoria,notificaciones_log,importaciones_historial}")
+    private Set<String> soloAltas = Set.of();
+
+    public MotorBackupService(DataSource dataSource, ObjectMapper objectMapper) {
+        this.dataSource = dataSource;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Contenido de una tabla en el archivo.
+     * - filas: filas guardadas en este archivo; totalFilas: filas de la tabla al respaldar.
+     * - desdeId/hastaId: en ALTAS, las filas guardadas tienen id en (desdeId, hastaId];
+     *   hastaId es además el máximo id de la tabla.
+     * - bloques: hash de cada bloque de ids de la tabla entera (base del próximo incremental).
+     * - cambiados/eliminados: bloques a reemplazar al aplicar un incremental BLOQUES.
+     */
+    public record TablaRespaldada(String nombre, List<String> columnas, List<Integer> tipos, String modo,
+            long filas, long totalFilas, Long desdeId, Long hastaId, int trozos, long bytes, String sha256,
+            Map<Long, String> bloques, List<Long> cambiados, List<Long> eliminados) {
+
+        public String modoEfectivo() {
+            // Archivos de formato 1: siempre tablas enteras
+            return modo == null ? COMPLETO : modo;
+        }
+    }
+
+    /**
+     * base: nombre del archivo sobre el que se calculó el incremental (null si es completo).
+     */
+    public record Manifiesto(int formato, String creado, String base, Long bloqueIds, List<TablaRespaldada> tablas) {
+
+        public boolean incremental() {
+            return base != null;
+        }
+    }
+
+    /**
+     * Avance de la operación en curso, leído por el controlador mientras corre.
+     */
+    public static class Progreso {
+        private final String operacion;
+        private final LocalDateTime inicio = LocalDateTime.now();
+        private final Set<String> tablasEnCurso = ConcurrentHashMap.newKeySet();
+        private final AtomicInteger tablasHechas = new AtomicInteger();
+        private final AtomicLong filas = new AtomicLong();
+        private volatile String fase;
+        private volatile int tablasTotal;
+        private volatile long bytes;
+        private volatile boolean enCurso = true;
+        private volatile LocalDateTime fin;
+        private volatile String error;
+        private volatile String archivo;
+
+        public Progreso(String operacion) {
+            this.operacion = operacion;
+            this.fase = operacion;
+        }
+
+        public boolean isEnCurso() {
+            return enCurso;
+        }
+
+        public String getError() {
+            return error;
+        }
+
+        public void fase(String fase, int tablasTotal) {
+            this.fase = fase;
+            this.tablasTotal = tablasTotal;
+            this.tablasHechas.set(0);
+            this.filas.set(0);
+            this.tablasEnCurso.clear();
+        }
+
+        public void terminar(String archivo, String error) {
+            this.archivo = archivo;
+            this.error = error;
+            this.fin = LocalDateTime.now();
+            this.tablasEnCurso.clear();
+            this.enCurso = false;
+        }
+
+        public Map<String, Object> aMapa() {
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("operacion", operacion);
+            m.put("estado", enCurso ? "EN_CURSO" : error == null ? "LISTO" : "ERROR");
+            m.put("fase", fase);
+            m.put("tablasEnCurso", new TreeSet<>(tablasEnCurso));
+            m.put("tablasHechas", tablasHechas.get());
+            m.put("tablasTotal", tablasTotal);
+            m.put("filas", filas.get());
+            m.put("bytes", bytes);
+            m.put("inicio", inicio);
+            m.put("fin", fin);
+            m.put("archivo", archivo);
+            m.put("error", error);
+            return m;
+        }
+    }
+
+    // ===== RESPALDO =====
+
+    /**
+     * Escribe las tablas pedidas (las que existan) en destino. Con base != null
+     * el archivo es un incremental sobre ese backup. El archivo se arma en un
+     * temporal y solo se mueve a destino si terminó bien.
+     */
+    public Manifiesto respaldar(Path destino, List<String> tablas, Path base, Progreso progreso) throws Exception {
+        Map<String, TablaRespaldada> previas = new HashMap<>();
+        if (base != null) {
+            Manifiesto manifiestoBase = leerManifiesto(base);
+            // Con otro tamaño de bloque los hashes no son comparables: todo queda COMPLETO
+            if (Objects.equals(manifiestoBase.bloqueIds(), bloqueIds)) {
+                manifiestoBase.tablas().forEach(t -> previas.put(t.nombre(), t));
+            }
+        }
+        Path parcial = destino.resolveSibling(destino.getFileName() + ".parcial");
+        List<TablaRespaldada> respaldadas = new ArrayList<>();
+        try (Connection con = dataSource.getConnection()) {
+            boolean mysql = esMysql(con);
+            List<String> existentes = tablasExistentes(con, tablas);
+            progreso.fase(base != null ? "Respaldando cambios" : "Respaldando", existentes.size());
+
+            con.setAutoCommit(false);
+            con.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+            con.setReadOnly(true);
+            if (mysql) {
+                // Todas las tablas desde la misma vista, sin bloquear escrituras
+                try (Statement st = con.createStatement()) {
+                    st.execute("START TRANSACTION WITH CONSISTENT SNAPSHOT");
+                }
+            }
+            try (ZipOutputStream zip = new ZipOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(parcial), 64 * 1024))) {
+                zip.setLevel(compresion);
+                for (String tabla : existentes) {
+                    progreso.tablasEnCurso.add(tabla);
+                    respaldadas.add(respaldarTabla(con, mysql, tabla, previas.get(tabla), zip, progreso));
+                    progreso.tablasEnCurso.remove(tabla);
+                    progreso.tablasHechas.incrementAndGet();
+                    progreso.bytes = Files.size(parcial);
+                }
+                Manifiesto manifiesto = new Manifiesto(FORMATO, LocalDateTime.now().toString(),
+                        base != null ? base.getFileName().toString() : null, bloqueIds, respaldadas);
+                zip.putNextEntry(new ZipEntry(MANIFIESTO));
+                zip.write(objectMapper.writeValueAsBytes(manifiesto));
+                zip.closeEntry();
+                con.commit();
+                zip.finish();
+                zip.flush();
+                Files.move(parcial, destino, StandardCopyOption.REPLACE_EXISTING);
+                progreso.bytes = Files.size(destino);
+                return manifiesto;
+            } finally {
+                con.rollback();
+            }
+        } finally {
+            Files.deleteIfExists(parcial);
+        }
+    }
+
+    private TablaRespaldada respaldarTabla(Connection con, boolean mysql, String tabla, TablaRespaldada previa,
+            ZipOutputStream zip, Progreso progreso) throws SQLException, IOException {
+        long inicio = System.currentTimeMillis();
+        List<String> columnas = new ArrayList<>();
+        List<Integer> tipos = new ArrayList<>();
+        try (Statement st = con.createStatement();
+                ResultSet rs = st.executeQuery("SELECT * FROM " + tabla + " WHERE 1 = 0")) {
+            ResultSetMetaData md = rs.getMetaData();
+            for (int i = 1; i <= md.getColumnCount(); i++) {
+                columnas.add(md.getColumnLabel(i).toLowerCase());
+                tipos.add(md.getColumnType(i));
+            }
+        }
+        int posicionId = columnas.indexOf("id");
+        boolean conId = posicionId >= 0 && esEntero(tipos.get(posicionId));
+        boolean altas = conId && soloAltas.contains(tabla);
+
+        String modo = modo(con, tabla, previa, columnas, conId, altas);
+        String sql = "SELECT * FROM " + tabla
+                + (ALTAS.equals(modo) ? " WHERE id > " + previa.hastaId() : "")
+                + (conId ? " ORDER BY id" : "");
+
+        Escritor escritor = new Escritor(zip, tabla, progreso);
+        // Hash por bloque de ids; las tablas de solo altas se siguen por marca de id
+        Map<Long, String> bloques = conId && !altas ? new TreeMap<>() : null;
+        List<Long> cambiados = BLOQUES.equals(modo) ? new ArrayList<>() : null;
+        long totalFilas = 0;
+        Long hastaId = ALTAS.equals(modo) ? previa.hastaId() : null;
+
+        try (Statement st = con.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            // Connector/J solo streamea fila a fila con MIN_VALUE; sin esto trae la tabla entera
+            st.setFetchSize(mysql ? Integer.MIN_VALUE : 1000);
+            try (ResultSet rs = st.executeQuery(sql)) {
+                int n = columnas.size();
+                int[] tiposJdbc = tipos.stream().mapToInt(Integer::intValue).toArray();
+                ByteArrayOutputStream filaBytes = new ByteArrayOutputStream(256);
+                DataOutputStream fila = new DataOutputStream(filaBytes);
+
+                long bloqueActual = Long.MIN_VALUE;
+                MessageDigest shaBloque = sha256();
+                // Filas del bloque en curso cuando hay que compararlo antes de escribirlo
+                List<byte[]> filasBloque = new ArrayList<>();
+
+                while (rs.next()) {
+                    filaBytes.reset();
+                    for (int i = 0; i < n; i++) {
+                        escribirValor(fila, rs, i + 1, tiposJdbc[i]);
+                    }
+                    fila.flush();
+                    totalFilas++;
+                    if (conId) {
+                        long id = rs.getLong(posicionId + 1);
+                        hastaId = hastaId == null ? id : Math.max(hastaId, id);
+                        if (bloques != null) {
+                            long bloque = Math.floorDiv(id, bloqueIds);
+                            if (bloque != bloqueActual) {
+                                cerrarBloque(bloqueActual, shaBloque, filasBloque, bloques, previa, cambiados, escritor);
+                                bloqueActual = bloque;
+                            }
+                            shaBloque.update(filaBytes.toByteArray());
+                        }
+                    }
+                    if (cambiados != null) {
+                        filasBloque.add(filaBytes.toByteArray());
+                    } else {
+                        escritor.fila(filaBytes);
+                    }
+                }
+                if (bloques != null) {
+                    cerrarBloque(bloqueActual, shaBloque, filasBloque, bloques, previa, cambiados, escritor);
+                }
+            }
+        }
+        escritor.terminar();
+
+        List<Long> eliminados = null;
+        if (BLOQUES.equals(modo)) {
+            eliminados = previa.bloques().keySet().stream().filter(b -> !bloques.containsKey(b)).sorted().toList();
+        }
+        Long desdeId = null;
+        if (ALTAS.equals(modo)) {
+            desdeId = previa.hastaId();
+            totalFilas += previa.totalFilas();
+        }
+        log.info("💾 {} ({}): {} filas guardadas de {} en {} trozos ({}ms)", tabla, modo, escritor.filas, totalFilas,
+                escritor.trozos, System.currentTimeMillis() - inicio);
+        return new TablaRespaldada(tabla, columnas, tipos, modo, escritor.filas, totalFilas, desdeId, hastaId,
+                escritor.trozos, escritor.bytes, hex(escritor.sha.digest()), bloques, cambiados, eliminados);
+    }
+
+    /**
+     * Cómo guardar la tabla según lo que dejó el backup base.
+     */
+    private String modo(Connection con, String tabla, TablaRespaldada previa, List<String> columnas,
+            boolean conId, boolean altas) throws SQLException {
+        if (previa == null || !conId || !columnas.equals(previa.columnas())) {
+            return COMPLETO;
+        }
+        if (altas) {
+            if (previa.hastaId() == null) {
+                return COMPLETO;
+            }
+            // Ninguna baja por debajo de la marca: lo anterior sigue igual que en el base
+            try (PreparedStatement ps = con.prepareStatement("SELECT COUNT(*) FROM " + tabla + " WHERE id <= ?")) {
+                ps.setLong(1, previa.hastaId());
+                try (ResultSet rs = ps.executeQuery()) {
+                    rs.next();
+                    return rs.getLong(1) == previa.totalFilas() ? ALTAS : COMPLETO;
+                }
+            }
+        }
+        return previa.bloques() != null ? BLOQUES : COMPLETO;
+    }
+
+    private void cerrarBloque(long bloque, MessageDigest shaBloque, List<byte[]> filasBloque, Map<Long, String> bloques,
+            TablaRespaldada previa, List<Long> cambiados, Escritor escritor) throws IOException {
+        if (bloque == Long.MIN_VALUE) {
+            return;
+        }
+        String hash = hex(shaBloque.digest());
+        bloques.put(bloque, hash);
+        if (cambiados != null) {
+            if (!hash.equals(previa.bloques().get(bloque))) {
+                cambiados.add(bloque);
+                for (byte[] fila : filasBloque) {
+                    escritor.fila(fila);
+                }
+            }
+            filasBloque.clear();
+        }
+    }
+
+    private boolean esEntero(int tipo) {
+        return tipo == Types.TINYINT || tipo == Types.SMALLINT || tipo == Types.INTEGER || tipo == Types.BIGINT;
+    }
+
+    /**
+     * Reparte las filas de una tabla en entradas del zip de a trozoFilas filas y
+     * acumula el SHA-256 de todo lo escrito.
+     */
+    private class Escritor {
+        private final ZipOutputStream zip;
+        private final String tabla;
+        private final Progreso progreso;
+        private final MessageDigest sha = sha256();
+        private DataOutputStream out;
+        private Contador contador;
+        private long filasTrozo;
+        private long filas;
+        private long bytes;
+        private int trozos;
+
+        Escritor(ZipOutputStream zip, String tabla, Progreso progreso) {
+            this.zip = zip;
+            this.tabla = tabla;
+            this.progreso = progreso;
+        }
+
+        void fila(ByteArrayOutputStream fila) throws IOException {
+            abrir();
+            out.writeByte(FILA);
+            fila.writeTo(out);
+            siguiente();
+        }
+
+        void fila(byte[] fila) throws IOException {
+            abrir();
+            out.writeByte(FILA);
+            out.write(fila);
+            siguiente();
+        }
+
+        private void abrir() throws IOException {
+            if (out == null) {
+                zip.putNextEntry(new ZipEntry(String.format("tablas/%s/%05d.bin", tabla, trozos)));
+                contador = new Contador(new DigestOutputStream(new SinCerrar(zip), sha));
+                out = new DataOutputStream(new BufferedOutputStream(contador, 64 * 1024));
+            }
+        }
+
+        private void siguiente() throws IOException {
+            filas++;
+            if (++filasTrozo == trozoFilas) {
+                terminar();
+            }
+        }
+
+        void terminar() throws IOException {
+            if (out == null) {
+                return;
+            }
+            out.writeByte(FIN_TROZO);
+            out.flush();
+            zip.closeEntry();
+            bytes += contador.bytes;
+            trozos++;
+            progreso.filas.addAndGet(filasTrozo);
+            filasTrozo = 0;
+            out = null;
+        }
+    }
+
+    private void escribirValor(DataOutputStream out, ResultSet rs, int i, int tipo) throws SQLException, IOException {
+        switch (tipo) {
+            case Types.BIT, Types.BOOLEAN -> {
+                boolean v = rs.getBoolean(i);
+                if (rs.wasNull()) {
+                    out.writeByte(NULO);
+                } else {
+                    out.writeByte(BOOLEANO);
+                    out.writeBoolean(v);
+                }
+            }
+            case Types.TINYINT, Types.SMALLINT, Types.INTEGER, Types.BIGINT -> {
+                long v = rs.getLong(i);
+                if (rs.wasNull()) {
+                    out.writeByte(NULO);
+                } else {
+                    out.writeByte(ENTERO);
+                    out.writeLong(v);
+                }
+            }
+            case Types.REAL, Types.FLOAT, Types.DOUBLE -> {
+                double v = rs.getDouble(i);
+                if (rs.wasNull()) {
+                    out.writeByte(NULO);
+                } else {
+                    out.writeByte(DOBLE);
+                    out.writeDouble(v);
+                }
+            }
+            case Types.DECIMAL, Types.NUMERIC -> {
+                BigDecimal v = rs.getBigDecimal(i);
+                escribirTexto(out, DECIMAL, v == null ? null : v.toPlainString());
+            }
+            case Types.DATE -> {
+                LocalDate v = rs.getObject(i, LocalDate.class);
+                escribirTexto(out, FECHA, v == null ? null : v.toString());
+            }
+            case Types.TIME -> {
+                LocalTime v = rs.getObject(i, LocalTime.class);
+                escribirTexto(out, HORA, v == null ? null : v.toString());
+            }
+            case Types.TIMESTAMP, Types.TIMESTAMP_WITH_TIMEZONE -> {
+                LocalDateTime v = rs.getObject(i, LocalDateTime.class);
+                escribirTexto(out, FECHA_HORA, v == null ? null : v.toString());
+            }
+            case Types.BINARY, Types.VARBINARY, Types.LONGVARBINARY, Types.BLOB -> {
+                byte[] v = rs.getBytes(i);
+                if (v == null) {
+                    out.writeByte(NULO);
+                } else {
+                    out.writeByte(BYTES);
+                    out.writeInt(v.length);
+                    out.write(v);
+                }
+            }
+            default -> escribirTexto(out, TEXTO, rs.getString(i));
+        }
+    }
+
+    private void escribirTexto(DataOutputStream out, byte tipo, String v) throws IOException {
+        if (v == null) {
+            out.writeByte(NULO);
+            return;
+        }
+        byte[] b = v.getBytes(StandardCharsets.UTF_8);
+        out.writeByte(tipo);
+        out.writeInt(b.length);
+        out.write(b);
+    }
+
+    // ===== VERIFICACIÓN =====
+
+    public Manifiesto leerManifiesto(Path archivo) throws IOException {
+        try (ZipFile zip = new ZipFile(archivo.toFile())) {
+            return leerManifiesto(zip);
+        }
+    }
+
+    private Manifiesto leerManifiesto(ZipFile zip) throws IOException {
+        ZipEntry entrada = zip.getEntry(MANIFIESTO);
+        if (entrada == null) {
+            throw new IOException("El archivo no tiene " + MANIFIESTO + " (backup incompleto)");
+        }
+        try (InputStream in = zip.getInputStream(entrada)) {
+            Manifiesto m = objectMapper.readValue(in, Manifiesto.class);
+            if (m.formato() > FORMATO) {
+                throw new IOException("Formato de backup " + m.formato() + " no soportado");
+            }
+            return m;
+        }
+    }
+
+    /**
+     * Recalcula el SHA-256 de cada tabla. Lanza IOException ante el primer error.
+     */
+    public Manifiesto verificar(Path archivo) throws IOException {
+        try (ZipFile zip = new ZipFile(archivo.toFile())) {
+            Manifiesto manifiesto = leerManifiesto(zip);
+            for (TablaRespaldada t : manifiesto.tablas()) {
+                MessageDigest sha = sha256();
+                byte[] buffer = new byte[64 * 1024];
+                for (int trozo = 0; trozo < t.trozos(); trozo++) {
+                    try (InputStream in = new DigestInputStream(abrirTrozo(zip, t, trozo), sha)) {
+                        while (in.read(buffer) != -1) {
+                            // solo se consume para el digest
+                        }
+                    }
+                }
+                comprobarSha(t, sha);
+            }
+            return manifiesto;
+        }
+    }
+
+    /**
+     * Verifica cada archivo de la cadena (completo y sus incrementales, en orden)
+     * y que cada incremental se haya calculado sobre el archivo anterior.
+     */
+    public List<Manifiesto> verificarCadena(List<Path> cadena) throws IOException {
+        List<Manifiesto> manifiestos = new ArrayList<>();
+        for (int i = 0; i < cadena.size(); i++) {
+            Manifiesto m = verificar(cadena.get(i));
+            String esperado = i == 0 ? null : cadena.get(i - 1).getFileName().toString();
+            if (!Objects.equals(m.base(), esperado)) {
+                throw new IOException("El backup " + cadena.get(i).getFileName() + " no corresponde a la cadena (base "
+                        + m.base() + ", esperado " + esperado + ")");
+            }
+            manifiestos.add(m);
+        }
+        return manifiestos;
+    }
+
+    // ===== RESTAURACIÓN =====
+
+    private record Paso(Path archivo, TablaRespaldada tabla, Long bloqueIds) {
+    }
+
+    /**
+     * Reemplaza el contenido de las tablas con el estado de la cadena (un
+     * completo seguido de sus incrementales). Las tablas del archivo que ya no
+     * existen se saltean; las columnas nuevas quedan con su default.
+     */
+    public void restaurar(List<Path> cadena, Progreso progreso) throws Exception {
+        progreso.fase("Verificando archivos", 0);
+        List<Manifiesto> manifiestos = verificarCadena(cadena);
+        long bytes = 0;
+        for (Path archivo : cadena) {
+            bytes += Files.size(archivo);
+        }
+        progreso.bytes = bytes;
+
+        // Pasos por tabla, en el orden de la cadena
+        Map<String, List<Paso>> pasos = new LinkedHashMap<>();
+        for (int i = 0; i < cadena.size(); i++) {
+            for (TablaRespaldada t : manifiestos.get(i).tablas()) {
+                pasos.computeIfAbsent(t.nombre(), k -> new ArrayList<>())
+                        .add(new Paso(cadena.get(i), t, manifiestos.get(i).bloqueIds()));
+            }
+        }
+
+        List<String> existentes;
+        boolean mysql;
+        try (Connection con = dataSource.getConnection()) {
+            mysql = esMysql(con);
+            existentes = tablasExistentes(con, new ArrayList<>(pasos.keySet()));
+        }
+        pasos.keySet().stream()
+                .filter(t -> !existentes.contains(t))
+                .forEach(t -> log.warn("⚠️ La tabla {} del backup ya no existe, se omite", t));
+        progreso.fase("Restaurando", existentes.size());
+
+        if (!mysql) {
+            // H2 no tiene un equivalente por sesión de FOREIGN_KEY_CHECKS
+            integridadGlobal(false);
+        }
+        AtomicInteger numero = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, hilosRestauracion), r -> {
+            Thread t = new Thread(r, "restauracion-" + numero.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            List<Future<?>> tareas = new ArrayList<>();
+            for (String tabla : existentes) {
+                tareas.add(pool.submit(() -> {
+                    progreso.tablasEnCurso.add(tabla);
+                    restaurarTabla(tabla, pasos.get(tabla), mysql, progreso);
+                    progreso.tablasEnCurso.remove(tabla);
+                    progreso.tablasHechas.incrementAndGet();
+                    return null;
+                }));
+            }
+            List<String> errores = new ArrayList<>();
+            for (int i = 0; i < tareas.size(); i++) {
+                try {
+                    tareas.get(i).get();
+                } catch (ExecutionException e) {
+                    Throwable causa = e.getCause();
+                    log.error("Error restaurando {}: {}", existentes.get(i), causa.getMessage(), causa);
+                    errores.add(existentes.get(i) + ": " + causa.getMessage());
+                }
+            }
+            if (!errores.isEmpty()) {
+                throw new IllegalStateException("No se pudieron restaurar " + errores.size() + " tablas: "
+                        + String.join("; ", errores));
+            }
+        } finally {
+            pool.shutdownNow();
+            if (!mysql) {
+                integridadGlobal(true);
+            }
+        }
+    }
+
+    private void restaurarTabla(String tabla, List<Paso> pasos, boolean mysql, Progreso progreso) throws Exception {
+        long inicio = System.currentTimeMillis();
+        long filas = 0;
+        try (Connection con = dataSource.getConnection()) {
+            // Columnas actuales de la tabla: se cargan solo las que están en ambos lados
+            Map<String, Integer> actuales = new LinkedHashMap<>();
+            try (Statement st = con.createStatement();
+                    ResultSet rs = st.executeQuery("SELECT * FROM " + tabla + " WHERE 1 = 0")) {
+                ResultSetMetaData md = rs.getMetaData();
+                for (int i = 1; i <= md.getColumnCount(); i++) {
+                    actuales.put(md.getColumnLabel(i).toLowerCase(), md.getColumnType(i));
+                }
+            }
+
+            con.setAutoCommit(false);
+            if (mysql) {
+                try (Statement st = con.createStatement()) {
+                    st.execute("SET FOREIGN_KEY_CHECKS = 0");
+                }
+            }
+            try {
+                // Completo e incrementales en una sola transacción: la tabla nunca queda a medio aplicar
+                for (Paso paso : pasos) {
+                    borrar(con, paso);
+                    filas += insertar(con, paso, actuales, progreso);
+                }
+                con.commit();
+            } catch (Exception e) {
+                con.rollback();
+                throw e;
+            } finally {
+                if (mysql) {
+                    // La conexión vuelve al pool: no dejarla sin chequeo de claves foráneas
+                    try (Statement st = con.createStatement()) {
+                        st.execute("SET FOREIGN_KEY_CHECKS = 1");
+                    }
+                }
+                con.setAutoCommit(true);
+            }
+        }
+        log.info("♻️ {}: {} filas aplicadas en {} pasos ({}ms)", tabla, filas, pasos.size(),
+                System.currentTimeMillis() - inicio);
+    }
+
+    /**
+     * Quita lo que el paso va a reemplazar.
+     */
+    private void borrar(Connection con, Paso paso) throws SQLException {
+        TablaRespaldada t = paso.tabla();
+        switch (t.modoEfectivo()) {
+            case ALTAS -> {
+                try (PreparedStatement ps = con.prepareStatement("DELETE FROM " + t.nombre() + " WHERE id > ?")) {
+                    ps.setLong(1, t.desdeId());
+                    ps.executeUpdate();
+                }
+            }
+            case BLOQUES -> {
+                List<Long> bloques = new ArrayList<>(t.cambiados());
+                bloques.addAll(t.eliminados());
+                if (bloques.isEmpty()) {
+                    return;
+                }
+                try (PreparedStatement ps = con.prepareStatement(
+                        "DELETE FROM " + t.nombre() + " WHERE id >= ? AND id < ?")) {
+                    for (long bloque : bloques) {
+                        ps.setLong(1, bloque * paso.bloqueIds());
+                        ps.setLong(2, (bloque + 1) * paso.bloqueIds());
+                        ps.addBatch();
+                    }
+                    ps.executeBatch();
+                }
+            }
+            default -> {
+                try (Statement st = con.createStatement()) {
+                    st.executeUpdate("DELETE FROM " + t.nombre());
+                }
+            }
+        }
+    }
+
+    private long insertar(Connection con, Paso paso, Map<String, Integer> actuales, Progreso progreso)
+            throws Exception {
+        TablaRespaldada t = paso.tabla();
+        List<String> comunes = new ArrayList<>();
+        int[] destino = new int[t.columnas().size()];
+        int[] tipoDestino = new int[t.columnas().size()];
+        for (int i = 0; i < t.columnas().size(); i++) {
+            String columna = t.columnas().get(i);
+            if (actuales.containsKey(columna)) {
+                comunes.add(columna);
+                destino[i] = comunes.size();
+                tipoDestino[i] = actuales.get(columna);
+            } else {
+                destino[i] = 0;
+                log.warn("⚠️ {}.{} ya no existe, se omite al restaurar", t.nombre(), columna);
+            }
+        }
+        String sql = "INSERT INTO " + t.nombre() + " (" + String.join(", ", comunes) + ") VALUES ("
+                + String.join(", ", Collections.nCopies(comunes.size(), "?")) + ")";
+
+        MessageDigest sha = sha256();
+        long filas = 0;
+        try (ZipFile zip = new ZipFile(paso.archivo().toFile()); PreparedStatement ps = con.prepareStatement(sql)) {
+            int enLote = 0;
+            for (int trozo = 0; trozo < t.trozos(); trozo++) {
+                try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                        new DigestInputStream(abrirTrozo(zip, t, trozo), sha), 64 * 1024))) {
+                    while (in.readByte() == FILA) {
+                        for (int i = 0; i < destino.length; i++) {
+                            leerValor(in, ps, destino[i], tipoDestino[i]);
+                        }
+                        ps.addBatch();
+                        filas++;
+                        if (++enLote == LOTE) {
+                            ps.executeBatch();
+                            progreso.filas.addAndGet(enLote);
+                            enLote = 0;
+                        }
+                    }
+                    // Consumir el resto para que el digest cubra el trozo entero
+                    while (in.read() != -1) {
+                        // nada
+                    }
+                }
+            }
+            if (enLote > 0) {
+                ps.executeBatch();
+                progreso.filas.addAndGet(enLote);
+            }
+        }
+        comprobarSha(t, sha);
+        if (filas != t.filas()) {
+            throw new IOException("Se leyeron " + filas + " filas y el manifiesto indica " + t.filas());
+        }
+        return filas;
+    }
+
+    /**
+     * Lee un valor del archivo y lo asigna al parámetro indicado; con parametro 0
+     * (columna que ya no existe) solo lo consume.
+     */
+    private void leerValor(DataInputStream in, PreparedStatement ps, int parametro, int tipoDestino)
+            throws IOException, SQLException {
+        byte tipo = in.readByte();
+        Object valor = switch (tipo) {
+            case NULO -> null;
+            case ENTERO -> in.readLong();
+            case DOBLE -> in.readDouble();
+            case BOOLEANO -> in.readBoolean();
+            case BYTES -> {
+                byte[] b = new byte[in.readInt()];
+                in.readFully(b);
+                yield b;
+            }
+            case TEXTO, DECIMAL, FECHA, HORA, FECHA_HORA -> {
+                byte[] b = new byte[in.readInt()];
+                in.readFully(b);
+                String s = new String(b, StandardCharsets.UTF_8);
+                yield switch (tipo) {
+                    case DECIMAL -> new BigDecimal(s);
+                    case FECHA -> LocalDate.parse(s);
+                    case HORA -> LocalTime.parse(s);
+                    case FECHA_HORA -> LocalDateTime.parse(s);
+                    default -> s;
+                };
+            }
+            default -> throw new IOException("Tipo de valor desconocido en el backup: " + tipo);
+        };
+        if (parametro == 0) {
+            return;
+        }
+        if (valor == null) {
+            ps.setNull(parametro, tipoDestino);
+        } else if (valor instanceof byte[] b) {
+            ps.setBytes(parametro, b);
+        } else {
+            ps.setObject(parametro, valor);
+        }
+    }
+
+    // ===== UTILIDADES =====
+
+    private InputStream abrirTrozo(ZipFile zip, TablaRespaldada t, int trozo) throws IOException {
+        ZipEntry entrada = zip.getEntry(String.format("tablas/%s/%05d.bin", t.nombre(), trozo));
+        if (entrada == null) {
+            throw new IOException("Falta el trozo " + trozo + " de la tabla " + t.nombre());
+        }
+        return zip.getInputStream(entrada);
+    }
+
+    private void comprobarSha(TablaRespaldada t, MessageDigest sha) throws IOException {
+        String calculado = hex(sha.digest());
+        if (!calculado.equals(t.sha256())) {
+            throw new IOException("Checksum inválido en la tabla " + t.nombre());
+        }
+    }
+
+    private List<String> tablasExistentes(Connection con, List<String> tablas) throws SQLException {
+        Set<String> existentes = new HashSet<>();
+        try (ResultSet rs = con.getMetaData().getTables(con.getCatalog(), null, "%", new String[] { "TABLE" })) {
+            while (rs.next()) {
+                existentes.add(rs.getString("TABLE_NAME").toLowerCase());
+            }
+        }
+        return tablas.stream().filter(existentes::contains).toList();
+    }
+
+    private boolean esMysql(Connection con) throws SQLException {
+        String producto = con.getMetaData().getDatabaseProductName().toLowerCase();
+        return producto.contains("mysql") || producto.contains("mariadb");
+    }
+
+    private void integridadGlobal(boolean activa) {
+        try (Connection con = dataSource.getConnection(); Statement st = con.createStatement()) {
+            st.execute("SET REFERENTIAL_INTEGRITY " + (activa ? "TRUE" : "FALSE"));
+        } catch (SQLException e) {
+            log.warn("⚠️ No se pudo cambiar la integridad referencial: {}", e.getMessage());
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String hex(byte[] bytes) {
+        return HexFormat.of().formatHex(bytes);
+    }
+
+    /**
+     * Deja escribir en la entrada actual del zip sin cerrarlo.
+     */
+    private static class SinCerrar extends FilterOutputStream {
+        SinCerrar(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+
+    /**
+     * Cuenta los bytes sin comprimir de un trozo.
+     */
+    private static class Contador extends FilterOutputStream {
+        private long bytes;
+
+        Contador(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            bytes++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            bytes += len;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.asamblea.service;
+
+import com.lowagie.text.Document;
+import com.lowagie.text.DocumentException;
+import com.lowagie.text.ExceptionConverter;
+import com.lowagie.text.pdf.PdfPTable;
+import com.lowagie.text.pdf.PdfWriter;
+
+/**
+ * Tabla de OpenPDF que se agrega al documento por tramos en vez de entera al
+ * final (setComplete(false)): cada tramo se escribe y sus filas se liberan,
+ * así una lista larga no queda completa en memoria y las páginas salen hacia
+ * el OutputStream a medida que se llenan.
+ *
+ * Después de cada document.add OpenPDF salta de página si queda menos de un
+ * par de renglones libres; con una sola tabla eso pasa una vez al final, pero
+ * con tramos pasaría en cada corte y movería filas y encabezados. Por eso un
+ * tramo solo se vuelca si, simulando el paginado, termina lejos del pie de
+ * página; si no, se siguen acumulando filas. El diseño queda igual al de
+ * agregar la tabla de una vez.
+ *
+ * Uso: agregar las celdas de una fila, llamar a {@link #filaTerminada()} y al
+ * final {@link #cerrar()}.
+ */
+public class PdfStreamTable {
+
+    // Filas que se acumulan antes de intentar volcarlas al documento
+    private static final int FILAS_POR_TRAMO = 100;
+
+    // Espacio libre mínimo bajo el tramo para volcarlo (más que dos renglones de cualquier fuente usada)
+    private static final float MARGEN_PIE = 72f;
+
+    private final PdfWriter writer;
+    private final Document document;
+    private final PdfPTable table;
+    private int filas;
+    private int pendientes;
+    private boolean volcada;
+
+    public PdfStreamTable(PdfWriter writer, Document document, PdfPTable table) {
+        this.writer = writer;
+        this.document = document;
+        this.table = table;
+        table.setComplete(false);
+    }
+
+    public PdfPTable getTable() {
+        return table;
+    }
+
+    /**
+     * Filas de datos agregadas hasta ahora.
+     */
+    public int getFilas() {
+        return filas;
+    }
+
+    /**
+     * Se llama después de agregar las celdas de cada fila.
+     */
+    public void filaTerminada() {
+        filas++;
+        pendientes++;
+        if (pendientes >= FILAS_POR_TRAMO && terminaLejosDelPie()) {
+            agregar();
+            pendientes = 0;
+            volcada = true;
+        }
+    }
+
+    /**
+     * Agrega el último tramo y cierra la tabla.
+     */
+    public void cerrar() {
+        table.setComplete(true);
+        agregar();
+    }
+
+    /**
+     * Simula dónde quedaría la última fila pendiente con el mismo criterio de
+     * ColumnText: una fila que no entra pasa entera a la página siguiente, que
+     * empieza con los encabezados repetidos.
+     */
+    private boolean terminaLejosDelPie() {
+        if (!table.isLockedWidth()) {
+            table.setTotalWidth((document.right() - document.left()) * table.getWidthPercentage() / 100f);
+        }
+        float top = document.top();
+        float bottom = document.bottom();
+        float encabezado = table.getHeaderHeight();
+        float y = writer.getVerticalPosition(false);
+        if (!volcada) {
+            y -= table.spacingBefore() + encabezado;
+        }
+        for (int i = table.getHeaderRows(); i < table.size(); i++) {
+            float alto = table.getRowHeight(i);
+            if (y - alto < bottom) {
+                y = top - encabezado;
+            }
+            y -= alto;
+        }
+        return y - bottom > MARGEN_PIE;
+    }
+
+    private void agregar() {
+        try {
+            document.add(table);
+        } catch (DocumentException e) {
+            // Se llama desde callbacks de filas (cursor JDBC): se propaga sin chequear
+            throw new ExceptionConverter(e);
+        }
+    }
+}
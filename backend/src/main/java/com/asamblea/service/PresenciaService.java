@@ -1,57 +1,416 @@
 package com.asamblea.service;
 
+import com.asamblea.model.Sucursal;
+import com.asamblea.model.Usuario;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
 import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Servicio de presencia para tracking de usuarios activos en tiempo real.
- * Utiliza un mapa en memoria con TTL basado en heartbeats.
+ *
+ * Los activos se llevan con una rueda de tiempo de segundos (timing wheel):
+ * cada heartbeat anota al usuario en la ranura de su segundo y los contadores
+ * (total, por rol y por sucursal) se mantienen al día, así heartbeat y conteo
+ * son O(1). Al avanzar el reloj se recorren solo las ranuras que vencieron y
+ * se descuentan quienes no volvieron a latir; no hay barridos del mapa entero.
+ *
+ * El tiempo online (total_online_seconds / last_heartbeat) también se acumula
+ * en memoria y se escribe por lotes cada cierto intervalo y al apagar, en vez
+ * de un UPDATE por heartbeat. Cada lote guarda los segundos sumados junto con
+ * el último pulso que cubren, así al reiniciar se retoma desde ese pulso sin
+ * contar dos veces el mismo tramo.
  */
 @Service
+@Slf4j
 public class PresenciaService {
 
     // Tiempo máximo sin heartbeat para considerar inactivo (12 segundos)
     // Heartbeat cada 8 seg = detección en ~10 segundos máximo
     private static final long INACTIVITY_THRESHOLD_SECONDS = 12;
 
-    // Mapa: userId -> timestampUltimoHeartbeat
-    private final Map<Long, Instant> activeUsers = new ConcurrentHashMap<>();
+    // Pulsos separados por más que esto no suman (cerró la pestaña y volvió)
+    private static final long MAX_GAP_SECONDS = 90;
+
+    private static final String SQL_FLUSH = "UPDATE usuarios SET total_online_seconds = COALESCE(total_online_seconds, 0) + ?, "
+            + "last_heartbeat = ? WHERE id = ?";
+
+    // Ranuras de la rueda (potencia de 2, mayor que el umbral de inactividad)
+    private static final int RANURAS = 16;
+
+    // Sin sucursal asignada (clave de activosPorSucursal)
+    public static final long SIN_SUCURSAL = 0L;
+
+    // Estado de presencia: todo se lee y escribe bajo el lock de la rueda
+    private final Object rueda = new Object();
+    private final Map<Long, Presente> presentes = new HashMap<>();
+    private final long[][] ranuras = new long[RANURAS][8];
+    private final int[] ocupadas = new int[RANURAS];
+    // Último segundo cuyas ranuras ya se vencieron
+    private long vencidoHasta = Long.MIN_VALUE;
+    private int activos;
+    private final int[] activosPorRol = new int[Usuario.Rol.values().length];
+    private final Map<Long, int[]> activosPorSucursal = new HashMap<>();
+
+    // Mapa: userId -> tiempo online acumulado y todavía no escrito
+    private final Map<Long, Acumulado> acumulados = new ConcurrentHashMap<>();
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transaccion;
+
+    // Volumen de escritura (para /api/usuarios/stats)
+    private final AtomicLong pulsosRecibidos = new AtomicLong();
+    private final AtomicLong filasEscritas = new AtomicLong();
+    private final AtomicLong lotesEscritos = new AtomicLong();
+
+    public PresenciaService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transaccion = new TransactionTemplate(transactionManager);
+    }
+
+    private static final class Presente {
+        long ultimoMs;
+        long ultimoSegundo;
+        Usuario.Rol rol;
+        long sucursalId;
+        String sucursal;
+    }
+
+    private static final class Acumulado {
+        LocalDateTime ultimoPulso;
+        long segundosPendientes;
+        boolean pendiente;
+        // Sacado del mapa por inactividad: un pulso que llegue tarde debe crear otro
+        boolean descartado;
+
+        Acumulado(LocalDateTime ultimoPulso) {
+            this.ultimoPulso = ultimoPulso;
+        }
+    }
+
+    /**
+     * Registra un heartbeat del usuario, marcándolo como activo y sumando el
+     * tiempo desde el pulso anterior. Solo memoria: no consulta ni escribe.
+     * Rol y sucursal vienen del principal (el usuario cacheado por el filtro JWT).
+     */
+    public void heartbeat(Usuario usuario) {
+        Long userId = usuario.getId();
+        long ahoraMs = System.currentTimeMillis();
+        marcarPresente(userId, usuario.getRol(), usuario.getSucursal(), ahoraMs);
+        pulsosRecibidos.incrementAndGet();
+
+        LocalDateTime now = LocalDateTime.now();
+        while (true) {
+            Acumulado acc = acumulados.computeIfAbsent(userId, id -> new Acumulado(null));
+            synchronized (acc) {
+                if (acc.descartado) {
+                    continue;
+                }
+                sumarPulso(acc, now);
+                return;
+            }
+        }
+    }
+
+    private void marcarPresente(Long userId, Usuario.Rol rol, Sucursal sucursal, long ahoraMs) {
+        long segundo = ahoraMs / 1000;
+        long sucursalId = sucursal != null && sucursal.getId() != null ? sucursal.getId() : SIN_SUCURSAL;
+        synchronized (rueda) {
+            vencer(segundo);
+            Presente p = presentes.get(userId);
+            if (p != null && (p.rol != rol || p.sucursalId != sucursalId)) {
+                // Cambió de rol o sucursal: se descuenta del grupo anterior
+                contar(p, -1);
+                p = null;
+                presentes.remove(userId);
+            }
+            if (p == null) {
+                p = new Presente();
+                p.rol = rol;
+                p.sucursalId = sucursalId;
+                p.ultimoSegundo = Long.MIN_VALUE;
+                presentes.put(userId, p);
+                contar(p, 1);
+            }
+            p.sucursal = sucursal != null ? sucursal.getNombre() : null;
+            p.ultimoMs = ahoraMs;
+            // Una sola anotación por usuario y segundo
+            if (p.ultimoSegundo != segundo) {
+                p.ultimoSegundo = segundo;
+                anotar(segundo, userId);
+            }
+        }
+    }
+
+    private void anotar(long segundo, long userId) {
+        int r = (int) (segundo & (RANURAS - 1));
+        if (ocupadas[r] == ranuras[r].length) {
+            ranuras[r] = Arrays.copyOf(ranuras[r], ranuras[r].length * 2);
+        }
+        ranuras[r][ocupadas[r]++] = userId;
+    }
 
     /**
-     * Registra un heartbeat del usuario, marcándolo como activo.
+     * Vence las ranuras de los segundos que quedaron fuera del umbral. Cada
+     * anotación se revisa una sola vez: quien volvió a latir tiene otra más
+     * nueva y se ignora; quien no, deja de contarse.
      */
-    public void heartbeat(Long userId) {
-        activeUsers.put(userId, Instant.now());
+    private void vencer(long segundoActual) {
+        long hasta = segundoActual - INACTIVITY_THRESHOLD_SECONDS;
+        if (hasta <= vencidoHasta) {
+            return;
+        }
+        // Tras una pausa larga basta con recorrer la rueda una vez
+        long desde = Math.max(vencidoHasta + 1, hasta - RANURAS + 1);
+        for (long s = desde; s <= hasta; s++) {
+            int r = (int) (s & (RANURAS - 1));
+            long[] ids = ranuras[r];
+            for (int i = 0; i < ocupadas[r]; i++) {
+                Presente p = presentes.get(ids[i]);
+                if (p != null && p.ultimoSegundo <= hasta) {
+                    presentes.remove(ids[i]);
+                    contar(p, -1);
+                }
+            }
+            ocupadas[r] = 0;
+            if (ids.length > 64) {
+                // No retener el pico de una ráfaga
+                ranuras[r] = new long[8];
+            }
+        }
+        vencidoHasta = hasta;
+    }
+
+    private void contar(Presente p, int delta) {
+        activos += delta;
+        if (p.rol != null) {
+            activosPorRol[p.rol.ordinal()] += delta;
+        }
+        int[] porSucursal = activosPorSucursal.computeIfAbsent(p.sucursalId, id -> new int[1]);
+        porSucursal[0] += delta;
+        if (porSucursal[0] == 0) {
+            activosPorSucursal.remove(p.sucursalId);
+        }
+    }
+
+    private static void sumarPulso(Acumulado acc, LocalDateTime now) {
+        if (acc.ultimoPulso != null) {
+            long secondsSinceLast = Duration.between(acc.ultimoPulso, now).getSeconds();
+            // Mismo criterio que antes: solo se suma el tiempo REAL entre pulsos cercanos
+            if (secondsSinceLast > 0 && secondsSinceLast < MAX_GAP_SECONDS) {
+                acc.segundosPendientes += secondsSinceLast;
+            }
+        }
+        acc.ultimoPulso = now;
+        acc.pendiente = true;
     }
 
     /**
      * Remueve un usuario del tracking (por ejemplo, al hacer logout).
      */
     public void removeUser(Long userId) {
-        activeUsers.remove(userId);
+        synchronized (rueda) {
+            Presente p = presentes.remove(userId);
+            if (p != null) {
+                // Su anotación en la rueda queda huérfana y se ignora al vencer
+                contar(p, -1);
+            }
+        }
     }
 
     /**
      * Obtiene la cantidad de usuarios activos en este momento.
-     * Un usuario se considera activo si envió heartbeat en los últimos 60 segundos.
+     * Un usuario se considera activo si envió heartbeat en los últimos 12 segundos.
      */
     public int getActiveUsersCount() {
-        Instant threshold = Instant.now().minusSeconds(INACTIVITY_THRESHOLD_SECONDS);
+        synchronized (rueda) {
+            vencer(System.currentTimeMillis() / 1000);
+            return activos;
+        }
+    }
 
-        // Limpiar usuarios inactivos y contar activos
-        activeUsers.entrySet().removeIf(entry -> entry.getValue().isBefore(threshold));
+    /**
+     * Activos por rol (solo roles con al menos uno conectado).
+     */
+    public Map<String, Integer> getActivosPorRol() {
+        Map<String, Integer> resultado = new LinkedHashMap<>();
+        synchronized (rueda) {
+            vencer(System.currentTimeMillis() / 1000);
+            for (Usuario.Rol rol : Usuario.Rol.values()) {
+                if (activosPorRol[rol.ordinal()] > 0) {
+                    resultado.put(rol.name(), activosPorRol[rol.ordinal()]);
+                }
+            }
+        }
+        return resultado;
+    }
 
-        return activeUsers.size();
+    /**
+     * Activos por sucursal del usuario: id (SIN_SUCURSAL si no tiene), nombre y cantidad.
+     */
+    public List<Map<String, Object>> getActivosPorSucursal() {
+        Map<Long, String> nombres = new HashMap<>();
+        Map<Long, Integer> conteo = new HashMap<>();
+        synchronized (rueda) {
+            vencer(System.currentTimeMillis() / 1000);
+            activosPorSucursal.forEach((id, n) -> conteo.put(id, n[0]));
+            // Los nombres salen de los presentes; son pocas sucursales y pocos activos
+            for (Presente p : presentes.values()) {
+                if (p.sucursal != null) {
+                    nombres.putIfAbsent(p.sucursalId, p.sucursal);
+                }
+            }
+        }
+        List<Map<String, Object>> resultado = new ArrayList<>();
+        conteo.forEach((id, n) -> {
+            Map<String, Object> item = new HashMap<>();
+            item.put("sucursalId", id);
+            item.put("sucursal", nombres.getOrDefault(id, "N/A"));
+            item.put("activos", n);
+            resultado.add(item);
+        });
+        resultado.sort((a, b) -> Integer.compare((Integer) b.get("activos"), (Integer) a.get("activos")));
+        return resultado;
     }
 
     /**
-     * Obtiene el mapa de usuarios activos (para debug o admin).
+     * Obtiene el mapa de usuarios activos (para debug o admin): userId -> último heartbeat.
+     * Es una copia; recorre solo a los activos.
      */
     public Map<Long, Instant> getActiveUsersMap() {
-        Instant threshold = Instant.now().minusSeconds(INACTIVITY_THRESHOLD_SECONDS);
-        activeUsers.entrySet().removeIf(entry -> entry.getValue().isBefore(threshold));
-        return activeUsers;
+        Map<Long, Instant> copia = new HashMap<>();
+        synchronized (rueda) {
+            vencer(System.currentTimeMillis() / 1000);
+            presentes.forEach((id, p) -> copia.put(id, Instant.ofEpochMilli(p.ultimoMs)));
+        }
+        return copia;
+    }
+
+    /**
+     * Tiempo online del usuario incluyendo lo acumulado que aún no se escribió.
+     */
+    public long totalOnlineSeconds(Usuario u) {
+        long total = u.getTotalOnlineSeconds() != null ? u.getTotalOnlineSeconds() : 0L;
+        Acumulado acc = acumulados.get(u.getId());
+        if (acc != null) {
+            synchronized (acc) {
+                total += acc.segundosPendientes;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Último heartbeat del usuario (el de memoria si es más nuevo que el guardado).
+     */
+    public LocalDateTime lastHeartbeat(Usuario u) {
+        Acumulado acc = acumulados.get(u.getId());
+        if (acc != null) {
+            synchronized (acc) {
+                if (acc.ultimoPulso != null) {
+                    return acc.ultimoPulso;
+                }
+            }
+        }
+        return u.getLastHeartbeat();
+    }
+
+    /**
+     * Heartbeats recibidos frente a filas y lotes efectivamente escritos.
+     */
+    public Map<String, Object> getEstadisticasEscritura() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("heartbeats", pulsosRecibidos.get());
+        stats.put("filasEscritas", filasEscritas.get());
+        stats.put("lotes", lotesEscritos.get());
+        stats.put("usuariosPendientes", acumulados.values().stream().filter(a -> a.pendiente).count());
+        return stats;
+    }
+
+    /**
+     * Retoma el último pulso guardado de quienes estaban conectados antes de un
+     * reinicio: el primer heartbeat suma desde ahí (lo anterior ya está en
+     * total_online_seconds).
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void cargarUltimosPulsos() {
+        try {
+            Timestamp desde = Timestamp.valueOf(LocalDateTime.now().minusSeconds(MAX_GAP_SECONDS));
+            jdbcTemplate.query("SELECT id, last_heartbeat FROM usuarios WHERE last_heartbeat >= ?", rs -> {
+                acumulados.putIfAbsent(rs.getLong(1), new Acumulado(rs.getTimestamp(2).toLocalDateTime()));
+            }, desde);
+        } catch (Exception e) {
+            log.warn("⚠️ No se pudieron cargar los últimos heartbeats: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${presencia.flush-ms:15000}")
+    public void guardarPendientes() {
+        List<Object[]> lote = new ArrayList<>();
+        List<Acumulado> incluidos = new ArrayList<>();
+        List<Long> segundosIncluidos = new ArrayList<>();
+        LocalDateTime limite = LocalDateTime.now().minusSeconds(MAX_GAP_SECONDS);
+
+        for (Map.Entry<Long, Acumulado> e : acumulados.entrySet()) {
+            Acumulado acc = e.getValue();
+            synchronized (acc) {
+                if (acc.pendiente) {
+                    lote.add(new Object[] { acc.segundosPendientes, Timestamp.valueOf(acc.ultimoPulso), e.getKey() });
+                    incluidos.add(acc);
+                    segundosIncluidos.add(acc.segundosPendientes);
+                    acc.segundosPendientes = 0;
+                    acc.pendiente = false;
+                } else if (acc.ultimoPulso == null || acc.ultimoPulso.isBefore(limite)) {
+                    // Ya escrito y sin pulsos recientes: no hace falta recordarlo
+                    acc.descartado = true;
+                    acumulados.remove(e.getKey(), acc);
+                }
+            }
+        }
+        if (lote.isEmpty()) {
+            return;
+        }
+
+        try {
+            transaccion.executeWithoutResult(status -> jdbcTemplate.batchUpdate(SQL_FLUSH, lote));
+            filasEscritas.addAndGet(lote.size());
+            lotesEscritos.incrementAndGet();
+            log.debug("Tiempo online guardado: {} usuarios ({} heartbeats, {} filas en {} lotes desde el inicio)",
+                    lote.size(), pulsosRecibidos.get(), filasEscritas.get(), lotesEscritos.get());
+        } catch (Exception ex) {
+            // La transacción no se aplicó: devolver lo tomado para el próximo intento
+            for (int i = 0; i < incluidos.size(); i++) {
+                Acumulado acc = incluidos.get(i);
+                synchronized (acc) {
+                    acc.segundosPendientes += segundosIncluidos.get(i);
+                    acc.pendiente = true;
+                }
+            }
+            log.warn("⚠️ No se pudo guardar el tiempo online ({} usuarios): {}", lote.size(), ex.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void alApagar() {
+        guardarPendientes();
     }
 }
@@ -0,0 +1,55 @@
+package com.asamblea.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Asistencia de un conjunto de socios resuelta de una vez, para las vistas de
+ * detalle de listas (en vez de un findFirstBySocioId/existsBySocioId por socio).
+ */
+@Service
+@RequiredArgsConstructor
+public class PresenciaSociosService {
+
+    // Ids por consulta: mantiene el IN acotado en listas muy grandes
+    private static final int LOTE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Fecha/hora de ingreso de cada socio que tiene asistencia registrada. Los
+     * socios sin asistencia no aparecen en el mapa (containsKey = presente); si
+     * hay más de un registro vale el primero, como findFirstBySocioId.
+     */
+    public Map<Long, LocalDateTime> ingresos(Collection<Long> socioIds) {
+        if (socioIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        List<Long> ids = new ArrayList<>(new LinkedHashSet<>(socioIds));
+        Map<Long, LocalDateTime> ingresos = new HashMap<>();
+        for (int desde = 0; desde < ids.size(); desde += LOTE) {
+            List<Long> lote = ids.subList(desde, Math.min(desde + LOTE, ids.size()));
+            String marcas = String.join(", ", Collections.nCopies(lote.size(), "?"));
+            jdbcTemplate.query("SELECT id_socio, fecha_hora FROM asistencias WHERE id_socio IN (" + marcas
+                    + ") ORDER BY id", rs -> {
+                        Timestamp fechaHora = rs.getTimestamp(2);
+                        long socioId = rs.getLong(1);
+                        if (!ingresos.containsKey(socioId)) {
+                            ingresos.put(socioId, fechaHora != null ? fechaHora.toLocalDateTime() : null);
+                        }
+                    }, lote.toArray());
+        }
+        return ingresos;
+    }
+}
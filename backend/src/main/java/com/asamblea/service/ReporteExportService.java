@@ -12,21 +12,21 @@ import com.lowagie.text.pdf.PdfPCell;
 import com.lowagie.text.pdf.PdfPTable;
 import com.lowagie.text.pdf.PdfWriter;
 import lombok.RequiredArgsConstructor;
-import org.apache.poi.ss.usermodel.Sheet;
-import org.apache.poi.ss.usermodel.Row;
-import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.CellStyle;
-import org.apache.poi.ss.usermodel.FillPatternType;
 import org.apache.poi.ss.usermodel.IndexedColors;
-import org.apache.poi.xssf.usermodel.XSSFFont;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.springframework.jdbc.core.ColumnMapRowMapper;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.stereotype.Service;
 
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 import java.awt.Color;
 
 @Service
@@ -34,6 +34,25 @@ import java.awt.Color;
 @SuppressWarnings("null")
 public class ReporteExportService {
 
+    /**
+     * Filas de un reporte, recorridas una sola vez: una lista ya cargada o un
+     * cursor JDBC que se lee mientras se escribe el documento.
+     */
+    @FunctionalInterface
+    public interface FuenteFilas {
+        void recorrer(Consumer<Map<String, Object>> fila);
+
+        static FuenteFilas de(List<Map<String, Object>> filas) {
+            return filas::forEach;
+        }
+
+        static FuenteFilas cursor(JdbcTemplate jdbcTemplate, String sql, Object... params) {
+            ColumnMapRowMapper mapper = new ColumnMapRowMapper();
+            return fila -> jdbcTemplate.query(ExcelStreamWriter.cursor(sql, params),
+                    (RowCallbackHandler) rs -> fila.accept(mapper.mapRow(rs, rs.getRow())));
+        }
+    }
+
     // COLORES CORPORATIVOS & PREMIUM
     private static final Color COLOR_PRIMARY = new Color(16, 185, 129); // Emerald 500
     private static final Color COLOR_SECONDARY = new Color(6, 78, 59); // Emerald 900
@@ -451,108 +470,47 @@ public class ReporteExportService {
         table.addCell(cell);
     }
 
-    public byte[] generarExcelRankings(List<Map<String, Object>> asesores, List<Map<String, Object>> usuarios,
-            List<Map<String, Object>> sucursales) {
-        try (XSSFWorkbook workbook = new XSSFWorkbook()) {
+    public void generarExcelRankings(List<Map<String, Object>> asesores, List<Map<String, Object>> usuarios,
+            List<Map<String, Object>> sucursales, OutputStream out) throws IOException {
+        try (ExcelStreamWriter excel = new ExcelStreamWriter(out)) {
             // Estilos
-            CellStyle headerStyle = workbook.createCellStyle();
-            headerStyle.setFillForegroundColor(IndexedColors.SEA_GREEN.getIndex());
-            headerStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
-            XSSFFont font = workbook.createFont();
-            font.setColor(IndexedColors.WHITE.getIndex());
-            font.setBold(true);
-            headerStyle.setFont(font);
+            CellStyle headerStyle = excel.estiloEncabezado(IndexedColors.SEA_GREEN, IndexedColors.WHITE);
 
             // 1. Pestaña Asesores
-            Sheet sheet1 = workbook.createSheet("Top Asesores VyV");
-            Row row1 = sheet1.createRow(0);
-            String[] headers1 = { "Puesto", "Asesor", "Sucursal", "Total VyV" };
-            for (int i = 0; i < headers1.length; i++) {
-                Cell cell = row1.createCell(i);
-                cell.setCellValue(headers1[i]);
-                cell.setCellStyle(headerStyle);
-            }
-            int rowIdx1 = 1;
+            excel.hoja("Top Asesores VyV", headerStyle, "Puesto", "Asesor", "Sucursal", "Total VyV");
+            int puesto = 1;
             for (Map<String, Object> item : asesores) {
-                Row row = sheet1.createRow(rowIdx1++);
-                row.createCell(0).setCellValue(rowIdx1 - 1);
-                row.createCell(1).setCellValue(String.valueOf(item.get("nombre")));
-                row.createCell(2).setCellValue(String.valueOf(item.get("sucursal")));
-                row.createCell(3).setCellValue(((Number) item.get("total_vyv")).intValue());
+                excel.fila(puesto++, String.valueOf(item.get("nombre")), String.valueOf(item.get("sucursal")),
+                        ((Number) item.get("total_vyv")).intValue());
             }
-            for (int i = 0; i < headers1.length; i++)
-                sheet1.autoSizeColumn(i);
 
             // 2. Pestaña Usuarios Generales
-            Sheet sheet2 = workbook.createSheet("Top General Usuarios VyV");
-            Row row2 = sheet2.createRow(0);
-            String[] headers2 = { "Puesto", "Usuario", "Rol", "Sucursal", "Total VyV" };
-            for (int i = 0; i < headers2.length; i++) {
-                Cell cell = row2.createCell(i);
-                cell.setCellValue(headers2[i]);
-                cell.setCellStyle(headerStyle);
-            }
-            int rowIdx2 = 1;
+            excel.hoja("Top General Usuarios VyV", headerStyle, "Puesto", "Usuario", "Rol", "Sucursal", "Total VyV");
+            puesto = 1;
             for (Map<String, Object> item : usuarios) {
-                Row row = sheet2.createRow(rowIdx2++);
-                row.createCell(0).setCellValue(rowIdx2 - 1);
-                row.createCell(1).setCellValue(String.valueOf(item.get("nombre")));
-                row.createCell(2).setCellValue(String.valueOf(item.get("rol")).replace("_", " "));
-                row.createCell(3).setCellValue(String.valueOf(item.get("sucursal")));
-                row.createCell(4).setCellValue(((Number) item.get("total_vyv")).intValue());
+                excel.fila(puesto++, String.valueOf(item.get("nombre")),
+                        String.valueOf(item.get("rol")).replace("_", " "), String.valueOf(item.get("sucursal")),
+                        ((Number) item.get("total_vyv")).intValue());
             }
-            for (int i = 0; i < headers2.length; i++)
-                sheet2.autoSizeColumn(i);
 
             // 3. Pestaña Sucursales
-            Sheet sheet3 = workbook.createSheet("Top Sucursales VyV");
-            Row row3 = sheet3.createRow(0);
-            String[] headers3 = { "Puesto", "Sucursal", "Total VyV" };
-            for (int i = 0; i < headers3.length; i++) {
-                Cell cell = row3.createCell(i);
-                cell.setCellValue(headers3[i]);
-                cell.setCellStyle(headerStyle);
-            }
-            int rowIdx3 = 1;
+            excel.hoja("Top Sucursales VyV", headerStyle, "Puesto", "Sucursal", "Total VyV");
+            puesto = 1;
             for (Map<String, Object> item : sucursales) {
-                Row row = sheet3.createRow(rowIdx3++);
-                row.createCell(0).setCellValue(rowIdx3 - 1);
-                row.createCell(1).setCellValue(String.valueOf(item.get("sucursal")));
-                row.createCell(2).setCellValue(((Number) item.get("total_vyv")).intValue());
+                excel.fila(puesto++, String.valueOf(item.get("sucursal")),
+                        ((Number) item.get("total_vyv")).intValue());
             }
-            for (int i = 0; i < headers3.length; i++)
-                sheet3.autoSizeColumn(i);
-
-            ByteArrayOutputStream out = new ByteArrayOutputStream();
-            workbook.write(out);
-            return out.toByteArray();
-        } catch (Exception e) {
-            e.printStackTrace();
-            return new byte[0];
         }
     }
 
-    public byte[] generarExcelActividad(List<UsuarioActivityDto> data, String titulo) {
-        try (XSSFWorkbook workbook = new XSSFWorkbook()) {
-            Sheet sheet = workbook.createSheet("Datos");
-            Row header = sheet.createRow(0);
-            header.createCell(0).setCellValue("Usuario");
-            header.createCell(1).setCellValue("Eventos");
-            header.createCell(2).setCellValue("Última Conexión");
-
-            int rowIdx = 1;
+    public void generarExcelActividad(List<UsuarioActivityDto> data, String titulo, OutputStream out)
+            throws IOException {
+        try (ExcelStreamWriter excel = new ExcelStreamWriter(out)) {
+            excel.hoja("Datos", null, "Usuario", "Eventos", "Última Conexión");
             for (UsuarioActivityDto item : data) {
-                Row row = sheet.createRow(rowIdx++);
-                row.createCell(0).setCellValue(item.getNombreCompleto());
-                row.createCell(1).setCellValue(item.getLoginCount());
-                row.createCell(2).setCellValue(item.getLastLogin() != null ? item.getLastLogin().toString() : "-");
+                excel.fila(item.getNombreCompleto(), item.getLoginCount(),
+                        item.getLastLogin() != null ? item.getLastLogin().toString() : "-");
             }
-
-            ByteArrayOutputStream out = new ByteArrayOutputStream();
-            workbook.write(out);
-            return out.toByteArray();
-        } catch (Exception e) {
-            return new byte[0];
         }
     }
 
@@ -685,9 +643,9 @@ public class ReporteExportService {
     // ==========================================
     // MÉTODO 4: REPORTE POR USUARIO (VyV y Solo Voz)
     // ==========================================
-    public byte[] generarPdfPorUsuario(String nombreUsuario, String rolUsuario, String sucursalUsuario,
-            List<Map<String, Object>> sociosVyV, List<Map<String, Object>> sociosSoloVoz) {
-        ByteArrayOutputStream out = new ByteArrayOutputStream();
+    public void generarPdfPorUsuario(String nombreUsuario, String rolUsuario, String sucursalUsuario,
+            int totalVyV, FuenteFilas sociosVyV, int totalSoloVoz, FuenteFilas sociosSoloVoz, OutputStream out)
+            throws DocumentException {
         Document document = new Document(PageSize.A4, 30, 30, 30, 35);
         try {
             PdfWriter writer = PdfWriter.getInstance(document, out);
@@ -705,22 +663,22 @@ public class ReporteExportService {
             infoTable.setSpacingAfter(15);
 
             infoTable.addCell(createStatCard("👤 USUARIO", nombreUsuario, rolUsuario, COLOR_BLUE));
-            infoTable.addCell(createStatCard("✅ CON VOZ Y VOTO", String.valueOf(sociosVyV.size()), "Socios habilitados",
+            infoTable.addCell(createStatCard("✅ CON VOZ Y VOTO", String.valueOf(totalVyV), "Socios habilitados",
                     COLOR_PRIMARY));
             infoTable.addCell(
-                    createStatCard("⚠️ SOLO VOZ", String.valueOf(sociosSoloVoz.size()), "Pendientes de regularizar",
+                    createStatCard("⚠️ SOLO VOZ", String.valueOf(totalSoloVoz), "Pendientes de regularizar",
                             COLOR_AMBER));
 
             document.add(infoTable);
 
             // SECCIÓN 1: SOCIOS CON VOZ Y VOTO
-            Paragraph titleVyV = new Paragraph("✅ SOCIOS CON VOZ Y VOTO (" + sociosVyV.size() + ")",
+            Paragraph titleVyV = new Paragraph("✅ SOCIOS CON VOZ Y VOTO (" + totalVyV + ")",
                     new Font(Font.HELVETICA, 14, Font.BOLD, COLOR_PRIMARY));
             titleVyV.setSpacingBefore(10);
             titleVyV.setSpacingAfter(10);
             document.add(titleVyV);
 
-            if (!sociosVyV.isEmpty()) {
+            if (totalVyV > 0) {
                 PdfPTable tableVyV = new PdfPTable(5);
                 tableVyV.setWidthPercentage(100);
                 tableVyV.setWidths(new float[] { 0.5f, 1f, 1.2f, 2.5f, 1.5f });
@@ -736,21 +694,21 @@ public class ReporteExportService {
                     tableVyV.addCell(cell);
                 }
 
-                int idx = 1;
-                boolean alternate = false;
                 Color colorAlt = new Color(240, 253, 244);
 
-                for (Map<String, Object> socio : sociosVyV) {
-                    Color bg = alternate ? colorAlt : Color.WHITE;
-                    addCell(tableVyV, String.valueOf(idx++), FONT_BODY, bg, Element.ALIGN_CENTER);
+                // Filas desde el cursor, volcadas al documento por tramos
+                PdfStreamTable streamVyV = new PdfStreamTable(writer, document, tableVyV);
+                sociosVyV.recorrer(socio -> {
+                    Color bg = streamVyV.getFilas() % 2 == 1 ? colorAlt : Color.WHITE;
+                    addCell(tableVyV, String.valueOf(streamVyV.getFilas() + 1), FONT_BODY, bg, Element.ALIGN_CENTER);
                     addCell(tableVyV, String.valueOf(socio.get("numero_socio")), FONT_BODY, bg, Element.ALIGN_CENTER);
                     addCell(tableVyV, String.valueOf(socio.get("cedula")), FONT_BODY, bg, Element.ALIGN_CENTER);
                     addCell(tableVyV, String.valueOf(socio.get("nombre_completo")), FONT_BODY_BOLD, bg,
                             Element.ALIGN_LEFT);
                     addCell(tableVyV, String.valueOf(socio.get("sucursal")), FONT_BODY, bg, Element.ALIGN_CENTER);
-                    alternate = !alternate;
-                }
-                document.add(tableVyV);
+                    streamVyV.filaTerminada();
+                });
+                streamVyV.cerrar();
             } else {
                 Paragraph noData = new Paragraph("No hay socios con Voz y Voto registrados.",
                         new Font(Font.HELVETICA, 10, Font.ITALIC, Color.GRAY));
@@ -759,13 +717,13 @@ public class ReporteExportService {
             }
 
             // SECCIÓN 2: SOCIOS SOLO VOZ
-            Paragraph titleSoloVoz = new Paragraph("⚠️ SOCIOS SOLO VOZ - PENDIENTES (" + sociosSoloVoz.size() + ")",
+            Paragraph titleSoloVoz = new Paragraph("⚠️ SOCIOS SOLO VOZ - PENDIENTES (" + totalSoloVoz + ")",
                     new Font(Font.HELVETICA, 14, Font.BOLD, COLOR_AMBER));
             titleSoloVoz.setSpacingBefore(20);
             titleSoloVoz.setSpacingAfter(10);
             document.add(titleSoloVoz);
 
-            if (!sociosSoloVoz.isEmpty()) {
+            if (totalSoloVoz > 0) {
                 PdfPTable tableSV = new PdfPTable(6);
                 tableSV.setWidthPercentage(100);
                 tableSV.setWidths(new float[] { 0.4f, 0.9f, 1.1f, 2.2f, 1.3f, 1.5f });
@@ -781,13 +739,13 @@ public class ReporteExportService {
                     tableSV.addCell(cell);
                 }
 
-                int idx = 1;
-                boolean alternate = false;
                 Color colorAlt = new Color(254, 252, 232);
+                Font fontMora = new Font(Font.HELVETICA, 8, Font.BOLD, new Color(239, 68, 68));
 
-                for (Map<String, Object> socio : sociosSoloVoz) {
-                    Color bg = alternate ? colorAlt : Color.WHITE;
-                    addCell(tableSV, String.valueOf(idx++), FONT_BODY, bg, Element.ALIGN_CENTER);
+                PdfStreamTable streamSV = new PdfStreamTable(writer, document, tableSV);
+                sociosSoloVoz.recorrer(socio -> {
+                    Color bg = streamSV.getFilas() % 2 == 1 ? colorAlt : Color.WHITE;
+                    addCell(tableSV, String.valueOf(streamSV.getFilas() + 1), FONT_BODY, bg, Element.ALIGN_CENTER);
                     addCell(tableSV, String.valueOf(socio.get("numero_socio")), FONT_BODY, bg, Element.ALIGN_CENTER);
                     addCell(tableSV, String.valueOf(socio.get("cedula")), FONT_BODY, bg, Element.ALIGN_CENTER);
                     addCell(tableSV, String.valueOf(socio.get("nombre_completo")), FONT_BODY_BOLD, bg,
@@ -813,11 +771,10 @@ public class ReporteExportService {
                     if (credito != null && !credito)
                         mora.append("CR ");
 
-                    Font fontMora = new Font(Font.HELVETICA, 8, Font.BOLD, new Color(239, 68, 68));
                     addCell(tableSV, mora.toString().trim(), fontMora, bg, Element.ALIGN_CENTER);
-                    alternate = !alternate;
-                }
-                document.add(tableSV);
+                    streamSV.filaTerminada();
+                });
+                streamSV.cerrar();
 
                 // Leyenda
                 Paragraph leyenda = new Paragraph(
@@ -832,12 +789,11 @@ public class ReporteExportService {
                 document.add(noData);
             }
 
-            document.close();
-        } catch (Exception e) {
-            e.printStackTrace();
-            return new byte[0];
+        } finally {
+            if (document.isOpen()) {
+                document.close();
+            }
         }
-        return out.toByteArray();
     }
 
     public byte[] generarPdfRankings(String type, List<Map<String, Object>> asesores,
@@ -1049,52 +1005,21 @@ public class ReporteExportService {
         return out.toByteArray();
     }
 
-    public byte[] generarExcelUsuariosSinCarga(List<com.asamblea.model.Usuario> usuarios) {
-        try (XSSFWorkbook workbook = new XSSFWorkbook()) {
+    public void generarExcelUsuariosSinCarga(List<com.asamblea.model.Usuario> usuarios, OutputStream out)
+            throws IOException {
+        try (ExcelStreamWriter excel = new ExcelStreamWriter(out)) {
             // Estilos
-            CellStyle headerStyle = workbook.createCellStyle();
-            headerStyle.setFillForegroundColor(IndexedColors.RED.getIndex());
-            headerStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
-            XSSFFont font = workbook.createFont();
-            font.setColor(IndexedColors.WHITE.getIndex());
-            font.setBold(true);
-            headerStyle.setFont(font);
-
-            Sheet sheet = workbook.createSheet("Usuarios Sin Carga");
-
-            // Header Row
-            Row headerRow = sheet.createRow(0);
-            String[] headers = { "#", "Nombre Completo", "Usuario", "Rol", "Sucursal", "Cargo" };
-            for (int i = 0; i < headers.length; i++) {
-                Cell cell = headerRow.createCell(i);
-                cell.setCellValue(headers[i]);
-                cell.setCellStyle(headerStyle);
-            }
+            CellStyle headerStyle = excel.estiloEncabezado(IndexedColors.RED, IndexedColors.WHITE);
+
+            excel.hoja("Usuarios Sin Carga", headerStyle,
+                    "#", "Nombre Completo", "Usuario", "Rol", "Sucursal", "Cargo");
 
             // Data Rows
             int rowIdx = 1;
             for (com.asamblea.model.Usuario u : usuarios) {
-                Row row = sheet.createRow(rowIdx);
-                row.createCell(0).setCellValue(rowIdx);
-                row.createCell(1).setCellValue(u.getNombreCompleto());
-                row.createCell(2).setCellValue(u.getUsername());
-                row.createCell(3).setCellValue(u.getRol().getNombre());
-                row.createCell(4).setCellValue(getSucursalNombre(u));
-                row.createCell(5).setCellValue(u.getCargo() != null ? u.getCargo() : "-");
-                rowIdx++;
-            }
-
-            // Auto-size columns
-            for (int i = 0; i < headers.length; i++) {
-                sheet.autoSizeColumn(i);
+                excel.fila(rowIdx++, u.getNombreCompleto(), u.getUsername(), u.getRol().getNombre(),
+                        getSucursalNombre(u), u.getCargo() != null ? u.getCargo() : "-");
             }
-
-            ByteArrayOutputStream out = new ByteArrayOutputStream();
-            workbook.write(out);
-            return out.toByteArray();
-        } catch (Exception e) {
-            e.printStackTrace();
-            return new byte[0];
         }
     }
 
@@ -1206,9 +1131,8 @@ public class ReporteExportService {
     // ==========================================
     // MÉTODO: LISTA DE SOCIOS ASIGNADOS (VyV o Solo Voz)
     // ==========================================
-    public byte[] generarPdfListaSocios(List<Map<String, Object>> socios, String title, String description,
-            boolean isVyV) {
-        ByteArrayOutputStream out = new ByteArrayOutputStream();
+    public void generarPdfListaSocios(int total, FuenteFilas socios, String title, String description,
+            boolean isVyV, OutputStream out) throws DocumentException {
         Document document = new Document(PageSize.A4, 30, 30, 30, 35);
         try {
             PdfWriter writer = PdfWriter.getInstance(document, out);
@@ -1229,7 +1153,7 @@ public class ReporteExportService {
             String label = isVyV ? "Socios con Voz y Voto" : "Socios Solo Voz";
 
             statsTable.addCell(createStatCard(emoji + " " + label.toUpperCase(),
-                    String.valueOf(socios.size()),
+                    String.valueOf(total),
                     "Total de socios en lista",
                     cardColor));
 
@@ -1270,18 +1194,19 @@ public class ReporteExportService {
                 }
             }
 
-            int idx = 1;
-            boolean alternate = false;
             Color colorAlt = isVyV ? new Color(240, 253, 244) : new Color(254, 252, 232);
+            Font fontMora = new Font(Font.HELVETICA, 8, Font.BOLD, new Color(239, 68, 68));
 
-            for (Map<String, Object> socio : socios) {
-                Color bg = alternate ? colorAlt : Color.WHITE;
+            // Filas desde el cursor, volcadas al documento por tramos
+            PdfStreamTable stream = new PdfStreamTable(writer, document, table);
+            socios.recorrer(socio -> {
+                Color bg = stream.getFilas() % 2 == 1 ? colorAlt : Color.WHITE;
 
-                addCell(table, String.valueOf(idx++), FONT_BODY, bg, Element.ALIGN_CENTER);
-                addCell(table, String.valueOf(socio.get("numero_socio")), FONT_BODY, bg, Element.ALIGN_CENTER);
-                addCell(table, String.valueOf(socio.get("cedula")), FONT_BODY, bg, Element.ALIGN_CENTER);
-                addCell(table, String.valueOf(socio.get("nombre_completo")), FONT_BODY_BOLD, bg, Element.ALIGN_LEFT);
-                addCell(table, String.valueOf(socio.get("sucursal")), FONT_BODY, bg, Element.ALIGN_CENTER);
+                addCell(stream.getTable(), String.valueOf(stream.getFilas() + 1), FONT_BODY, bg, Element.ALIGN_CENTER);
+                addCell(stream.getTable(), String.valueOf(socio.get("numero_socio")), FONT_BODY, bg, Element.ALIGN_CENTER);
+                addCell(stream.getTable(), String.valueOf(socio.get("cedula")), FONT_BODY, bg, Element.ALIGN_CENTER);
+                addCell(stream.getTable(), String.valueOf(socio.get("nombre_completo")), FONT_BODY_BOLD, bg, Element.ALIGN_LEFT);
+                addCell(stream.getTable(), String.valueOf(socio.get("sucursal")), FONT_BODY, bg, Element.ALIGN_CENTER);
 
                 if (!isVyV) {
                     // Mostrar qué está en mora
@@ -1303,14 +1228,13 @@ public class ReporteExportService {
                     if (credito != null && !Boolean.TRUE.equals(credito) && !Integer.valueOf(1).equals(credito))
                         mora.append("CR ");
 
-                    Font fontMora = new Font(Font.HELVETICA, 8, Font.BOLD, new Color(239, 68, 68));
-                    addCell(table, mora.toString().trim(), fontMora, bg, Element.ALIGN_CENTER);
+                    addCell(stream.getTable(), mora.toString().trim(), fontMora, bg, Element.ALIGN_CENTER);
                 }
 
-                alternate = !alternate;
-            }
+                stream.filaTerminada();
+            });
 
-            document.add(table);
+            stream.cerrar();
 
             // Leyenda para Solo Voz
             if (!isVyV) {
@@ -1321,12 +1245,11 @@ public class ReporteExportService {
                 document.add(leyenda);
             }
 
-            document.close();
-        } catch (Exception e) {
-            e.printStackTrace();
-            return new byte[0];
+        } finally {
+            if (document.isOpen()) {
+                document.close();
+            }
         }
-        return out.toByteArray();
     }
 
     // ==========================================
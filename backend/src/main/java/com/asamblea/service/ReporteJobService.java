@@ -0,0 +1,302 @@
+package com.asamblea.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Cola de reportes pesados (PDF/Excel) fuera de los hilos de Tomcat.
+ * - Se encola un trabajo y se devuelve su id; el cliente consulta el estado
+ *   (o recibe el aviso por /user/queue/reportes) y descarga el archivo que
+ *   quedó en disco.
+ * - Pool de workers y cola acotados: con la cola llena se rechaza el pedido
+ *   en vez de acumular generaciones.
+ * - Pedidos iguales (tipo, parámetros y sello de datos) comparten el mismo
+ *   trabajo mientras se genera y el mismo archivo después: repetir una
+ *   descarga sin cambios en los datos es inmediato.
+ * - El sello de datos junta los cambios notificados en memoria (contadores del
+ *   dashboard e índice de socios, que también suben con reseteos, importaciones
+ *   y restauraciones) con los máximos id de la base, por si alguna alta no
+ *   avisó. Los resultados además vencen a los reportes.jobs.ttl-ms.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ReporteJobService {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ContadoresEnVivoService contadoresEnVivoService;
+    private final SocioIndiceService socioIndiceService;
+    private final TiempoRealService tiempoRealService;
+
+    @Value("${reportes.jobs.workers:2}")
+    private int workers = 2;
+
+    @Value("${reportes.jobs.cola:20}")
+    private int capacidadCola = 20;
+
+    @Value("${reportes.jobs.directorio:${java.io.tmpdir}/asamblea-reportes}")
+    private String directorio;
+
+    @Value("${reportes.jobs.ttl-ms:600000}")
+    private long ttlMs = 600000;
+
+    // Máximos id de las tablas que leen los reportes: una lectura del índice
+    // primario por tabla, sin recorrerlas. Las bajas ya mueven los contadores
+    private static final String SQL_HUELLA = """
+            SELECT (SELECT COALESCE(MAX(id), 0) FROM socios),
+                   (SELECT COALESCE(MAX(id), 0) FROM asignaciones_socios),
+                   (SELECT COALESCE(MAX(id), 0) FROM asignaciones_cambios),
+                   (SELECT COALESCE(MAX(id), 0) FROM listas_asignacion),
+                   (SELECT COALESCE(MAX(id), 0) FROM asistencias),
+                   (SELECT COALESCE(MAX(id), 0) FROM usuarios)
+            """;
+
+    public enum Estado {
+        PENDIENTE, EN_PROCESO, LISTO, ERROR
+    }
+
+    /**
+     * Escribe el reporte completo en el OutputStream recibido.
+     */
+    @FunctionalInterface
+    public interface Generador {
+        void escribir(OutputStream out) throws Exception;
+    }
+
+    /**
+     * Reporte a generar. Los parámetros deben incluir todo lo que cambia el
+     * contenido (también el usuario, si el reporte depende de quién lo pide).
+     */
+    public record Solicitud(String tipo, String parametros, String nombreArchivo, String contentType,
+            Generador generador) {
+    }
+
+    public static class Trabajo {
+        private final String id;
+        private final String clave;
+        private final String tipo;
+        private final String nombreArchivo;
+        private final String contentType;
+        private final LocalDateTime creado = LocalDateTime.now();
+        // Quienes pidieron este mismo reporte (dueños del trabajo compartido)
+        private final Set<String> solicitantes = ConcurrentHashMap.newKeySet();
+        private volatile Estado estado = Estado.PENDIENTE;
+        private volatile LocalDateTime terminado;
+        private volatile long terminadoMs;
+        private volatile String error;
+        private volatile Path archivo;
+        private volatile long bytes;
+
+        Trabajo(String id, String clave, Solicitud s) {
+            this.id = id;
+            this.clave = clave;
+            this.tipo = s.tipo();
+            this.nombreArchivo = s.nombreArchivo();
+            this.contentType = s.contentType();
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public Estado getEstado() {
+            return estado;
+        }
+
+        public String getNombreArchivo() {
+            return nombreArchivo;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public Path getArchivo() {
+            return archivo;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        public Map<String, Object> aMapa() {
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("id", id);
+            m.put("tipo", tipo);
+            m.put("estado", estado.name());
+            m.put("nombreArchivo", nombreArchivo);
+            m.put("creado", creado);
+            m.put("terminado", terminado);
+            m.put("bytes", bytes);
+            m.put("error", error);
+            return m;
+        }
+    }
+
+    private final Map<String, Trabajo> trabajos = new ConcurrentHashMap<>();
+    // Trabajo vigente por clave (en cola, en proceso o listo): deduplicación y cache
+    private final Map<String, Trabajo> porClave = new ConcurrentHashMap<>();
+
+    private ThreadPoolExecutor pool;
+    private Path dir;
+
+    @PostConstruct
+    public void iniciar() throws IOException {
+        dir = Path.of(directorio);
+        Files.createDirectories(dir);
+        // Archivos de una ejecución anterior: los trabajos en memoria ya no existen
+        try (var archivos = Files.list(dir)) {
+            archivos.forEach(this::borrar);
+        }
+        AtomicInteger numero = new AtomicInteger();
+        pool = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(capacidadCola), r -> {
+                    Thread t = new Thread(r, "reportes-" + numero.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+    }
+
+    @PreDestroy
+    public void detener() {
+        if (pool != null) {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Encola el reporte o devuelve el trabajo equivalente que ya está en curso o
+     * listo. Lanza IllegalStateException si la cola está llena.
+     */
+    public Trabajo enviar(Solicitud solicitud, String username) {
+        String clave = solicitud.tipo() + "|" + solicitud.parametros() + "|" + selloDatos();
+        synchronized (porClave) {
+            Trabajo existente = porClave.get(clave);
+            if (existente != null && vigente(existente)) {
+                existente.solicitantes.add(username);
+                return existente;
+            }
+            Trabajo t = new Trabajo(UUID.randomUUID().toString(), clave, solicitud);
+            t.solicitantes.add(username);
+            try {
+                pool.execute(() -> generar(t, solicitud.generador()));
+            } catch (RejectedExecutionException e) {
+                throw new IllegalStateException("Hay demasiados reportes en cola, intente nuevamente en unos minutos");
+            }
+            trabajos.put(t.id, t);
+            porClave.put(clave, t);
+            log.info("📄 Reporte {} encolado por {} ({} en cola)", solicitud.tipo(), username,
+                    pool.getQueue().size());
+            return t;
+        }
+    }
+
+    /**
+     * Trabajo por id, solo para quienes lo pidieron.
+     */
+    public Trabajo obtener(String id, String username) {
+        Trabajo t = trabajos.get(id);
+        if (t == null || !t.solicitantes.contains(username)) {
+            return null;
+        }
+        return t;
+    }
+
+    private void generar(Trabajo t, Generador generador) {
+        t.estado = Estado.EN_PROCESO;
+        long inicio = System.currentTimeMillis();
+        Path archivo = dir.resolve(t.id);
+        try {
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(archivo), 64 * 1024)) {
+                generador.escribir(out);
+            }
+            t.archivo = archivo;
+            t.bytes = Files.size(archivo);
+            t.estado = Estado.LISTO;
+            log.info("✓ Reporte {} listo en {}ms ({} bytes)", t.tipo, System.currentTimeMillis() - inicio, t.bytes);
+        } catch (Exception e) {
+            log.error("Error generando reporte {}: {}", t.tipo, e.getMessage(), e);
+            borrar(archivo);
+            t.error = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            t.estado = Estado.ERROR;
+            // Un reintento genera de nuevo en vez de devolver el error
+            porClave.remove(t.clave, t);
+        } finally {
+            t.terminado = LocalDateTime.now();
+            t.terminadoMs = System.currentTimeMillis();
+        }
+        Map<String, Object> aviso = t.aMapa();
+        for (String username : t.solicitantes) {
+            tiempoRealService.notificarReporte(username, aviso);
+        }
+    }
+
+    private boolean vigente(Trabajo t) {
+        return switch (t.estado) {
+            case PENDIENTE, EN_PROCESO -> true;
+            case LISTO -> System.currentTimeMillis() - t.terminadoMs < ttlMs && Files.exists(t.archivo);
+            case ERROR -> false;
+        };
+    }
+
+    private String selloDatos() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(contadoresEnVivoService.getCambios()).append('-').append(socioIndiceService.getCambios());
+        jdbcTemplate.query(SQL_HUELLA, rs -> {
+            int columnas = rs.getMetaData().getColumnCount();
+            for (int i = 1; i <= columnas; i++) {
+                sb.append('-').append(rs.getLong(i));
+            }
+        });
+        return sb.toString();
+    }
+
+    /**
+     * Descarta los trabajos terminados que vencieron y borra sus archivos.
+     */
+    @Scheduled(fixedDelayString = "${reportes.jobs.limpieza-ms:60000}")
+    public void limpiar() {
+        long limite = System.currentTimeMillis() - ttlMs;
+        trabajos.values().removeIf(t -> {
+            if (t.terminado == null || t.terminadoMs > limite) {
+                return false;
+            }
+            porClave.remove(t.clave, t);
+            if (t.archivo != null) {
+                borrar(t.archivo);
+            }
+            return true;
+        });
+    }
+
+    private void borrar(Path archivo) {
+        try {
+            Files.deleteIfExists(archivo);
+        } catch (IOException e) {
+            log.warn("⚠️ No se pudo borrar el reporte temporal {}: {}", archivo, e.getMessage());
+        }
+    }
+}
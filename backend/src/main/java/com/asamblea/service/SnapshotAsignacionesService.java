@@ -0,0 +1,447 @@
+package com.asamblea.service;
+
+import com.asamblea.model.Asignacion;
+import com.asamblea.model.AsignacionCambio;
+import com.asamblea.model.AsignacionCambio.Operacion;
+import com.asamblea.model.AsignacionSnapshot;
+import com.asamblea.model.AsignacionSnapshot.Tipo;
+import com.asamblea.repository.AsignacionCambioRepository;
+import com.asamblea.repository.AsignacionSnapshotRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Snapshots versionados de asignaciones_socios.
+ * - Cada alta/baja se registra en un changelog (asignaciones_cambios).
+ * - Un snapshot (MARCA) solo guarda la versión actual del changelog: O(1).
+ * - Periódicamente se compacta el estado completo en un checkpoint .csv.gz y
+ *   se descarta el changelog que ya no hace falta según la retención.
+ * - Restaurar = checkpoint base + cambios hasta la versión pedida, aplicado como diff.
+ */
+@Service
+@Slf4j
+public class SnapshotAsignacionesService {
+
+    private static final DateTimeFormatter ARCHIVO_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss");
+    private static final int LOTE = 1000;
+
+    private final AsignacionCambioRepository cambioRepository;
+    private final AsignacionSnapshotRepository snapshotRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transaccion;
+    private final TransactionTemplate lecturaConsistente;
+
+    @Value("${asignaciones.snapshot.directorio:${backup.directory:/backups}/asignaciones}")
+    private String directorio;
+
+    // Cambios acumulados desde el último checkpoint antes de compactar uno nuevo
+    @Value("${asignaciones.snapshot.checkpoint-cada-cambios:5000}")
+    private long checkpointCadaCambios;
+
+    // Días que se conservan marcas y checkpoints restaurables
+    @Value("${asignaciones.snapshot.retencion-dias:30}")
+    private int retencionDias;
+
+    public SnapshotAsignacionesService(AsignacionCambioRepository cambioRepository,
+            AsignacionSnapshotRepository snapshotRepository,
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager) {
+        this.cambioRepository = cambioRepository;
+        this.snapshotRepository = snapshotRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transaccion = new TransactionTemplate(transactionManager);
+        // Versión del changelog y contenido de la tabla leídos desde la misma vista
+        this.lecturaConsistente = new TransactionTemplate(transactionManager);
+        this.lecturaConsistente.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.lecturaConsistente.setReadOnly(true);
+    }
+
+    // ===== REGISTRO DE CAMBIOS (write paths) =====
+
+    public void registrarAlta(Asignacion a) {
+        registrar(desdeAsignacion(Operacion.ALTA, a));
+    }
+
+    public void registrarBaja(Asignacion a) {
+        registrar(desdeAsignacion(Operacion.BAJA, a));
+    }
+
+    /**
+     * Registra la baja de todas las asignaciones de un socio. Debe llamarse ANTES
+     * del DELETE y dentro de la misma transacción.
+     */
+    public void registrarBajasDeSocio(Long socioId) {
+        jdbcTemplate.query("SELECT id, lista_id, socio_id, asignado_por_id, fecha_asignacion " +
+                "FROM asignaciones_socios WHERE socio_id = ?",
+                rs -> {
+                    registrar(FilaAsignacion.de(rs).aCambio(Operacion.BAJA));
+                }, socioId);
+    }
+
+    // La tabla se vació completa (reset del sistema)
+    public void registrarVaciado() {
+        registrar(AsignacionCambio.builder().operacion(Operacion.VACIADO).build());
+    }
+
+    // La tabla se reemplazó por fuera del changelog: el próximo ciclo fuerza un checkpoint
+    public void registrarReemplazo() {
+        registrar(AsignacionCambio.builder().operacion(Operacion.REEMPLAZO).build());
+    }
+
+    // Sin catch: si el cambio no queda en el changelog, la escritura de la
+    // asignación tampoco debe confirmarse (toda restauración posterior saldría mal)
+    private void registrar(AsignacionCambio cambio) {
+        cambioRepository.save(cambio);
+    }
+
+    private AsignacionCambio desdeAsignacion(Operacion op, Asignacion a) {
+        return AsignacionCambio.builder()
+                .operacion(op)
+                .asignacionId(a.getId())
+                .listaId(a.getListaAsignacion() != null ? a.getListaAsignacion().getId() : null)
+                .socioId(a.getSocio() != null ? a.getSocio().getId() : null)
+                .asignadoPorId(a.getAsignadoPor() != null ? a.getAsignadoPor().getId() : null)
+                .fechaAsignacion(a.getFechaAsignacion())
+                .build();
+    }
+
+    // ===== SNAPSHOTS =====
+
+    public List<AsignacionSnapshot> listar() {
+        return snapshotRepository.findAllByOrderByCreatedAtDesc();
+    }
+
+    /**
+     * Crea una marca en la versión actual del changelog. No copia datos; solo la
+     * primera vez (sin checkpoint previo) se genera el checkpoint base.
+     */
+    public AsignacionSnapshot crearSnapshot(String motivo, String usuario) throws IOException {
+        if (snapshotRepository.findFirstByTipoOrderByVersionDesc(Tipo.CHECKPOINT).isEmpty()) {
+            crearCheckpoint("INICIAL", usuario);
+        }
+        AsignacionSnapshot marca = snapshotRepository.save(AsignacionSnapshot.builder()
+                .tipo(Tipo.MARCA)
+                .version(cambioRepository.findUltimaVersion())
+                .motivo(motivo)
+                .usuario(usuario)
+                .build());
+        log.info("🛡️ Snapshot de asignaciones #{} ({}) en versión {}", marca.getId(), motivo, marca.getVersion());
+        return marca;
+    }
+
+    /**
+     * Compacta el estado actual en un checkpoint .csv.gz y aplica la retención.
+     */
+    public synchronized AsignacionSnapshot crearCheckpoint(String motivo, String usuario) throws IOException {
+        Path dir = Path.of(directorio);
+        Files.createDirectories(dir);
+        Path tmp = dir.resolve("checkpoint_" + LocalDateTime.now().format(ARCHIVO_FORMAT) + ".csv.gz.tmp");
+
+        long[] version = new long[1];
+        int[] total = new int[1];
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(
+                new GZIPOutputStream(Files.newOutputStream(tmp), 64 * 1024), StandardCharsets.UTF_8))) {
+            lecturaConsistente.executeWithoutResult(st -> {
+                version[0] = cambioRepository.findUltimaVersion();
+                jdbcTemplate.query("SELECT id, lista_id, socio_id, asignado_por_id, fecha_asignacion " +
+                        "FROM asignaciones_socios", rs -> {
+                            try {
+                                out.write(FilaAsignacion.de(rs).aLinea());
+                                out.write('\n');
+                                total[0]++;
+                            } catch (IOException e) {
+                                throw new UncheckedIOException(e);
+                            }
+                        });
+            });
+        } catch (RuntimeException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+
+        Path archivo = dir.resolve("checkpoint_v" + version[0] + "_" + LocalDateTime.now().format(ARCHIVO_FORMAT)
+                + ".csv.gz");
+        Files.move(tmp, archivo, StandardCopyOption.REPLACE_EXISTING);
+
+        AsignacionSnapshot checkpoint = snapshotRepository.save(AsignacionSnapshot.builder()
+                .tipo(Tipo.CHECKPOINT)
+                .version(version[0])
+                .totalAsignaciones(total[0])
+                .archivo(archivo.toString())
+                .motivo(motivo)
+                .usuario(usuario)
+                .build());
+        log.info("✓ Checkpoint de asignaciones v{} con {} filas: {}", version[0], total[0], archivo.getFileName());
+
+        compactar();
+        return checkpoint;
+    }
+
+    /**
+     * Revisa cada pocos minutos si hay suficientes cambios para compactar un
+     * checkpoint nuevo (o si la tabla se reemplazó por fuera del changelog).
+     */
+    @Scheduled(fixedDelayString = "${asignaciones.snapshot.verificacion-ms:300000}", initialDelay = 60000)
+    public void checkpointProgramado() {
+        try {
+            Optional<AsignacionSnapshot> ultimo = snapshotRepository.findFirstByTipoOrderByVersionDesc(Tipo.CHECKPOINT);
+            long desde = ultimo.map(AsignacionSnapshot::getVersion).orElse(0L);
+            if (ultimo.isEmpty()
+                    || cambioRepository.countByIdGreaterThan(desde) >= checkpointCadaCambios
+                    || cambioRepository.existsByIdGreaterThanAndOperacion(desde, Operacion.REEMPLAZO)) {
+                crearCheckpoint("PROGRAMADO", "SISTEMA");
+            } else {
+                compactar();
+            }
+        } catch (Exception e) {
+            log.error("Error en checkpoint programado de asignaciones: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Retención: borra marcas vencidas, checkpoints que ya no son base de nada
+     * restaurable y el changelog cubierto por el checkpoint base.
+     */
+    public synchronized void compactar() {
+        LocalDateTime limite = LocalDateTime.now().minusDays(retencionDias);
+        transaccion.executeWithoutResult(st -> {
+            snapshotRepository.deleteAll(snapshotRepository.findByTipoAndCreatedAtBefore(Tipo.MARCA, limite));
+
+            List<AsignacionSnapshot> checkpoints = snapshotRepository.findByTipoOrderByVersionAsc(Tipo.CHECKPOINT);
+            if (checkpoints.isEmpty()) {
+                return;
+            }
+
+            // Versión más vieja que todavía se puede pedir restaurar
+            long minima = checkpoints.get(checkpoints.size() - 1).getVersion();
+            for (AsignacionSnapshot m : snapshotRepository.findByTipoOrderByVersionAsc(Tipo.MARCA)) {
+                minima = Math.min(minima, m.getVersion());
+            }
+            for (AsignacionSnapshot c : checkpoints) {
+                if (c.getCreatedAt() != null && c.getCreatedAt().isAfter(limite)) {
+                    minima = Math.min(minima, c.getVersion());
+                }
+            }
+
+            // Checkpoint base: el más nuevo que no supera esa versión
+            AsignacionSnapshot base = null;
+            for (AsignacionSnapshot c : checkpoints) {
+                if (c.getVersion() <= minima) {
+                    base = c;
+                }
+            }
+            if (base == null) {
+                return;
+            }
+
+            int borrados = 0;
+            for (AsignacionSnapshot c : checkpoints) {
+                if (c.getVersion() < base.getVersion()
+                        || (c.getVersion().equals(base.getVersion()) && c.getId() < base.getId())) {
+                    borrarArchivo(c.getArchivo());
+                    snapshotRepository.delete(c);
+                    borrados++;
+                }
+            }
+            int cambios = cambioRepository.deleteHastaVersion(base.getVersion());
+            if (borrados > 0 || cambios > 0) {
+                log.info("Compactación de asignaciones: {} checkpoints y {} cambios descartados (base v{})",
+                        borrados, cambios, base.getVersion());
+            }
+        });
+    }
+
+    // ===== RESTAURACIÓN =====
+
+    /**
+     * Restaura asignaciones_socios al estado de un snapshot aplicando solo la
+     * diferencia con el estado actual. Antes deja una marca PRE_RESTAURACION
+     * para poder deshacer.
+     */
+    public Map<String, Object> restaurar(Long snapshotId, String usuario) throws IOException {
+        AsignacionSnapshot destino = snapshotRepository.findById(snapshotId)
+                .orElseThrow(() -> new IllegalArgumentException("Snapshot no encontrado: " + snapshotId));
+        Map<Long, FilaAsignacion> objetivo = reconstruir(destino.getVersion());
+        AsignacionSnapshot previo = crearSnapshot("PRE_RESTAURACION", usuario);
+
+        Map<String, Object> resultado = transaccion.execute(st -> {
+            Map<Long, FilaAsignacion> actual = new HashMap<>();
+            jdbcTemplate.query("SELECT id, lista_id, socio_id, asignado_por_id, fecha_asignacion " +
+                    "FROM asignaciones_socios", rs -> {
+                        FilaAsignacion f = FilaAsignacion.de(rs);
+                        actual.put(f.id(), f);
+                    });
+
+            List<FilaAsignacion> bajas = new ArrayList<>();
+            actual.values().forEach(f -> {
+                if (!f.mismaAsignacion(objetivo.get(f.id())))
+                    bajas.add(f);
+            });
+            List<FilaAsignacion> altas = new ArrayList<>();
+            objetivo.values().forEach(f -> {
+                if (!f.mismaAsignacion(actual.get(f.id())))
+                    altas.add(f);
+            });
+
+            jdbcTemplate.batchUpdate("DELETE FROM asignaciones_socios WHERE id = ?", bajas, LOTE,
+                    (ps, f) -> ps.setLong(1, f.id()));
+
+            // Solo se reinsertan asignaciones cuyo socio y lista todavía existen
+            int[][] filas = jdbcTemplate.batchUpdate(
+                    "INSERT INTO asignaciones_socios (id, lista_id, socio_id, asignado_por_id, fecha_asignacion) " +
+                            "SELECT ?, ?, ?, ?, ? FROM DUAL " +
+                            "WHERE EXISTS (SELECT 1 FROM socios WHERE id = ?) " +
+                            "AND EXISTS (SELECT 1 FROM listas_asignacion WHERE id = ?)",
+                    altas, LOTE, (ps, f) -> {
+                        ps.setLong(1, f.id());
+                        ps.setLong(2, f.listaId());
+                        ps.setLong(3, f.socioId());
+                        if (f.asignadoPorId() != null)
+                            ps.setLong(4, f.asignadoPorId());
+                        else
+                            ps.setNull(4, Types.BIGINT);
+                        ps.setTimestamp(5, f.fecha() != null ? Timestamp.valueOf(f.fecha()) : null);
+                        ps.setLong(6, f.socioId());
+                        ps.setLong(7, f.listaId());
+                    });
+
+            // La restauración también queda en el changelog
+            List<AsignacionCambio> cambios = new ArrayList<>();
+            bajas.forEach(f -> cambios.add(f.aCambio(Operacion.BAJA)));
+            int insertadas = 0;
+            int i = 0;
+            for (int[] lote : filas) {
+                for (int n : lote) {
+                    if (n > 0) {
+                        cambios.add(altas.get(i).aCambio(Operacion.ALTA));
+                        insertadas++;
+                    }
+                    i++;
+                }
+            }
+            cambioRepository.saveAll(cambios);
+
+            Map<String, Object> r = new LinkedHashMap<>();
+            r.put("snapshotId", destino.getId());
+            r.put("version", destino.getVersion());
+            r.put("eliminadas", bajas.size());
+            r.put("restauradas", insertadas);
+            r.put("omitidas", altas.size() - insertadas); // socio o lista ya no existen
+            return r;
+        });
+        resultado.put("snapshotPrevioId", previo.getId());
+        log.info("♻️ Asignaciones restauradas al snapshot #{} por {}: {}", snapshotId, usuario, resultado);
+        return resultado;
+    }
+
+    /**
+     * Estado de la tabla en una versión: checkpoint base + cambios posteriores.
+     */
+    Map<Long, FilaAsignacion> reconstruir(long version) throws IOException {
+        AsignacionSnapshot base = snapshotRepository
+                .findFirstByTipoAndVersionLessThanEqualOrderByVersionDesc(Tipo.CHECKPOINT, version)
+                .orElseThrow(() -> new IllegalStateException("No hay checkpoint base para la versión " + version));
+
+        Map<Long, FilaAsignacion> estado = new HashMap<>();
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(Path.of(base.getArchivo())), 64 * 1024),
+                StandardCharsets.UTF_8))) {
+            String linea;
+            while ((linea = in.readLine()) != null) {
+                if (!linea.isEmpty()) {
+                    FilaAsignacion f = FilaAsignacion.deLinea(linea);
+                    estado.put(f.id(), f);
+                }
+            }
+        }
+
+        for (AsignacionCambio c : cambioRepository.findByIdGreaterThanAndIdLessThanEqualOrderByIdAsc(
+                base.getVersion(), version)) {
+            switch (c.getOperacion()) {
+                case ALTA -> estado.put(c.getAsignacionId(), FilaAsignacion.de(c));
+                case BAJA -> estado.remove(c.getAsignacionId());
+                case VACIADO -> estado.clear();
+                case REEMPLAZO -> throw new IllegalStateException(
+                        "La tabla fue reemplazada después del checkpoint base; la versión " + version
+                                + " no se puede reconstruir");
+            }
+        }
+        return estado;
+    }
+
+    private void borrarArchivo(String archivo) {
+        if (archivo == null)
+            return;
+        try {
+            Files.deleteIfExists(Path.of(archivo));
+        } catch (IOException e) {
+            log.warn("No se pudo borrar checkpoint {}: {}", archivo, e.getMessage());
+        }
+    }
+
+    // Fila compacta de asignaciones_socios (formato del checkpoint: id,lista,socio,asignadoPor,fecha)
+    record FilaAsignacion(Long id, Long listaId, Long socioId, Long asignadoPorId, LocalDateTime fecha) {
+
+        static FilaAsignacion de(ResultSet rs) throws SQLException {
+            long asignadoPor = rs.getLong("asignado_por_id");
+            Long asignadoPorId = rs.wasNull() ? null : asignadoPor;
+            Timestamp ts = rs.getTimestamp("fecha_asignacion");
+            return new FilaAsignacion(rs.getLong("id"), rs.getLong("lista_id"), rs.getLong("socio_id"),
+                    asignadoPorId, ts != null ? ts.toLocalDateTime() : null);
+        }
+
+        static FilaAsignacion de(AsignacionCambio c) {
+            return new FilaAsignacion(c.getAsignacionId(), c.getListaId(), c.getSocioId(), c.getAsignadoPorId(),
+                    c.getFechaAsignacion());
+        }
+
+        static FilaAsignacion deLinea(String linea) {
+            String[] p = linea.split(",", -1);
+            return new FilaAsignacion(Long.parseLong(p[0]), Long.parseLong(p[1]), Long.parseLong(p[2]),
+                    p[3].isEmpty() ? null : Long.parseLong(p[3]),
+                    p[4].isEmpty() ? null : LocalDateTime.parse(p[4]));
+        }
+
+        // La fecha no participa: la precisión difiere entre la entidad y la columna
+        boolean mismaAsignacion(FilaAsignacion o) {
+            return o != null && id.equals(o.id) && listaId.equals(o.listaId) && socioId.equals(o.socioId);
+        }
+
+        String aLinea() {
+            return id + "," + listaId + "," + socioId + "," + (asignadoPorId != null ? asignadoPorId : "") + ","
+                    + (fecha != null ? fecha : "");
+        }
+
+        AsignacionCambio aCambio(Operacion op) {
+            return AsignacionCambio.builder()
+                    .operacion(op)
+                    .asignacionId(id)
+                    .listaId(listaId)
+                    .socioId(socioId)
+                    .asignadoPorId(asignadoPorId)
+                    .fechaAsignacion(fecha)
+                    .build();
+        }
+    }
+}
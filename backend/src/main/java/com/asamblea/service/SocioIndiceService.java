@@ -0,0 +1,584 @@
+package com.asamblea.service;
+
+import com.asamblea.model.Socio;
+import com.asamblea.model.Sucursal;
+import com.asamblea.repository.SocioRepository;
+import com.asamblea.repository.SucursalRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Índice en memoria de socios para los caminos calientes (marcar asistencia,
+ * agregar socio a lista, buscador). Resuelve por id, número de socio o cédula y
+ * búsquedas parciales (ver {@link IndiceBusquedaSocios}) sin tocar la base de datos.
+ * - La base es inmutable y se reconstruye completa (arranque, importación, vaciados).
+ * - Las altas/bajas/modificaciones puntuales del ABM se aplican sobre una capa
+ *   de parches que se descarta en la siguiente reconstrucción.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SocioIndiceService {
+
+    private static final byte APORTE = 1;
+    private static final byte SOLIDARIDAD = 1 << 1;
+    private static final byte FONDO = 1 << 2;
+    private static final byte INCOOP = 1 << 3;
+    private static final byte CREDITO = 1 << 4;
+    private static final byte EN_PADRON = 1 << 5;
+    private static final byte VOZ_Y_VOTO = APORTE | SOLIDARIDAD | FONDO | INCOOP | CREDITO;
+
+    // Marca de socio eliminado en la capa de parches
+    private static final Object BORRADO = new Object();
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SocioRepository socioRepository;
+    private final SucursalRepository sucursalRepository;
+
+    private volatile Estado estado = new Estado(Indice.VACIO, new ConcurrentHashMap<>(), false);
+
+    // Parches recibidos mientras se reconstruye la base; pasan al nuevo estado
+    private volatile Map<String, Object> parchesEnConstruccion;
+
+    // Cambios aplicados (parches y reconstrucciones); sello de datos de ReporteJobService
+    private final AtomicLong cambios = new AtomicLong();
+
+    /**
+     * Versión compacta e inmutable de un socio (lo que necesitan el check-in,
+     * la asignación y el buscador).
+     */
+    public record SocioResumen(long id, String numeroSocio, String cedula, String nombreCompleto,
+            String telefono, SucursalResumen sucursal, byte flags) {
+
+        public boolean isAporteAlDia() {
+            return (flags & APORTE) != 0;
+        }
+
+        public boolean isSolidaridadAlDia() {
+            return (flags & SOLIDARIDAD) != 0;
+        }
+
+        public boolean isFondoAlDia() {
+            return (flags & FONDO) != 0;
+        }
+
+        public boolean isIncoopAlDia() {
+            return (flags & INCOOP) != 0;
+        }
+
+        public boolean isCreditoAlDia() {
+            return (flags & CREDITO) != 0;
+        }
+
+        public boolean isEnPadronActual() {
+            return (flags & EN_PADRON) != 0;
+        }
+
+        public boolean isEstadoVozVoto() {
+            return (flags & VOZ_Y_VOTO) == VOZ_Y_VOTO;
+        }
+
+        /**
+         * Socio desconectado (no administrado por JPA) para cálculos y respuestas.
+         * Para persistir relaciones usar socioRepository.getReferenceById(id()).
+         */
+        public Socio aSocio() {
+            Socio s = new Socio();
+            s.setId(id);
+            s.setNumeroSocio(numeroSocio);
+            s.setCedula(cedula);
+            s.setNombreCompleto(nombreCompleto);
+            s.setTelefono(telefono);
+            s.setAporteAlDia(isAporteAlDia());
+            s.setSolidaridadAlDia(isSolidaridadAlDia());
+            s.setFondoAlDia(isFondoAlDia());
+            s.setIncoopAlDia(isIncoopAlDia());
+            s.setCreditoAlDia(isCreditoAlDia());
+            s.setEnPadronActual(isEnPadronActual());
+            s.setCreatedAt(null);
+            if (sucursal != null) {
+                Sucursal suc = new Sucursal();
+                suc.setId(sucursal.id());
+                suc.setCodigo(sucursal.codigo());
+                suc.setNombre(sucursal.nombre());
+                suc.setCreatedAt(null);
+                s.setSucursal(suc);
+            }
+            return s;
+        }
+    }
+
+    public record SucursalResumen(long id, String codigo, String nombre) {
+    }
+
+    private record Estado(Indice base, Map<String, Object> parches, boolean cargado) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void cargarAlIniciar() {
+        try {
+            recargar();
+        } catch (Exception e) {
+            log.error("No se pudo cargar el índice de socios, se usará la base de datos: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Reconstruye el índice completo desde la base. Se llama al terminar una
+     * importación y después de operaciones masivas (vaciados, restauraciones).
+     */
+    public synchronized void recargar() {
+        long inicio = System.currentTimeMillis();
+        Map<String, Object> nuevosParches = new ConcurrentHashMap<>();
+        parchesEnConstruccion = nuevosParches;
+        try {
+            Map<Long, SucursalResumen> sucursales = new HashMap<>();
+            jdbcTemplate.query("SELECT id, codigo, nombre FROM sucursales", rs -> {
+                long id = rs.getLong(1);
+                sucursales.put(id, new SucursalResumen(id, rs.getString(2), rs.getString(3)));
+            });
+
+            Indice.Constructor constructor = new Indice.Constructor(sucursales);
+            jdbcTemplate.query("SELECT id, numero_socio, cedula, nombre_completo, telefono, id_sucursal, " +
+                    "aporte_al_dia, solidaridad_al_dia, fondo_al_dia, incoop_al_dia, credito_al_dia, " +
+                    "en_padron_actual FROM socios", rs -> {
+                long idSucursal = rs.getLong(6);
+                SucursalResumen sucursal = rs.wasNull() ? null : sucursales.get(idSucursal);
+                byte flags = flags(rs.getBoolean(7), rs.getBoolean(8), rs.getBoolean(9), rs.getBoolean(10),
+                        rs.getBoolean(11), rs.getBoolean(12));
+                constructor.agregar(new SocioResumen(rs.getLong(1), rs.getString(2), rs.getString(3),
+                        rs.getString(4), rs.getString(5), sucursal, flags));
+            });
+
+            Indice base = constructor.construir();
+            estado = new Estado(base, nuevosParches, true);
+            cambios.incrementAndGet();
+            log.info("🗂️ Índice de socios cargado: {} socios en {}ms", base.tamanio(),
+                    System.currentTimeMillis() - inicio);
+        } finally {
+            parchesEnConstruccion = null;
+        }
+    }
+
+    /**
+     * Contador que crece con cada cambio aplicado al índice (ABM, bajas y
+     * recargas). Sirve para saber si el padrón cambió desde una lectura anterior.
+     */
+    public long getCambios() {
+        return cambios.get();
+    }
+
+    public boolean isCargado() {
+        return estado.cargado();
+    }
+
+    public int tamanio() {
+        return estado.base().tamanio();
+    }
+
+    /**
+     * Busca primero por número de socio y luego por cédula (mismo orden que
+     * las consultas que reemplaza).
+     */
+    public Optional<SocioResumen> buscarPorTermino(String termino) {
+        if (termino == null) {
+            return Optional.empty();
+        }
+        Estado e = estado;
+        if (!e.cargado()) {
+            return socioRepository.findByNumeroSocio(termino)
+                    .or(() -> socioRepository.findByCedula(termino))
+                    .map(this::resumir);
+        }
+        SocioResumen s = resolver(e, "n" + termino, e.base().porNumero(termino));
+        if (s == null) {
+            s = resolver(e, "c" + termino, e.base().porCedula(termino));
+        }
+        return Optional.ofNullable(s);
+    }
+
+    /**
+     * Buscador de socios: si el término coincide exacto con número o cédula
+     * devuelve solo esos; si no, los mejores parciales (prefijo de número/cédula
+     * primero, después nombre/número/cédula que contienen el término, sin
+     * distinguir mayúsculas ni tildes), ordenados por nombre dentro de cada grupo.
+     */
+    public List<SocioResumen> buscar(String termino, int limite) {
+        if (termino == null || termino.isEmpty()) {
+            return List.of();
+        }
+        Estado e = estado;
+        if (!e.cargado()) {
+            List<Socio> exactos = socioRepository.buscarExacto(termino);
+            List<Socio> encontrados = !exactos.isEmpty() ? exactos : socioRepository.buscarParcial(termino);
+            return encontrados.stream().limit(limite).map(this::resumir).toList();
+        }
+
+        // 1. Exactos por número o cédula
+        List<SocioResumen> exactos = new ArrayList<>(2);
+        SocioResumen porNumero = resolver(e, "n" + termino, e.base().porNumero(termino));
+        SocioResumen porCedula = resolver(e, "c" + termino, e.base().porCedula(termino));
+        if (porNumero != null) {
+            exactos.add(porNumero);
+        }
+        if (porCedula != null && (porNumero == null || porCedula.id() != porNumero.id())) {
+            exactos.add(porCedula);
+        }
+        if (!exactos.isEmpty()) {
+            return exactos;
+        }
+
+        // 2. Parciales desde el índice de búsqueda (los socios parcheados se evalúan aparte)
+        Indice base = e.base();
+        Map<String, Object> parches = e.parches();
+        long[] claves = base.busqueda().buscar(termino, limite,
+                parches.isEmpty() ? pos -> false : pos -> parches.containsKey("i" + base.socio(pos).id()));
+        List<SocioResumen> resultado = new ArrayList<>(claves.length);
+        if (parches.isEmpty()) {
+            for (long clave : claves) {
+                resultado.add(base.socio((int) clave));
+            }
+            return resultado;
+        }
+
+        record Candidato(int rango, String nombre, SocioResumen socio) {
+        }
+        List<Candidato> candidatos = new ArrayList<>();
+        for (long clave : claves) {
+            SocioResumen s = base.socio((int) clave);
+            candidatos.add(new Candidato((int) (clave >>> 32), IndiceBusquedaSocios.plegar(s.nombreCompleto()), s));
+        }
+        parches.forEach((clave, valor) -> {
+            if (clave.startsWith("i") && valor instanceof SocioResumen s) {
+                int rango = IndiceBusquedaSocios.rango(termino, s.nombreCompleto(), s.numeroSocio(), s.cedula());
+                if (rango >= 0) {
+                    candidatos.add(new Candidato(rango, IndiceBusquedaSocios.plegar(s.nombreCompleto()), s));
+                }
+            }
+        });
+        candidatos.sort(Comparator.comparingInt(Candidato::rango).thenComparing(Candidato::nombre)
+                .thenComparingLong(c -> c.socio().id()));
+        for (int i = 0; i < candidatos.size() && i < limite; i++) {
+            resultado.add(candidatos.get(i).socio());
+        }
+        return resultado;
+    }
+
+    public Optional<SocioResumen> buscarPorId(Long id) {
+        if (id == null) {
+            return Optional.empty();
+        }
+        Estado e = estado;
+        if (!e.cargado()) {
+            return socioRepository.findById(id).map(this::resumir);
+        }
+        return Optional.ofNullable(resolver(e, "i" + id, e.base().porId(id)));
+    }
+
+    /**
+     * Aplica un alta o modificación del ABM. Si hay una transacción en curso se
+     * aplica al confirmarse.
+     */
+    public void actualizar(Socio socio) {
+        if (socio == null || socio.getId() == null) {
+            return;
+        }
+        SocioResumen nuevo = resumir(socio);
+        TransaccionUtil.alConfirmar(() -> {
+            Optional<SocioResumen> anterior = buscarPorId(nuevo.id());
+            anterior.ifPresent(a -> {
+                if (!a.numeroSocio().equals(nuevo.numeroSocio())) {
+                    parchear("n" + a.numeroSocio(), BORRADO);
+                }
+                if (!a.cedula().equals(nuevo.cedula())) {
+                    parchear("c" + a.cedula(), BORRADO);
+                }
+            });
+            parchear("i" + nuevo.id(), nuevo);
+            parchear("n" + nuevo.numeroSocio(), nuevo);
+            parchear("c" + nuevo.cedula(), nuevo);
+            cambios.incrementAndGet();
+        });
+    }
+
+    /**
+     * Aplica la baja de un socio. Si hay una transacción en curso se aplica al
+     * confirmarse.
+     */
+    public void eliminar(Long id) {
+        if (id == null) {
+            return;
+        }
+        TransaccionUtil.alConfirmar(() -> buscarPorId(id).ifPresent(a -> {
+            parchear("i" + a.id(), BORRADO);
+            parchear("n" + a.numeroSocio(), BORRADO);
+            parchear("c" + a.cedula(), BORRADO);
+            cambios.incrementAndGet();
+        }));
+    }
+
+    /**
+     * Invalida el índice completo tras una operación masiva sobre socios. Si hay
+     * una transacción en curso se recarga al confirmarse.
+     */
+    public void invalidar() {
+        TransaccionUtil.alConfirmar(() -> {
+            try {
+                recargar();
+            } catch (Exception e) {
+                log.error("Error recargando índice de socios: {}", e.getMessage());
+                estado = new Estado(Indice.VACIO, new ConcurrentHashMap<>(), false);
+                cambios.incrementAndGet();
+            }
+        });
+    }
+
+    @EventListener
+    public void alReemplazarDatos(DatosReemplazadosEvent evento) {
+        log.info("🔄 Cambio masivo ({}): se recarga el índice de socios", evento.motivo());
+        invalidar();
+    }
+
+    private SocioResumen resolver(Estado e, String clave, SocioResumen deBase) {
+        Object parche = e.parches().get(clave);
+        if (parche == BORRADO) {
+            return null;
+        }
+        return parche != null ? (SocioResumen) parche : deBase;
+    }
+
+    private void parchear(String clave, Object valor) {
+        estado.parches().put(clave, valor);
+        Map<String, Object> enConstruccion = parchesEnConstruccion;
+        if (enConstruccion != null) {
+            enConstruccion.put(clave, valor);
+        }
+    }
+
+    private SocioResumen resumir(Socio s) {
+        SucursalResumen sucursal = null;
+        Sucursal suc = s.getSucursal();
+        if (suc != null && suc.getId() != null) {
+            // El ABM puede recibir solo el id de la sucursal
+            sucursal = estado.base().sucursal(suc.getId());
+            if (sucursal == null) {
+                Sucursal completa = suc.getNombre() != null ? suc
+                        : sucursalRepository.findById(suc.getId()).orElse(null);
+                if (completa != null) {
+                    sucursal = new SucursalResumen(completa.getId(), completa.getCodigo(), completa.getNombre());
+                }
+            }
+        }
+        return new SocioResumen(s.getId(), s.getNumeroSocio(), s.getCedula(), s.getNombreCompleto(),
+                s.getTelefono(), sucursal,
+                flags(s.isAporteAlDia(), s.isSolidaridadAlDia(), s.isFondoAlDia(), s.isIncoopAlDia(),
+                        s.isCreditoAlDia(), s.isEnPadronActual()));
+    }
+
+    private static byte flags(boolean aporte, boolean solidaridad, boolean fondo, boolean incoop,
+            boolean credito, boolean enPadron) {
+        int f = 0;
+        if (aporte) f |= APORTE;
+        if (solidaridad) f |= SOLIDARIDAD;
+        if (fondo) f |= FONDO;
+        if (incoop) f |= INCOOP;
+        if (credito) f |= CREDITO;
+        if (enPadron) f |= EN_PADRON;
+        return (byte) f;
+    }
+
+    /**
+     * Base inmutable: arreglo de socios ordenado por nombre + mapas long→posición.
+     * Los números de socio y cédulas puramente numéricos (sin ceros a la
+     * izquierda) usan el mapa primitivo; el resto cae a un HashMap de texto.
+     */
+    private static final class Indice {
+
+        static final Indice VACIO = new Constructor(Map.of()).construir();
+
+        private final SocioResumen[] socios;
+        private final LongIntMap porId;
+        private final LongIntMap porNumero;
+        private final LongIntMap porCedula;
+        private final Map<String, Integer> porNumeroTexto;
+        private final Map<String, Integer> porCedulaTexto;
+        private final Map<Long, SucursalResumen> sucursales;
+        private final IndiceBusquedaSocios busqueda;
+
+        private Indice(Constructor c) {
+            // Orden alfabético (sin tildes) para que el buscador recorra en orden de nombre
+            record Entrada(String nombre, SocioResumen socio) {
+            }
+            Entrada[] entradas = new Entrada[c.socios.size()];
+            for (int i = 0; i < entradas.length; i++) {
+                SocioResumen s = c.socios.get(i);
+                entradas[i] = new Entrada(IndiceBusquedaSocios.plegar(s.nombreCompleto()), s);
+            }
+            Arrays.sort(entradas, Comparator.comparing(Entrada::nombre).thenComparingLong(en -> en.socio().id()));
+            this.socios = new SocioResumen[entradas.length];
+            String[] nombres = new String[entradas.length];
+            String[] numeros = new String[entradas.length];
+            String[] cedulas = new String[entradas.length];
+            for (int i = 0; i < entradas.length; i++) {
+                socios[i] = entradas[i].socio();
+                nombres[i] = entradas[i].nombre();
+                numeros[i] = socios[i].numeroSocio();
+                cedulas[i] = socios[i].cedula();
+            }
+            this.busqueda = new IndiceBusquedaSocios(nombres, numeros, cedulas);
+            this.porId = new LongIntMap(socios.length);
+            this.porNumero = new LongIntMap(socios.length);
+            this.porCedula = new LongIntMap(socios.length);
+            this.porNumeroTexto = new HashMap<>();
+            this.porCedulaTexto = new HashMap<>();
+            this.sucursales = c.sucursales;
+            for (int i = 0; i < socios.length; i++) {
+                SocioResumen s = socios[i];
+                porId.put(s.id(), i);
+                indexar(s.numeroSocio(), i, porNumero, porNumeroTexto);
+                indexar(s.cedula(), i, porCedula, porCedulaTexto);
+            }
+        }
+
+        int tamanio() {
+            return socios.length;
+        }
+
+        SocioResumen socio(int pos) {
+            return socios[pos];
+        }
+
+        IndiceBusquedaSocios busqueda() {
+            return busqueda;
+        }
+
+        SocioResumen porId(long id) {
+            int i = porId.get(id);
+            return i < 0 ? null : socios[i];
+        }
+
+        SocioResumen porNumero(String numero) {
+            return buscar(numero, porNumero, porNumeroTexto);
+        }
+
+        SocioResumen porCedula(String cedula) {
+            return buscar(cedula, porCedula, porCedulaTexto);
+        }
+
+        SucursalResumen sucursal(long id) {
+            return sucursales.get(id);
+        }
+
+        private SocioResumen buscar(String clave, LongIntMap numerico, Map<String, Integer> texto) {
+            long n = claveNumerica(clave);
+            int i;
+            if (n >= 0) {
+                i = numerico.get(n);
+            } else {
+                Integer pos = texto.get(clave);
+                i = pos != null ? pos : -1;
+            }
+            return i < 0 ? null : socios[i];
+        }
+
+        private static void indexar(String clave, int pos, LongIntMap numerico, Map<String, Integer> texto) {
+            if (clave == null) {
+                return;
+            }
+            long n = claveNumerica(clave);
+            if (n >= 0) {
+                numerico.put(n, pos);
+            } else {
+                texto.put(clave, pos);
+            }
+        }
+
+        /**
+         * Valor numérico si la clave es canónica ("0" o dígitos sin cero inicial,
+         * hasta 18); si no, -1 para que "0123" y "123" no colisionen.
+         */
+        private static long claveNumerica(String s) {
+            int len = s.length();
+            if (len == 0 || len > 18 || (len > 1 && s.charAt(0) == '0')) {
+                return -1;
+            }
+            long n = 0;
+            for (int i = 0; i < len; i++) {
+                char c = s.charAt(i);
+                if (c < '0' || c > '9') {
+                    return -1;
+                }
+                n = n * 10 + (c - '0');
+            }
+            return n;
+        }
+
+        static final class Constructor {
+            private final List<SocioResumen> socios = new ArrayList<>();
+            private final Map<Long, SucursalResumen> sucursales;
+
+            Constructor(Map<Long, SucursalResumen> sucursales) {
+                this.sucursales = sucursales;
+            }
+
+            void agregar(SocioResumen s) {
+                socios.add(s);
+            }
+
+            Indice construir() {
+                return new Indice(this);
+            }
+        }
+    }
+
+    /**
+     * Mapa long→int de direccionamiento abierto (sondeo lineal), sin boxing.
+     * Solo se escribe durante la construcción; después es de solo lectura.
+     */
+    private static final class LongIntMap {
+        private final long[] claves;
+        // posición + 1; 0 = vacío
+        private final int[] valores;
+        private final int mascara;
+
+        LongIntMap(int esperados) {
+            int capacidad = Integer.highestOneBit(Math.max(4, esperados * 2 - 1)) << 1;
+            this.claves = new long[capacidad];
+            this.valores = new int[capacidad];
+            this.mascara = capacidad - 1;
+        }
+
+        void put(long clave, int valor) {
+            int i = slot(clave);
+            while (valores[i] != 0 && claves[i] != clave) {
+                i = (i + 1) & mascara;
+            }
+            claves[i] = clave;
+            valores[i] = valor + 1;
+        }
+
+        int get(long clave) {
+            int i = slot(clave);
+            while (valores[i] != 0) {
+                if (claves[i] == clave) {
+                    return valores[i] - 1;
+                }
+                i = (i + 1) & mascara;
+            }
+            return -1;
+        }
+
+        private int slot(long clave) {
+            long h = clave * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32)) & mascara;
+        }
+    }
+}
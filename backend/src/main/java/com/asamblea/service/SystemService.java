@@ -1,6 +1,7 @@
 package com.asamblea.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -11,6 +12,12 @@ public class SystemService {
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
+    @Autowired
+    private SnapshotAsignacionesService snapshotAsignacionesService;
+
+    @Autowired
+    private ApplicationEventPublisher eventos;
+
     @Transactional
     public void resetAllData() {
         // Desactivar restricciones de llaves foráneas para poder truncar
@@ -20,7 +27,9 @@ public class SystemService {
         // acceso ni estructura base)
         jdbcTemplate.execute("TRUNCATE TABLE asistencias");
         jdbcTemplate.execute("TRUNCATE TABLE asignaciones_socios");
+        snapshotAsignacionesService.registrarVaciado();
         jdbcTemplate.execute("TRUNCATE TABLE socios");
+        eventos.publishEvent(new DatosReemplazadosEvent("RESET_DATOS"));
         jdbcTemplate.execute("TRUNCATE TABLE auditoria");
 
         // También podemos resetear asambleas si se desea un reinicio total
@@ -37,9 +46,11 @@ public class SystemService {
         // Reinicio total incluyendo usuarios y sucursales
         jdbcTemplate.execute("TRUNCATE TABLE asistencias");
         jdbcTemplate.execute("TRUNCATE TABLE asignaciones_socios");
+        snapshotAsignacionesService.registrarVaciado();
         jdbcTemplate.execute("TRUNCATE TABLE socios");
         jdbcTemplate.execute("TRUNCATE TABLE auditoria");
         jdbcTemplate.execute("TRUNCATE TABLE usuarios");
+        eventos.publishEvent(new DatosReemplazadosEvent("RESET_TOTAL"));
         jdbcTemplate.execute("TRUNCATE TABLE sucursales");
         jdbcTemplate.execute("TRUNCATE TABLE asambleas");
         jdbcTemplate.execute("TRUNCATE TABLE configuracion");
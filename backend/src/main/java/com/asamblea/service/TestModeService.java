@@ -1,6 +1,7 @@
 package com.asamblea.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -26,6 +27,9 @@ public class TestModeService {
     @Autowired
     private LogAuditoriaService logAuditoriaService;
 
+    @Autowired
+    private ApplicationEventPublisher eventos;
+
     // Tablas que se van a respaldar (en orden de dependencia para FK)
     private static final String[] BACKUP_TABLES = {
             "asistencias",
@@ -209,6 +213,9 @@ public class TestModeService {
             // Reactivar verificación de claves foráneas
             jdbcTemplate.execute("SET FOREIGN_KEY_CHECKS = 1");
 
+            // Las tablas se reemplazaron por fuera de JPA
+            eventos.publishEvent(new DatosReemplazadosEvent("MODO_PRUEBA"));
+
             // Guardar configuración
             configuracionService.guardar("MODO_PRUEBA", "false");
             configuracionService.guardar("MODO_PRUEBA_ACTIVADO_EN", null);
@@ -0,0 +1,353 @@
+package com.asamblea.service;
+
+import com.asamblea.model.Conversacion;
+import com.asamblea.model.Usuario;
+import com.asamblea.repository.AvisoDestinatarioRepository;
+import com.asamblea.repository.ConversacionRepository;
+import com.asamblea.repository.UsuarioRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.user.SimpUser;
+import org.springframework.messaging.simp.user.SimpUserRegistry;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Push en vivo por STOMP (ver WebSocketConfig) para reemplazar el polling de
+ * la pantalla pública, el dashboard y los contadores de no leídos.
+ * Nada se envía en el hilo de la petición: las escrituras solo marcan qué
+ * cambió y un tick corto publica lo pendiente, respetando un intervalo mínimo
+ * por tópico. Así una ráfaga de check-ins se traduce en un mensaje por
+ * intervalo y no en uno por check-in.
+ *
+ * Tópicos:
+ * - /topic/dashboard: secciones de contadores que cambiaron (estadisticas,
+ *   metas, distribucionSucursales), mismo formato que los GET de /api/public.
+ * - /topic/asistencias y /topic/asignaciones: lotes de eventos nuevos, leídos
+ *   del feed de ActividadRecienteService por cursor (cada evento trae su seq).
+ * - /topic/ranking: top de funcionarios, recalculado cuando se mueven metas
+ *   o asignaciones en los contadores.
+ * - /user/queue/no-leidos: chat y avisos sin leer del usuario conectado.
+ * - /user/queue/chat: mensajes nuevos, avisos de lectura y conversaciones
+ *   nuevas, para el dueño de la conversación y los administradores. Estos
+ *   no se agrupan: cada evento se entrega en el tick siguiente.
+ * - /user/queue/reportes: reportes en cola (ReporteJobService) que terminaron.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TiempoRealService {
+
+    public static final String TOPICO_DASHBOARD = "/topic/dashboard";
+    public static final String TOPICO_ASISTENCIAS = "/topic/asistencias";
+    public static final String TOPICO_ASIGNACIONES = "/topic/asignaciones";
+    public static final String TOPICO_RANKING = "/topic/ranking";
+    public static final String COLA_NO_LEIDOS = "/queue/no-leidos";
+    public static final String COLA_REPORTES = "/queue/reportes";
+    public static final String COLA_CHAT = "/queue/chat";
+
+    // Tope de eventos por lote; los que excedan solo se informan como "omitidos"
+    private static final int MAX_EVENTOS_LOTE = 100;
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final SimpUserRegistry userRegistry;
+    private final ContadoresEnVivoService contadoresEnVivoService;
+    private final ActividadRecienteService actividadRecienteService;
+    private final UsuarioRepository usuarioRepository;
+    private final ConversacionRepository conversacionRepository;
+    private final AvisoDestinatarioRepository avisoDestinatarioRepository;
+
+    @Value("${tiempo-real.dashboard-ms:500}")
+    private long intervaloDashboardMs = 500;
+
+    @Value("${tiempo-real.eventos-ms:250}")
+    private long intervaloEventosMs = 250;
+
+    @Value("${tiempo-real.ranking-ms:5000}")
+    private long intervaloRankingMs = 5000;
+
+    @Value("${tiempo-real.no-leidos-ms:1000}")
+    private long intervaloNoLeidosMs = 1000;
+
+    private final CursorEventos asistencias = new CursorEventos(TOPICO_ASISTENCIAS,
+            ActividadRecienteService.Tipo.ASISTENCIA);
+    private final CursorEventos asignaciones = new CursorEventos(TOPICO_ASIGNACIONES,
+            ActividadRecienteService.Tipo.ASIGNACION);
+
+    // Última foto de contadores publicada (las fotos son inmutables: basta comparar referencias)
+    private ContadoresEnVivoService.Contadores dashboardPublicado;
+    private long ultimoDashboard;
+
+    private final AtomicBoolean rankingPendiente = new AtomicBoolean(true);
+    private List<Map<String, Object>> rankingPublicado;
+    private long ultimoRanking;
+
+    // Usuarios con contadores de no leídos por recalcular; "admins" cubre el chat compartido
+    private final Set<String> noLeidosPendientes = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean noLeidosAdminsPendiente = new AtomicBoolean();
+    private final Map<String, Long> ultimoNoLeidos = new ConcurrentHashMap<>();
+
+    /**
+     * Evento de chat por entregar: al dueño de la conversación (si no es null)
+     * y a los administradores conectados.
+     */
+    private record EventoChat(String usuario, Map<String, Object> datos) {
+    }
+
+    private final Queue<EventoChat> eventosChat = new ConcurrentLinkedQueue<>();
+
+    // ========================================================================
+    // AVISOS DE CAMBIO (llamados desde los caminos de escritura)
+    // ========================================================================
+
+    /**
+     * Cambiaron los no leídos (chat o avisos) de este usuario.
+     */
+    public void marcarNoLeidos(String username) {
+        if (username != null) {
+            TransaccionUtil.alConfirmar(() -> noLeidosPendientes.add(username));
+        }
+    }
+
+    /**
+     * Cambió el contador de chat compartido por los administradores.
+     */
+    public void marcarNoLeidosAdmins() {
+        TransaccionUtil.alConfirmar(() -> noLeidosAdminsPendiente.set(true));
+    }
+
+    /**
+     * Mensaje nuevo en la conversación (mismo formato que el REST).
+     */
+    public void publicarMensajeChat(Conversacion conv, Map<String, Object> mensaje) {
+        Map<String, Object> datos = new HashMap<>();
+        datos.put("tipo", "mensaje");
+        datos.put("conversacionId", conv.getId());
+        datos.put("mensaje", mensaje);
+        encolarChat(conv, datos);
+    }
+
+    /**
+     * El rol lector (ADMIN o USUARIO) leyó los mensajes del otro lado.
+     */
+    public void publicarLeidosChat(Conversacion conv, String lector, Object readAt) {
+        Map<String, Object> datos = new HashMap<>();
+        datos.put("tipo", "leidos");
+        datos.put("conversacionId", conv.getId());
+        datos.put("lector", lector);
+        datos.put("readAt", readAt);
+        encolarChat(conv, datos);
+    }
+
+    /**
+     * Conversación recién creada: solo cambia la lista de los administradores.
+     */
+    public void publicarConversacionChat(Conversacion conv) {
+        Map<String, Object> datos = new HashMap<>();
+        datos.put("tipo", "conversacion");
+        datos.put("conversacionId", conv.getId());
+        TransaccionUtil.alConfirmar(() -> eventosChat.add(new EventoChat(null, datos)));
+    }
+
+    private void encolarChat(Conversacion conv, Map<String, Object> datos) {
+        String usuario = conv.getUsuario() != null ? conv.getUsuario().getUsername() : null;
+        TransaccionUtil.alConfirmar(() -> eventosChat.add(new EventoChat(usuario, datos)));
+    }
+
+    /**
+     * Aviso de reporte terminado (listo o con error). Se llama desde los
+     * workers de reportes, no desde una petición, así que se envía directo.
+     */
+    public void notificarReporte(String username, Map<String, Object> trabajo) {
+        if (username == null || userRegistry.getUser(username) == null) {
+            return;
+        }
+        try {
+            messagingTemplate.convertAndSendToUser(username, COLA_REPORTES, trabajo);
+        } catch (Exception e) {
+            log.warn("⚠️ No se pudo avisar el reporte terminado a {}: {}", username, e.getMessage());
+        }
+    }
+
+    // ========================================================================
+    // PUBLICACIÓN
+    // ========================================================================
+
+    @Scheduled(fixedDelayString = "${tiempo-real.tick-ms:100}")
+    public void publicarPendientes() {
+        long ahora = System.currentTimeMillis();
+        try {
+            asistencias.publicar(ahora);
+            asignaciones.publicar(ahora);
+            publicarDashboard(ahora);
+            publicarRanking(ahora);
+            publicarNoLeidos(ahora);
+            publicarChat();
+        } catch (Exception e) {
+            log.warn("⚠️ Error publicando actualizaciones en vivo: {}", e.getMessage());
+        }
+    }
+
+    private void publicarDashboard(long ahora) {
+        if (ahora - ultimoDashboard < intervaloDashboardMs) {
+            return;
+        }
+        ContadoresEnVivoService.Contadores c = contadoresEnVivoService.obtener();
+        ContadoresEnVivoService.Contadores previo = dashboardPublicado;
+        if (c == previo) {
+            return;
+        }
+        // Delta por sección: solo viaja lo que cambió
+        Map<String, Object> delta = new HashMap<>();
+        if (previo == null || c.totalPadron() != previo.totalPadron() || c.conVozYVoto() != previo.conVozYVoto()
+                || c.soloVoz() != previo.soloVoz() || c.presentes() != previo.presentes()
+                || c.presentesVyV() != previo.presentesVyV()) {
+            delta.put("estadisticas", c.aEstadisticas());
+        }
+        if (previo == null || c.metaGlobal() != previo.metaGlobal() || c.metaAsesores() != previo.metaAsesores()
+                || c.metaFuncionarios() != previo.metaFuncionarios()
+                || c.registradosVyV() != previo.registradosVyV()
+                || c.registradosVyVAsesores() != previo.registradosVyVAsesores()
+                || c.registradosVyVFuncionarios() != previo.registradosVyVFuncionarios()) {
+            delta.put("metas", c.aMetas());
+        }
+        if (previo == null || !c.porSucursal().equals(previo.porSucursal())) {
+            delta.put("distribucionSucursales", c.aDistribucion());
+        }
+        dashboardPublicado = c;
+        // Metas o asignaciones movidas (incluye bajas, importaciones y vaciados): el ranking puede cambiar
+        if (delta.containsKey("metas") || delta.containsKey("distribucionSucursales")) {
+            rankingPendiente.set(true);
+        }
+        if (!delta.isEmpty()) {
+            messagingTemplate.convertAndSend(TOPICO_DASHBOARD, delta);
+            ultimoDashboard = ahora;
+        }
+    }
+
+    private void publicarRanking(long ahora) {
+        if (ahora - ultimoRanking < intervaloRankingMs || !rankingPendiente.getAndSet(false)) {
+            return;
+        }
+        ultimoRanking = ahora;
+        List<Map<String, Object>> ranking = contadoresEnVivoService.rankingFuncionarios();
+        if (!ranking.equals(rankingPublicado)) {
+            rankingPublicado = ranking;
+            messagingTemplate.convertAndSend(TOPICO_RANKING, ranking);
+        }
+    }
+
+    private void publicarNoLeidos(long ahora) {
+        if (noLeidosAdminsPendiente.getAndSet(false)) {
+            for (SimpUser u : userRegistry.getUsers()) {
+                if (esAdmin(u)) {
+                    noLeidosPendientes.add(u.getName());
+                }
+            }
+        }
+        if (noLeidosPendientes.isEmpty()) {
+            return;
+        }
+        for (String username : new ArrayList<>(noLeidosPendientes)) {
+            // Sin sesión STOMP abierta no hay a quién avisar; leerá por REST al entrar
+            if (userRegistry.getUser(username) == null) {
+                noLeidosPendientes.remove(username);
+                continue;
+            }
+            Long ultimo = ultimoNoLeidos.get(username);
+            if (ultimo != null && ahora - ultimo < intervaloNoLeidosMs) {
+                continue;
+            }
+            noLeidosPendientes.remove(username);
+            ultimoNoLeidos.put(username, ahora);
+            usuarioRepository.findByUsername(username).ifPresent(usuario -> {
+                int chat;
+                if (usuario.getRol() == Usuario.Rol.SUPER_ADMIN || usuario.getRol() == Usuario.Rol.DIRECTIVO) {
+                    chat = conversacionRepository.countTotalUnreadForAdmin();
+                } else {
+                    Integer c = conversacionRepository.countUnreadForUsuario(usuario.getId());
+                    chat = c != null ? c : 0;
+                }
+                int avisos = avisoDestinatarioRepository.countByUsuarioIdAndLeidoAtIsNull(usuario.getId());
+                messagingTemplate.convertAndSendToUser(username, COLA_NO_LEIDOS,
+                        Map.of("chat", chat, "avisos", avisos));
+            });
+        }
+        // Limpieza de usuarios que ya no están conectados
+        ultimoNoLeidos.keySet().removeIf(u -> userRegistry.getUser(u) == null);
+    }
+
+    private void publicarChat() {
+        if (eventosChat.isEmpty()) {
+            return;
+        }
+        List<String> admins = new ArrayList<>();
+        for (SimpUser u : userRegistry.getUsers()) {
+            if (esAdmin(u)) {
+                admins.add(u.getName());
+            }
+        }
+        EventoChat evento;
+        while ((evento = eventosChat.poll()) != null) {
+            Set<String> destinatarios = new LinkedHashSet<>(admins);
+            if (evento.usuario() != null && userRegistry.getUser(evento.usuario()) != null) {
+                destinatarios.add(evento.usuario());
+            }
+            for (String username : destinatarios) {
+                messagingTemplate.convertAndSendToUser(username, COLA_CHAT, evento.datos());
+            }
+        }
+    }
+
+    private static boolean esAdmin(SimpUser u) {
+        if (u.getPrincipal() instanceof Authentication a) {
+            return a.getAuthorities().stream().anyMatch(g -> g.getAuthority().equals("ROLE_SUPER_ADMIN")
+                    || g.getAuthority().equals("ROLE_DIRECTIVO"));
+        }
+        return false;
+    }
+
+    /**
+     * Posición en el feed hasta la que ya se publicó un tópico.
+     */
+    private class CursorEventos {
+        private final String topico;
+        private final ActividadRecienteService.Tipo tipo;
+        private Long cursor;
+        private long ultimo;
+
+        CursorEventos(String topico, ActividadRecienteService.Tipo tipo) {
+            this.topico = topico;
+            this.tipo = tipo;
+        }
+
+        void publicar(long ahora) {
+            if (ahora - ultimo < intervaloEventosMs) {
+                return;
+            }
+            if (cursor == null) {
+                // Primer tick: lo anterior al arranque no es novedad
+                cursor = actividadRecienteService.ultimoSeq();
+                return;
+            }
+            ActividadRecienteService.Posteriores nuevos = actividadRecienteService.posteriores(tipo, cursor,
+                    MAX_EVENTOS_LOTE);
+            cursor = nuevos.cursor();
+            if (nuevos.eventos().isEmpty()) {
+                return;
+            }
+            ultimo = ahora;
+            List<Map<String, Object>> lote = nuevos.eventos().stream()
+                    .map(ActividadRecienteService.Evento::datos).toList();
+            messagingTemplate.convertAndSend(topico, Map.of("eventos", lote, "omitidos", nuevos.omitidos()));
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.asamblea.service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Acciones en memoria (caches, contadores, colas de eventos) atadas a la
+ * transacción del llamador.
+ */
+public final class TransaccionUtil {
+
+    private TransaccionUtil() {
+    }
+
+    /**
+     * Ejecuta la acción al confirmarse la transacción en curso (nunca si hace
+     * rollback) o enseguida si no hay transacción.
+     */
+    public static void alConfirmar(Runnable accion) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    accion.run();
+                }
+            });
+        } else {
+            accion.run();
+        }
+    }
+
+    /**
+     * Como {@link #alConfirmar(Runnable)}, y además ejecuta alTerminar cuando
+     * la transacción termina, confirmada o no (después de accion si confirmó).
+     */
+    public static void alConfirmar(Runnable accion, Runnable alTerminar) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    accion.run();
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    alTerminar.run();
+                }
+            });
+        } else {
+            try {
+                accion.run();
+            } finally {
+                alTerminar.run();
+            }
+        }
+    }
+}
@@ -31,7 +31,8 @@ export default function AuditoriaPage() {
     const [logs, setLogs] = useState<LogEntry[]>([]);
     const [loading, setLoading] = useState(true);
     const [page, setPage] = useState(0);
-    const [totalPages, setTotalPages] = useState(0);
+    // cursores[i] = cursor para pedir la página i (la API pagina por cursor, no por número)
+    const [cursores, setCursores] = useState<(string | null)[]>([null]);
     const [searchTerm, setSearchTerm] = useState("");
     const [filterModulo, setFilterModulo] = useState("TODOS");
 
@@ -69,11 +70,12 @@ export default function AuditoriaPage() {
         setLoading(true);
         try {
             const token = localStorage.getItem("token");
-            const res = await axios.get(`/api/auditoria?page=${pageNum}&size=20`, {
+            const cursor = pageNum > 0 ? cursores[pageNum] : null;
+            const res = await axios.get(`/api/auditoria?size=20${cursor ? `&cursor=${encodeURIComponent(cursor)}` : ''}`, {
                 headers: { Authorization: `Bearer ${token}` }
             });
             setLogs(res.data.content);
-            setTotalPages(res.data.totalPages);
+            setCursores(prev => [...prev.slice(0, pageNum + 1), res.data.siguiente]);
             setPage(pageNum);
         } catch (error) {
             console.error("Error al cargar auditoría:", error);
@@ -457,7 +459,7 @@ export default function AuditoriaPage() {
                         {/* Paginación Premium */}
                         <div className="px-8 py-6 bg-slate-50/50 border-t border-slate-100 flex items-center justify-between">
                             <span className="text-xs font-black text-slate-400 uppercase tracking-widest">
-                                PÁGINA {page + 1} DE {totalPages || 1}
+                                PÁGINA {page + 1}
                             </span>
                             <div className="flex gap-2">
                                 <button
@@ -469,7 +471,7 @@ export default function AuditoriaPage() {
                                 </button>
                                 <button
                                     onClick={() => fetchLogs(page + 1)}
-                                    disabled={page>= totalPages-1 || loading}
+                                    disabled={!cursores[page + 1] || loading}
                                     className="p-2.5 rounded-xl border border-slate-200 bg-white text-slate-600 disabled:opacity-30 hover:bg-slate-50 transition-all shadow-sm"
                                 >
                                     <ChevronRight className="h-5 w-5" />
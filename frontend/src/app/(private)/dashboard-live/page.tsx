@@ -13,6 +13,7 @@ import {
 } from 'recharts';
 import { motion, AnimatePresence } from 'framer-motion';
 import axios from "axios";
+import { suscribir, alReconectar, agrupar } from "@/lib/tiempoReal";
 
 interface Asistencia {
     id: number;
@@ -184,24 +185,42 @@ export default function DashboardEnVivoPage() {
             const regsPorSuc = Object.values(sucursalMap).sort((a, b) => b.totalRegistros-a.totalRegistros);
             setRegistrosPorSucursal(regsPorSuc);
             // =====================================================
-
-            const quorum = Math.floor(statsRes.data.totalPadron /2) + 1;
-            if (statsRes.data.presentes>= quorum && !quorumReached) {
-                setQuorumReached(true);
-            }
         } catch (error) {
             console.error("Error fetching data:", error);
         } finally {
             setIsLoading(false);
         }
-    }, [quorumReached]);
+    }, []);
 
     useEffect(() => {
         fetchData();
-        const interval = setInterval(fetchData, 10000);
-        return () => clearInterval(interval);
     }, [fetchData]);
 
+    // Los contadores llegan por el canal en vivo; llegadas, ranking y sucursales
+    // no vienen en el mensaje y se releen, a lo sumo una vez cada 3 segundos
+    useEffect(() => {
+        const refresco = agrupar(fetchData, 3000);
+        const bajas = [
+            suscribir("/topic/dashboard", (delta) => {
+                if (delta.estadisticas) {
+                    setStats(prev => prev ? { ...prev, ...delta.estadisticas } : prev);
+                }
+                if (delta.metas || delta.distribucionSucursales) refresco.disparar();
+            }),
+            suscribir("/topic/asistencias", () => refresco.disparar()),
+            alReconectar(refresco.disparar)
+        ];
+        return () => {
+            bajas.forEach(baja => baja());
+            refresco.cancelar();
+        };
+    }, [fetchData]);
+
+    useEffect(() => {
+        if (!stats || quorumReached) return;
+        if (stats.presentes >= Math.floor(stats.totalPadron / 2) + 1) setQuorumReached(true);
+    }, [stats, quorumReached]);
+
     if (isLoading || !stats) {
         return (
             <div className="min-h-screen bg-gradient-to-br from-slate-100 via-slate-50 to-teal-50 flex items-center justify-center">
@@ -29,6 +29,7 @@ import {
 import { motion, AnimatePresence } from "framer-motion";
 import Swal from "sweetalert2";
 import { cn } from "@/lib/utils";
+import { descargarReporte } from "@/lib/reportes";
 
 interface RankingUser {
     id: number;
@@ -216,29 +217,15 @@ export default function GestionListasPage() {
         }
     };
 
-    // Exportar PDF General (toda la gestión de listas)
+    // Exportar PDF General (toda la gestión de listas), generado en la cola de reportes
     const handleExportPdfGeneral = async () => {
         if (downloadingPdf) return;
         setDownloadingPdf("general");
         try {
-            const token = localStorage.getItem("token");
-            const response = await axios.get("/api/asignaciones/export-pdf-general", {
-                headers: { Authorization: `Bearer ${token}` },
-                responseType: 'blob'
-            });
-
-            const blob = new Blob([response.data], { type: 'application/pdf' });
-            const url = window.URL.createObjectURL(blob);
-            const link = document.createElement('a');
-            link.href = url;
-            link.download = "gestion_listas_general.pdf";
-            document.body.appendChild(link);
-            link.click();
-            document.body.removeChild(link);
-            window.URL.revokeObjectURL(url);
-        } catch (error) {
+            await descargarReporte("/api/asignaciones/export-pdf-general/job", "gestion_listas_general.pdf");
+        } catch (error: any) {
             console.error("Error exporting PDF:", error);
-            Swal.fire("Error", "No se pudo descargar el PDF", "error");
+            Swal.fire("Error", error?.message || "No se pudo descargar el PDF", "error");
         } finally {
             setDownloadingPdf(null);
         }
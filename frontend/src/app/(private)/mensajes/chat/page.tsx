@@ -4,6 +4,8 @@ import { useState, useEffect, useRef } from 'react';
 import { motion, AnimatePresence } from 'framer-motion';
 import { Search, Send, User, MessageCircle, Clock, Check, CheckCheck, Sparkles } from 'lucide-react';
 import axios from 'axios';
+import { escucharChat, aplicarEventos, conRecientes, EventoChat } from '@/lib/chatEnVivo';
+import { alReconectar, agrupar } from '@/lib/tiempoReal';
 
 interface Conversacion {
     id: number;
@@ -27,6 +29,9 @@ export default function AdminChatPage() {
     const [conversaciones, setConversaciones] = useState<Conversacion[]>([]);
     const [selectedConv, setSelectedConv] = useState<Conversacion | null>(null);
     const [mensajes, setMensajes] = useState<Mensaje[]>([]);
+    // El backend devuelve solo la última página; las anteriores se piden por cursor
+    const [cursorAnterior, setCursorAnterior] = useState<number | null>(null);
+    const [historial, setHistorial] = useState<{ mensajes: Mensaje[]; cursor: number | null } | null>(null);
     const [nuevoMensaje, setNuevoMensaje] = useState('');
     const [searchTerm, setSearchTerm] = useState('');
     const [loading, setLoading] = useState(false);
@@ -38,17 +43,35 @@ export default function AdminChatPage() {
     const [userSearchResults, setUserSearchResults] = useState<any[]>([]);
     const [isSearchingUsers, setIsSearchingUsers] = useState(false);
 
-    // Cargar conversaciones inicial y polling
     useEffect(() => {
         loadConversaciones();
-        const interval = setInterval(() => {
-            loadConversaciones();
-            if (selectedConv) {
-                loadMensajes(selectedConv.id);
-            }
-        }, 5000);
-        return () => clearInterval(interval);
-    }, [selectedConv]);
+    }, []);
+
+    // Novedades en vivo: cualquier evento reordena la lista (una recarga por
+    // segundo como máximo) y los de la conversación abierta se aplican directo
+    useEffect(() => {
+        const convId = selectedConv ? selectedConv.id : null;
+        const lista = agrupar(() => loadConversaciones(), 1000);
+        const bajas = [
+            escucharChat((evento: EventoChat) => {
+                lista.disparar();
+                if (convId === null || evento.conversacionId !== convId) return;
+                setMensajes(prev => aplicarEventos(prev, [evento]));
+                if (evento.tipo === 'mensaje' && evento.mensaje?.senderRole === 'USUARIO') {
+                    marcarLeida(convId);
+                }
+            }),
+            // Lo publicado durante el corte se perdió: releer lista y conversación
+            alReconectar(() => {
+                lista.disparar();
+                if (convId !== null) loadMensajes(convId);
+            })
+        ];
+        return () => {
+            bajas.forEach(baja => baja());
+            lista.cancelar();
+        };
+    }, [selectedConv?.id]);
 
     // Scroll al fondo al recibir mensajes
     useEffect(() => {
@@ -73,7 +96,8 @@ export default function AdminChatPage() {
             const res = await axios.get(`/api/chat/conversacion/${convId}`, {
                 headers: { Authorization: `Bearer ${token}` }
             });
-            setMensajes(res.data.mensajes || []);
+            setMensajes(conRecientes(convId, res.data.mensajes || []));
+            setCursorAnterior(res.data.cursorAnterior ?? null);
             // Actualizar unread count localmente
             setConversaciones(prev => prev.map(c =>
                 c.id === convId ? { ...c, unreadCount: 0 }:c
@@ -83,6 +107,34 @@ export default function AdminChatPage() {
         }
     };
 
+    const marcarLeida = async (convId: number) => {
+        try {
+            const token = localStorage.getItem('token');
+            await axios.post(`/api/chat/conversacion/${convId}/leer`, {}, {
+                headers: { Authorization: `Bearer ${token}` }
+            });
+        } catch (error) {
+            console.error('Error marking conversation as read:', error);
+        }
+    };
+
+    const cargarAnteriores = async () => {
+        const cursor = historial ? historial.cursor : cursorAnterior;
+        if (!selectedConv || cursor == null) return;
+        try {
+            const token = localStorage.getItem('token');
+            const res = await axios.get(`/api/chat/conversacion/${selectedConv.id}?antesDe=${cursor}`, {
+                headers: { Authorization: `Bearer ${token}` }
+            });
+            setHistorial({
+                mensajes: [...(res.data.mensajes || []), ...(historial?.mensajes || [])],
+                cursor: res.data.cursorAnterior ?? null
+            });
+        } catch (error) {
+            console.error('Error loading older messages:', error);
+        }
+    };
+
     const enviarMensaje = async () => {
         if (!nuevoMensaje.trim() || !selectedConv) return;
 
@@ -97,9 +149,9 @@ export default function AdminChatPage() {
             );
 
             if (res.data.success) {
-                setMensajes([...mensajes, res.data.mensaje]);
+                // Puede haber llegado antes por el canal en vivo
+                setMensajes(prev => aplicarEventos(prev, [{ tipo: 'mensaje', conversacionId: selectedConv.id, mensaje: res.data.mensaje }]));
                 setNuevoMensaje('');
-                loadConversaciones(); // Actualizar orden
             }
         } catch (error) {
             console.error('Error sending message:', error);
@@ -143,7 +195,9 @@ export default function AdminChatPage() {
 
             if (res.data.conversacion) {
                 setSelectedConv(res.data.conversacion);
-                setMensajes(res.data.mensajes || []);
+                setMensajes(conRecientes(res.data.conversacion.id, res.data.mensajes || []));
+                setCursorAnterior(res.data.cursorAnterior ?? null);
+                setHistorial(null);
                 setShowNewChat(false);
                 setUserSearchTerm('');
                 setUserSearchResults([]);
@@ -261,6 +315,7 @@ export default function AdminChatPage() {
                                     whileTap={{ scale: 0.98 }}
                                     onClick={() => {
                                         setSelectedConv(conv);
+                                        setHistorial(null);
                                         loadMensajes(conv.id);
                                     }}
                                     className={`w-full p-4 flex items-start gap-4 border-b border-slate-50 transition-all ${selectedConv?.id === conv.id
@@ -339,7 +394,18 @@ export default function AdminChatPage() {
                                         <p className="text-slate-300 text-sm">Iniciá la conversación</p>
                                     </div>
                                 ):(
-                                    mensajes.map((msg, idx) => (
+                                    <>
+                                    {(historial ? historial.cursor : cursorAnterior) != null && (
+                                        <div className="text-center">
+                                            <button
+                                                onClick={cargarAnteriores}
+                                                className="text-xs font-semibold text-teal-600 hover:text-teal-700 px-4 py-1.5 rounded-full bg-slate-50 border border-slate-100"
+                                            >
+                                                Cargar mensajes anteriores
+                                            </button>
+                                        </div>
+                                    )}
+                                    {[...(historial?.mensajes || []), ...mensajes].map((msg, idx) => (
                                         <motion.div
                                             key={msg.id}
                                             initial={{ opacity: 0, y: 10 }}
@@ -365,7 +431,8 @@ export default function AdminChatPage() {
                                                 </div>
                                             </div>
                                         </motion.div>
-                                    ))
+                                    ))}
+                                    </>
                                 )}
                                 <div ref={messagesEndRef} />
                             </div>
@@ -16,6 +16,7 @@ import {
     ChevronDown
 } from "lucide-react";
 import axios from "axios";
+import { descargarReporte } from "@/lib/reportes";
 import { motion, AnimatePresence } from "framer-motion";
 import {
     BarChart,
@@ -58,22 +59,11 @@ export default function RankingsVyVPage() {
         }
     };
 
+    // Excel y PDF se generan en la cola de reportes, fuera de los hilos del servidor web
     const handleDownloadExcel = async () => {
         setDownloading(true);
         try {
-            const token = localStorage.getItem("token");
-            const response = await axios.get("/api/reportes/rankings/export-excel", {
-                headers: { Authorization: `Bearer ${token}` },
-                responseType: 'blob'
-            });
-
-            const url = window.URL.createObjectURL(new Blob([response.data]));
-            const link = document.createElement('a');
-            link.href = url;
-            link.setAttribute('download', 'rankings_voz_y_voto.xlsx');
-            document.body.appendChild(link);
-            link.click();
-            link.remove();
+            await descargarReporte("/api/reportes/rankings/export-excel/job", "rankings_voz_y_voto.xlsx");
         } catch (error) {
             console.error("Error downloading excel:", error);
         } finally {
@@ -85,19 +75,7 @@ export default function RankingsVyVPage() {
         setDownloading(true);
         setShowExportMenu(false);
         try {
-            const token = localStorage.getItem("token");
-            const response = await axios.get(`/api/reportes/rankings/export-pdf?type=${type}`, {
-                headers: { Authorization: `Bearer ${token}` },
-                responseType: 'blob'
-            });
-
-            const url = window.URL.createObjectURL(new Blob([response.data]));
-            const link = document.createElement('a');
-            link.href = url;
-            link.setAttribute('download', `rankings_vyv_${type}.pdf`);
-            document.body.appendChild(link);
-            link.click();
-            link.remove();
+            await descargarReporte(`/api/reportes/rankings/export-pdf/job?type=${type}`, `rankings_vyv_${type}.pdf`);
         } catch (error) {
             console.error("Error downloading pdf:", error);
         } finally {
@@ -26,6 +26,7 @@ import {
 } from "lucide-react";
 import { motion, AnimatePresence } from "framer-motion";
 import { toast } from "sonner";
+import { descargarReporte } from "@/lib/reportes";
 
 interface Socio {
     id: number;
@@ -468,6 +469,12 @@ export default function SociosPage() {
         setExporting(format);
         setShowExportMenu(false);
         try {
+            // El PDF del padrón completo se genera en la cola de reportes
+            if (format === "pdf") {
+                await descargarReporte("/api/socios/export/pdf/job", "padron_socios.pdf");
+                toast.success(`Padrón exportado a ${format.toUpperCase()} exitosamente`);
+                return;
+            }
             const token = localStorage.getItem("token");
             const response = await axios.get(
                 `/api/socios/export/${format}`,
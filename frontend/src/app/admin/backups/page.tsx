@@ -27,6 +27,18 @@ interface BackupHistorial {
   tipo: 'AUTOMATICO' | 'MANUAL' | 'PRE_RESTAURACION';
   creadoPor: string;
   disponible: boolean;
+  incremental?: boolean;
+  notas?: string;
+}
+
+interface ProgresoBackup {
+  operacion: 'BACKUP' | 'RESTAURACION';
+  estado: 'EN_CURSO' | 'LISTO' | 'ERROR';
+  fase: string;
+  tablasHechas: number;
+  tablasTotal: number;
+  filas: number;
+  error: string | null;
 }
 
 export default function BackupsPage() {
@@ -52,6 +64,9 @@ export default function BackupsPage() {
   const [undoInfo, setUndoInfo] = useState<{ disponible: boolean, backup?: any } | null>(null);
   const [deshaciendo, setDeshaciendo] = useState(false);
 
+  // Avance de la operación en curso (backup o restauración)
+  const [progreso, setProgreso] = useState<ProgresoBackup | null>(null);
+
   // Mensajes
   const [mensaje, setMensaje] = useState<{ tipo: 'success' | 'error'; texto: string } | null>(null);
 
@@ -156,6 +171,28 @@ export default function BackupsPage() {
     }
   };
 
+  // Backups y restauraciones corren en segundo plano: consultar hasta que terminen
+  const esperarOperacion = async (): Promise<ProgresoBackup> => {
+    while (true) {
+      await new Promise(resolve => setTimeout(resolve, 1000));
+      const response = await fetch(`${API_URL}/api/admin/backups/progreso`, {
+        headers: { 'Authorization': `Bearer ${token}` }
+      });
+      if (!response.ok) continue;
+      const actual: ProgresoBackup = await response.json();
+      setProgreso(actual);
+      if (actual.estado !== 'EN_CURSO') {
+        setProgreso(null);
+        return actual;
+      }
+    }
+  };
+
+  const textoProgreso = (p: ProgresoBackup | null, porDefecto: string) =>
+    p && p.tablasTotal > 0
+      ? `${p.fase} ${p.tablasHechas}/${p.tablasTotal} tablas (${p.filas.toLocaleString('es-PY')} filas)...`
+      : porDefecto;
+
   const crearBackupManual = async () => {
     try {
       setCreandoBackup(true);
@@ -163,7 +200,10 @@ export default function BackupsPage() {
         method: 'POST',
         headers: { 'Authorization': `Bearer ${token}` }
       });
-      if (response.ok) {
+      const resultado = response.ok ? await esperarOperacion() : null;
+      if (resultado && resultado.estado === 'ERROR') {
+        mostrarMensaje('error', resultado.error || 'Error al crear backup');
+      } else if (resultado) {
         mostrarMensaje('success', 'Backup creado exitosamente');
         cargarConfiguracion();
         cargarUndoInfo(); // Recargar undo por si acaso
@@ -195,7 +235,10 @@ export default function BackupsPage() {
         headers: { 'Authorization': `Bearer ${token}` }
       });
 
-      if (response.ok) {
+      const resultado = response.ok ? await esperarOperacion() : null;
+      if (resultado && resultado.estado === 'ERROR') {
+        mostrarMensaje('error', resultado.error || 'Error al deshacer restauración');
+      } else if (resultado) {
         mostrarMensaje('success', 'Se ha deshecho la restauración correctamente.');
         cargarHistorial();
         cargarUndoInfo();
@@ -224,7 +267,10 @@ export default function BackupsPage() {
         body: JSON.stringify({ confirmacion: 'RESTAURAR' })
       });
 
-      if (response.ok) {
+      const resultado = response.ok ? await esperarOperacion() : null;
+      if (resultado && resultado.estado === 'ERROR') {
+        mostrarMensaje('error', resultado.error || 'Error al restaurar backup');
+      } else if (resultado) {
         mostrarMensaje('success', 'Backup restaurado exitosamente. Se recomienda recargar la página.');
         setBackupARestaurar(null);
         setBackupARestaurar(null);
@@ -379,7 +425,7 @@ export default function BackupsPage() {
               disabled={deshaciendo}
               className="px-6 py-2 bg-indigo-600 hover:bg-indigo-700 text-white rounded-xl font-medium transition-colors whitespace-nowrap disabled:opacity-50"
             >
-              {deshaciendo ? 'Revirtiendo...' : 'Deshacer Cambios'}
+              {deshaciendo ? textoProgreso(progreso, 'Revirtiendo...') : 'Deshacer Cambios'}
             </button>
           </motion.div>
         )}
@@ -454,7 +500,7 @@ export default function BackupsPage() {
             {creandoBackup ? (
               <>
                 <FiRefreshCw className="animate-spin" />
-                Creando backup...
+                {textoProgreso(progreso, 'Creando backup...')}
               </>
             ) : (
               <>
@@ -524,6 +570,11 @@ export default function BackupsPage() {
                           {backup.tipo === 'AUTOMATICO' ? '⏱️ Auto' :
                             backup.tipo === 'MANUAL' ? '👤 Manual' : '🔒 Pre-restauración'}
                         </span>
+                        {backup.incremental && (
+                          <span className="px-2 py-0.5 rounded-full text-xs bg-purple-100 text-purple-700" title={backup.notas}>
+                            Δ Incremental
+                          </span>
+                        )}
                         {backup.creadoPor && <span>por {backup.creadoPor}</span>}
                       </div>
                     </div>
@@ -670,7 +721,7 @@ export default function BackupsPage() {
                   disabled={confirmacionTexto !== 'RESTAURAR' || restaurando !== null}
                   className="flex-1 py-3 bg-orange-600 hover:bg-orange-700 text-white rounded-xl font-medium transition-colors disabled:opacity-50 disabled:cursor-not-allowed"
                 >
-                  {restaurando ? 'Restaurando...' : 'Confirmar'}
+                  {restaurando ? textoProgreso(progreso, 'Restaurando...') : 'Confirmar'}
                 </button>
               </div>
             </motion.div>
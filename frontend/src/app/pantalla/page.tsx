@@ -4,6 +4,7 @@ import { useState, useEffect, useCallback } from "react";
 import { Target, Users, Briefcase, UserCheck, Star, Trophy } from "lucide-react";
 import { motion, AnimatePresence } from 'framer-motion';
 import axios from "axios";
+import { suscribir, alReconectar } from "@/lib/tiempoReal";
 
 interface Stats {
     totalPadron: number;
@@ -36,6 +37,13 @@ export default function PantallaPublicaPage() {
         return () => clearInterval(timer);
     }, []);
 
+    const aplicarMetas = (metas: MetasData) => {
+        setMetasData(metas);
+        const asesores = metas.asesores?.registradosVozYVoto || 0;
+        const funcionarios = metas.funcionarios?.registradosVozYVoto || 0;
+        setTotalRegistradosEnListas(asesores + funcionarios);
+    };
+
     const fetchData = useCallback(async () => {
         try {
             const [statsRes, metasRes, rankingRes] = await Promise.all([
@@ -46,12 +54,7 @@ export default function PantallaPublicaPage() {
 
             if (statsRes.data) setStats(statsRes.data);
             if (rankingRes.data) setRankingData(rankingRes.data);
-            if (metasRes.data) {
-                setMetasData(metasRes.data);
-                const asesores = metasRes.data.asesores?.registradosVozYVoto || 0;
-                const funcionarios = metasRes.data.funcionarios?.registradosVozYVoto || 0;
-                setTotalRegistradosEnListas(asesores + funcionarios);
-            }
+            if (metasRes.data) aplicarMetas(metasRes.data);
         } catch (error) {
             console.error("Error:", error);
         } finally {
@@ -59,10 +62,20 @@ export default function PantallaPublicaPage() {
         }
     }, []);
 
+    // Carga inicial por REST; después los cambios llegan por el canal en vivo
     useEffect(() => {
         fetchData();
-        const interval = setInterval(fetchData, 10000);
-        return () => clearInterval(interval);
+        const bajas = [
+            suscribir("/topic/dashboard", (delta) => {
+                if (delta.estadisticas) setStats(delta.estadisticas);
+                if (delta.metas) aplicarMetas(delta.metas);
+            }),
+            suscribir("/topic/ranking", (ranking) => {
+                if (Array.isArray(ranking)) setRankingData(ranking);
+            }),
+            alReconectar(fetchData)
+        ];
+        return () => bajas.forEach(baja => baja());
     }, [fetchData]);
 
     // Rotation Timers
@@ -4,6 +4,7 @@ import { useState, useEffect, useRef } from 'react';
 import { motion, AnimatePresence } from 'framer-motion';
 import { Bell, X, Check, CheckCheck, MessageSquare, AlertTriangle, AlertCircle, Info, Megaphone } from 'lucide-react';
 import axios from 'axios';
+import { suscribir, alReconectar } from '@/lib/tiempoReal';
 
 interface Aviso {
     id: number;
@@ -41,14 +42,22 @@ export default function AvisosBell() {
     const [soundEnabled, setSoundEnabled] = useState(true);
     const audioRef = useRef<HTMLAudioElement | null>(null);
 
-    // Inicializar y polling
+    const unreadRef = useRef(0);
+
+    // Inicializar y escuchar el contador de no leídos por el canal en vivo
     useEffect(() => {
         audioRef.current = new Audio('/sounds/notification.mp3');
         audioRef.current.volume = 0.6;
 
         loadAvisos();
-        const interval = setInterval(loadAvisos, 5000);
-        return () => clearInterval(interval);
+        const bajas = [
+            suscribir('/user/queue/no-leidos', (noLeidos) => {
+                // Solo se relee la lista si cambió el contador de avisos (el mensaje también trae el del chat)
+                if (noLeidos?.avisos !== undefined && noLeidos.avisos !== unreadRef.current) loadAvisos();
+            }),
+            alReconectar(loadAvisos)
+        ];
+        return () => bajas.forEach(baja => baja());
     }, []);
 
     // Mostrar modal automático para avisos prioritarios
@@ -84,11 +93,12 @@ export default function AvisosBell() {
             const newCount = countRes.data.unreadCount || 0;
 
             // Reproducir sonido si hay nuevos
-            if (newCount > unreadCount && soundEnabled && audioRef.current) {
+            if (newCount > unreadRef.current && soundEnabled && audioRef.current) {
                 audioRef.current.play().catch(() => { });
             }
 
             setAvisos(avisosRes.data || []);
+            unreadRef.current = newCount;
             setUnreadCount(newCount);
         } catch (error: any) {
             console.error('Error loading avisos:', error);
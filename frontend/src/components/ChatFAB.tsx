@@ -5,6 +5,8 @@ import { motion, AnimatePresence } from 'framer-motion';
 import { MessageCircle, X, Send, ChevronLeft, User, Search, Plus, Smile, Paperclip, Check, CheckCheck } from 'lucide-react';
 import axios from 'axios';
 import { parse as parseEmoji } from 'twemoji-parser';
+import { escucharChat, aplicarEventos, conRecientes, EventoChat } from '@/lib/chatEnVivo';
+import { suscribir, alReconectar, agrupar } from '@/lib/tiempoReal';
 
 interface Mensaje {
     id: number;
@@ -143,6 +145,10 @@ export default function ChatFAB() {
     const [conversaciones, setConversaciones] = useState<Conversacion[]>([]);
     const [selectedConv, setSelectedConv] = useState<Conversacion | null>(null);
     const [mensajes, setMensajes] = useState<Mensaje[]>([]);
+    // El backend devuelve solo la última página; las anteriores se piden por cursor
+    const [cursorAnterior, setCursorAnterior] = useState<number | null>(null);
+    const [historial, setHistorial] = useState<{ mensajes: Mensaje[]; cursor: number | null } | null>(null);
+    const unreadRef = useRef(0);
     const [unreadCount, setUnreadCount] = useState(0);
 
     // Búsqueda de usuarios
@@ -168,7 +174,6 @@ export default function ChatFAB() {
     useEffect(() => {
         audioRef.current = new Audio('/sounds/chat-notification.mp3');
         audioRef.current.volume = 0.5;
-        loadUnreadCount();
 
         // Obtener ID y rol del usuario actual desde localStorage
         try {
@@ -190,22 +195,64 @@ export default function ChatFAB() {
         }
     }, [isOpen]);
 
-    // Polling para nuevos mensajes
+    // Contador de no leídos: carga inicial por REST y después por el canal en vivo
     useEffect(() => {
-        const interval = setInterval(() => {
+        const aplicarNoLeidos = (total: number) => {
+            if (total > unreadRef.current && soundEnabled && audioRef.current) {
+                audioRef.current.play().catch(() => { });
+            }
+            unreadRef.current = total;
+            setUnreadCount(total);
+        };
+        const cargarNoLeidos = async () => {
             const token = localStorage.getItem('token');
             if (!token) return;
-
-            loadUnreadCount();
-            if (isOpen && view === 'chat' && selectedConv) {
-                loadMensajes(selectedConv.id);
+            try {
+                const res = await axios.get('/api/chat/unread-count', {
+                    headers: { Authorization: `Bearer ${token}` }
+                });
+                aplicarNoLeidos(res.data.unreadCount || 0);
+            } catch (error) {
+                console.error('Error loading unread count:', error);
             }
-            if (isOpen && view === 'list') {
-                loadConversaciones();
-            }
-        }, 5000);
-        return () => clearInterval(interval);
-    }, [isOpen, view, selectedConv]);
+        };
+        cargarNoLeidos();
+        const bajas = [
+            suscribir('/user/queue/no-leidos', (noLeidos) => {
+                if (noLeidos?.chat !== undefined) aplicarNoLeidos(noLeidos.chat);
+            }),
+            alReconectar(cargarNoLeidos)
+        ];
+        return () => bajas.forEach(baja => baja());
+    }, []);
+
+    // Novedades en vivo: lista y mensajes de la conversación abierta
+    useEffect(() => {
+        const convId = isOpen && view === 'chat' && selectedConv ? selectedConv.id : null;
+        // Con muchas conversaciones activas, una recarga de la lista por segundo como máximo
+        const lista = agrupar(() => loadConversaciones(), 1000);
+        const bajas = [
+            escucharChat((evento: EventoChat) => {
+                if (isOpen && view === 'list') {
+                    lista.disparar();
+                }
+                if (convId === null || evento.conversacionId !== convId) return;
+                setMensajes(prev => aplicarEventos(prev, [evento]));
+                if (evento.tipo === 'mensaje' && evento.mensaje?.senderId !== currentUserId) {
+                    marcarLeida(convId);
+                }
+            }),
+            // Lo publicado durante el corte se perdió: releer lo que está a la vista
+            alReconectar(() => {
+                if (convId !== null) loadMensajes(convId);
+                else if (isOpen) lista.disparar();
+            })
+        ];
+        return () => {
+            bajas.forEach(baja => baja());
+            lista.cancelar();
+        };
+    }, [isOpen, view, selectedConv?.id, currentUserId]);
 
     // Scroll al final cuando hay nuevos mensajes
     useEffect(() => {
@@ -224,28 +271,6 @@ export default function ChatFAB() {
         return () => clearTimeout(timer);
     }, [searchTerm, view]);
 
-    const loadUnreadCount = async () => {
-        try {
-            const token = localStorage.getItem('token');
-            if (!token) return; // Silent return if no token
-
-            const res = await axios.get('/api/chat/unread-count', {
-                headers: { Authorization: `Bearer ${token}` }
-            });
-            const newCount = res.data.unreadCount || 0;
-            if (newCount > unreadCount && soundEnabled && audioRef.current) {
-                audioRef.current.play().catch(() => { });
-            }
-            setUnreadCount(newCount);
-        } catch (error) {
-            // Ignore 403/401 logging to prevent console spam during logout
-            if (axios.isAxiosError(error) && (error.response?.status === 403 || error.response?.status === 401)) {
-                return;
-            }
-            console.error('Error loading unread count:', error);
-        }
-    };
-
     const loadConversaciones = async () => {
         try {
             const token = localStorage.getItem('token');
@@ -268,12 +293,41 @@ export default function ChatFAB() {
             if (newMensajes.length > mensajes.length && soundEnabled && audioRef.current) {
                 audioRef.current.play().catch(() => { });
             }
-            setMensajes(newMensajes);
+            setMensajes(conRecientes(convId, newMensajes));
+            setCursorAnterior(res.data.cursorAnterior ?? null);
         } catch (error) {
             console.error('Error loading messages:', error);
         }
     };
 
+    const marcarLeida = async (convId: number) => {
+        try {
+            const token = localStorage.getItem('token');
+            await axios.post(`/api/chat/conversacion/${convId}/leer`, {}, {
+                headers: { Authorization: `Bearer ${token}` }
+            });
+        } catch (error) {
+            console.error('Error marking conversation as read:', error);
+        }
+    };
+
+    const cargarAnteriores = async () => {
+        const cursor = historial ? historial.cursor : cursorAnterior;
+        if (!selectedConv || cursor == null) return;
+        try {
+            const token = localStorage.getItem('token');
+            const res = await axios.get(`/api/chat/conversacion/${selectedConv.id}?antesDe=${cursor}`, {
+                headers: { Authorization: `Bearer ${token}` }
+            });
+            setHistorial({
+                mensajes: [...(res.data.mensajes || []), ...(historial?.mensajes || [])],
+                cursor: res.data.cursorAnterior ?? null
+            });
+        } catch (error) {
+            console.error('Error loading older messages:', error);
+        }
+    };
+
     const searchUsers = async (term: string) => {
         setIsSearching(true);
         try {
@@ -298,7 +352,9 @@ export default function ChatFAB() {
             const res = await axios.get(`/api/chat/conversacion/${conv.id}`, {
                 headers: { Authorization: `Bearer ${token}` }
             });
-            setMensajes(res.data.mensajes || []);
+            setMensajes(conRecientes(conv.id, res.data.mensajes || []));
+            setCursorAnterior(res.data.cursorAnterior ?? null);
+            setHistorial(null);
         } catch (error) {
             console.error('Error opening conversation:', error);
         } finally {
@@ -316,7 +372,9 @@ export default function ChatFAB() {
 
             if (res.data.conversacion) {
                 setSelectedConv(res.data.conversacion);
-                setMensajes(res.data.mensajes || []);
+                setMensajes(conRecientes(res.data.conversacion.id, res.data.mensajes || []));
+                setCursorAnterior(res.data.cursorAnterior ?? null);
+                setHistorial(null);
                 setView('chat');
                 setSearchTerm('');
                 setUserSearchResults([]);
@@ -345,7 +403,9 @@ export default function ChatFAB() {
                     usuarioNombre: 'Soporte'
                 };
                 setSelectedConv(convWithSupport);
-                setMensajes(res.data.mensajes || []);
+                setMensajes(conRecientes(convWithSupport.id, res.data.mensajes || []));
+                setCursorAnterior(res.data.cursorAnterior ?? null);
+                setHistorial(null);
                 setView('chat');
                 loadConversaciones();
             }
@@ -367,7 +427,8 @@ export default function ChatFAB() {
                 { headers: { Authorization: `Bearer ${token}` } }
             );
             if (res.data.success) {
-                setMensajes([...mensajes, res.data.mensaje]);
+                // Puede haber llegado antes por el canal en vivo
+                setMensajes(prev => aplicarEventos(prev, [{ tipo: 'mensaje', conversacionId: res.data.conversacionId, mensaje: res.data.mensaje }]));
                 setNuevoMensaje('');
                 setShowEmojis(false);
                 if (!selectedConv) {
@@ -668,7 +729,7 @@ export default function ChatFAB() {
                                     {/* Header */}
                                     <div className="bg-gradient-to-r from-emerald-500 to-emerald-500 p-4 flex items-center gap-3">
                                         <button
-                                            onClick={() => { setView('list'); setSelectedConv(null); setMensajes([]); }}
+                                            onClick={() => { setView('list'); setSelectedConv(null); setMensajes([]); setHistorial(null); }}
                                             className="p-2 hover:bg-white/20 rounded-full transition-colors"
                                         >
                                             <ChevronLeft className="h-5 w-5 text-white" />
@@ -698,7 +759,18 @@ export default function ChatFAB() {
                                                 <p className="text-sm mt-1">Enviá un mensaje para comenzar</p>
                                             </div>
                                         ) : (
-                                            mensajes.map((msg) => {
+                                            <>
+                                            {(historial ? historial.cursor : cursorAnterior) != null && (
+                                                <div className="text-center">
+                                                    <button
+                                                        onClick={cargarAnteriores}
+                                                        className="text-xs font-medium text-emerald-600 hover:text-emerald-700 px-3 py-1 rounded-full bg-white shadow-sm"
+                                                    >
+                                                        Cargar mensajes anteriores
+                                                    </button>
+                                                </div>
+                                            )}
+                                            {[...(historial?.mensajes || []), ...mensajes].map((msg) => {
                                                 // Mensaje mío = a la derecha, mensaje del otro = a la izquierda
                                                 const isMyMessage = msg.senderId === currentUserId;
                                                 return (
@@ -733,7 +805,8 @@ export default function ChatFAB() {
                                                         </div>
                                                     </motion.div>
                                                 );
-                                            })
+                                            })}
+                                            </>
                                         )}
                                         <div ref={messagesEndRef} />
                                     </div>
@@ -18,6 +18,7 @@ import { RankMotivationWidget } from "./RankMotivationWidget";
 
 
 import { useUserActivity } from "@/context/UserActivityContext";
+import { suscribir, alReconectar, agrupar } from "@/lib/tiempoReal";
 import { UserActivityReportModal } from "./UserActivityReportModal";
 import { ActiveUsersModal } from "./ActiveUsersModal";
 import { ActivityWidget } from "./ActivityWidget";
@@ -122,16 +123,23 @@ export function AdminDashboard({ stats, desempeno, ranking, userActivity, onRefr
         if (!silent) setTimeout(() => setIsRefreshing(false), 800);
     };
 
-    // Efecto para intervalo y guardar estado
+    // Auto-Sync: refresca al llegar cambios por el canal en vivo (asignaciones,
+    // check-ins, metas), agrupados en un refresco cada 3 segundos como máximo
     useEffect(() => {
         // Guardar persistencia
         localStorage.setItem("dashboard_autosync", String(autoRefresh));
 
-        let interval: NodeJS.Timeout;
-        if (autoRefresh) {
-            interval = setInterval(() => handleRefresh(true), 10000);
-        }
-        return () => { if (interval) clearInterval(interval); };
+        if (!autoRefresh) return;
+        const refresco = agrupar(() => handleRefresh(true), 3000);
+        const bajas = [
+            suscribir("/topic/dashboard", refresco.disparar),
+            suscribir("/topic/asignaciones", refresco.disparar),
+            alReconectar(refresco.disparar)
+        ];
+        return () => {
+            bajas.forEach(baja => baja());
+            refresco.cancelar();
+        };
     }, [autoRefresh]);
 
     if (!stats) {
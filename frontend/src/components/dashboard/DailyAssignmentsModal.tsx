@@ -6,6 +6,7 @@ import { motion, AnimatePresence } from "framer-motion";
 import { BarChart, Bar, XAxis, YAxis, CartesianGrid, Tooltip, ResponsiveContainer } from "recharts";
 import axios from "axios";
 import { toast } from "sonner";
+import { descargarReporte } from "@/lib/reportes";
 
 interface DailyAssignmentsModalProps {
     isOpen: boolean;
@@ -46,19 +47,9 @@ export function DailyAssignmentsModal({ isOpen, onClose }: DailyAssignmentsModal
 
     const handleExportExcel = async () => {
         try {
-            const token = localStorage.getItem("token");
-            const res = await axios.get(`/api/asignaciones/exportar-asignaciones-excel?dias=${dias}`, {
-                headers: { Authorization: `Bearer ${token}` },
-                responseType: 'blob'
-            });
-
-            const url = window.URL.createObjectURL(new Blob([res.data]));
-            const link = document.createElement('a');
-            link.href = url;
-            link.setAttribute('download', `asignaciones_diarias_${dias}_dias.xlsx`);
-            document.body.appendChild(link);
-            link.click();
-            link.remove();
+            // Generado en la cola de reportes
+            await descargarReporte(`/api/asignaciones/exportar-asignaciones-excel/job?dias=${dias}`,
+                `asignaciones_diarias_${dias}_dias.xlsx`);
             toast.success("Excel descargado correctamente");
         } catch (error) {
             console.error("Error downloading Excel:", error);
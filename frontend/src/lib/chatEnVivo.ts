@@ -0,0 +1,74 @@
+import { suscribir } from '@/lib/tiempoReal';
+
+// Novedades del chat por el canal en vivo (/user/queue/chat, ver TiempoRealService).
+// Los no leídos llegan aparte, en /user/queue/no-leidos.
+
+export interface EventoChat {
+    tipo: 'mensaje' | 'leidos' | 'conversacion';
+    conversacionId: number;
+    mensaje?: MensajeChat;
+    lector?: 'ADMIN' | 'USUARIO';
+    readAt?: string;
+}
+
+interface MensajeChat {
+    id: number;
+    senderId: number;
+    senderRole: 'ADMIN' | 'USUARIO';
+    readAt: string | null;
+}
+
+// Eventos de los últimos segundos: cubren los que llegan mientras una carga
+// por REST de la misma conversación está en vuelo
+const RECIENTES_MS = 10000;
+const recientes: { llegada: number; evento: EventoChat }[] = [];
+
+/**
+ * Escucha los eventos del chat (de todas las conversaciones visibles para el
+ * usuario) hasta que se llame a la función devuelta.
+ */
+export function escucharChat(alRecibir: (evento: EventoChat) => void): () => void {
+    return suscribir('/user/queue/chat', (evento: EventoChat) => {
+        const ahora = Date.now();
+        while (recientes.length > 0 && ahora - recientes[0].llegada > RECIENTES_MS) {
+            recientes.shift();
+        }
+        // Varios componentes escuchando reciben el mismo objeto
+        if (!recientes.some(r => r.evento === evento)) {
+            recientes.push({ llegada: ahora, evento });
+        }
+        alRecibir(evento);
+    });
+}
+
+/**
+ * Mensajes recién leídos por REST más los eventos de esa conversación que
+ * llegaron en los últimos segundos (el REST pudo haberse leído antes).
+ */
+export function conRecientes<T extends MensajeChat>(conversacionId: number, mensajes: T[]): T[] {
+    const limite = Date.now() - RECIENTES_MS;
+    return aplicarEventos(mensajes, recientes
+        .filter(r => r.llegada >= limite && r.evento.conversacionId === conversacionId)
+        .map(r => r.evento));
+}
+
+/**
+ * Aplica los eventos a la lista de mensajes: agrega los nuevos (sin repetir
+ * los que ya vinieron por REST) y marca como leídos los del otro lado.
+ */
+export function aplicarEventos<T extends MensajeChat>(mensajes: T[], eventos: EventoChat[]): T[] {
+    let resultado = mensajes;
+    for (const evento of eventos) {
+        if (evento.tipo === 'mensaje' && evento.mensaje) {
+            const nuevo = evento.mensaje as T;
+            if (!resultado.some(m => m.id === nuevo.id)) {
+                resultado = [...resultado, nuevo];
+            }
+        } else if (evento.tipo === 'leidos') {
+            resultado = resultado.map(m =>
+                m.senderRole !== evento.lector && !m.readAt ? { ...m, readAt: evento.readAt ?? null } : m
+            );
+        }
+    }
+    return resultado;
+}
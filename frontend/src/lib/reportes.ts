@@ -0,0 +1,87 @@
+import axios from 'axios';
+import { suscribir } from '@/lib/tiempoReal';
+
+// Descarga de reportes pesados por la cola del backend (ReporteJobService):
+// se encola con el POST .../job, se espera el aviso en /user/queue/reportes
+// (con consulta del estado como respaldo) y se baja el archivo ya generado.
+
+interface TrabajoReporte {
+    id: string;
+    estado: 'PENDIENTE' | 'EN_PROCESO' | 'LISTO' | 'ERROR';
+    nombreArchivo: string;
+    error?: string | null;
+}
+
+// Respaldo por si el canal en vivo no está conectado
+const CONSULTA_MS = 4000;
+const ESPERA_MAX_MS = 15 * 60 * 1000;
+
+const terminado = (t: TrabajoReporte) => t.estado === 'LISTO' || t.estado === 'ERROR';
+
+/**
+ * Encola el reporte, espera a que termine y lo descarga. Lanza un Error con
+ * el mensaje del backend si la cola está llena o la generación falla.
+ */
+export async function descargarReporte(urlJob: string, nombreArchivo?: string): Promise<void> {
+    const token = localStorage.getItem('token');
+    const headers = { Authorization: `Bearer ${token}` };
+
+    // Suscripción antes del POST: el aviso puede llegar antes que la respuesta
+    const avisos = new Map<string, TrabajoReporte>();
+    let alAvisar: (() => void) | null = null;
+    const baja = suscribir('/user/queue/reportes', (t: TrabajoReporte) => {
+        avisos.set(t.id, t);
+        alAvisar?.();
+    });
+
+    try {
+        let trabajo: TrabajoReporte;
+        try {
+            trabajo = (await axios.post(urlJob, {}, { headers })).data;
+        } catch (error) {
+            if (axios.isAxiosError(error) && error.response?.data?.error) {
+                throw new Error(error.response.data.error);
+            }
+            throw error;
+        }
+
+        const limite = Date.now() + ESPERA_MAX_MS;
+        while (!terminado(trabajo)) {
+            const avisado = avisos.get(trabajo.id);
+            if (avisado) {
+                trabajo = avisado;
+                break;
+            }
+            if (Date.now() > limite) {
+                throw new Error('El reporte está tardando demasiado, intente nuevamente más tarde');
+            }
+            await new Promise<void>(resolve => {
+                const t = setTimeout(resolve, CONSULTA_MS);
+                alAvisar = () => { clearTimeout(t); resolve(); };
+            });
+            alAvisar = null;
+            if (!avisos.has(trabajo.id)) {
+                trabajo = (await axios.get(`/api/reportes/jobs/${trabajo.id}`, { headers })).data;
+            }
+        }
+
+        if (trabajo.estado === 'ERROR') {
+            throw new Error(trabajo.error || 'No se pudo generar el reporte');
+        }
+
+        const archivo = await axios.get(`/api/reportes/jobs/${trabajo.id}/descargar`, {
+            headers,
+            responseType: 'blob'
+        });
+        const url = window.URL.createObjectURL(archivo.data);
+        const link = document.createElement('a');
+        link.href = url;
+        link.download = nombreArchivo || trabajo.nombreArchivo;
+        document.body.appendChild(link);
+        link.click();
+        link.remove();
+        window.URL.revokeObjectURL(url);
+    } finally {
+        baja();
+    }
+}
@@ -0,0 +1,292 @@
+// Push en vivo por STOMP sobre WebSocket (/api/ws, ver WebSocketConfig y
+// TiempoRealService en el backend). Cliente mínimo de STOMP 1.2: el canal es
+// solo de lectura, así que basta con CONNECT, SUBSCRIBE, UNSUBSCRIBE y latidos.
+// Una sola conexión por pestaña, compartida por todos los componentes.
+
+type AlRecibir = (cuerpo: any) => void;
+
+const LATIDO_MS = 10000;
+// Sin nada del servidor (mensajes o latidos) en este tiempo, la conexión se da por muerta
+const SILENCIO_MAX_MS = 25000;
+const REINTENTO_MAX_MS = 30000;
+// Margen antes de cerrar sin suscriptores (cambio de página que vuelve a suscribir)
+const CIERRE_DIFERIDO_MS = 3000;
+
+const suscriptores = new Map<string, Set<AlRecibir>>();
+const idPorDestino = new Map<string, string>();
+const destinoPorId = new Map<string, string>();
+const reconexiones = new Set<() => void>();
+
+let socket: WebSocket | null = null;
+let conectado = false;
+let yaConecto = false;
+let tokenConexion: string | null = null;
+let tokenRechazado: string | null = null;
+let siguienteId = 0;
+let reintentos = 0;
+let ultimoDato = 0;
+let latido: ReturnType<typeof setInterval> | null = null;
+let reintento: ReturnType<typeof setTimeout> | null = null;
+let cierre: ReturnType<typeof setTimeout> | null = null;
+
+/**
+ * Suscribe a un destino (/topic/... o /user/queue/...) hasta que se llame a
+ * la función devuelta. El cuerpo llega ya parseado como JSON.
+ */
+export function suscribir(destino: string, alRecibir: AlRecibir): () => void {
+    if (typeof window === 'undefined') return () => { };
+    let callbacks = suscriptores.get(destino);
+    if (!callbacks) {
+        callbacks = new Set();
+        suscriptores.set(destino, callbacks);
+        if (conectado) enviarSuscripcion(destino);
+    }
+    callbacks.add(alRecibir);
+    asegurarConexion();
+
+    return () => {
+        const actuales = suscriptores.get(destino);
+        if (!actuales) return;
+        actuales.delete(alRecibir);
+        if (actuales.size === 0) {
+            suscriptores.delete(destino);
+            const id = idPorDestino.get(destino);
+            if (id) {
+                idPorDestino.delete(destino);
+                destinoPorId.delete(id);
+                if (conectado) enviar(`UNSUBSCRIBE\nid:${id}\n\n`);
+            }
+        }
+        if (suscriptores.size === 0 && !cierre) {
+            cierre = setTimeout(() => {
+                cierre = null;
+                if (suscriptores.size === 0) cerrar();
+            }, CIERRE_DIFERIDO_MS);
+        }
+    };
+}
+
+/**
+ * Avisa cada vez que la conexión se recupera tras un corte. Lo publicado
+ * mientras no hubo conexión se perdió: quien muestre datos debe releerlos
+ * por REST.
+ */
+export function alReconectar(accion: () => void): () => void {
+    reconexiones.add(accion);
+    return () => { reconexiones.delete(accion); };
+}
+
+/**
+ * Agrupa avisos seguidos en una sola ejecución cada `intervaloMs`, para
+ * pantallas que ante un push releen por REST lo que el mensaje no trae.
+ */
+export function agrupar(accion: () => void, intervaloMs: number): { disparar: () => void; cancelar: () => void } {
+    let pendiente: ReturnType<typeof setTimeout> | null = null;
+    let ultima = 0;
+    return {
+        disparar: () => {
+            if (pendiente) return;
+            const espera = Math.max(0, ultima + intervaloMs - Date.now());
+            pendiente = setTimeout(() => {
+                pendiente = null;
+                ultima = Date.now();
+                accion();
+            }, espera);
+        },
+        cancelar: () => {
+            if (pendiente) clearTimeout(pendiente);
+            pendiente = null;
+        }
+    };
+}
+
+function tokenActual(): string | null {
+    const token = localStorage.getItem('token');
+    return token && token !== tokenRechazado ? token : null;
+}
+
+function asegurarConexion() {
+    if (cierre) {
+        clearTimeout(cierre);
+        cierre = null;
+    }
+    // Inicio o cierre de sesión desde la última conexión: las colas /user dependen del token
+    if (socket && tokenActual() !== tokenConexion) {
+        cerrar();
+    }
+    if (!socket && !reintento) abrir();
+}
+
+function urlSocket(): string {
+    if (process.env.NEXT_PUBLIC_WS_URL) return process.env.NEXT_PUBLIC_WS_URL;
+    const protocolo = window.location.protocol === 'https:' ? 'wss:' : 'ws:';
+    return `${protocolo}//${window.location.host}/api/ws`;
+}
+
+function abrir() {
+    tokenConexion = tokenActual();
+    let ws: WebSocket;
+    try {
+        ws = new WebSocket(urlSocket());
+    } catch {
+        programarReintento();
+        return;
+    }
+    socket = ws;
+
+    ws.onopen = () => {
+        const cabeceras = ['accept-version:1.2', `heart-beat:${LATIDO_MS},${LATIDO_MS}`, `host:${window.location.hostname}`];
+        if (tokenConexion) cabeceras.push(`Authorization:Bearer ${tokenConexion}`);
+        ws.send(`CONNECT\n${cabeceras.join('\n')}\n\n\0`);
+    };
+    ws.onmessage = (e) => {
+        if (ws !== socket) return;
+        ultimoDato = Date.now();
+        if (typeof e.data === 'string') procesar(e.data);
+    };
+    const alCaer = () => {
+        if (ws !== socket) return;
+        limpiarConexion();
+        if (suscriptores.size > 0) programarReintento();
+    };
+    ws.onclose = alCaer;
+    // Algunos entornos no emiten close si el socket nunca llegó a abrir
+    ws.onerror = alCaer;
+}
+
+function procesar(datos: string) {
+    for (const crudo of datos.split('\0')) {
+        // Los latidos son saltos de línea sueltos, antes o entre tramas
+        const trama = crudo.replace(/^[\r\n]+/, '');
+        if (!trama) continue;
+        const finCabeceras = trama.indexOf('\n\n');
+        const encabezado = finCabeceras >= 0 ? trama.substring(0, finCabeceras) : trama;
+        const cuerpo = finCabeceras >= 0 ? trama.substring(finCabeceras + 2) : '';
+        const [comando, ...lineas] = encabezado.split('\n').map(l => l.replace(/\r$/, ''));
+        const cabeceras: Record<string, string> = {};
+        for (const linea of lineas) {
+            const i = linea.indexOf(':');
+            // STOMP 1.2: vale la primera aparición de cada cabecera
+            if (i > 0 && !(linea.substring(0, i) in cabeceras)) {
+                cabeceras[linea.substring(0, i)] = desescapar(linea.substring(i + 1));
+            }
+        }
+
+        if (comando === 'CONNECTED') {
+            alConectar();
+        } else if (comando === 'MESSAGE') {
+            const destino = destinoPorId.get(cabeceras['subscription']);
+            const callbacks = destino ? suscriptores.get(destino) : undefined;
+            if (!callbacks) continue;
+            let valor: any;
+            try {
+                valor = cuerpo ? JSON.parse(cuerpo) : null;
+            } catch {
+                continue;
+            }
+            callbacks.forEach(cb => {
+                try {
+                    cb(valor);
+                } catch (error) {
+                    console.error('Error procesando mensaje en vivo:', error);
+                }
+            });
+        } else if (comando === 'ERROR') {
+            const mensaje = cabeceras['message'] || '';
+            console.warn('Canal en vivo rechazado:', mensaje);
+            // Token vencido o revocado: seguir como anónimo (los /topic siguen llegando)
+            if (tokenConexion && mensaje.includes('Token')) tokenRechazado = tokenConexion;
+        }
+    }
+}
+
+function alConectar() {
+    const reconexion = yaConecto;
+    conectado = true;
+    yaConecto = true;
+    reintentos = 0;
+    ultimoDato = Date.now();
+    idPorDestino.clear();
+    destinoPorId.clear();
+    suscriptores.forEach((_, destino) => enviarSuscripcion(destino));
+
+    latido = setInterval(() => {
+        if (Date.now() - ultimoDato > SILENCIO_MAX_MS) {
+            // Proxy o red cortaron sin cerrar el socket
+            socket?.close();
+            return;
+        }
+        enviar('\n');
+    }, LATIDO_MS);
+
+    if (reconexion) {
+        reconexiones.forEach(accion => {
+            try {
+                accion();
+            } catch (error) {
+                console.error('Error resincronizando tras reconectar:', error);
+            }
+        });
+    }
+}
+
+function enviarSuscripcion(destino: string) {
+    // Colas privadas solo con sesión; el backend rechaza la trama y cerraría la conexión
+    if (destino.startsWith('/user/') && !tokenConexion) return;
+    const id = `sub-${siguienteId++}`;
+    idPorDestino.set(destino, id);
+    destinoPorId.set(id, destino);
+    enviar(`SUBSCRIBE\nid:${id}\ndestination:${destino}\n\n`);
+}
+
+function enviar(trama: string) {
+    if (socket && socket.readyState === WebSocket.OPEN) {
+        socket.send(trama === '\n' ? trama : `${trama}\0`);
+    }
+}
+
+function programarReintento() {
+    if (reintento) return;
+    // Backoff con algo de azar para que las pantallas no reconecten todas juntas
+    const espera = Math.min(REINTENTO_MAX_MS, 1000 * 2 ** reintentos) * (0.5 + Math.random() / 2);
+    reintentos++;
+    reintento = setTimeout(() => {
+        reintento = null;
+        if (suscriptores.size > 0 && !socket) abrir();
+    }, espera);
+}
+
+function limpiarConexion() {
+    if (latido) clearInterval(latido);
+    latido = null;
+    socket = null;
+    conectado = false;
+    idPorDestino.clear();
+    destinoPorId.clear();
+}
+
+function cerrar() {
+    const ws = socket;
+    limpiarConexion();
+    if (ws) {
+        ws.onclose = null;
+        ws.onerror = null;
+        try {
+            if (ws.readyState === WebSocket.OPEN) ws.send('DISCONNECT\n\n\0');
+            ws.close();
+        } catch {
+            // ya cerrado
+        }
+    }
+}
+
+function desescapar(valor: string): string {
+    return valor.replace(/\\([rnc\\])/g, (_, c) => (c === 'r' ? '\r' : c === 'n' ? '\n' : c === 'c' ? ':' : '\\'));
+}
+
+if (typeof window !== 'undefined') {
+    // Login o logout en otra pestaña
+    window.addEventListener('storage', (e) => {
+        if (e.key === 'token' && suscriptores.size > 0) asegurarConexion();
+    });
+}